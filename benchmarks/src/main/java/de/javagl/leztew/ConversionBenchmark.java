@@ -0,0 +1,104 @@
+/*
+ * www.javagl.de - leztew
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.leztew;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for extracting the {@link Node} objects from a specification,
+ * with the {@link LeztewConverter} and with the
+ * {@link SpecificationScanner}
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConversionBenchmark
+{
+    /**
+     * The pool with the Asciidoctor instance
+     */
+    private AsciidoctorPool asciidoctorPool;
+
+    /**
+     * Create and warm up the {@link AsciidoctorPool}
+     */
+    @Setup(Level.Trial)
+    public void setUp()
+    {
+        asciidoctorPool = new AsciidoctorPool(1);
+        asciidoctorPool.warmUp();
+    }
+
+    /**
+     * Close the {@link AsciidoctorPool}
+     */
+    @TearDown(Level.Trial)
+    public void tearDown()
+    {
+        asciidoctorPool.close();
+    }
+
+    /**
+     * Convert the specification with the {@link LeztewConverter}
+     * 
+     * @param state The {@link SpecificationState}
+     * @return The {@link Node} objects
+     */
+    @Benchmark
+    public Category convert(SpecificationState state)
+    {
+        return asciidoctorPool.convert(state.content).getNodes();
+    }
+
+    /**
+     * Scan the specification with the {@link SpecificationScanner}
+     * 
+     * @param state The {@link SpecificationState}
+     * @return The {@link Node} objects
+     */
+    @Benchmark
+    public Category scan(SpecificationState state)
+    {
+        return new SpecificationScanner().scan(state.content);
+    }
+}
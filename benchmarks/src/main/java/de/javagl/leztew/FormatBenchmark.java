@@ -0,0 +1,129 @@
+/*
+ * www.javagl.de - leztew
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.leztew;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+/**
+ * Benchmarks for loading the output with spread types in sub-categories
+ * from the different {@link OutputFormat}s, with the
+ * {@link CategoryLoader}.
+ * 
+ * The data is held in memory, so that only the parsing is measured. The
+ * size of the data for each format is printed during the setup.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FormatBenchmark
+{
+    /**
+     * The format: <code>json</code>, <code>smile</code>,
+     * <code>smile-shared</code> (Smile with shared string values), or
+     * <code>cbor</code>
+     */
+    @Param({ "json", "smile", "smile-shared", "cbor" })
+    public String format;
+
+    /**
+     * The output format
+     */
+    private OutputFormat outputFormat;
+
+    /**
+     * The data of the output in the format
+     */
+    private byte data[];
+
+    /**
+     * Write the output with spread types in sub-categories in the format
+     * 
+     * @param state The {@link SpecificationState}
+     * @throws IOException If an IO error occurs
+     */
+    @Setup(Level.Trial)
+    public void setUp(SpecificationState state) throws IOException
+    {
+        String prefix = "smile-";
+        boolean sharedStrings = format.startsWith(prefix);
+        String name = sharedStrings ? "smile" : format;
+        outputFormat = OutputFormat.fromName(name);
+        ObjectWriter objectWriter = outputFormat.createWriter(sharedStrings);
+        Category nodesSpreadSub = Categories.spreadTypes(state.nodes, true);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        objectWriter.writeValue(outputStream, nodesSpreadSub);
+        data = outputStream.toByteArray();
+        System.out.println("Size of " + state.specification + " as "
+            + format + ": " + data.length + " bytes");
+    }
+
+    /**
+     * Load the output, detecting the format
+     * 
+     * @return The output
+     * @throws IOException If an IO error occurs
+     */
+    @Benchmark
+    public Category load() throws IOException
+    {
+        return CategoryLoader.load(new ByteArrayInputStream(data));
+    }
+
+    /**
+     * Load the output, with the known format
+     * 
+     * @return The output
+     * @throws IOException If an IO error occurs
+     */
+    @Benchmark
+    public Category loadKnownFormat() throws IOException
+    {
+        return CategoryLoader.load(new ByteArrayInputStream(data),
+            outputFormat);
+    }
+}
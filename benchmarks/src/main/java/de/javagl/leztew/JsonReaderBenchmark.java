@@ -0,0 +1,235 @@
+/*
+ * www.javagl.de - leztew
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.leztew;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+/**
+ * Benchmarks for reading the JSON output with spread types in
+ * sub-categories with the {@link JsonNodeReader}, compared to plain data
+ * binding.
+ * 
+ * The data is held in memory, so that only the parsing is measured. Run
+ * with <code>-prof gc</code> to compare the allocation rates.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonReaderBenchmark
+{
+    /**
+     * The reader for data binding
+     */
+    private static final ObjectReader CATEGORY_READER =
+        new ObjectMapper().readerFor(Category.class);
+
+    /**
+     * The JSON data of the output
+     */
+    private byte data[];
+
+    /**
+     * The path of one child category of the root, for the filtered reads
+     */
+    private List<String> categoryPath;
+
+    /**
+     * The name of one node, for the filtered reads
+     */
+    private String nodeName;
+
+    /**
+     * Write the JSON output with spread types in sub-categories, and
+     * select the category and node for the filtered reads
+     * 
+     * @param state The {@link SpecificationState}
+     * @throws IOException If an IO error occurs
+     */
+    @Setup(Level.Trial)
+    public void setUp(SpecificationState state) throws IOException
+    {
+        Category nodesSpreadSub = Categories.spreadTypes(state.nodes, true);
+        data = OutputFormat.JSON.createWriter(false)
+            .writeValueAsBytes(nodesSpreadSub);
+
+        categoryPath = new ArrayList<String>();
+        categoryPath.add(nameOf(nodesSpreadSub));
+        List<Category> children = nodesSpreadSub.getChildren();
+        if (!children.isEmpty())
+        {
+            categoryPath.add(nameOf(children.get(children.size() - 1)));
+        }
+        nodeName = findLastNodeName(nodesSpreadSub);
+    }
+
+    /**
+     * Returns the name of the given category, or the empty string if it
+     * does not have a name
+     * 
+     * @param category The category
+     * @return The name
+     */
+    private static String nameOf(Category category)
+    {
+        String name = category.getName();
+        return name == null ? "" : name;
+    }
+
+    /**
+     * Returns the name of the last node in the given category tree, or
+     * <code>null</code> if there are no nodes
+     * 
+     * @param category The category
+     * @return The name
+     */
+    private static String findLastNodeName(Category category)
+    {
+        List<Category> children = category.getChildren();
+        for (int i = children.size() - 1; i >= 0; i--)
+        {
+            String name = findLastNodeName(children.get(i));
+            if (name != null)
+            {
+                return name;
+            }
+        }
+        List<Node> nodes = category.getNodes();
+        if (nodes.isEmpty())
+        {
+            return null;
+        }
+        return nodes.get(nodes.size() - 1).getName();
+    }
+
+    /**
+     * Read the output with data binding
+     * 
+     * @return The output
+     * @throws IOException If an IO error occurs
+     */
+    @Benchmark
+    public Category dataBinding() throws IOException
+    {
+        return CATEGORY_READER.readValue(new ByteArrayInputStream(data));
+    }
+
+    /**
+     * Read the output with the {@link JsonNodeReader}
+     * 
+     * @return The output
+     * @throws IOException If an IO error occurs
+     */
+    @Benchmark
+    public Category load() throws IOException
+    {
+        return new JsonNodeReader().load(new ByteArrayInputStream(data));
+    }
+
+    /**
+     * Read the output with the {@link JsonNodeReader}, passing the nodes
+     * to a {@link NodeSink} that does not store them
+     * 
+     * @param blackhole The blackhole
+     * @throws IOException If an IO error occurs
+     */
+    @Benchmark
+    public void stream(Blackhole blackhole) throws IOException
+    {
+        new JsonNodeReader().read(new ByteArrayInputStream(data),
+            new NodeSink()
+            {
+                @Override
+                public void beginCategory(String name)
+                {
+                    blackhole.consume(name);
+                }
+
+                @Override
+                public void node(Node node)
+                {
+                    blackhole.consume(node);
+                }
+
+                @Override
+                public void endCategory()
+                {
+                    // Nothing to do here
+                }
+            });
+    }
+
+    /**
+     * Read the subtree of one category with the {@link JsonNodeReader}
+     * 
+     * @return The output
+     * @throws IOException If an IO error occurs
+     */
+    @Benchmark
+    public Category loadCategory() throws IOException
+    {
+        JsonNodeReader jsonNodeReader = new JsonNodeReader();
+        jsonNodeReader.setCategoryPath(categoryPath);
+        return jsonNodeReader.load(new ByteArrayInputStream(data));
+    }
+
+    /**
+     * Read one node with the {@link JsonNodeReader}
+     * 
+     * @return The output
+     * @throws IOException If an IO error occurs
+     */
+    @Benchmark
+    public Category loadNode() throws IOException
+    {
+        JsonNodeReader jsonNodeReader = new JsonNodeReader();
+        jsonNodeReader.setNodeFilter(nodeName::equals);
+        return jsonNodeReader.load(new ByteArrayInputStream(data));
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * www.javagl.de - leztew
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.leztew;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point for running the benchmarks.
+ * 
+ * This accepts the same arguments as the default JMH main class. Unless
+ * a result format or a result file are given, the results are written as
+ * JSON into a file <code>jmh-result-&lt;version&gt;.json</code>, so that
+ * the results of different versions can be compared.
+ */
+public class LeztewBenchmarks
+{
+    /**
+     * Entry point of the benchmarks
+     * 
+     * @param args The JMH arguments
+     * @throws Exception If the arguments are invalid or a benchmark fails
+     */
+    public static void main(String[] args) throws Exception
+    {
+        CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+        if (commandLineOptions.shouldHelp())
+        {
+            commandLineOptions.showHelp();
+            return;
+        }
+        if (commandLineOptions.shouldList())
+        {
+            new Runner(commandLineOptions).list();
+            return;
+        }
+        ChainedOptionsBuilder builder =
+            new OptionsBuilder().parent(commandLineOptions);
+        if (!commandLineOptions.getResultFormat().hasValue())
+        {
+            builder.resultFormat(ResultFormatType.JSON);
+        }
+        if (!commandLineOptions.getResult().hasValue())
+        {
+            String version =
+                LeztewBenchmarks.class.getPackage().getImplementationVersion();
+            if (version == null)
+            {
+                version = "unknown";
+            }
+            builder.result("jmh-result-" + version + ".json");
+        }
+        new Runner(builder.build()).run();
+    }
+
+    /**
+     * Private constructor to prevent instantiation
+     */
+    private LeztewBenchmarks()
+    {
+        // Private constructor to prevent instantiation
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ * www.javagl.de - leztew
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.leztew;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark for the allocations that are caused by log statements whose
+ * level is disabled, while processing the "Operation" tables.
+ * 
+ * Each invocation processes one table. The log level of the
+ * <code>de.javagl.leztew</code> loggers is set to <code>INFO</code>, so
+ * that the <code>FINE</code> debug output is suppressed. The
+ * <code>parse</code> benchmark calls
+ * {@link OperationTables#parse(TableSnapshot, String)}, which guards its
+ * log statements with <code>Logger#isLoggable</code>. The
+ * <code>guardedLogging</code> and <code>unguardedLogging</code> benchmarks
+ * only execute the <code>"Final node"</code> statement that is executed for
+ * each table, once with the guard, and once in the form that was used
+ * before the guards had been added. With <code>-prof gc</code>, the
+ * <code>gc.alloc.rate.norm</code> is the number of bytes that are
+ * allocated per table.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LoggingBenchmark
+{
+    /**
+     * The logger whose level is set during the benchmark. A reference is
+     * kept, so that the level is not lost when the logger is garbage
+     * collected.
+     */
+    private Logger packageLogger;
+
+    /**
+     * The logger that is used for the statements
+     */
+    private Logger logger;
+
+    /**
+     * The snapshots of the tables
+     */
+    private List<TableSnapshot> tableSnapshots;
+
+    /**
+     * The titles of the nodes
+     */
+    private List<String> titles;
+
+    /**
+     * The nodes that have been created from the tables
+     */
+    private List<Node> nodes;
+
+    /**
+     * The index of the table that is processed in the next invocation
+     */
+    private int index;
+
+    /**
+     * Create the snapshots of the tables, and disable the debug output
+     * 
+     * @param state The {@link SpecificationState}
+     */
+    @Setup(Level.Trial)
+    public void setUp(SpecificationState state)
+    {
+        packageLogger = Logger.getLogger("de.javagl.leztew");
+        packageLogger.setLevel(java.util.logging.Level.INFO);
+        logger = Logger.getLogger(OperationTables.class.getName());
+        tableSnapshots = new ArrayList<TableSnapshot>();
+        titles = new ArrayList<String>();
+        nodes = new ArrayList<Node>();
+        collect(state.nodes);
+    }
+
+    /**
+     * Interpret one table
+     * 
+     * @return The node
+     */
+    @Benchmark
+    public Node parse()
+    {
+        int i = nextIndex();
+        return OperationTables.parse(tableSnapshots.get(i), titles.get(i));
+    }
+
+    /**
+     * Execute the log statement for one table, with a guard
+     * 
+     * @return The node
+     */
+    @Benchmark
+    public Node guardedLogging()
+    {
+        Node node = nodes.get(nextIndex());
+        if (logger.isLoggable(java.util.logging.Level.FINE))
+        {
+            logger.log(java.util.logging.Level.FINE, "Final node " + node);
+        }
+        return node;
+    }
+
+    /**
+     * Execute the log statement for one table, without a guard
+     * 
+     * @return The node
+     */
+    @Benchmark
+    public Node unguardedLogging()
+    {
+        Node node = nodes.get(nextIndex());
+        logger.log(java.util.logging.Level.FINE, "Final node " + node);
+        return node;
+    }
+
+    /**
+     * Returns the index of the table for the current invocation
+     * 
+     * @return The index
+     */
+    private int nextIndex()
+    {
+        int i = index;
+        index++;
+        if (index == tableSnapshots.size())
+        {
+            index = 0;
+        }
+        return i;
+    }
+
+    /**
+     * Create the snapshots for the nodes in the given category and its
+     * children
+     * 
+     * @param category The category
+     */
+    private void collect(Category category)
+    {
+        for (Node node : category.getNodes())
+        {
+            tableSnapshots.add(OperationTablesBenchmark.createSnapshot(node));
+            titles.add(node.getTitle());
+            nodes.add(node);
+        }
+        for (Category child : category.getChildren())
+        {
+            collect(child);
+        }
+    }
+}
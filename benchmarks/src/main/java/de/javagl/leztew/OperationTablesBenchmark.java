@@ -0,0 +1,209 @@
+/*
+ * www.javagl.de - leztew
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.leztew;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmark for interpreting the "Operation" tables with
+ * {@link OperationTables#parse(TableSnapshot, String)}, which is what
+ * <code>LeztewConverter#processOperationTable</code> does after creating
+ * the {@link TableSnapshot}.
+ * 
+ * The snapshots are created from the {@link Node} objects of the
+ * specification, with the same rows and row spans as in the tables that
+ * they have been extracted from.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OperationTablesBenchmark
+{
+    /**
+     * The snapshots of the tables
+     */
+    private List<TableSnapshot> tableSnapshots;
+
+    /**
+     * The titles of the nodes
+     */
+    private List<String> titles;
+
+    /**
+     * Create the snapshots of the tables
+     * 
+     * @param state The {@link SpecificationState}
+     */
+    @Setup(Level.Trial)
+    public void setUp(SpecificationState state)
+    {
+        tableSnapshots = new ArrayList<TableSnapshot>();
+        titles = new ArrayList<String>();
+        collect(state.nodes);
+    }
+
+    /**
+     * Parse all snapshots
+     * 
+     * @param blackhole The blackhole
+     */
+    @Benchmark
+    public void parse(Blackhole blackhole)
+    {
+        for (int i = 0; i < tableSnapshots.size(); i++)
+        {
+            blackhole.consume(
+                OperationTables.parse(tableSnapshots.get(i), titles.get(i)));
+        }
+    }
+
+    /**
+     * Create the snapshots for the nodes in the given category and its
+     * children
+     * 
+     * @param category The category
+     */
+    private void collect(Category category)
+    {
+        for (Node node : category.getNodes())
+        {
+            tableSnapshots.add(createSnapshot(node));
+            titles.add(node.getTitle());
+        }
+        for (Category child : category.getChildren())
+        {
+            collect(child);
+        }
+    }
+
+    /**
+     * Create the snapshot of the table that defines the given node
+     * 
+     * @param node The node
+     * @return The snapshot
+     */
+    static TableSnapshot createSnapshot(Node node)
+    {
+        List<String[]> sources = new ArrayList<String[]>();
+        List<int[]> rowspans = new ArrayList<int[]>();
+        sources.add(new String[]
+        { "Operation", "`" + node.getName() + "`", node.getDescription() });
+        rowspans.add(new int[]
+        { 1, 1, 1 });
+
+        List<String[]> rows = new ArrayList<String[]>();
+        for (ConfigurationElement e : node.getConfiguration())
+        {
+            rows.add(new String[]
+            { "`" + e.getType() + " " + e.getName() + "`",
+                e.getDescription() });
+        }
+        addRows("Configuration", rows, sources, rowspans);
+        addRows("Input flow sockets", createRows(node.getInputFlowSockets()),
+            sources, rowspans);
+        addRows("Input value sockets",
+            createRows(node.getInputValueSockets()), sources, rowspans);
+        addRows("Output flow sockets",
+            createRows(node.getOutputFlowSockets()), sources, rowspans);
+        addRows("Output value sockets",
+            createRows(node.getOutputValueSockets()), sources, rowspans);
+        return new TableSnapshot(sources.toArray(new String[0][]),
+            rowspans.toArray(new int[0][]));
+    }
+
+    /**
+     * Create the declaration and description cells for the given sockets
+     * 
+     * @param sockets The sockets
+     * @return The cells
+     */
+    private static List<String[]> createRows(List<Socket> sockets)
+    {
+        List<String[]> rows = new ArrayList<String[]>();
+        for (Socket s : sockets)
+        {
+            String declaration = s.getName();
+            if (s.getType() != null)
+            {
+                declaration = s.getType() + " " + s.getName();
+            }
+            rows.add(new String[]
+            { "`" + declaration + "`", s.getDescription() });
+        }
+        return rows;
+    }
+
+    /**
+     * Add the given rows to the given snapshot data, where the first row
+     * starts with a cell containing the given heading, which spans all
+     * rows
+     * 
+     * @param heading The heading
+     * @param rows The rows
+     * @param sources The source strings of the cells
+     * @param rowspans The row spans of the cells
+     */
+    private static void addRows(String heading, List<String[]> rows,
+        List<String[]> sources, List<int[]> rowspans)
+    {
+        for (int i = 0; i < rows.size(); i++)
+        {
+            String[] row = rows.get(i);
+            if (i == 0)
+            {
+                sources.add(new String[]
+                { heading, row[0], row[1] });
+                rowspans.add(new int[]
+                { rows.size(), 1, 1 });
+            }
+            else
+            {
+                sources.add(row);
+                rowspans.add(new int[]
+                { 1, 1 });
+            }
+        }
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * www.javagl.de - leztew
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.leztew;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * The state of the benchmarks that operate on a specification.
+ * 
+ * The specification is either the real specification, which is read from
+ * the file that is given by the <code>leztew.specification</code> system
+ * property (by default, <code>../data/Specification.adoc</code>), or a
+ * synthetic specification with a given number of nodes, which is created
+ * with the default settings of the {@link SpecificationGenerator}.
+ */
+@State(Scope.Benchmark)
+public class SpecificationState
+{
+    /**
+     * The specification: <code>real</code>, or
+     * <code>synthetic-&lt;n&gt;</code> for a synthetic specification with
+     * the given number of nodes
+     */
+    @Param({ "real", "synthetic-1000", "synthetic-10000" })
+    public String specification;
+
+    /**
+     * The content of the specification
+     */
+    public String content;
+
+    /**
+     * The {@link Node} objects of the specification
+     */
+    public Category nodes;
+
+    /**
+     * Read the specification and extract the {@link Node} objects
+     * 
+     * @throws IOException If an IO error occurs
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws IOException
+    {
+        content = read(specification);
+        nodes = new SpecificationScanner().scan(content);
+    }
+
+    /**
+     * Returns the content of the given specification
+     * 
+     * @param specification The specification
+     * @return The content
+     * @throws IOException If an IO error occurs
+     * @throws IllegalArgumentException If the specification is not known
+     */
+    static String read(String specification) throws IOException
+    {
+        if (specification.equals("real"))
+        {
+            File file = new File(System.getProperty("leztew.specification",
+                "../data/Specification.adoc"));
+            byte[] data = Files.readAllBytes(file.toPath());
+            return new String(data, "UTF-8");
+        }
+        String prefix = "synthetic-";
+        if (specification.startsWith(prefix))
+        {
+            int nodeCount = Integer
+                .parseInt(specification.substring(prefix.length()));
+            SpecificationGenerator generator = new SpecificationGenerator();
+            generator.setNodeCount(nodeCount);
+            StringWriter writer = new StringWriter();
+            generator.generate(writer);
+            return writer.toString();
+        }
+        throw new IllegalArgumentException(
+            "Unknown specification: " + specification);
+    }
+}
@@ -0,0 +1,342 @@
+/*
+ * www.javagl.de - leztew
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.leztew;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks for spreading the type templates of the {@link Node} objects.
+ * 
+ * The <code>Baseline</code> benchmarks use the implementation that parsed
+ * the socket types with <code>lastIndexOf</code> and <code>split</code>
+ * each time they were checked, before the types were compiled into
+ * {@link TypeTemplate} instances, for comparing both implementations.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SpreadBenchmark
+{
+    /**
+     * The logger used in this class
+     */
+    private static final Logger logger =
+        Logger.getLogger(SpreadBenchmark.class.getName());
+
+    /**
+     * All nodes of the specification
+     */
+    private List<Node> nodes;
+
+    /**
+     * Collect all nodes of the specification
+     * 
+     * @param state The {@link SpecificationState}
+     */
+    @Setup(Level.Trial)
+    public void setUp(SpecificationState state)
+    {
+        nodes = new ArrayList<Node>();
+        collect(state.nodes, nodes);
+    }
+
+    /**
+     * Collect the type template values of all nodes, with
+     * {@link Nodes#collectTypeTemplateValues(Node)}
+     * 
+     * @param blackhole The blackhole
+     */
+    @Benchmark
+    public void collectTypeTemplateValues(Blackhole blackhole)
+    {
+        for (int i = 0; i < nodes.size(); i++)
+        {
+            blackhole.consume(Nodes.collectTypeTemplateValues(nodes.get(i)));
+        }
+    }
+
+    /**
+     * Collect the type template values of all nodes, with the baseline
+     * implementation
+     * 
+     * @param blackhole The blackhole
+     */
+    @Benchmark
+    public void collectTypeTemplateValuesBaseline(Blackhole blackhole)
+    {
+        for (int i = 0; i < nodes.size(); i++)
+        {
+            blackhole.consume(
+                collectTypeTemplateValuesBaseline(nodes.get(i)));
+        }
+    }
+
+    /**
+     * Spread all nodes with {@link Nodes#spreadTypes(Node)}
+     * 
+     * @param blackhole The blackhole
+     */
+    @Benchmark
+    public void nodesSpreadTypes(Blackhole blackhole)
+    {
+        for (int i = 0; i < nodes.size(); i++)
+        {
+            blackhole.consume(Nodes.spreadTypes(nodes.get(i)));
+        }
+    }
+
+    /**
+     * Spread all nodes with the baseline implementation
+     * 
+     * @param blackhole The blackhole
+     */
+    @Benchmark
+    public void nodesSpreadTypesBaseline(Blackhole blackhole)
+    {
+        for (int i = 0; i < nodes.size(); i++)
+        {
+            blackhole.consume(spreadTypesBaseline(nodes.get(i)));
+        }
+    }
+
+    /**
+     * Spread the specification with
+     * {@link Categories#spreadTypes(Category, boolean)}, without
+     * sub-categories
+     * 
+     * @param state The {@link SpecificationState}
+     * @return The result
+     */
+    @Benchmark
+    public Category categoriesSpreadTypes(SpecificationState state)
+    {
+        return Categories.spreadTypes(state.nodes, false);
+    }
+
+    /**
+     * Spread the specification with
+     * {@link Categories#spreadTypes(Category, boolean)}, with
+     * sub-categories
+     * 
+     * @param state The {@link SpecificationState}
+     * @return The result
+     */
+    @Benchmark
+    public Category categoriesSpreadTypesSub(SpecificationState state)
+    {
+        return Categories.spreadTypes(state.nodes, true);
+    }
+
+    /**
+     * Spread the specification with
+     * {@link Categories#spreadTypesSinglePass(Category)}
+     * 
+     * @param state The {@link SpecificationState}
+     * @return The result
+     */
+    @Benchmark
+    public Category[] categoriesSpreadTypesSinglePass(
+        SpecificationState state)
+    {
+        return Categories.spreadTypesSinglePass(state.nodes);
+    }
+
+    /**
+     * The baseline implementation of {@link Nodes#spreadTypes(Node)}
+     * 
+     * @param node The node
+     * @return The instantiations
+     */
+    private static Map<String, Node> spreadTypesBaseline(Node node)
+    {
+        Map<String, Node> result = new LinkedHashMap<String, Node>();
+        Set<String> allTemplateValues =
+            collectTypeTemplateValuesBaseline(node);
+        if (allTemplateValues.isEmpty())
+        {
+            result.put("", node);
+            return result;
+        }
+        for (String templateValue : allTemplateValues)
+        {
+            Node instance = new Node(node);
+            instantiateBaseline(instance.getInputValueSockets(),
+                templateValue);
+            instantiateBaseline(instance.getOutputValueSockets(),
+                templateValue);
+            result.put(templateValue, instance);
+        }
+        return result;
+    }
+
+    /**
+     * Replace the type of each of the given sockets that contains a
+     * template with the given value, with the baseline implementation
+     * 
+     * @param sockets The sockets
+     * @param templateValue The template value
+     */
+    private static void instantiateBaseline(List<Socket> sockets,
+        String templateValue)
+    {
+        for (Socket s : sockets)
+        {
+            if (getTypeTemplateValuesBaseline(s.getType()) != null)
+            {
+                s.setType(templateValue);
+            }
+        }
+    }
+
+    /**
+     * The baseline implementation of
+     * {@link Nodes#collectTypeTemplateValues(Node)}
+     * 
+     * @param node The node
+     * @return The type template values
+     */
+    private static Set<String> collectTypeTemplateValuesBaseline(Node node)
+    {
+        Set<String> allTemplateValues = new LinkedHashSet<String>();
+        collectTypeTemplateValuesBaseline(node.getInputValueSockets(),
+            allTemplateValues);
+        collectTypeTemplateValuesBaseline(node.getOutputValueSockets(),
+            allTemplateValues);
+        return allTemplateValues;
+    }
+
+    /**
+     * Collect the type template values of the given sockets into the
+     * given set, with the baseline implementation
+     * 
+     * @param sockets The sockets
+     * @param allTemplateValues The set that receives the values
+     */
+    private static void collectTypeTemplateValuesBaseline(
+        List<Socket> sockets, Set<String> allTemplateValues)
+    {
+        for (Socket s : sockets)
+        {
+            List<String> templateValues =
+                getTypeTemplateValuesBaseline(s.getType());
+            if (templateValues != null)
+            {
+                if (allTemplateValues.isEmpty())
+                {
+                    allTemplateValues.addAll(templateValues);
+                }
+                else
+                {
+                    Set<String> newTemplateValues =
+                        new LinkedHashSet<String>(templateValues);
+                    if (!allTemplateValues.equals(newTemplateValues))
+                    {
+                        logger.warning("Inconsistent templating: Found "
+                            + allTemplateValues + " and " + newTemplateValues);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the template values for the given type, or <code>null</code>
+     * if the type is not a template, by parsing the type with
+     * <code>lastIndexOf</code> and <code>split</code>, as in the baseline
+     * implementation
+     * 
+     * @param type The type
+     * @return The template values
+     */
+    private static List<String> getTypeTemplateValuesBaseline(String type)
+    {
+        if (type == null)
+        {
+            return null;
+        }
+        if (type.endsWith("N"))
+        {
+            String base = type.substring(0, type.length() - 1);
+            return Arrays.asList(base, base + "2", base + "3", base + "4",
+                base + "2x2", base + "3x3", base + "4x4");
+        }
+        int i0 = type.lastIndexOf("{");
+        int i1 = type.lastIndexOf("}");
+        if (i0 == -1 | i1 == -1)
+        {
+            return null;
+        }
+        String base = type.substring(0, i0);
+        String values = type.substring(i0 + 1, i1);
+        String[] tokens = values.split("\\|");
+        List<String> result = new ArrayList<String>();
+        for (String token : tokens)
+        {
+            result.add(base + token);
+        }
+        return result;
+    }
+
+    /**
+     * Collect all nodes of the given category and its children
+     * 
+     * @param category The category
+     * @param result The list that receives the nodes
+     */
+    private static void collect(Category category, List<Node> result)
+    {
+        result.addAll(category.getNodes());
+        for (Category child : category.getChildren())
+        {
+            collect(child, result);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * www.javagl.de - leztew
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.leztew;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for writing the JSON outputs with
+ * {@link LeztewMain#write(Category, File)}
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WriteBenchmark
+{
+    /**
+     * The output with spread types in sub-categories
+     */
+    private Category nodesSpreadSub;
+
+    /**
+     * The output file
+     */
+    private File file;
+
+    /**
+     * Create the output and the output file
+     * 
+     * @param state The {@link SpecificationState}
+     * @throws IOException If the file cannot be created
+     */
+    @Setup(Level.Trial)
+    public void setUp(SpecificationState state) throws IOException
+    {
+        nodesSpreadSub = Categories.spreadTypes(state.nodes, true);
+        file = File.createTempFile("leztew-benchmark", ".json");
+    }
+
+    /**
+     * Delete the output file
+     */
+    @TearDown(Level.Trial)
+    public void tearDown()
+    {
+        file.delete();
+    }
+
+    /**
+     * Write the plain output
+     * 
+     * @param state The {@link SpecificationState}
+     * @throws IOException If an IO error occurs
+     */
+    @Benchmark
+    public void write(SpecificationState state) throws IOException
+    {
+        LeztewMain.write(state.nodes, file);
+    }
+
+    /**
+     * Write the output with spread types in sub-categories
+     * 
+     * @throws IOException If an IO error occurs
+     */
+    @Benchmark
+    public void writeSpreadSub() throws IOException
+    {
+        LeztewMain.write(nodesSpreadSub, file);
+    }
+}
@@ -0,0 +1,421 @@
+/*
+ * www.javagl.de - leztew
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.leztew;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.asciidoctor.Asciidoctor;
+import org.asciidoctor.Options;
+import org.asciidoctor.ast.Document;
+
+/**
+ * A pool of {@link Asciidoctor} instances that have the
+ * {@link LeztewConverter} registered.
+ *
+ * Creating an {@link Asciidoctor} instance means booting a JRuby runtime,
+ * which takes much longer than the actual conversion of a specification.
+ * This class keeps a fixed maximum number of instances alive, and hands them
+ * out to (possibly concurrent) conversion requests. The instances are created
+ * lazily, or eagerly with {@link #warmUp()}.
+ */
+public class AsciidoctorPool implements AutoCloseable
+{
+    /**
+     * The logger used in this class
+     */
+    private static final Logger logger =
+        Logger.getLogger(AsciidoctorPool.class.getName());
+
+    /**
+     * The backend that is used for the conversion
+     */
+    private static final String BACKEND = "ast-json";
+
+    /**
+     * A minimal document that has the structure that is expected by the
+     * {@link LeztewConverter}, used for warming up the instances
+     */
+    private static final String WARM_UP_DOCUMENT = String.join("\n",
+        "= Warm-up", "",
+        "== A", "",
+        "== B", "",
+        "== C", "",
+        "== Functional Specification", "",
+        "=== Nodes", "",
+        "==== Warm-up nodes", "",
+        "===== Warm-up group", "",
+        "====== Warm-up node", "",
+        "[cols=\"1,1,2\"]",
+        "|===",
+        "| Operation", "| `warm/up`", "| Warm-up", "",
+        "| Input value sockets", "| `floatN a`", "| A",
+        "|===", "");
+
+    /**
+     * The maximum number of instances
+     */
+    private final int size;
+
+    /**
+     * The number of instances that have been created (or are currently being
+     * created)
+     */
+    private int created;
+
+    /**
+     * The instances that are currently not in use. Access is guarded by
+     * the monitor of this object.
+     */
+    private final Deque<Asciidoctor> idleInstances;
+
+    /**
+     * Whether this pool was closed
+     */
+    private boolean closed;
+
+    /**
+     * Creates a new pool with the given maximum number of instances
+     *
+     * @param size The maximum number of instances
+     * @throws IllegalArgumentException If the size is not positive
+     */
+    public AsciidoctorPool(int size)
+    {
+        if (size <= 0)
+        {
+            throw new IllegalArgumentException(
+                "The size must be positive, but is " + size);
+        }
+        this.size = size;
+        this.idleInstances = new ArrayDeque<Asciidoctor>();
+    }
+
+    /**
+     * Returns the maximum number of instances in this pool
+     *
+     * @return The size
+     */
+    public int getSize()
+    {
+        return size;
+    }
+
+    /**
+     * Create all instances of this pool that have not been created yet, and
+     * perform a conversion of a small dummy document with each of them.
+     *
+     * The instances are created and warmed up in parallel. This method
+     * blocks until all instances are ready.
+     */
+    public void warmUp()
+    {
+        long before = System.nanoTime();
+        List<CompletableFuture<Void>> futures =
+            new ArrayList<CompletableFuture<Void>>();
+        List<Asciidoctor> idle = new ArrayList<Asciidoctor>();
+        int missing = 0;
+        synchronized (this)
+        {
+            checkNotClosed();
+            idle.addAll(idleInstances);
+            idleInstances.clear();
+            missing = size - created;
+            created = size;
+        }
+        for (Asciidoctor asciidoctor : idle)
+        {
+            futures.add(CompletableFuture.runAsync(() -> warmUp(asciidoctor)));
+        }
+        for (int i = 0; i < missing; i++)
+        {
+            futures.add(CompletableFuture.runAsync(() ->
+            {
+                Asciidoctor asciidoctor = createInstance();
+                warmUp(asciidoctor);
+            }));
+        }
+        CompletableFuture.allOf(
+            futures.toArray(new CompletableFuture<?>[0]))
+            .join();
+        long after = System.nanoTime();
+        logger.info("Warmed up " + futures.size() + " instances in "
+            + (after - before) / 1000000 + "ms");
+    }
+
+    /**
+     * Convert the dummy document with the given instance, and release the
+     * instance afterwards
+     *
+     * @param asciidoctor The instance
+     */
+    private void warmUp(Asciidoctor asciidoctor)
+    {
+        try
+        {
+            convert(asciidoctor, WARM_UP_DOCUMENT);
+        }
+        finally
+        {
+            release(asciidoctor);
+        }
+    }
+
+    /**
+     * Convert the given specification content, using one of the instances of
+     * this pool.
+     *
+     * If all instances are currently in use, then this will block until one
+     * of them becomes available.
+     *
+     * @param content The content
+     * @return The {@link LeztewConverter} that contains the result
+     * @throws IllegalStateException If this pool was closed, or the calling
+     *         thread was interrupted while waiting for an instance
+     */
+    public LeztewConverter convert(String content)
+    {
+        Asciidoctor asciidoctor = acquire();
+        try
+        {
+            return convert(asciidoctor, content);
+        }
+        finally
+        {
+            release(asciidoctor);
+        }
+    }
+
+    /**
+     * Convert the given specification content with the given
+     * {@link LeztewConverter}, using one of the instances of this pool.
+     *
+     * This can be used for passing a converter that was configured by the
+     * caller (for example, with a {@link SectionCache}). The document will be
+     * loaded with the <code>sourcemap</code> option.
+     *
+     * If all instances are currently in use, then this will block until one
+     * of them becomes available.
+     *
+     * @param content The content
+     * @param leztewConverter The {@link LeztewConverter}
+     * @return The given {@link LeztewConverter}, which now contains the result
+     * @throws IllegalStateException If this pool was closed, or the calling
+     *         thread was interrupted while waiting for an instance
+     */
+    public LeztewConverter convert(String content,
+        LeztewConverter leztewConverter)
+    {
+        Asciidoctor asciidoctor = acquire();
+        try
+        {
+            Options options =
+                Options.builder().backend(BACKEND).sourcemap(true).build();
+            Document document = asciidoctor.load(content, options);
+            return leztewConverter.convert(document, null,
+                Collections.emptyMap());
+        }
+        finally
+        {
+            release(asciidoctor);
+        }
+    }
+
+    /**
+     * Creates a new {@link LeztewConverter} that may be configured and
+     * passed to {@link #convert(String, LeztewConverter)}
+     *
+     * @return The {@link LeztewConverter}
+     */
+    public static LeztewConverter createConverter()
+    {
+        return new LeztewConverter(BACKEND, Collections.emptyMap());
+    }
+
+    /**
+     * Obtain an instance from this pool. If there is no idle instance, and
+     * the maximum number of instances has not been created yet, then a new
+     * instance will be created. Otherwise, this will block until an instance
+     * is released, or the pool is closed.
+     *
+     * @return The instance
+     * @throws IllegalStateException If this pool was closed, or the calling
+     *         thread was interrupted while waiting for an instance
+     */
+    private Asciidoctor acquire()
+    {
+        synchronized (this)
+        {
+            while (true)
+            {
+                checkNotClosed();
+                Asciidoctor asciidoctor = idleInstances.poll();
+                if (asciidoctor != null)
+                {
+                    return asciidoctor;
+                }
+                if (created < size)
+                {
+                    created++;
+                    break;
+                }
+                try
+                {
+                    wait();
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException(
+                        "Interrupted while waiting for an instance", e);
+                }
+            }
+        }
+        return createInstance();
+    }
+
+    /**
+     * Put the given instance back into the pool. If the pool was already
+     * closed, then the instance will be shut down.
+     *
+     * @param asciidoctor The instance
+     */
+    private void release(Asciidoctor asciidoctor)
+    {
+        synchronized (this)
+        {
+            if (!closed)
+            {
+                idleInstances.add(asciidoctor);
+                notifyAll();
+                return;
+            }
+        }
+        asciidoctor.shutdown();
+    }
+
+    /**
+     * Create a new instance and register the {@link LeztewConverter}. The
+     * caller must already have counted the new instance in the number of
+     * created instances. If the creation fails, then this count will be
+     * decreased again.
+     *
+     * @return The new instance
+     */
+    private Asciidoctor createInstance()
+    {
+        long before = System.nanoTime();
+        Asciidoctor asciidoctor = null;
+        ConversionMetrics.Timer timer =
+            ConversionMetrics.time(ConversionMetrics.Phase.STARTUP);
+        try
+        {
+            asciidoctor = Asciidoctor.Factory.create();
+            asciidoctor.javaConverterRegistry().register(LeztewConverter.class);
+        }
+        catch (RuntimeException e)
+        {
+            synchronized (this)
+            {
+                created--;
+                notifyAll();
+            }
+            throw e;
+        }
+        finally
+        {
+            timer.stop();
+        }
+        long after = System.nanoTime();
+        if (logger.isLoggable(Level.FINE))
+        {
+            logger.fine("Created instance in " + (after - before) / 1000000
+                + "ms");
+        }
+        return asciidoctor;
+    }
+
+    /**
+     * Convert the given content with the given instance
+     *
+     * @param asciidoctor The instance
+     * @param content The content
+     * @return The {@link LeztewConverter} that contains the result
+     */
+    private static LeztewConverter convert(Asciidoctor asciidoctor,
+        String content)
+    {
+        Options options = Options.builder().backend(BACKEND).build();
+        return asciidoctor.convert(content, options, LeztewConverter.class);
+    }
+
+    /**
+     * Throws an exception if this pool was already closed. The caller must
+     * hold the monitor of this object.
+     *
+     * @throws IllegalStateException If this pool was closed
+     */
+    private void checkNotClosed()
+    {
+        if (closed)
+        {
+            throw new IllegalStateException("The pool was closed");
+        }
+    }
+
+    /**
+     * Shut down all instances of this pool. Instances that are currently in
+     * use will be shut down when they are released. Threads that are
+     * waiting for an instance will receive an {@link IllegalStateException}.
+     */
+    @Override
+    public void close()
+    {
+        List<Asciidoctor> idle = new ArrayList<Asciidoctor>();
+        synchronized (this)
+        {
+            if (closed)
+            {
+                return;
+            }
+            closed = true;
+            idle.addAll(idleInstances);
+            idleInstances.clear();
+            notifyAll();
+        }
+        for (Asciidoctor asciidoctor : idle)
+        {
+            asciidoctor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,451 @@
+/*
+ * www.javagl.de - leztew
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.leztew;
+
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.ErrorManager;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+/**
+ * A log handler that publishes records asynchronously.
+ *
+ * The records are put into a bounded, lock-free ring buffer by the logging
+ * threads. A background thread takes them from the buffer, formats them
+ * with a {@link LogFormatter}, and writes all records that are available
+ * at once with a single write to the output stream.
+ *
+ * When the buffer is full, the behavior is determined by the
+ * {@link OverflowPolicy}. Records with a level of {@link Level#WARNING} or
+ * above are never dropped. The number of dropped records is reported in
+ * the output.
+ */
+class AsyncLogHandler extends Handler
+{
+    /**
+     * The policy for records that are published while the buffer is full
+     */
+    enum OverflowPolicy
+    {
+        /**
+         * Wait until there is space in the buffer
+         */
+        BLOCK,
+
+        /**
+         * Drop the record
+         */
+        DROP,
+
+        /**
+         * Wait until there is space in the buffer for every
+         * {@link AsyncLogHandler#SAMPLE_RATE}-th overflowing record, and
+         * drop all others
+         */
+        SAMPLE
+    }
+
+    /**
+     * The default capacity of the buffer
+     */
+    static final int DEFAULT_CAPACITY = 8192;
+
+    /**
+     * For the {@link OverflowPolicy#SAMPLE} policy: One of this many
+     * overflowing records will be kept
+     */
+    static final int SAMPLE_RATE = 16;
+
+    /**
+     * The maximum time that the writer thread sleeps before checking for new
+     * records, in nanoseconds
+     */
+    private static final long MAX_IDLE_NS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    /**
+     * The time that a blocked logging thread waits before trying again to
+     * put a record into the buffer, in nanoseconds
+     */
+    private static final long BLOCK_WAIT_NS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    /**
+     * The stream that the records are written to
+     */
+    private final PrintStream out;
+
+    /**
+     * The formatter for the records
+     */
+    private final LogFormatter logFormatter;
+
+    /**
+     * The overflow policy
+     */
+    private final OverflowPolicy overflowPolicy;
+
+    /**
+     * The mask for computing buffer indices from sequence numbers
+     */
+    private final int mask;
+
+    /**
+     * The ring buffer
+     */
+    private final AtomicReferenceArray<LogRecord> buffer;
+
+    /**
+     * For each buffer slot, the sequence number that indicates whether the
+     * slot may be written (when it is equal to the current tail) or read
+     * (when it is equal to the current head plus one)
+     */
+    private final AtomicLongArray sequences;
+
+    /**
+     * The sequence number of the next slot that will be written
+     */
+    private final AtomicLong tail;
+
+    /**
+     * The sequence number of the next slot that will be read. Only modified
+     * by the writer thread.
+     */
+    private volatile long head;
+
+    /**
+     * The number of records that overflowed the buffer
+     */
+    private final AtomicLong overflows;
+
+    /**
+     * The number of records that have been dropped
+     */
+    private final AtomicLong dropped;
+
+    /**
+     * The number of dropped records that have already been reported
+     */
+    private long reportedDropped;
+
+    /**
+     * Whether the writer thread is currently waiting for records
+     */
+    private volatile boolean writerWaiting;
+
+    /**
+     * Whether this handler was closed
+     */
+    private volatile boolean closed;
+
+    /**
+     * The writer thread
+     */
+    private final Thread writer;
+
+    /**
+     * Creates a new instance that writes to the given stream
+     *
+     * @param out The output stream
+     * @param capacity The capacity of the buffer. This will be rounded up
+     *        to the next power of two.
+     * @param overflowPolicy The {@link OverflowPolicy}
+     * @throws IllegalArgumentException If the capacity is not positive
+     */
+    AsyncLogHandler(PrintStream out, int capacity,
+        OverflowPolicy overflowPolicy)
+    {
+        if (capacity <= 0)
+        {
+            throw new IllegalArgumentException(
+                "The capacity must be positive, but is " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity)
+        {
+            size <<= 1;
+        }
+        this.out = out;
+        this.logFormatter = new LogFormatter();
+        this.overflowPolicy = overflowPolicy;
+        this.mask = size - 1;
+        this.buffer = new AtomicReferenceArray<LogRecord>(size);
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++)
+        {
+            sequences.set(i, i);
+        }
+        this.tail = new AtomicLong();
+        this.overflows = new AtomicLong();
+        this.dropped = new AtomicLong();
+        setFormatter(logFormatter);
+
+        this.writer = new Thread(this::runWriter, "AsyncLogHandler");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    @Override
+    public void publish(LogRecord record)
+    {
+        if (!isLoggable(record))
+        {
+            return;
+        }
+
+        // The source class name is inferred from the stack of the calling
+        // thread when it is first requested, so this has to happen before
+        // the record is formatted in the writer thread
+        record.getSourceClassName();
+        if (closed)
+        {
+            out.println(logFormatter.format(record));
+            return;
+        }
+        if (offer(record))
+        {
+            wakeUpWriter();
+            return;
+        }
+        if (mustBlock(record))
+        {
+            while (!offer(record))
+            {
+                if (closed)
+                {
+                    out.println(logFormatter.format(record));
+                    return;
+                }
+                wakeUpWriter();
+                LockSupport.parkNanos(BLOCK_WAIT_NS);
+            }
+            wakeUpWriter();
+        }
+        else
+        {
+            dropped.incrementAndGet();
+        }
+    }
+
+    /**
+     * Returns whether the publishing thread has to wait until the given
+     * record can be put into the full buffer
+     *
+     * @param record The record
+     * @return Whether the thread has to wait
+     */
+    private boolean mustBlock(LogRecord record)
+    {
+        if (record.getLevel().intValue() >= Level.WARNING.intValue())
+        {
+            return true;
+        }
+        switch (overflowPolicy)
+        {
+            case BLOCK:
+                return true;
+            case SAMPLE:
+                return overflows.getAndIncrement() % SAMPLE_RATE == 0;
+            case DROP:
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Try to put the given record into the buffer
+     *
+     * @param record The record
+     * @return Whether the record was put into the buffer, or
+     *         <code>false</code> if the buffer was full
+     */
+    private boolean offer(LogRecord record)
+    {
+        while (true)
+        {
+            long t = tail.get();
+            int index = (int) (t & mask);
+            long difference = sequences.get(index) - t;
+            if (difference == 0)
+            {
+                if (tail.compareAndSet(t, t + 1))
+                {
+                    buffer.set(index, record);
+                    sequences.set(index, t + 1);
+                    return true;
+                }
+            }
+            else if (difference < 0)
+            {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Take the next record from the buffer. Must only be called by the
+     * writer thread.
+     *
+     * @return The record, or <code>null</code> if the buffer is empty
+     */
+    private LogRecord poll()
+    {
+        long h = head;
+        int index = (int) (h & mask);
+        if (sequences.get(index) != h + 1)
+        {
+            return null;
+        }
+        LogRecord record = buffer.get(index);
+        buffer.set(index, null);
+        sequences.set(index, h + mask + 1);
+        head = h + 1;
+        return record;
+    }
+
+    /**
+     * Wake up the writer thread if it is waiting for records
+     */
+    private void wakeUpWriter()
+    {
+        if (writerWaiting)
+        {
+            LockSupport.unpark(writer);
+        }
+    }
+
+    /**
+     * The method that is executed by the writer thread
+     */
+    private void runWriter()
+    {
+        StringBuilder sb = new StringBuilder();
+        while (true)
+        {
+            boolean wasClosed = closed;
+            if (drain(sb))
+            {
+                continue;
+            }
+            if (wasClosed && head == tail.get())
+            {
+                return;
+            }
+            writerWaiting = true;
+            if (head == tail.get() && !closed)
+            {
+                LockSupport.parkNanos(MAX_IDLE_NS);
+            }
+            writerWaiting = false;
+        }
+    }
+
+    /**
+     * Take all records that are currently available from the buffer, and
+     * write them to the output stream
+     *
+     * @param sb The string builder that is used for the output
+     * @return Whether any record was written
+     */
+    private boolean drain(StringBuilder sb)
+    {
+        sb.setLength(0);
+        String lineSeparator = System.lineSeparator();
+        long currentDropped = dropped.get();
+        if (currentDropped != reportedDropped)
+        {
+            sb.append("WARNING: AsyncLogHandler: Dropped ");
+            sb.append(currentDropped - reportedDropped);
+            sb.append(" log records").append(lineSeparator);
+            reportedDropped = currentDropped;
+        }
+        LogRecord record = null;
+        while ((record = poll()) != null)
+        {
+            try
+            {
+                logFormatter.format(record, sb);
+                sb.append(lineSeparator);
+            }
+            catch (RuntimeException e)
+            {
+                reportError(null, e, ErrorManager.FORMAT_FAILURE);
+            }
+        }
+        if (sb.length() == 0)
+        {
+            return false;
+        }
+        out.print(sb);
+        out.flush();
+        return true;
+    }
+
+    /**
+     * Wait until all records that have been published so far have been
+     * written
+     */
+    @Override
+    public void flush()
+    {
+        long target = tail.get();
+        while (head < target && writer.isAlive())
+        {
+            LockSupport.unpark(writer);
+            LockSupport.parkNanos(BLOCK_WAIT_NS);
+        }
+        out.flush();
+    }
+
+    /**
+     * Write all pending records, and stop the writer thread. Records that
+     * are published afterwards will be written directly.
+     */
+    @Override
+    public void close() throws SecurityException
+    {
+        closed = true;
+        LockSupport.unpark(writer);
+        try
+        {
+            writer.join();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+
+        // Records that have been put into the buffer concurrently to the
+        // writer thread exiting are written here
+        drain(new StringBuilder());
+        out.flush();
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * www.javagl.de - leztew
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.leztew;
+
+/**
+ * A {@link ConfigurationElement} that is a view on an element record of a
+ * {@link NodeCatalog}.
+ * 
+ * The view is unmodifiable.
+ */
+class CatalogConfigurationElement extends ConfigurationElement
+{
+    /**
+     * The catalog
+     */
+    private final NodeCatalog catalog;
+
+    /**
+     * The index of the element
+     */
+    private final int index;
+
+    /**
+     * Creates a new instance
+     * 
+     * @param catalog The catalog
+     * @param index The index of the element
+     */
+    CatalogConfigurationElement(NodeCatalog catalog, int index)
+    {
+        this.catalog = catalog;
+        this.index = index;
+    }
+
+    @Override
+    public String getType()
+    {
+        return catalog.getString(catalog.elementInt(index, 0));
+    }
+
+    @Override
+    public String getName()
+    {
+        return catalog.getString(catalog.elementInt(index, 1));
+    }
+
+    @Override
+    public String getDescription()
+    {
+        return catalog.getString(catalog.elementInt(index, 2));
+    }
+
+    /**
+     * Always throws an <code>UnsupportedOperationException</code>
+     */
+    @Override
+    public void setType(String type)
+    {
+        throw new UnsupportedOperationException("The view is unmodifiable");
+    }
+
+    /**
+     * Always throws an <code>UnsupportedOperationException</code>
+     */
+    @Override
+    public void setName(String name)
+    {
+        throw new UnsupportedOperationException("The view is unmodifiable");
+    }
+
+    /**
+     * Always throws an <code>UnsupportedOperationException</code>
+     */
+    @Override
+    public void setDescription(String description)
+    {
+        throw new UnsupportedOperationException("The view is unmodifiable");
+    }
+}
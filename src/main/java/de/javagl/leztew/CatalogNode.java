@@ -0,0 +1,204 @@
+/*
+ * www.javagl.de - leztew
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.leztew;
+
+import java.util.List;
+
+/**
+ * A {@link Node} that is a view on a node record of a {@link NodeCatalog}.
+ * 
+ * If a template value is given, then the view represents the instance of
+ * the node for this value, where the types of value sockets that are type
+ * templates are replaced by the template value, as it is done by
+ * {@link Nodes#instantiate(Node, String)}.
+ * 
+ * The view is unmodifiable.
+ */
+class CatalogNode extends Node
+{
+    /**
+     * The catalog
+     */
+    private final NodeCatalog catalog;
+
+    /**
+     * The index of the node
+     */
+    private final int index;
+
+    /**
+     * The template value, or <code>null</code>
+     */
+    private final String templateValue;
+
+    /**
+     * Creates a new instance
+     * 
+     * @param catalog The catalog
+     * @param index The index of the node
+     * @param templateValue The template value, or <code>null</code>
+     */
+    CatalogNode(NodeCatalog catalog, int index, String templateValue)
+    {
+        super(null, null, null, null, null, null, null, null);
+        this.catalog = catalog;
+        this.index = index;
+        this.templateValue = templateValue;
+    }
+
+    @Override
+    public String getTitle()
+    {
+        return catalog.getString(catalog.nodeInt(index, 0));
+    }
+
+    @Override
+    public String getName()
+    {
+        return catalog.getString(catalog.nodeInt(index, 1));
+    }
+
+    @Override
+    public String getDescription()
+    {
+        return catalog.getString(catalog.nodeInt(index, 2));
+    }
+
+    @Override
+    public List<ConfigurationElement> getConfiguration()
+    {
+        return catalog.getConfiguration(
+            catalog.nodeInt(index, 3), catalog.nodeInt(index, 4));
+    }
+
+    @Override
+    public List<Socket> getInputFlowSockets()
+    {
+        return catalog.getSockets(
+            catalog.nodeInt(index, 5), catalog.nodeInt(index, 6), null);
+    }
+
+    @Override
+    public List<Socket> getInputValueSockets()
+    {
+        return catalog.getSockets(catalog.nodeInt(index, 7),
+            catalog.nodeInt(index, 8), templateValue);
+    }
+
+    @Override
+    public List<Socket> getOutputFlowSockets()
+    {
+        return catalog.getSockets(
+            catalog.nodeInt(index, 9), catalog.nodeInt(index, 10), null);
+    }
+
+    @Override
+    public List<Socket> getOutputValueSockets()
+    {
+        return catalog.getSockets(catalog.nodeInt(index, 11),
+            catalog.nodeInt(index, 12), templateValue);
+    }
+
+    /**
+     * Always throws an <code>UnsupportedOperationException</code>
+     */
+    @Override
+    public void setTitle(String title)
+    {
+        throw new UnsupportedOperationException("The view is unmodifiable");
+    }
+
+    /**
+     * Always throws an <code>UnsupportedOperationException</code>
+     */
+    @Override
+    public void setName(String name)
+    {
+        throw new UnsupportedOperationException("The view is unmodifiable");
+    }
+
+    /**
+     * Always throws an <code>UnsupportedOperationException</code>
+     */
+    @Override
+    public void setDescription(String description)
+    {
+        throw new UnsupportedOperationException("The view is unmodifiable");
+    }
+
+    /**
+     * Always throws an <code>UnsupportedOperationException</code>
+     */
+    @Override
+    public void setConfiguration(List<ConfigurationElement> configuration)
+    {
+        throw new UnsupportedOperationException("The view is unmodifiable");
+    }
+
+    /**
+     * Always throws an <code>UnsupportedOperationException</code>
+     */
+    @Override
+    public void setInputFlowSockets(List<Socket> inputFlowSockets)
+    {
+        throw new UnsupportedOperationException("The view is unmodifiable");
+    }
+
+    /**
+     * Always throws an <code>UnsupportedOperationException</code>
+     */
+    @Override
+    public void setInputValueSockets(List<Socket> inputValueSockets)
+    {
+        throw new UnsupportedOperationException("The view is unmodifiable");
+    }
+
+    /**
+     * Always throws an <code>UnsupportedOperationException</code>
+     */
+    @Override
+    public void setOutputFlowSockets(List<Socket> outputFlowSockets)
+    {
+        throw new UnsupportedOperationException("The view is unmodifiable");
+    }
+
+    /**
+     * Always throws an <code>UnsupportedOperationException</code>
+     */
+    @Override
+    public void setOutputValueSockets(List<Socket> outputValueSockets)
+    {
+        throw new UnsupportedOperationException("The view is unmodifiable");
+    }
+
+    @Override
+    public String toString()
+    {
+        return "CatalogNode [name=" + getName() + ", templateValue="
+            + templateValue + "]";
+    }
+}
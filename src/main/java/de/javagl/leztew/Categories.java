@@ -30,6 +30,9 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
@@ -48,14 +51,143 @@ class Categories
      * instantiations for different node types.
      * 
      * Each node that defines a "template type" will be replaced by a list of
-     * node instances, one for each type.
+     * node instances, one for each type. If the instances should be put into
+     * an own category, then these categories are appended to the children of
+     * the respective output category.
+     * 
+     * The given category is not modified. The output category shares all
+     * nodes that do not define a template type with the given category.
+     * 
+     * @param category The input category
+     * @param createSubCategories Whether the instances should be put into an
+     *        own category
+     * @return The output category
+     */
+    public static Category spreadTypes(Category category,
+        boolean createSubCategories)
+    {
+        Category resultCategory =
+            spreadTypesLocal(category, createSubCategories);
+        List<Category> subCategories = resultCategory.getChildren();
+        List<Category> resultChildren = new ArrayList<Category>();
+        for (Category child : category.getChildren())
+        {
+            resultChildren.add(spreadTypes(child, createSubCategories));
+        }
+        resultChildren.addAll(subCategories);
+        resultCategory.setChildren(resultChildren);
+        return resultCategory;
+    }
+
+    /**
+     * Creates the same result as {@link #spreadTypes(Category, boolean)},
+     * where the child categories are processed in parallel, by a
+     * <code>ForkJoinPool</code> with the given parallelism.
+     * 
+     * The order of the nodes and categories in the result is the same as
+     * for {@link #spreadTypes(Category, boolean)}. The given category is not
+     * modified, so this method may be called by multiple threads with the
+     * same input category.
      * 
      * @param category The input category
      * @param createSubCategories Whether the instances should be put into an
      *        own category
+     * @param parallelism The parallelism
      * @return The output category
      */
     public static Category spreadTypes(Category category,
+        boolean createSubCategories, int parallelism)
+    {
+        if (parallelism <= 1)
+        {
+            return spreadTypes(category, createSubCategories);
+        }
+        ForkJoinPool forkJoinPool = new ForkJoinPool(parallelism);
+        try
+        {
+            return forkJoinPool
+                .invoke(new SpreadTask(category, createSubCategories));
+        }
+        finally
+        {
+            forkJoinPool.shutdown();
+        }
+    }
+
+    /**
+     * A task for spreading the types in a category and its children
+     */
+    private static class SpreadTask extends RecursiveTask<Category>
+    {
+        /**
+         * Serial UID
+         */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The input category
+         */
+        private final Category category;
+
+        /**
+         * Whether the instances should be put into an own category
+         */
+        private final boolean createSubCategories;
+
+        /**
+         * Creates a new instance
+         * 
+         * @param category The input category
+         * @param createSubCategories Whether the instances should be put
+         *        into an own category
+         */
+        SpreadTask(Category category, boolean createSubCategories)
+        {
+            this.category = category;
+            this.createSubCategories = createSubCategories;
+        }
+
+        @Override
+        protected Category compute()
+        {
+            List<SpreadTask> tasks = new ArrayList<SpreadTask>();
+            for (Category child : category.getChildren())
+            {
+                SpreadTask task = new SpreadTask(child, createSubCategories);
+                task.fork();
+                tasks.add(task);
+            }
+
+            // The nodes of this category are processed while the
+            // tasks for the children may still be running
+            Category resultCategory =
+                spreadTypesLocal(category, createSubCategories);
+            List<Category> subCategories = resultCategory.getChildren();
+            List<Category> resultChildren = new ArrayList<Category>();
+            for (SpreadTask task : tasks)
+            {
+                resultChildren.add(task.join());
+            }
+            resultChildren.addAll(subCategories);
+            resultCategory.setChildren(resultChildren);
+            return resultCategory;
+        }
+    }
+
+    /**
+     * Creates a new {@link Category} with the instantiations of the nodes
+     * of the given category, without processing its children.
+     * 
+     * If the instances should be put into an own category, then the
+     * children of the returned category will be these categories.
+     * Otherwise, the returned category will not have any children.
+     * 
+     * @param category The input category
+     * @param createSubCategories Whether the instances should be put into an
+     *        own category
+     * @return The output category
+     */
+    private static Category spreadTypesLocal(Category category,
         boolean createSubCategories)
     {
         Category resultCategory = new Category();
@@ -73,22 +205,24 @@ class Categories
             else
             {
 
-                logger.info("Created " + instances.size()
-                    + " instances for all types of " + node.getName());
+                if (logger.isLoggable(Level.FINE))
+                {
+                    logger.fine("Created " + instances.size()
+                        + " instances for all types of " + node.getName());
+                }
 
                 if (createSubCategories)
                 {
                     Category subCategory = new Category(node.getName());
-                    category.addChild(subCategory);
                     for (Entry<String, Node> entry : instances.entrySet())
                     {
                         String templateName = entry.getKey();
                         Node instance = entry.getValue();
-                        Node newInstance = new Node(instance);
-                        newInstance.setTitle(
+                        Node newInstance = Nodes.withTitle(instance,
                             node.getTitle() + " (" + templateName + ")");
                         subCategory.addNode(newInstance);
                     }
+                    resultCategory.addChild(subCategory);
                 }
                 else
                 {
@@ -97,13 +231,117 @@ class Categories
             }
         }
         resultCategory.setNodes(resultNodes);
+        return resultCategory;
+    }
+
+    /**
+     * Creates the same results as {@link #spreadTypes(Category, boolean)}
+     * without and with sub-categories, in a single traversal, and without
+     * modifying the given category.
+     * 
+     * The instances of each node are only computed once, and used for both
+     * results.
+     * 
+     * @param category The input category
+     * @return An array containing the output category without and the output
+     *         category with sub-categories
+     */
+    public static Category[] spreadTypesSinglePass(Category category)
+    {
+        Category resultCategory = new Category();
+        resultCategory.setName(category.getName());
+        Category resultCategorySub = new Category();
+        resultCategorySub.setName(category.getName());
+
+        List<Node> resultNodes = new ArrayList<Node>();
+        List<Node> resultNodesSub = new ArrayList<Node>();
+        List<Category> subCategories = new ArrayList<Category>();
+        List<Node> nodes = category.getNodes();
+        for (Node node : nodes)
+        {
+            Map<String, Node> instances = Nodes.spreadTypes(node);
+            if (instances.size() == 1)
+            {
+                resultNodes.add(node);
+                resultNodesSub.add(node);
+            }
+            else
+            {
+                if (logger.isLoggable(Level.FINE))
+                {
+                    logger.fine("Created " + instances.size()
+                        + " instances for all types of " + node.getName());
+                }
+
+                resultNodes.addAll(instances.values());
+
+                Category subCategory = new Category(node.getName());
+                for (Entry<String, Node> entry : instances.entrySet())
+                {
+                    String templateName = entry.getKey();
+                    Node instance = entry.getValue();
+                    Node newInstance = Nodes.withTitle(instance,
+                        node.getTitle() + " (" + templateName + ")");
+                    subCategory.addNode(newInstance);
+                }
+                subCategories.add(subCategory);
+            }
+        }
+        resultCategory.setNodes(resultNodes);
+        resultCategorySub.setNodes(resultNodesSub);
 
         for (Category child : category.getChildren())
         {
-            Category resultChild = spreadTypes(child, createSubCategories);
-            resultCategory.addChild(resultChild);
+            Category[] resultChildren = spreadTypesSinglePass(child);
+            resultCategory.addChild(resultChildren[0]);
+            resultCategorySub.addChild(resultChildren[1]);
         }
-        return resultCategory;
+
+        // The sub-categories are appended after the children, as it is
+        // done by spreadTypes
+        for (Category subCategory : subCategories)
+        {
+            resultCategorySub.addChild(subCategory);
+        }
+        return new Category[]
+        { resultCategory, resultCategorySub };
+    }
+
+    /**
+     * Returns the total number of {@link Node} objects in the given
+     * {@link Category} and all its children
+     * 
+     * @param category The category
+     * @return The number of nodes
+     */
+    public static int countNodes(Category category)
+    {
+        int count = category.getNodes().size();
+        for (Category child : category.getChildren())
+        {
+            count += countNodes(child);
+        }
+        return count;
+    }
+
+    /**
+     * Pass the given {@link Category} tree to the given {@link NodeSink}
+     * 
+     * @param category The category
+     * @param nodeSink The {@link NodeSink}
+     */
+    public static void emit(Category category, NodeSink nodeSink)
+    {
+        nodeSink.beginCategory(category.getName());
+        for (Node node : category.getNodes())
+        {
+            nodeSink.node(node);
+        }
+        for (Category child : category.getChildren())
+        {
+            emit(child, nodeSink);
+        }
+        nodeSink.endCategory();
     }
 
     /**
@@ -0,0 +1,107 @@
+/*
+ * www.javagl.de - leztew
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.leztew;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Implementation of a {@link NodeSink} that builds a {@link Category} tree
+ */
+public class CategoryBuilder implements NodeSink
+{
+    /**
+     * The stack of categories that are currently open
+     */
+    private final Deque<Category> stack;
+
+    /**
+     * The root category
+     */
+    private Category root;
+
+    /**
+     * Default constructor
+     */
+    public CategoryBuilder()
+    {
+        this.stack = new ArrayDeque<Category>();
+    }
+
+    @Override
+    public void beginCategory(String name)
+    {
+        Category category = new Category(name);
+        Category parent = stack.peek();
+        if (parent == null)
+        {
+            if (root != null)
+            {
+                throw new IllegalStateException(
+                    "The root category was already completed");
+            }
+            root = category;
+        }
+        else
+        {
+            parent.addChild(category);
+        }
+        stack.push(category);
+    }
+
+    @Override
+    public void node(Node node)
+    {
+        Category category = stack.peek();
+        if (category == null)
+        {
+            throw new IllegalStateException("No category is open");
+        }
+        category.addNode(node);
+    }
+
+    @Override
+    public void endCategory()
+    {
+        if (stack.isEmpty())
+        {
+            throw new IllegalStateException("No category is open");
+        }
+        stack.pop();
+    }
+
+    /**
+     * Returns the root {@link Category} that was built, or <code>null</code>
+     * if no category has been begun yet
+     *
+     * @return The root {@link Category}
+     */
+    public Category getRoot()
+    {
+        return root;
+    }
+}
@@ -0,0 +1,385 @@
+/*
+ * www.javagl.de - leztew
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.leztew;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Methods for writing and reading {@link Category} objects in a compact
+ * binary form.
+ *
+ * The format starts with a table of all distinct strings, followed by the
+ * category tree, where all strings are given as indices into the string
+ * table. It is not intended for exchange, but only as a fast-loading form
+ * for the {@link ConversionCache}.
+ */
+class CategoryCodec
+{
+    /**
+     * The magic header of the format
+     */
+    private static final int MAGIC = 0x4C5A5443; // "LZTC"
+
+    /**
+     * The version of the format
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * The maximum nesting depth of categories. The specification only
+     * contains a few levels, so a deeper nesting indicates invalid input.
+     */
+    private static final int MAX_DEPTH = 64;
+
+    /**
+     * Write the given {@link Category} to the given output
+     *
+     * @param category The category
+     * @param out The output
+     * @throws IOException If an IO error occurs
+     */
+    static void write(Category category, DataOutputStream out)
+        throws IOException
+    {
+        Map<String, Integer> indices = new HashMap<String, Integer>();
+        List<String> strings = new ArrayList<String>();
+        collectStrings(category, indices, strings);
+
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(strings.size());
+        for (String s : strings)
+        {
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+        writeCategory(category, indices, out);
+    }
+
+    /**
+     * Read a {@link Category} from the given input.
+     *
+     * The given size is the number of bytes that are available in the
+     * input. All counts and lengths that are read are validated against
+     * this size, so that invalid input causes an exception instead of
+     * excessive allocations.
+     *
+     * @param in The input
+     * @param size The number of bytes that are available in the input
+     * @return The category
+     * @throws IOException If an IO error occurs, or the input is not valid
+     */
+    static Category read(DataInputStream in, long size) throws IOException
+    {
+        int magic = in.readInt();
+        if (magic != MAGIC)
+        {
+            throw new IOException("Invalid magic header: " + magic);
+        }
+        int version = in.readInt();
+        if (version != VERSION)
+        {
+            throw new IOException("Unsupported version: " + version);
+        }
+        long remaining = size - 12;
+        int n = in.readInt();
+        if (n < 0 || n > remaining / 4)
+        {
+            throw new IOException("Invalid number of strings: " + n);
+        }
+        String[] strings = new String[n];
+        byte[] buffer = new byte[256];
+        for (int i = 0; i < n; i++)
+        {
+            int length = in.readInt();
+            remaining -= 4;
+            if (length < 0 || length > remaining)
+            {
+                throw new IOException("Invalid string length: " + length);
+            }
+            remaining -= length;
+            if (length > buffer.length)
+            {
+                buffer = new byte[length];
+            }
+            in.readFully(buffer, 0, length);
+            strings[i] = new String(buffer, 0, length, StandardCharsets.UTF_8);
+        }
+        return readCategory(strings, in, 0);
+    }
+
+    /**
+     * Collect all strings from the given category, recursively
+     *
+     * @param category The category
+     * @param indices The mapping from strings to their indices
+     * @param strings The list of strings
+     */
+    private static void collectStrings(Category category,
+        Map<String, Integer> indices, List<String> strings)
+    {
+        addString(category.getName(), indices, strings);
+        for (Node node : category.getNodes())
+        {
+            addString(node.getTitle(), indices, strings);
+            addString(node.getName(), indices, strings);
+            addString(node.getDescription(), indices, strings);
+            for (ConfigurationElement e : node.getConfiguration())
+            {
+                addString(e.getType(), indices, strings);
+                addString(e.getName(), indices, strings);
+                addString(e.getDescription(), indices, strings);
+            }
+            collectStrings(node.getInputFlowSockets(), indices, strings);
+            collectStrings(node.getInputValueSockets(), indices, strings);
+            collectStrings(node.getOutputFlowSockets(), indices, strings);
+            collectStrings(node.getOutputValueSockets(), indices, strings);
+        }
+        for (Category child : category.getChildren())
+        {
+            collectStrings(child, indices, strings);
+        }
+    }
+
+    /**
+     * Collect all strings from the given sockets
+     *
+     * @param sockets The sockets
+     * @param indices The mapping from strings to their indices
+     * @param strings The list of strings
+     */
+    private static void collectStrings(List<Socket> sockets,
+        Map<String, Integer> indices, List<String> strings)
+    {
+        for (Socket s : sockets)
+        {
+            addString(s.getType(), indices, strings);
+            addString(s.getName(), indices, strings);
+            addString(s.getDescription(), indices, strings);
+        }
+    }
+
+    /**
+     * Add the given string to the string table, if it is not
+     * <code>null</code> and not contained yet
+     *
+     * @param s The string
+     * @param indices The mapping from strings to their indices
+     * @param strings The list of strings
+     */
+    private static void addString(String s, Map<String, Integer> indices,
+        List<String> strings)
+    {
+        if (s != null && !indices.containsKey(s))
+        {
+            indices.put(s, strings.size());
+            strings.add(s);
+        }
+    }
+
+    /**
+     * Write the index of the given string, or -1 if it is <code>null</code>
+     *
+     * @param s The string
+     * @param indices The mapping from strings to their indices
+     * @param out The output
+     * @throws IOException If an IO error occurs
+     */
+    private static void writeString(String s, Map<String, Integer> indices,
+        DataOutputStream out) throws IOException
+    {
+        out.writeInt(s == null ? -1 : indices.get(s));
+    }
+
+    /**
+     * Read a string index, and return the respective string
+     *
+     * @param strings The string table
+     * @param in The input
+     * @return The string, or <code>null</code>
+     * @throws IOException If an IO error occurs
+     */
+    private static String readString(String[] strings, DataInputStream in)
+        throws IOException
+    {
+        int index = in.readInt();
+        if (index == -1)
+        {
+            return null;
+        }
+        if (index < 0 || index >= strings.length)
+        {
+            throw new IOException("Invalid string index: " + index);
+        }
+        return strings[index];
+    }
+
+    /**
+     * Write the given category, recursively
+     *
+     * @param category The category
+     * @param indices The mapping from strings to their indices
+     * @param out The output
+     * @throws IOException If an IO error occurs
+     */
+    private static void writeCategory(Category category,
+        Map<String, Integer> indices, DataOutputStream out) throws IOException
+    {
+        writeString(category.getName(), indices, out);
+        List<Node> nodes = category.getNodes();
+        out.writeInt(nodes.size());
+        for (Node node : nodes)
+        {
+            writeString(node.getTitle(), indices, out);
+            writeString(node.getName(), indices, out);
+            writeString(node.getDescription(), indices, out);
+            List<ConfigurationElement> configuration = node.getConfiguration();
+            out.writeInt(configuration.size());
+            for (ConfigurationElement e : configuration)
+            {
+                writeString(e.getType(), indices, out);
+                writeString(e.getName(), indices, out);
+                writeString(e.getDescription(), indices, out);
+            }
+            writeSockets(node.getInputFlowSockets(), indices, out);
+            writeSockets(node.getInputValueSockets(), indices, out);
+            writeSockets(node.getOutputFlowSockets(), indices, out);
+            writeSockets(node.getOutputValueSockets(), indices, out);
+        }
+        List<Category> children = category.getChildren();
+        out.writeInt(children.size());
+        for (Category child : children)
+        {
+            writeCategory(child, indices, out);
+        }
+    }
+
+    /**
+     * Write the given sockets
+     *
+     * @param sockets The sockets
+     * @param indices The mapping from strings to their indices
+     * @param out The output
+     * @throws IOException If an IO error occurs
+     */
+    private static void writeSockets(List<Socket> sockets,
+        Map<String, Integer> indices, DataOutputStream out) throws IOException
+    {
+        out.writeInt(sockets.size());
+        for (Socket s : sockets)
+        {
+            writeString(s.getType(), indices, out);
+            writeString(s.getName(), indices, out);
+            writeString(s.getDescription(), indices, out);
+        }
+    }
+
+    /**
+     * Read a category, recursively
+     *
+     * @param strings The string table
+     * @param in The input
+     * @param depth The nesting depth of the category
+     * @return The category
+     * @throws IOException If an IO error occurs, or the input is not valid
+     */
+    private static Category readCategory(String[] strings, DataInputStream in,
+        int depth) throws IOException
+    {
+        if (depth > MAX_DEPTH)
+        {
+            throw new IOException("Invalid category nesting depth: " + depth);
+        }
+        Category category = new Category(readString(strings, in));
+        int numNodes = in.readInt();
+        for (int i = 0; i < numNodes; i++)
+        {
+            Node node = new Node();
+            node.setTitle(readString(strings, in));
+            node.setName(readString(strings, in));
+            node.setDescription(readString(strings, in));
+            int numConfigurationElements = in.readInt();
+            List<ConfigurationElement> configuration = node.getConfiguration();
+            for (int j = 0; j < numConfigurationElements; j++)
+            {
+                String type = readString(strings, in);
+                String name = readString(strings, in);
+                String description = readString(strings, in);
+                configuration
+                    .add(new ConfigurationElement(type, name, description));
+            }
+            readSockets(strings, in, node.getInputFlowSockets());
+            readSockets(strings, in, node.getInputValueSockets());
+            readSockets(strings, in, node.getOutputFlowSockets());
+            readSockets(strings, in, node.getOutputValueSockets());
+            category.addNode(node);
+        }
+        int numChildren = in.readInt();
+        for (int i = 0; i < numChildren; i++)
+        {
+            category.addChild(readCategory(strings, in, depth + 1));
+        }
+        return category;
+    }
+
+    /**
+     * Read sockets into the given list
+     *
+     * @param strings The string table
+     * @param in The input
+     * @param sockets The list that will store the sockets
+     * @throws IOException If an IO error occurs
+     */
+    private static void readSockets(String[] strings, DataInputStream in,
+        List<Socket> sockets) throws IOException
+    {
+        int n = in.readInt();
+        for (int i = 0; i < n; i++)
+        {
+            String type = readString(strings, in);
+            String name = readString(strings, in);
+            String description = readString(strings, in);
+            sockets.add(new Socket(type, name, description));
+        }
+    }
+
+    /**
+     * Private constructor to prevent instantiation
+     */
+    private CategoryCodec()
+    {
+        // Private constructor to prevent instantiation
+    }
+}
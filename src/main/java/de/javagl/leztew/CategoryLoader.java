@@ -0,0 +1,148 @@
+/*
+ * www.javagl.de - leztew
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.leztew;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.EnumMap;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.ObjectReader;
+
+/**
+ * Methods for loading {@link Category} objects from the outputs that have
+ * been written in one of the {@link OutputFormat}s.
+ * 
+ * The format is detected from the first bytes of the data, so that the
+ * same method can be used for JSON, Smile and CBOR files.
+ */
+public class CategoryLoader
+{
+    /**
+     * The readers for the formats
+     */
+    private static final Map<OutputFormat, ObjectReader> READERS =
+        createReaders();
+
+    /**
+     * The number of bytes that are examined for detecting the format
+     */
+    private static final int HEADER_LENGTH = 4;
+
+    /**
+     * Load the {@link Category} from the given file
+     * 
+     * @param file The file
+     * @return The {@link Category}
+     * @throws IOException If an IO error occurs
+     */
+    public static Category load(File file) throws IOException
+    {
+        try (InputStream inputStream =
+            new BufferedInputStream(new FileInputStream(file), 65536))
+        {
+            return load(inputStream);
+        }
+    }
+
+    /**
+     * Load the {@link Category} from the given input stream. The caller
+     * is responsible for closing the stream.
+     * 
+     * @param inputStream The input stream
+     * @return The {@link Category}
+     * @throws IOException If an IO error occurs
+     */
+    public static Category load(InputStream inputStream) throws IOException
+    {
+        InputStream markableInputStream = inputStream;
+        if (!markableInputStream.markSupported())
+        {
+            markableInputStream = new BufferedInputStream(inputStream);
+        }
+        markableInputStream.mark(HEADER_LENGTH);
+        byte header[] = new byte[HEADER_LENGTH];
+        int length = 0;
+        while (length < HEADER_LENGTH)
+        {
+            int read = markableInputStream.read(
+                header, length, HEADER_LENGTH - length);
+            if (read < 0)
+            {
+                break;
+            }
+            length += read;
+        }
+        markableInputStream.reset();
+        OutputFormat outputFormat = OutputFormat.detect(header, length);
+        return load(markableInputStream, outputFormat);
+    }
+
+    /**
+     * Load the {@link Category} from the given input stream, which contains
+     * data in the given format. The caller is responsible for closing the
+     * stream.
+     * 
+     * @param inputStream The input stream
+     * @param outputFormat The {@link OutputFormat}
+     * @return The {@link Category}
+     * @throws IOException If an IO error occurs
+     */
+    public static Category load(InputStream inputStream,
+        OutputFormat outputFormat) throws IOException
+    {
+        return READERS.get(outputFormat).readValue(inputStream);
+    }
+
+    /**
+     * Creates the readers for all formats
+     * 
+     * @return The readers
+     */
+    private static Map<OutputFormat, ObjectReader> createReaders()
+    {
+        Map<OutputFormat, ObjectReader> readers =
+            new EnumMap<OutputFormat, ObjectReader>(OutputFormat.class);
+        for (OutputFormat outputFormat : OutputFormat.values())
+        {
+            readers.put(outputFormat,
+                outputFormat.createReaderMapper().readerFor(Category.class));
+        }
+        return readers;
+    }
+
+    /**
+     * Private constructor to prevent instantiation
+     */
+    private CategoryLoader()
+    {
+        // Private constructor to prevent instantiation
+    }
+}
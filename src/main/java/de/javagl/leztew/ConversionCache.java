@@ -0,0 +1,541 @@
+/*
+ * www.javagl.de - leztew
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.leztew;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A persistent cache for the {@link Category} objects that have been
+ * extracted from a specification.
+ *
+ * The entries are stored as files in a directory. Each entry is keyed by a
+ * hash of the input bytes, the {@link LeztewConverter#VERSION converter
+ * version}, and a string describing the conversion options. The entries are
+ * stored in the binary form of the {@link CategoryCodec}.
+ *
+ * The cache may be shared by multiple processes: Entries are written to
+ * temporary files and atomically moved to their final location, so that
+ * readers never see partially written entries. The eviction is guarded with
+ * a file lock, so that only one process at a time performs an eviction.
+ */
+public class ConversionCache
+{
+    /**
+     * The logger used in this class
+     */
+    private static final Logger logger =
+        Logger.getLogger(ConversionCache.class.getName());
+
+    /**
+     * The file name extension for cache entries
+     */
+    private static final String ENTRY_EXTENSION = ".bin";
+
+    /**
+     * The file name extension for temporary files
+     */
+    private static final String TEMP_EXTENSION = ".tmp";
+
+    /**
+     * The name of the lock file
+     */
+    private static final String LOCK_FILE_NAME = "cache.lock";
+
+    /**
+     * The age after which temporary files are assumed to be left over from
+     * a crashed process, in milliseconds
+     */
+    private static final long TEMP_FILE_MAX_AGE_MS = 60L * 60L * 1000L;
+
+    /**
+     * The key of the entry that stores the {@link SectionCache}. It
+     * depends on the converter version, like the keys of all entries.
+     */
+    private static final String SECTION_CACHE_KEY =
+        computeKey(ByteBuffer.allocate(0), "sections");
+
+    /**
+     * The cache directory
+     */
+    private final Path directory;
+
+    /**
+     * The maximum total size of all entries, in bytes
+     */
+    private final long maxBytes;
+
+    /**
+     * The maximum age of an entry, in milliseconds
+     */
+    private final long maxAgeMs;
+
+    /**
+     * Creates a new cache in the given directory. The directory will be
+     * created if it does not exist yet.
+     *
+     * When the total size of all entries exceeds the given maximum size, then
+     * the least recently used entries will be removed. Entries that have not
+     * been used for longer than the given maximum age will be removed as well.
+     *
+     * @param directory The cache directory
+     * @param maxBytes The maximum total size of all entries, in bytes
+     * @param maxAgeMs The maximum age of an entry, in milliseconds
+     * @throws IOException If the directory cannot be created
+     */
+    public ConversionCache(File directory, long maxBytes, long maxAgeMs)
+        throws IOException
+    {
+        this.directory = directory.toPath();
+        this.maxBytes = maxBytes;
+        this.maxAgeMs = maxAgeMs;
+        Files.createDirectories(this.directory);
+    }
+
+    /**
+     * Returns the cached {@link Category} for the given input and options, or
+     * <code>null</code> if there is no cache entry for them.
+     *
+     * Entries that cannot be read will be deleted, and cause
+     * <code>null</code> to be returned.
+     *
+     * @param input The input bytes
+     * @param options The options
+     * @return The {@link Category}, or <code>null</code>
+     */
+    public Category get(byte[] input, String options)
+    {
+        return get(ByteBuffer.wrap(input), options);
+    }
+
+    /**
+     * Returns the cached {@link Category} for the given input and options, or
+     * <code>null</code> if there is no cache entry for them.
+     *
+     * The given buffer will not be modified. See {@link #get(byte[], String)}
+     * for details.
+     *
+     * @param input The input bytes, between the position and the limit of
+     *        the buffer
+     * @param options The options
+     * @return The {@link Category}, or <code>null</code>
+     */
+    public Category get(ByteBuffer input, String options)
+    {
+        return read(computeKey(input, options));
+    }
+
+    /**
+     * Read the entry with the given key. Returns <code>null</code> if there
+     * is no such entry. Entries that cannot be read will be deleted, and
+     * cause <code>null</code> to be returned.
+     *
+     * @param key The key
+     * @return The {@link Category}, or <code>null</code>
+     */
+    private Category read(String key)
+    {
+        Path path = directory.resolve(key + ENTRY_EXTENSION);
+        try (InputStream inputStream = Files.newInputStream(path);
+            DataInputStream in = new DataInputStream(
+                new BufferedInputStream(inputStream, 65536)))
+        {
+            String storedKey = in.readUTF();
+            if (!storedKey.equals(key))
+            {
+                throw new IOException("Invalid key: " + storedKey);
+            }
+            long size = Files.size(path) - 2 - storedKey.length();
+            Category category = CategoryCodec.read(in, size);
+            touch(path);
+            if (logger.isLoggable(Level.FINE))
+            {
+                logger.fine("Cache hit for " + key);
+            }
+            return category;
+        }
+        catch (NoSuchFileException e)
+        {
+            if (logger.isLoggable(Level.FINE))
+            {
+                logger.fine("Cache miss for " + key);
+            }
+            return null;
+        }
+        catch (IOException e)
+        {
+            logger.warning("Could not read cache entry " + path + ": "
+                + e.getMessage() + " - deleting it");
+            deleteQuietly(path);
+            return null;
+        }
+    }
+
+    /**
+     * Store the given {@link Category} for the given input and options.
+     *
+     * Afterwards, entries will be evicted if necessary. Errors while writing
+     * will only be logged, because they should not prevent the conversion.
+     *
+     * @param input The input bytes
+     * @param options The options
+     * @param category The {@link Category}
+     */
+    public void put(byte[] input, String options, Category category)
+    {
+        put(ByteBuffer.wrap(input), options, category);
+    }
+
+    /**
+     * Store the given {@link Category} for the given input and options.
+     *
+     * The given buffer will not be modified. See
+     * {@link #put(byte[], String, Category)} for details.
+     *
+     * @param input The input bytes, between the position and the limit of
+     *        the buffer
+     * @param options The options
+     * @param category The {@link Category}
+     */
+    public void put(ByteBuffer input, String options, Category category)
+    {
+        if (write(computeKey(input, options), category))
+        {
+            evict();
+        }
+    }
+
+    /**
+     * Returns a {@link SectionCache} that contains the entries that have
+     * been stored with {@link #putSectionCache(SectionCache)}. If no
+     * entries have been stored, or they cannot be read, then an empty
+     * {@link SectionCache} is returned.
+     *
+     * The entries are stored like the other entries of this cache, and
+     * are therefore subject to the same eviction.
+     *
+     * @return The {@link SectionCache}
+     */
+    public SectionCache getSectionCache()
+    {
+        SectionCache sectionCache = new SectionCache();
+        Category sections = read(SECTION_CACHE_KEY);
+        if (sections != null)
+        {
+            sectionCache.putAll(sections);
+        }
+        return sectionCache;
+    }
+
+    /**
+     * Store the entries of the given {@link SectionCache}, so that they can
+     * be obtained with {@link #getSectionCache()} in a later run.
+     *
+     * Afterwards, entries will be evicted if necessary. Errors while writing
+     * will only be logged.
+     *
+     * @param sectionCache The {@link SectionCache}
+     */
+    public void putSectionCache(SectionCache sectionCache)
+    {
+        if (write(SECTION_CACHE_KEY, sectionCache.toCategory()))
+        {
+            evict();
+        }
+    }
+
+    /**
+     * Write the entry with the given key. Errors while writing will only
+     * be logged, and cause <code>false</code> to be returned.
+     *
+     * @param key The key
+     * @param category The {@link Category}
+     * @return Whether the entry was written
+     */
+    private boolean write(String key, Category category)
+    {
+        Path path = directory.resolve(key + ENTRY_EXTENSION);
+        Path tempPath = null;
+        try
+        {
+            tempPath = Files.createTempFile(directory, key, TEMP_EXTENSION);
+            try (OutputStream outputStream = Files.newOutputStream(tempPath);
+                DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(outputStream, 65536)))
+            {
+                out.writeUTF(key);
+                CategoryCodec.write(category, out);
+            }
+            try
+            {
+                Files.move(tempPath, path, StandardCopyOption.ATOMIC_MOVE);
+            }
+            catch (AtomicMoveNotSupportedException e)
+            {
+                Files.move(tempPath, path,
+                    StandardCopyOption.REPLACE_EXISTING);
+            }
+            if (logger.isLoggable(Level.FINE))
+            {
+                logger.fine("Stored cache entry " + key);
+            }
+            return true;
+        }
+        catch (IOException e)
+        {
+            logger.warning(
+                "Could not write cache entry " + path + ": " + e.getMessage());
+            if (tempPath != null)
+            {
+                deleteQuietly(tempPath);
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Remove all entries that are older than the maximum age, and then
+     * remove the least recently used entries until the total size is not
+     * larger than the maximum size.
+     */
+    public synchronized void evict()
+    {
+        Path lockPath = directory.resolve(LOCK_FILE_NAME);
+        try (FileChannel channel = FileChannel.open(lockPath,
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            FileLock lock = channel.tryLock())
+        {
+            // When another process is currently evicting, then there
+            // is nothing to do here
+            if (lock == null)
+            {
+                return;
+            }
+            evictLocked();
+        }
+        catch (IOException e)
+        {
+            logger.warning("Could not evict cache entries: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Implementation of {@link #evict()}, called while holding the lock
+     *
+     * @throws IOException If an IO error occurs
+     */
+    private void evictLocked() throws IOException
+    {
+        long now = System.currentTimeMillis();
+        List<Entry> entries = new ArrayList<Entry>();
+        try (DirectoryStream<Path> stream =
+            Files.newDirectoryStream(directory))
+        {
+            for (Path path : stream)
+            {
+                String name = path.getFileName().toString();
+                try
+                {
+                    long lastModified =
+                        Files.getLastModifiedTime(path).toMillis();
+                    if (name.endsWith(TEMP_EXTENSION))
+                    {
+                        if (now - lastModified > TEMP_FILE_MAX_AGE_MS)
+                        {
+                            deleteQuietly(path);
+                        }
+                    }
+                    else if (name.endsWith(ENTRY_EXTENSION))
+                    {
+                        entries.add(new Entry(path, lastModified,
+                            Files.size(path)));
+                    }
+                }
+                catch (NoSuchFileException e)
+                {
+                    // Deleted concurrently
+                }
+            }
+        }
+        entries.sort(Comparator.comparingLong(e -> e.lastModified));
+        long totalBytes = 0;
+        for (Entry entry : entries)
+        {
+            totalBytes += entry.size;
+        }
+        for (Entry entry : entries)
+        {
+            boolean expired = now - entry.lastModified > maxAgeMs;
+            boolean tooLarge = totalBytes > maxBytes;
+            if (!expired && !tooLarge)
+            {
+                break;
+            }
+            if (logger.isLoggable(Level.FINE))
+            {
+                logger.fine("Evicting cache entry " + entry.path);
+            }
+            deleteQuietly(entry.path);
+            totalBytes -= entry.size;
+        }
+    }
+
+    /**
+     * Compute the key for the given input and options
+     *
+     * @param input The input bytes
+     * @param options The options
+     * @return The key
+     */
+    private static String computeKey(ByteBuffer input, String options)
+    {
+        MessageDigest digest = null;
+        try
+        {
+            digest = MessageDigest.getInstance("SHA-256");
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            // SHA-256 is required to be supported by every Java platform
+            throw new IllegalStateException(e);
+        }
+        digest.update(input.duplicate());
+        digest.update((byte) 0);
+        digest.update(
+            LeztewConverter.VERSION.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        digest.update(options.getBytes(StandardCharsets.UTF_8));
+        byte[] hash = digest.digest();
+        StringBuilder sb = new StringBuilder();
+        for (byte b : hash)
+        {
+            sb.append(String.format("%02x", b & 0xFF));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Update the last modification time of the given file, so that it is
+     * considered to be recently used.
+     *
+     * @param path The path
+     */
+    private static void touch(Path path)
+    {
+        try
+        {
+            Files.setLastModifiedTime(path,
+                FileTime.fromMillis(System.currentTimeMillis()));
+        }
+        catch (IOException e)
+        {
+            // The entry may have been evicted concurrently
+        }
+    }
+
+    /**
+     * Delete the given file, ignoring all errors. On some platforms,
+     * deleting a file that is still opened by another process may fail,
+     * in which case it will be deleted during a later eviction.
+     *
+     * @param path The path
+     */
+    private static void deleteQuietly(Path path)
+    {
+        try
+        {
+            Files.deleteIfExists(path);
+        }
+        catch (IOException e)
+        {
+            if (logger.isLoggable(Level.FINE))
+            {
+                logger.fine("Could not delete " + path + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * A cache entry, as it is considered during the eviction
+     */
+    private static class Entry
+    {
+        /**
+         * The path of the entry
+         */
+        private final Path path;
+
+        /**
+         * The last modification time, in milliseconds
+         */
+        private final long lastModified;
+
+        /**
+         * The size, in bytes
+         */
+        private final long size;
+
+        /**
+         * Creates a new instance
+         *
+         * @param path The path of the entry
+         * @param lastModified The last modification time, in milliseconds
+         * @param size The size, in bytes
+         */
+        Entry(Path path, long lastModified, long size)
+        {
+            this.path = path;
+            this.lastModified = lastModified;
+            this.size = size;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * www.javagl.de - leztew
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.leztew;
+
+/**
+ * Interface for an event of the conversion that may be recorded by the
+ * Java Flight Recorder.
+ * 
+ * Instances are obtained from the {@link ConversionEvents}. The methods
+ * have the same meaning as the methods of <code>jdk.jfr.Event</code>:
+ * The event is started with {@link #begin()}. When
+ * {@link #shouldCommit()} returns <code>true</code>, then the properties
+ * of the event may be set, and the event is committed with
+ * {@link #commit()}.
+ */
+interface ConversionEvent
+{
+    /**
+     * Start the timing of this event
+     */
+    void begin();
+
+    /**
+     * Returns whether this event is enabled and should be committed
+     * 
+     * @return Whether the event should be committed
+     */
+    boolean shouldCommit();
+
+    /**
+     * Write the data of this event, if it is enabled
+     */
+    void commit();
+}
@@ -0,0 +1,295 @@
+/*
+ * www.javagl.de - leztew
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.leztew;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Methods for creating the {@link ConversionEvent} instances, and for
+ * recording them with the Java Flight Recorder.
+ * 
+ * The events are implemented with the <code>jdk.jfr</code> API, which is
+ * only part of the platform since Java 11. These implementations are
+ * compiled separately, and loaded via reflection. On older platforms,
+ * all events are disabled, and no recordings can be started.
+ */
+class ConversionEvents
+{
+    /**
+     * The logger used in this class
+     */
+    private static final Logger logger =
+        Logger.getLogger(ConversionEvents.class.getName());
+
+    /**
+     * The name of the class that implements the {@link Factory} with the
+     * <code>jdk.jfr</code> API
+     */
+    private static final String FLIGHT_RECORDER_FACTORY_CLASS_NAME =
+        "de.javagl.leztew.FlightRecordings";
+
+    /**
+     * Interface for a factory of the events and recordings
+     */
+    interface Factory
+    {
+        /**
+         * Creates a new {@link SectionEvent}
+         * 
+         * @return The event
+         */
+        SectionEvent newSectionEvent();
+
+        /**
+         * Creates a new {@link TableEvent}
+         * 
+         * @return The event
+         */
+        TableEvent newTableEvent();
+
+        /**
+         * Creates a new {@link SpreadEvent}
+         * 
+         * @return The event
+         */
+        SpreadEvent newSpreadEvent();
+
+        /**
+         * Creates a new {@link WriteEvent}
+         * 
+         * @return The event
+         */
+        WriteEvent newWriteEvent();
+
+        /**
+         * Start a recording of the events, which is written into the given
+         * file when it is closed
+         * 
+         * @param file The file
+         * @return The recording
+         * @throws IOException If the recording cannot be started
+         */
+        Closeable startRecording(File file) throws IOException;
+    }
+
+    /**
+     * The {@link Factory}, or <code>null</code> if the Java Flight Recorder
+     * is not available
+     */
+    private static final Factory FACTORY = createFactory();
+
+    /**
+     * Creates the {@link Factory} that uses the Java Flight Recorder,
+     * returning <code>null</code> if it is not available
+     * 
+     * @return The {@link Factory}
+     */
+    private static Factory createFactory()
+    {
+        try
+        {
+            Class<?> factoryClass =
+                Class.forName(FLIGHT_RECORDER_FACTORY_CLASS_NAME);
+            return (Factory) factoryClass.getDeclaredConstructor()
+                .newInstance();
+        }
+        catch (ReflectiveOperationException | LinkageError e)
+        {
+            if (logger.isLoggable(Level.FINE))
+            {
+                logger.fine("The Java Flight Recorder is not available: " + e);
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Returns whether the events can be recorded with the Java Flight
+     * Recorder
+     * 
+     * @return Whether the Java Flight Recorder is available
+     */
+    static boolean isAvailable()
+    {
+        return FACTORY != null;
+    }
+
+    /**
+     * Creates a new {@link SectionEvent}
+     * 
+     * @return The event
+     */
+    static SectionEvent newSectionEvent()
+    {
+        return FACTORY == null ? DisabledEvent.INSTANCE
+            : FACTORY.newSectionEvent();
+    }
+
+    /**
+     * Creates a new {@link TableEvent}
+     * 
+     * @return The event
+     */
+    static TableEvent newTableEvent()
+    {
+        return FACTORY == null ? DisabledEvent.INSTANCE
+            : FACTORY.newTableEvent();
+    }
+
+    /**
+     * Creates a new {@link SpreadEvent}
+     * 
+     * @return The event
+     */
+    static SpreadEvent newSpreadEvent()
+    {
+        return FACTORY == null ? DisabledEvent.INSTANCE
+            : FACTORY.newSpreadEvent();
+    }
+
+    /**
+     * Creates a new {@link WriteEvent}
+     * 
+     * @return The event
+     */
+    static WriteEvent newWriteEvent()
+    {
+        return FACTORY == null ? DisabledEvent.INSTANCE
+            : FACTORY.newWriteEvent();
+    }
+
+    /**
+     * Start a recording with the "profile" configuration of the JDK, and
+     * all events of the conversion. The recording is stopped and written
+     * into the given file when it is closed.
+     * 
+     * @param file The file
+     * @return The recording
+     * @throws IOException If the recording cannot be started, or the Java
+     *         Flight Recorder is not available
+     */
+    static Closeable startRecording(File file) throws IOException
+    {
+        if (FACTORY == null)
+        {
+            throw new IOException(
+                "Flight recordings require Java 11 or later");
+        }
+        return FACTORY.startRecording(file);
+    }
+
+    /**
+     * An event that is never committed, used for all event types when the
+     * Java Flight Recorder is not available
+     */
+    private static final class DisabledEvent
+        implements SectionEvent, TableEvent, SpreadEvent, WriteEvent
+    {
+        /**
+         * The singleton instance
+         */
+        static final DisabledEvent INSTANCE = new DisabledEvent();
+
+        @Override
+        public void begin()
+        {
+            // Not recorded
+        }
+
+        @Override
+        public boolean shouldCommit()
+        {
+            return false;
+        }
+
+        @Override
+        public void commit()
+        {
+            // Not recorded
+        }
+
+        @Override
+        public void setTitle(String title)
+        {
+            // Not recorded
+        }
+
+        @Override
+        public void setLevel(int level)
+        {
+            // Not recorded
+        }
+
+        @Override
+        public void setNodeName(String nodeName)
+        {
+            // Not recorded
+        }
+
+        @Override
+        public void setRowCount(int rowCount)
+        {
+            // Not recorded
+        }
+
+        @Override
+        public void setJrubyTime(long jrubyTime)
+        {
+            // Not recorded
+        }
+
+        @Override
+        public void setInstanceCount(int instanceCount)
+        {
+            // Not recorded
+        }
+
+        @Override
+        public void setPath(String path)
+        {
+            // Not recorded
+        }
+
+        @Override
+        public void setBytes(long bytes)
+        {
+            // Not recorded
+        }
+    }
+
+    /**
+     * Private constructor to prevent instantiation
+     */
+    private ConversionEvents()
+    {
+        // Private constructor to prevent instantiation
+    }
+}
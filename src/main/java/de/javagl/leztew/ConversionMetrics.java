@@ -0,0 +1,632 @@
+/*
+ * www.javagl.de - leztew
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.leztew;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/**
+ * A class for recording the durations, allocated bytes and counts of
+ * processed elements of a conversion run.
+ * 
+ * A run is started with {@link #start()}. While it is running, the
+ * durations of the {@link Phase phases} are recorded with
+ * {@link #time(Phase)}, and the processed elements are counted with
+ * {@link #count(Counter, long)}. When no run is active, these calls do not
+ * record anything. All log records with a level of at least
+ * <code>WARNING</code> are counted as warnings.
+ * 
+ * The duration and the allocated bytes are measured on the thread that
+ * executes the respective phase, and are summed up for all executions
+ * of the phase. When a phase is executed by multiple threads in
+ * parallel, the sum may therefore be larger than the elapsed time.
+ */
+final class ConversionMetrics
+{
+    /**
+     * The logger used in this class
+     */
+    private static final Logger logger =
+        Logger.getLogger(ConversionMetrics.class.getName());
+
+    /**
+     * The phases of a conversion run
+     */
+    enum Phase
+    {
+        /**
+         * The creation of the Asciidoctor instance, including the startup
+         * of JRuby
+         */
+        STARTUP,
+
+        /**
+         * Reading the specification
+         */
+        READ,
+
+        /**
+         * The conversion of the specification into the nodes, including
+         * the parsing, the {@link #EXTRACT extraction}, and the
+         * {@link #STARTUP startup} when the Asciidoctor instance is used
+         * for the first time
+         */
+        CONVERT,
+
+        /**
+         * The extraction of the nodes from the parsed document, including
+         * the processing of the {@link #TABLES tables}
+         */
+        EXTRACT,
+
+        /**
+         * The processing of the tables that define the nodes
+         */
+        TABLES,
+
+        /**
+         * The creation of the spread outputs.
+         * 
+         * With <code>--lazy-spread</code>, this only covers the creation
+         * of the {@link SpreadCategory} views. The instances are created
+         * while the outputs are written, and are therefore part of the
+         * {@link #WRITE} phase.
+         */
+        SPREAD,
+
+        /**
+         * Writing the outputs
+         */
+        WRITE
+    }
+
+    /**
+     * The elements that are counted during a conversion run
+     */
+    enum Counter
+    {
+        /**
+         * The tables that have been processed
+         */
+        TABLES,
+
+        /**
+         * The rows of the tables that have been processed
+         */
+        ROWS,
+
+        /**
+         * The nodes that have been created
+         */
+        NODES,
+
+        /**
+         * The configuration elements of the nodes
+         */
+        CONFIGURATION_ELEMENTS,
+
+        /**
+         * The sockets of the nodes
+         */
+        SOCKETS,
+
+        /**
+         * The log records with a level of at least <code>WARNING</code>
+         */
+        WARNINGS
+    }
+
+    /**
+     * A measurement of a {@link Phase}, which ends when it is stopped.
+     * 
+     * The timer is not <code>AutoCloseable</code>, because the resource
+     * variable of a <code>try</code>-with-resources statement would not
+     * be referenced in its body. It is stopped in a <code>finally</code>
+     * block instead:
+     * <pre><code>
+     * ConversionMetrics.Timer timer =
+     *     ConversionMetrics.time(ConversionMetrics.Phase.WRITE);
+     * try
+     * {
+     *     ...
+     * }
+     * finally
+     * {
+     *     timer.stop();
+     * }
+     * </code></pre>
+     */
+    static final class Timer
+    {
+        /**
+         * The metrics that the measurement is recorded in, or
+         * <code>null</code> if nothing is recorded
+         */
+        private final ConversionMetrics metrics;
+
+        /**
+         * The phase
+         */
+        private final Phase phase;
+
+        /**
+         * The value of <code>System.nanoTime()</code> at the start
+         */
+        private final long startNs;
+
+        /**
+         * The allocated bytes of the current thread at the start
+         */
+        private final long startBytes;
+
+        /**
+         * Creates a new instance
+         * 
+         * @param metrics The metrics, or <code>null</code>
+         * @param phase The phase
+         */
+        private Timer(ConversionMetrics metrics, Phase phase)
+        {
+            this.metrics = metrics;
+            this.phase = phase;
+            if (metrics == null)
+            {
+                this.startNs = 0;
+                this.startBytes = 0;
+            }
+            else
+            {
+                this.startNs = System.nanoTime();
+                this.startBytes = currentThreadAllocatedBytes();
+            }
+        }
+
+        /**
+         * Stop the measurement, and record it in the metrics
+         */
+        void stop()
+        {
+            if (metrics == null)
+            {
+                return;
+            }
+            long ns = System.nanoTime() - startNs;
+            long bytes = currentThreadAllocatedBytes() - startBytes;
+            int i = phase.ordinal();
+            metrics.phaseCalls[i].increment();
+            metrics.phaseNs[i].add(ns);
+            metrics.phaseBytes[i].add(bytes);
+        }
+    }
+
+    /**
+     * The timer that is returned when no run is active
+     */
+    private static final Timer NO_TIMER = new Timer(null, null);
+
+    /**
+     * The thread bean, if it supports measuring the allocated bytes of
+     * threads, or <code>null</code> otherwise
+     */
+    private static final com.sun.management.ThreadMXBean threadBean =
+        findThreadBean();
+
+    /**
+     * The run that is currently active
+     */
+    private static volatile ConversionMetrics active;
+
+    /**
+     * The number of executions of each phase
+     */
+    private final LongAdder[] phaseCalls;
+
+    /**
+     * The durations of each phase, in nanoseconds
+     */
+    private final LongAdder[] phaseNs;
+
+    /**
+     * The allocated bytes of each phase
+     */
+    private final LongAdder[] phaseBytes;
+
+    /**
+     * The counts of each counter
+     */
+    private final LongAdder[] counts;
+
+    /**
+     * The handler that counts the warnings
+     */
+    private final Handler warningHandler;
+
+    /**
+     * The value of <code>System.nanoTime()</code> at the start of the run
+     */
+    private final long startNs;
+
+    /**
+     * The duration of the run, in nanoseconds, or -1 while it is running
+     */
+    private long totalNs = -1;
+
+    /**
+     * Creates a new instance
+     */
+    private ConversionMetrics()
+    {
+        this.phaseCalls = createAdders(Phase.values().length);
+        this.phaseNs = createAdders(Phase.values().length);
+        this.phaseBytes = createAdders(Phase.values().length);
+        this.counts = createAdders(Counter.values().length);
+        this.warningHandler = new Handler()
+        {
+            @Override
+            public void publish(LogRecord record)
+            {
+                if (record.getLevel().intValue() >= Level.WARNING.intValue())
+                {
+                    counts[Counter.WARNINGS.ordinal()].increment();
+                }
+            }
+
+            @Override
+            public void flush()
+            {
+                // Nothing to do here
+            }
+
+            @Override
+            public void close() throws SecurityException
+            {
+                // Nothing to do here
+            }
+        };
+        this.startNs = System.nanoTime();
+    }
+
+    /**
+     * Start a new run, which will receive all measurements until it is
+     * {@link #stop() stopped}
+     * 
+     * @return The metrics of the run
+     * @throws IllegalStateException If another run is already active
+     */
+    static synchronized ConversionMetrics start()
+    {
+        if (active != null)
+        {
+            throw new IllegalStateException("A run is already active");
+        }
+        ConversionMetrics metrics = new ConversionMetrics();
+        Logger.getLogger("").addHandler(metrics.warningHandler);
+        active = metrics;
+        return metrics;
+    }
+
+    /**
+     * Stop this run
+     */
+    synchronized void stop()
+    {
+        if (active == this)
+        {
+            active = null;
+            Logger.getLogger("").removeHandler(warningHandler);
+            totalNs = System.nanoTime() - startNs;
+        }
+    }
+
+    /**
+     * Start the measurement of the given phase. The measurement ends when
+     * the returned timer is stopped. If no run is active, then the timer
+     * will not record anything.
+     * 
+     * @param phase The phase
+     * @return The timer
+     */
+    static Timer time(Phase phase)
+    {
+        ConversionMetrics metrics = active;
+        if (metrics == null)
+        {
+            return NO_TIMER;
+        }
+        return new Timer(metrics, phase);
+    }
+
+    /**
+     * Add the given count to the given counter of the active run. If no run
+     * is active, then nothing is done.
+     * 
+     * @param counter The counter
+     * @param count The count
+     */
+    static void count(Counter counter, long count)
+    {
+        ConversionMetrics metrics = active;
+        if (metrics != null)
+        {
+            metrics.counts[counter.ordinal()].add(count);
+        }
+    }
+
+    /**
+     * Write the metrics as JSON into the given file
+     * 
+     * @param file The file
+     * @throws IOException If an IO error occurs
+     */
+    void writeJson(File file) throws IOException
+    {
+        Map<String, Object> phases = new LinkedHashMap<String, Object>();
+        for (Phase phase : Phase.values())
+        {
+            int i = phase.ordinal();
+            Map<String, Object> values = new LinkedHashMap<String, Object>();
+            values.put("calls", phaseCalls[i].sum());
+            values.put("timeNs", phaseNs[i].sum());
+            if (threadBean != null)
+            {
+                values.put("allocatedBytes", phaseBytes[i].sum());
+            }
+            phases.put(toCamelCase(phase.name()), values);
+        }
+        Map<String, Object> counters = new LinkedHashMap<String, Object>();
+        for (Counter counter : Counter.values())
+        {
+            counters.put(toCamelCase(counter.name()),
+                counts[counter.ordinal()].sum());
+        }
+        Map<String, Object> root = new LinkedHashMap<String, Object>();
+        root.put("totalNs", getTotalNs());
+        root.put("phases", phases);
+        root.put("counters", counters);
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.enable(SerializationFeature.INDENT_OUTPUT);
+        objectMapper.writeValue(file, root);
+    }
+
+    /**
+     * Write the metrics in the Prometheus text format into the given file
+     * 
+     * @param file The file
+     * @throws IOException If an IO error occurs
+     */
+    void writePrometheus(File file) throws IOException
+    {
+        try (PrintWriter pw = new PrintWriter(new OutputStreamWriter(
+            new FileOutputStream(file), StandardCharsets.UTF_8)))
+        {
+            pw.print("# HELP leztew_run_seconds "
+                + "Duration of the conversion run\n");
+            pw.print("# TYPE leztew_run_seconds gauge\n");
+            pw.print("leztew_run_seconds " + seconds(getTotalNs()) + "\n");
+
+            pw.print("# HELP leztew_phase_calls_total "
+                + "Number of executions of the phase\n");
+            pw.print("# TYPE leztew_phase_calls_total counter\n");
+            for (Phase phase : Phase.values())
+            {
+                pw.print("leztew_phase_calls_total" + phaseLabel(phase) + " "
+                    + phaseCalls[phase.ordinal()].sum() + "\n");
+            }
+
+            pw.print("# HELP leztew_phase_seconds_total "
+                + "Time spent in the phase, summed over all threads\n");
+            pw.print("# TYPE leztew_phase_seconds_total counter\n");
+            for (Phase phase : Phase.values())
+            {
+                pw.print("leztew_phase_seconds_total" + phaseLabel(phase) + " "
+                    + seconds(phaseNs[phase.ordinal()].sum()) + "\n");
+            }
+
+            if (threadBean != null)
+            {
+                pw.print("# HELP leztew_phase_allocated_bytes_total "
+                    + "Bytes allocated in the phase\n");
+                pw.print("# TYPE leztew_phase_allocated_bytes_total counter\n");
+                for (Phase phase : Phase.values())
+                {
+                    pw.print("leztew_phase_allocated_bytes_total"
+                        + phaseLabel(phase) + " "
+                        + phaseBytes[phase.ordinal()].sum() + "\n");
+                }
+            }
+
+            for (Counter counter : Counter.values())
+            {
+                String name = "leztew_"
+                    + counter.name().toLowerCase(Locale.ENGLISH) + "_total";
+                pw.print("# HELP " + name + " Number of "
+                    + counter.name().toLowerCase(Locale.ENGLISH)
+                        .replace('_', ' ')
+                    + "\n");
+                pw.print("# TYPE " + name + " counter\n");
+                pw.print(name + " " + counts[counter.ordinal()].sum() + "\n");
+            }
+        }
+    }
+
+    /**
+     * Write the metrics into the files <code>metrics.json</code> and
+     * <code>metrics.prom</code> in the given directory
+     * 
+     * @param directory The directory
+     * @throws IOException If an IO error occurs
+     */
+    void write(File directory) throws IOException
+    {
+        File jsonFile = new File(directory, "metrics.json");
+        File prometheusFile = new File(directory, "metrics.prom");
+        writeJson(jsonFile);
+        writePrometheus(prometheusFile);
+        logger.info("Wrote metrics to " + jsonFile + " and " + prometheusFile);
+    }
+
+    /**
+     * Returns the duration of the run, or the time since its start if it
+     * is still running
+     * 
+     * @return The duration, in nanoseconds
+     */
+    private synchronized long getTotalNs()
+    {
+        if (totalNs < 0)
+        {
+            return System.nanoTime() - startNs;
+        }
+        return totalNs;
+    }
+
+    /**
+     * Returns the Prometheus label for the given phase
+     * 
+     * @param phase The phase
+     * @return The label
+     */
+    private static String phaseLabel(Phase phase)
+    {
+        return "{phase=\"" + phase.name().toLowerCase(Locale.ENGLISH)
+            + "\"}";
+    }
+
+    /**
+     * Returns the given duration in seconds, as a string
+     * 
+     * @param ns The duration in nanoseconds
+     * @return The string
+     */
+    private static String seconds(long ns)
+    {
+        return String.format(Locale.ENGLISH, "%.9f", ns / 1e9);
+    }
+
+    /**
+     * Converts a name like <code>CONFIGURATION_ELEMENTS</code> into
+     * <code>configurationElements</code>
+     * 
+     * @param name The name
+     * @return The camel case name
+     */
+    private static String toCamelCase(String name)
+    {
+        StringBuilder sb = new StringBuilder();
+        boolean upper = false;
+        for (char c : name.toLowerCase(Locale.ENGLISH).toCharArray())
+        {
+            if (c == '_')
+            {
+                upper = true;
+            }
+            else if (upper)
+            {
+                sb.append(Character.toUpperCase(c));
+                upper = false;
+            }
+            else
+            {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Creates an array of new adders
+     * 
+     * @param n The size of the array
+     * @return The array
+     */
+    private static LongAdder[] createAdders(int n)
+    {
+        LongAdder[] adders = new LongAdder[n];
+        for (int i = 0; i < n; i++)
+        {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+
+    /**
+     * Returns the number of bytes that have been allocated by the current
+     * thread, or 0 if this cannot be measured
+     * 
+     * @return The allocated bytes
+     */
+    private static long currentThreadAllocatedBytes()
+    {
+        if (threadBean == null)
+        {
+            return 0;
+        }
+        return threadBean
+            .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * Returns the thread bean if it supports measuring the allocated bytes
+     * of threads, or <code>null</code> otherwise
+     * 
+     * @return The thread bean
+     */
+    private static com.sun.management.ThreadMXBean findThreadBean()
+    {
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        if (!(threadMXBean instanceof com.sun.management.ThreadMXBean))
+        {
+            return null;
+        }
+        com.sun.management.ThreadMXBean bean =
+            (com.sun.management.ThreadMXBean) threadMXBean;
+        if (!bean.isThreadAllocatedMemorySupported()
+            || !bean.isThreadAllocatedMemoryEnabled())
+        {
+            return null;
+        }
+        return bean;
+    }
+}
@@ -0,0 +1,554 @@
+/*
+ * www.javagl.de - leztew
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.leztew;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * A class for reading the JSON outputs that are written by
+ * {@link LeztewMain} (or a {@link JsonNodeSink}) with a streaming parser.
+ *
+ * The categories and nodes are passed to a {@link NodeSink} while they
+ * are parsed, so that the complete tree does not have to be kept in
+ * memory. The input may be restricted to the subtree of one category, and
+ * to nodes with certain names. Categories and nodes that are not
+ * requested are skipped by the parser, without creating any objects for
+ * them.
+ *
+ * The name of each category must precede its nodes and children, and its
+ * nodes must precede its children, as in the outputs of
+ * {@link LeztewMain}.
+ */
+public class JsonNodeReader
+{
+    /**
+     * The factory for the parsers
+     */
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    /**
+     * The path of the category whose subtree should be read, or
+     * <code>null</code> if all categories should be read
+     */
+    private List<String> categoryPath;
+
+    /**
+     * The filter for the names of the nodes that should be read, or
+     * <code>null</code> if all nodes should be read
+     */
+    private Predicate<String> nodeFilter;
+
+    /**
+     * Default constructor
+     */
+    public JsonNodeReader()
+    {
+        // Default constructor
+    }
+
+    /**
+     * Set the path of the category whose subtree should be read. The path
+     * consists of the names of all categories from the root to the
+     * requested one, where a missing name is the empty string.
+     *
+     * The categories on the path are still passed to the {@link NodeSink},
+     * so that the structure of the tree is preserved, but their nodes and
+     * their other children are skipped. If the path is <code>null</code>,
+     * then all categories will be read.
+     *
+     * @param categoryPath The category path
+     */
+    public void setCategoryPath(List<String> categoryPath)
+    {
+        this.categoryPath = categoryPath == null ? null
+            : Collections.unmodifiableList(
+                new ArrayList<String>(categoryPath));
+    }
+
+    /**
+     * Set the filter for the names of the nodes that should be read. Nodes
+     * for which the filter returns <code>false</code> are skipped. If the
+     * filter is <code>null</code>, then all nodes will be read.
+     *
+     * @param nodeFilter The node filter
+     */
+    public void setNodeFilter(Predicate<String> nodeFilter)
+    {
+        this.nodeFilter = nodeFilter;
+    }
+
+    /**
+     * Read the {@link Category} tree from the given file
+     *
+     * @param file The file
+     * @return The root {@link Category}, or <code>null</code> if the root
+     *         is not on the category path
+     * @throws IOException If an IO error occurs, or the input is not valid
+     */
+    public Category load(File file) throws IOException
+    {
+        CategoryBuilder categoryBuilder = new CategoryBuilder();
+        read(file, categoryBuilder);
+        return categoryBuilder.getRoot();
+    }
+
+    /**
+     * Read the {@link Category} tree from the given input stream. The
+     * caller is responsible for closing the stream.
+     *
+     * @param inputStream The input stream
+     * @return The root {@link Category}, or <code>null</code> if the root
+     *         is not on the category path
+     * @throws IOException If an IO error occurs, or the input is not valid
+     */
+    public Category load(InputStream inputStream) throws IOException
+    {
+        CategoryBuilder categoryBuilder = new CategoryBuilder();
+        read(inputStream, categoryBuilder);
+        return categoryBuilder.getRoot();
+    }
+
+    /**
+     * Read the categories and nodes from the given file, and pass them to
+     * the given {@link NodeSink}
+     *
+     * @param file The file
+     * @param nodeSink The {@link NodeSink}
+     * @throws IOException If an IO error occurs, or the input is not valid
+     */
+    public void read(File file, NodeSink nodeSink) throws IOException
+    {
+        try (InputStream inputStream =
+            new BufferedInputStream(new FileInputStream(file), 65536))
+        {
+            read(inputStream, nodeSink);
+        }
+    }
+
+    /**
+     * Read the categories and nodes from the given input stream, and pass
+     * them to the given {@link NodeSink}. The caller is responsible for
+     * closing the stream.
+     *
+     * @param inputStream The input stream
+     * @param nodeSink The {@link NodeSink}
+     * @throws IOException If an IO error occurs, or the input is not valid
+     */
+    public void read(InputStream inputStream, NodeSink nodeSink)
+        throws IOException
+    {
+        try (JsonParser parser = JSON_FACTORY.createParser(inputStream))
+        {
+            parser.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+            if (parser.nextToken() != JsonToken.START_OBJECT)
+            {
+                throw new JsonParseException(parser,
+                    "Expected the object of the root category");
+            }
+            Map<String, String> strings = new HashMap<String, String>();
+            readCategory(parser, new ArrayList<String>(), strings, nodeSink);
+        }
+    }
+
+    /**
+     * Read the category whose object was just started, and its children.
+     *
+     * @param parser The parser
+     * @param path The path of the parent category. This will be extended
+     *        with the name of this category while it is read.
+     * @param strings The strings that are shared among the elements
+     * @param nodeSink The {@link NodeSink}
+     * @throws IOException If an IO error occurs, or the input is not valid
+     */
+    private void readCategory(JsonParser parser, List<String> path,
+        Map<String, String> strings, NodeSink nodeSink) throws IOException
+    {
+        String name = null;
+        boolean begun = false;
+        while (parser.nextToken() == JsonToken.FIELD_NAME)
+        {
+            String fieldName = parser.getCurrentName();
+            parser.nextToken();
+            if (fieldName.equals("name"))
+            {
+                if (begun)
+                {
+                    throw new JsonParseException(parser, "The name of a "
+                        + "category must precede its nodes and children");
+                }
+                name = parser.getValueAsString();
+                continue;
+            }
+            if (!begun)
+            {
+                if (!begin(path, name, nodeSink))
+                {
+                    skipRemainingFields(parser);
+                    return;
+                }
+                begun = true;
+            }
+            if (fieldName.equals("nodes") && isInSubtree(path))
+            {
+                readNodes(parser, strings, nodeSink);
+            }
+            else if (fieldName.equals("children"))
+            {
+                expect(parser, JsonToken.START_ARRAY);
+                while (parser.nextToken() == JsonToken.START_OBJECT)
+                {
+                    readCategory(parser, path, strings, nodeSink);
+                }
+            }
+            else
+            {
+                parser.skipChildren();
+            }
+        }
+        if (!begun)
+        {
+            if (!begin(path, name, nodeSink))
+            {
+                return;
+            }
+        }
+        path.remove(path.size() - 1);
+        nodeSink.endCategory();
+    }
+
+    /**
+     * Begin the category with the given name, if it is on the category
+     * path
+     *
+     * @param path The path of the parent category. If the category is
+     *        begun, then its name is appended to this path.
+     * @param name The name of the category
+     * @param nodeSink The {@link NodeSink}
+     * @return Whether the category was begun
+     */
+    private boolean begin(List<String> path, String name, NodeSink nodeSink)
+    {
+        path.add(name == null ? "" : name);
+        if (!isOnPath(path))
+        {
+            path.remove(path.size() - 1);
+            return false;
+        }
+        nodeSink.beginCategory(name);
+        return true;
+    }
+
+    /**
+     * Skip the value of the current field, and all remaining fields of the
+     * object that contains it
+     *
+     * @param parser The parser
+     * @throws IOException If an IO error occurs, or the input is not valid
+     */
+    private static void skipRemainingFields(JsonParser parser)
+        throws IOException
+    {
+        parser.skipChildren();
+        while (parser.nextToken() == JsonToken.FIELD_NAME)
+        {
+            parser.nextToken();
+            parser.skipChildren();
+        }
+    }
+
+    /**
+     * Returns whether the category with the given path is on the category
+     * path, meaning that it is either an ancestor of the requested
+     * category, or contained in its subtree
+     *
+     * @param path The path
+     * @return Whether the path is on the category path
+     */
+    private boolean isOnPath(List<String> path)
+    {
+        if (categoryPath == null)
+        {
+            return true;
+        }
+        int n = Math.min(path.size(), categoryPath.size());
+        for (int i = 0; i < n; i++)
+        {
+            if (!path.get(i).equals(categoryPath.get(i)))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns whether the category with the given path is contained in the
+     * subtree of the requested category. The path must be on the category
+     * path.
+     *
+     * @param path The path
+     * @return Whether the path is in the subtree
+     */
+    private boolean isInSubtree(List<String> path)
+    {
+        return categoryPath == null || path.size() >= categoryPath.size();
+    }
+
+    /**
+     * Read the array of nodes that was just started, and pass the nodes
+     * that are accepted by the node filter to the given {@link NodeSink}
+     *
+     * @param parser The parser
+     * @param strings The strings that are shared among the elements
+     * @param nodeSink The {@link NodeSink}
+     * @throws IOException If an IO error occurs, or the input is not valid
+     */
+    private void readNodes(JsonParser parser, Map<String, String> strings,
+        NodeSink nodeSink) throws IOException
+    {
+        expect(parser, JsonToken.START_ARRAY);
+        while (parser.nextToken() == JsonToken.START_OBJECT)
+        {
+            Node node = readNode(parser, strings);
+            if (node != null)
+            {
+                nodeSink.node(node);
+            }
+        }
+    }
+
+    /**
+     * Read the node whose object was just started. If the name of the
+     * node is not accepted by the node filter, then the remaining fields
+     * are skipped, and <code>null</code> is returned.
+     *
+     * @param parser The parser
+     * @param strings The strings that are shared among the elements
+     * @return The node
+     * @throws IOException If an IO error occurs, or the input is not valid
+     */
+    private Node readNode(JsonParser parser, Map<String, String> strings)
+        throws IOException
+    {
+        Node node = new Node();
+        boolean named = false;
+        while (parser.nextToken() == JsonToken.FIELD_NAME)
+        {
+            String fieldName = parser.getCurrentName();
+            parser.nextToken();
+            switch (fieldName)
+            {
+                case "title":
+                    node.setTitle(parser.getValueAsString());
+                    break;
+                case "name":
+                    node.setName(parser.getValueAsString());
+                    named = true;
+                    if (!accept(node.getName()))
+                    {
+                        skipRemainingFields(parser);
+                        return null;
+                    }
+                    break;
+                case "description":
+                    node.setDescription(parser.getValueAsString());
+                    break;
+                case "configuration":
+                    readConfiguration(parser, strings,
+                        node.getConfiguration());
+                    break;
+                case "inputFlowSockets":
+                    readSockets(parser, strings, node.getInputFlowSockets());
+                    break;
+                case "inputValueSockets":
+                    readSockets(parser, strings, node.getInputValueSockets());
+                    break;
+                case "outputFlowSockets":
+                    readSockets(parser, strings, node.getOutputFlowSockets());
+                    break;
+                case "outputValueSockets":
+                    readSockets(parser, strings,
+                        node.getOutputValueSockets());
+                    break;
+                default:
+                    parser.skipChildren();
+                    break;
+            }
+        }
+        if (!named && !accept(null))
+        {
+            return null;
+        }
+        return node;
+    }
+
+    /**
+     * Returns whether the node with the given name is accepted by the
+     * node filter
+     *
+     * @param name The name
+     * @return Whether the node is accepted
+     */
+    private boolean accept(String name)
+    {
+        return nodeFilter == null || nodeFilter.test(name);
+    }
+
+    /**
+     * Read the array of configuration elements that was just started into
+     * the given list
+     *
+     * @param parser The parser
+     * @param strings The strings that are shared among the elements
+     * @param configuration The list that will store the elements
+     * @throws IOException If an IO error occurs, or the input is not valid
+     */
+    private static void readConfiguration(JsonParser parser,
+        Map<String, String> strings,
+        List<ConfigurationElement> configuration) throws IOException
+    {
+        expect(parser, JsonToken.START_ARRAY);
+        String values[] = new String[3];
+        while (parser.nextToken() == JsonToken.START_OBJECT)
+        {
+            readElement(parser, strings, values);
+            configuration
+                .add(new ConfigurationElement(values[0], values[1], values[2]));
+        }
+    }
+
+    /**
+     * Read the array of sockets that was just started into the given list
+     *
+     * @param parser The parser
+     * @param strings The strings that are shared among the elements
+     * @param sockets The list that will store the sockets
+     * @throws IOException If an IO error occurs, or the input is not valid
+     */
+    private static void readSockets(JsonParser parser,
+        Map<String, String> strings, List<Socket> sockets) throws IOException
+    {
+        expect(parser, JsonToken.START_ARRAY);
+        String values[] = new String[3];
+        while (parser.nextToken() == JsonToken.START_OBJECT)
+        {
+            readElement(parser, strings, values);
+            sockets.add(new Socket(values[0], values[1], values[2]));
+        }
+    }
+
+    /**
+     * Read the type, name and description of the configuration element or
+     * socket whose object was just started into the given array.
+     *
+     * The types and names are shared with previous elements that had the
+     * same type or name, because there are only few distinct ones.
+     *
+     * @param parser The parser
+     * @param strings The strings that are shared among the elements
+     * @param values The array that will store the values
+     * @throws IOException If an IO error occurs, or the input is not valid
+     */
+    private static void readElement(JsonParser parser,
+        Map<String, String> strings, String values[]) throws IOException
+    {
+        values[0] = null;
+        values[1] = null;
+        values[2] = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME)
+        {
+            String fieldName = parser.getCurrentName();
+            parser.nextToken();
+            switch (fieldName)
+            {
+                case "type":
+                    values[0] = share(parser.getValueAsString(), strings);
+                    break;
+                case "name":
+                    values[1] = share(parser.getValueAsString(), strings);
+                    break;
+                case "description":
+                    values[2] = parser.getValueAsString();
+                    break;
+                default:
+                    parser.skipChildren();
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Returns the string from the given map that is equal to the given
+     * one, storing the given one if there is none yet
+     *
+     * @param s The string
+     * @param strings The strings
+     * @return The shared string
+     */
+    private static String share(String s, Map<String, String> strings)
+    {
+        if (s == null)
+        {
+            return null;
+        }
+        String shared = strings.putIfAbsent(s, s);
+        return shared == null ? s : shared;
+    }
+
+    /**
+     * Make sure that the current token of the given parser is the given
+     * token
+     *
+     * @param parser The parser
+     * @param token The expected token
+     * @throws JsonParseException If the current token is a different one
+     */
+    private static void expect(JsonParser parser, JsonToken token)
+        throws JsonParseException
+    {
+        if (parser.currentToken() != token)
+        {
+            throw new JsonParseException(parser, "Expected " + token
+                + ", but found " + parser.currentToken());
+        }
+    }
+}
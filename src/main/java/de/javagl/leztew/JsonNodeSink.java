@@ -0,0 +1,329 @@
+/*
+ * www.javagl.de - leztew
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.leztew;
+
+import java.io.Closeable;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.DefaultPrettyPrinter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/**
+ * Implementation of a {@link NodeSink} that writes the categories and nodes
+ * to a JSON output, while they are received.
+ *
+ * The output has the same structure as the output that is created by
+ * serializing the complete {@link Category} tree with Jackson. Only the
+ * {@link Node} that is currently written is serialized with data binding,
+ * so the memory requirements do not depend on the size of the tree.
+ *
+ * Optionally, the byte offsets of the categories and nodes in the output
+ * can be passed to a {@link JsonOffsetListener}.
+ */
+public class JsonNodeSink implements NodeSink, Closeable
+{
+    /**
+     * The states of a category that is currently being written
+     */
+    private enum State
+    {
+        /**
+         * Neither nodes nor children have been written
+         */
+        EMPTY,
+
+        /**
+         * The array of nodes has been started
+         */
+        NODES,
+
+        /**
+         * The array of children has been started
+         */
+        CHILDREN
+    }
+
+    /**
+     * The object mapper for writing the nodes
+     */
+    private final ObjectMapper objectMapper;
+
+    /**
+     * The generator
+     */
+    private final JsonGenerator generator;
+
+    /**
+     * The states of the categories that are currently open
+     */
+    private final Deque<State> stack;
+
+    /**
+     * The stream that counts the bytes that have been written
+     */
+    private final CountingOutputStream countingOutputStream;
+
+    /**
+     * The position of the start of the object that is currently written,
+     * or -1 if the position of the next object should be recorded
+     */
+    private long objectStart;
+
+    /**
+     * The optional {@link JsonOffsetListener}
+     */
+    private JsonOffsetListener offsetListener;
+
+    /**
+     * Creates a new instance that writes to the given output stream. The
+     * caller is responsible for closing the given stream.
+     *
+     * @param outputStream The output stream
+     * @throws IOException If the generator cannot be created
+     */
+    public JsonNodeSink(OutputStream outputStream) throws IOException
+    {
+        this.objectMapper = new ObjectMapper();
+        objectMapper.setSerializationInclusion(Include.NON_EMPTY);
+        objectMapper.disable(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.countingOutputStream = new CountingOutputStream(outputStream);
+        this.generator =
+            objectMapper.getFactory().createGenerator(countingOutputStream);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.setPrettyPrinter(new PositionPrettyPrinter());
+        this.stack = new ArrayDeque<State>();
+        this.objectStart = -1;
+    }
+
+    /**
+     * Set the {@link JsonOffsetListener} that will be informed about the
+     * positions of the categories and nodes in the output
+     *
+     * @param offsetListener The {@link JsonOffsetListener}
+     */
+    void setOffsetListener(JsonOffsetListener offsetListener)
+    {
+        this.offsetListener = offsetListener;
+    }
+
+    /**
+     * Returns the number of bytes that have been written to the output,
+     * including the bytes that are still buffered in the generator
+     *
+     * @return The position
+     */
+    private long position()
+    {
+        return countingOutputStream.count + generator.getOutputBuffered();
+    }
+
+    @Override
+    public void beginCategory(String name)
+    {
+        try
+        {
+            State state = stack.peek();
+            if (state == State.NODES)
+            {
+                generator.writeEndArray();
+            }
+            if (state == State.EMPTY || state == State.NODES)
+            {
+                generator.writeFieldName("children");
+                generator.writeStartArray();
+                stack.pop();
+                stack.push(State.CHILDREN);
+            }
+            objectStart = -1;
+            generator.writeStartObject();
+            if (offsetListener != null)
+            {
+                offsetListener.beginCategory(name, objectStart);
+            }
+            if (name != null && !name.isEmpty())
+            {
+                generator.writeStringField("name", name);
+            }
+            stack.push(State.EMPTY);
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void node(Node node)
+    {
+        try
+        {
+            State state = stack.peek();
+            if (state == null)
+            {
+                throw new IllegalStateException("No category is open");
+            }
+            if (state == State.CHILDREN)
+            {
+                throw new IllegalStateException(
+                    "Received a node after the first child category");
+            }
+            if (state == State.EMPTY)
+            {
+                generator.writeFieldName("nodes");
+                generator.writeStartArray();
+                stack.pop();
+                stack.push(State.NODES);
+            }
+            objectStart = -1;
+            objectMapper.writeValue(generator, node);
+            if (offsetListener != null)
+            {
+                offsetListener.node(
+                    node, objectStart, position() - objectStart);
+            }
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void endCategory()
+    {
+        try
+        {
+            State state = stack.poll();
+            if (state == null)
+            {
+                throw new IllegalStateException("No category is open");
+            }
+            if (state != State.EMPTY)
+            {
+                generator.writeEndArray();
+            }
+            generator.writeEndObject();
+            if (offsetListener != null)
+            {
+                offsetListener.endCategory(position());
+            }
+            if (stack.isEmpty())
+            {
+                generator.flush();
+            }
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Flushes and closes the underlying generator. This does not close the
+     * output stream that was given in the constructor.
+     */
+    @Override
+    public void close() throws IOException
+    {
+        generator.close();
+    }
+
+    /**
+     * A pretty printer that records the position of the first object that
+     * is started after the {@link JsonNodeSink#objectStart} was reset.
+     *
+     * The position is recorded after the separators and indentation that
+     * precede the object have been written, so that it is the position of
+     * the opening brace.
+     */
+    private class PositionPrettyPrinter extends DefaultPrettyPrinter
+    {
+        /**
+         * Serial UID
+         */
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public DefaultPrettyPrinter createInstance()
+        {
+            return new PositionPrettyPrinter();
+        }
+
+        @Override
+        public void writeStartObject(JsonGenerator g) throws IOException
+        {
+            if (objectStart == -1)
+            {
+                objectStart = position();
+            }
+            super.writeStartObject(g);
+        }
+    }
+
+    /**
+     * An output stream that counts the bytes that are written
+     */
+    private static class CountingOutputStream extends FilterOutputStream
+    {
+        /**
+         * The number of bytes that have been written
+         */
+        private long count;
+
+        /**
+         * Creates a new instance
+         *
+         * @param outputStream The output stream
+         */
+        CountingOutputStream(OutputStream outputStream)
+        {
+            super(outputStream);
+        }
+
+        @Override
+        public void write(int b) throws IOException
+        {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte b[], int off, int len) throws IOException
+        {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * www.javagl.de - leztew
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.leztew;
+
+/**
+ * Interface for classes that are informed about the byte offsets of the
+ * categories and nodes that are written by a {@link JsonNodeSink}.
+ *
+ * The offsets are the positions of the opening braces of the respective
+ * JSON objects in the output.
+ */
+interface JsonOffsetListener
+{
+    /**
+     * Will be called when the object of a category was started
+     *
+     * @param name The name of the category
+     * @param offset The offset of the object
+     */
+    void beginCategory(String name, long offset);
+
+    /**
+     * Will be called when a node was written
+     *
+     * @param node The {@link Node}
+     * @param offset The offset of the object
+     * @param length The length of the object, in bytes
+     */
+    void node(Node node, long offset, long length);
+
+    /**
+     * Will be called when the object of the category that is currently
+     * open was ended
+     *
+     * @param end The offset of the first byte after the object
+     */
+    void endCategory(long end);
+}
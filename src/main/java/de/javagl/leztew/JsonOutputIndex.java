@@ -0,0 +1,456 @@
+/*
+ * www.javagl.de - leztew
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.leztew;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+/**
+ * An index for random access to the categories and nodes in a JSON output
+ * that was written by {@link LeztewMain}.
+ *
+ * The index is stored in a file next to the JSON output (see
+ * {@link #indexFile(File)}). It contains the byte offset and length of the
+ * JSON object of each category and node. The categories are stored in
+ * pre-order, with the index of their parent category and their name, and
+ * the nodes with the index of the category that contains them, their
+ * name, and their template value. The categories are identified by
+ * their path (the names of all categories from the root to the category),
+ * and the nodes by their name. In the outputs with spread types, the
+ * instances of the nodes are additionally identified by their template
+ * value.
+ *
+ * The lookup methods only read and parse the slice of the JSON output
+ * that contains the requested object. They may be called by multiple
+ * threads concurrently.
+ */
+public class JsonOutputIndex implements Closeable
+{
+    /**
+     * The magic header of the format
+     */
+    static final int MAGIC = 0x4C5A4958; // "LZIX"
+
+    /**
+     * The version of the format
+     */
+    static final int VERSION = 1;
+
+    /**
+     * The extension that is appended to the name of the JSON output for
+     * the name of the index file
+     */
+    private static final String EXTENSION = ".idx";
+
+    /**
+     * The reader for nodes
+     */
+    private static final ObjectReader NODE_READER =
+        new ObjectMapper().readerFor(Node.class);
+
+    /**
+     * The reader for categories
+     */
+    private static final ObjectReader CATEGORY_READER =
+        new ObjectMapper().readerFor(Category.class);
+
+    /**
+     * The position of an object in the output
+     */
+    private static final class Entry
+    {
+        /**
+         * The offset of the object
+         */
+        final long offset;
+
+        /**
+         * The length of the object
+         */
+        final long length;
+
+        /**
+         * Creates a new instance
+         *
+         * @param offset The offset
+         * @param length The length
+         */
+        Entry(long offset, long length)
+        {
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+
+    /**
+     * The channel for the JSON output
+     */
+    private final FileChannel channel;
+
+    /**
+     * The entries of the categories, by their path
+     */
+    private final Map<List<String>, Entry> categories;
+
+    /**
+     * The entries of the nodes, by their name
+     */
+    private final Map<String, Entry> nodes;
+
+    /**
+     * The entries of the instances, by the name and template value
+     */
+    private final Map<List<String>, Entry> instances;
+
+    /**
+     * Creates a new, empty instance
+     *
+     * @param channel The channel for the JSON output
+     */
+    private JsonOutputIndex(FileChannel channel)
+    {
+        this.channel = channel;
+        this.categories = new LinkedHashMap<List<String>, Entry>();
+        this.nodes = new LinkedHashMap<String, Entry>();
+        this.instances = new LinkedHashMap<List<String>, Entry>();
+    }
+
+    /**
+     * Returns the index file for the given JSON output
+     *
+     * @param jsonFile The JSON output
+     * @return The index file
+     */
+    public static File indexFile(File jsonFile)
+    {
+        return new File(jsonFile.getPath() + EXTENSION);
+    }
+
+    /**
+     * Open the index for the given JSON output. The index is read from
+     * the {@link #indexFile(File) index file}.
+     *
+     * @param jsonFile The JSON output
+     * @return The index
+     * @throws IOException If an IO error occurs, the index file is not
+     *         valid, or it does not belong to the given output
+     */
+    public static JsonOutputIndex open(File jsonFile) throws IOException
+    {
+        File indexFile = indexFile(jsonFile);
+        FileChannel channel =
+            FileChannel.open(jsonFile.toPath(), StandardOpenOption.READ);
+        JsonOutputIndex jsonOutputIndex = new JsonOutputIndex(channel);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+            new FileInputStream(indexFile), 65536)))
+        {
+            int magic = in.readInt();
+            if (magic != MAGIC)
+            {
+                throw new IOException("Invalid magic header: " + magic);
+            }
+            int version = in.readInt();
+            if (version != VERSION)
+            {
+                throw new IOException("Unsupported version: " + version);
+            }
+            long outputLength = in.readLong();
+            if (outputLength != channel.size())
+            {
+                throw new IOException("The index " + indexFile + " is for an "
+                    + "output with " + outputLength + " bytes, but "
+                    + jsonFile + " has " + channel.size() + " bytes");
+            }
+            long indexLength = indexFile.length();
+            jsonOutputIndex.readEntries(in, indexLength - 16, outputLength);
+        }
+        catch (IOException e)
+        {
+            channel.close();
+            throw e;
+        }
+        return jsonOutputIndex;
+    }
+
+    /**
+     * Read the entries of the categories and nodes.
+     *
+     * The counts and string lengths are validated against the given number
+     * of remaining bytes of the index, and the entries are validated
+     * against the length of the output, so that an invalid index causes an
+     * exception instead of large allocations or reads outside of the
+     * output.
+     *
+     * @param in The input
+     * @param remaining The number of remaining bytes in the input
+     * @param outputLength The length of the JSON output
+     * @throws IOException If an IO error occurs, or the input is not valid
+     */
+    private void readEntries(DataInputStream in, long remaining,
+        long outputLength) throws IOException
+    {
+        // A category record has at least 24 bytes (the parent, the length
+        // of the name, and the entry), and a node record has at least 28
+        // bytes (the category, the lengths of the name and template value,
+        // and the entry)
+        int numCategories = in.readInt();
+        if (numCategories < 0 || numCategories > remaining / 24)
+        {
+            throw new IOException(
+                "Invalid number of categories: " + numCategories);
+        }
+        List<List<String>> paths = new ArrayList<List<String>>(numCategories);
+        for (int i = 0; i < numCategories; i++)
+        {
+            int parent = in.readInt();
+            String name = readString(in, remaining);
+            Entry entry = readEntry(in, outputLength);
+            if (parent < -1 || parent >= i)
+            {
+                throw new IOException("Invalid parent category: " + parent);
+            }
+            List<String> path = new ArrayList<String>();
+            if (parent != -1)
+            {
+                path.addAll(paths.get(parent));
+            }
+            path.add(name);
+            path = Collections.unmodifiableList(path);
+            paths.add(path);
+            categories.putIfAbsent(path, entry);
+        }
+        int numNodes = in.readInt();
+        if (numNodes < 0 || numNodes > remaining / 28)
+        {
+            throw new IOException("Invalid number of nodes: " + numNodes);
+        }
+        for (int i = 0; i < numNodes; i++)
+        {
+            int category = in.readInt();
+            if (category < 0 || category >= numCategories)
+            {
+                throw new IOException("Invalid category: " + category);
+            }
+            String name = readString(in, remaining);
+            String templateValue = readString(in, remaining);
+            Entry entry = readEntry(in, outputLength);
+            nodes.putIfAbsent(name, entry);
+            if (templateValue != null)
+            {
+                instances.putIfAbsent(
+                    Arrays.asList(name, templateValue), entry);
+            }
+        }
+    }
+
+    /**
+     * Read the offset and length of an object, and check that the object
+     * is contained in the output
+     *
+     * @param in The input
+     * @param outputLength The length of the JSON output
+     * @return The entry
+     * @throws IOException If an IO error occurs, or the entry is not valid
+     */
+    private static Entry readEntry(DataInputStream in, long outputLength)
+        throws IOException
+    {
+        long offset = in.readLong();
+        long length = in.readLong();
+        if (offset < 0 || length < 0 || offset > outputLength - length)
+        {
+            throw new IOException("Invalid entry with offset " + offset
+                + " and length " + length + " for an output with "
+                + outputLength + " bytes");
+        }
+        return new Entry(offset, length);
+    }
+
+    /**
+     * Read a string that was written as its length and UTF-8 bytes, or -1
+     * for <code>null</code>
+     *
+     * @param in The input
+     * @param maxLength The maximum length
+     * @return The string
+     * @throws IOException If an IO error occurs, or the length is not valid
+     */
+    private static String readString(DataInputStream in, long maxLength)
+        throws IOException
+    {
+        int length = in.readInt();
+        if (length == -1)
+        {
+            return null;
+        }
+        if (length < 0 || length > maxLength)
+        {
+            throw new IOException("Invalid string length: " + length);
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns an unmodifiable set of the names of all nodes
+     *
+     * @return The names
+     */
+    public Set<String> getNodeNames()
+    {
+        return Collections.unmodifiableSet(nodes.keySet());
+    }
+
+    /**
+     * Returns an unmodifiable set of the paths of all categories
+     *
+     * @return The paths
+     */
+    public Set<List<String>> getCategoryPaths()
+    {
+        return Collections.unmodifiableSet(categories.keySet());
+    }
+
+    /**
+     * Read the node with the given name from the output, or return
+     * <code>null</code> if there is no such node. If there are multiple
+     * nodes with the same name, then the first one is returned.
+     *
+     * @param name The name
+     * @return The node
+     * @throws IOException If an IO error occurs
+     */
+    public Node readNode(String name) throws IOException
+    {
+        Entry entry = nodes.get(name);
+        if (entry == null)
+        {
+            return null;
+        }
+        return NODE_READER.readValue(read(entry));
+    }
+
+    /**
+     * Read the instance of the node with the given name, for the given
+     * template value, or return <code>null</code> if there is no such
+     * instance, or if the output does not contain spread types.
+     *
+     * For nodes that do not contain a template, the template value must
+     * be the empty string.
+     *
+     * @param name The name
+     * @param templateValue The template value
+     * @return The instance
+     * @throws IOException If an IO error occurs
+     */
+    public Node readInstance(String name, String templateValue)
+        throws IOException
+    {
+        Entry entry = instances.get(Arrays.asList(name, templateValue));
+        if (entry == null)
+        {
+            return null;
+        }
+        return NODE_READER.readValue(read(entry));
+    }
+
+    /**
+     * Read the category with the given path, including all its nodes and
+     * children, or return <code>null</code> if there is no such category.
+     * The path consists of the names of all categories from the root to
+     * the requested one, where a missing name is the empty string.
+     *
+     * @param path The path
+     * @return The category
+     * @throws IOException If an IO error occurs
+     */
+    public Category readCategory(List<String> path) throws IOException
+    {
+        Entry entry = categories.get(path);
+        if (entry == null)
+        {
+            return null;
+        }
+        return CATEGORY_READER.readValue(read(entry));
+    }
+
+    /**
+     * Read the bytes of the object of the given entry
+     *
+     * @param entry The entry
+     * @return The bytes
+     * @throws IOException If an IO error occurs
+     */
+    private byte[] read(Entry entry) throws IOException
+    {
+        if (entry.length > Integer.MAX_VALUE)
+        {
+            throw new IOException(
+                "The object is too large: " + entry.length + " bytes");
+        }
+        byte[] bytes = new byte[(int) entry.length];
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        long position = entry.offset;
+        while (buffer.hasRemaining())
+        {
+            int read = channel.read(buffer, position);
+            if (read < 0)
+            {
+                throw new EOFException("Unexpected end of output at "
+                    + position);
+            }
+            position += read;
+        }
+        return bytes;
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        channel.close();
+    }
+}
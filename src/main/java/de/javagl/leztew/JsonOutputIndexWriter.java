@@ -0,0 +1,335 @@
+/*
+ * www.javagl.de - leztew
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.leztew;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A {@link JsonOffsetListener} that collects the offsets of the categories
+ * and nodes that are written by a {@link JsonNodeSink}, and writes them
+ * into the index file that is read by the {@link JsonOutputIndex}.
+ *
+ * For outputs with spread types, the template value of each instance is
+ * determined from the node with the same name in the plain category tree:
+ * It is the type of the first value socket whose type is a type template
+ * in the plain node. Nodes that are not spread (including nodes with a
+ * template that describes only a single type, see
+ * {@link Nodes#collectSpreadTemplateValues(Node)}) keep the template type,
+ * and are stored with the empty string as their template value, which is
+ * the same key that is used by the {@link NodeCatalog}.
+ */
+class JsonOutputIndexWriter implements JsonOffsetListener
+{
+    /**
+     * The nodes of the plain category tree, by their name, or
+     * <code>null</code> if the output does not contain spread types
+     */
+    private final Map<String, Node> templates;
+
+    /**
+     * The entries of the categories, in pre-order
+     */
+    private final List<CategoryEntry> categoryEntries;
+
+    /**
+     * The indices of the categories that are currently open
+     */
+    private final List<Integer> openCategories;
+
+    /**
+     * The entries of the nodes
+     */
+    private final List<NodeEntry> nodeEntries;
+
+    /**
+     * An entry for a category
+     */
+    private static class CategoryEntry
+    {
+        /**
+         * The index of the parent category, or -1 for the root
+         */
+        int parent;
+
+        /**
+         * The name of the category
+         */
+        String name;
+
+        /**
+         * The offset of the object
+         */
+        long offset;
+
+        /**
+         * The length of the object
+         */
+        long length;
+    }
+
+    /**
+     * An entry for a node
+     */
+    private static class NodeEntry
+    {
+        /**
+         * The index of the category that contains the node
+         */
+        int category;
+
+        /**
+         * The name of the node
+         */
+        String name;
+
+        /**
+         * The template value of the instance, or <code>null</code>
+         */
+        String templateValue;
+
+        /**
+         * The offset of the object
+         */
+        long offset;
+
+        /**
+         * The length of the object
+         */
+        long length;
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * If the output contains spread types, then the given category must be
+     * the plain category tree, which is used for determining the template
+     * values of the instances.
+     *
+     * @param plain The plain category tree, or <code>null</code> if the
+     *        output does not contain spread types
+     */
+    JsonOutputIndexWriter(Category plain)
+    {
+        if (plain == null)
+        {
+            this.templates = null;
+        }
+        else
+        {
+            this.templates = new HashMap<String, Node>();
+            collectTemplates(plain, templates);
+        }
+        this.categoryEntries = new ArrayList<CategoryEntry>();
+        this.openCategories = new ArrayList<Integer>();
+        this.nodeEntries = new ArrayList<NodeEntry>();
+    }
+
+    /**
+     * Collect the nodes of the given category and its children, by their
+     * name. For nodes with the same name, the first one is used.
+     *
+     * @param category The category
+     * @param templates The nodes
+     */
+    private static void collectTemplates(Category category,
+        Map<String, Node> templates)
+    {
+        for (Node node : category.getNodes())
+        {
+            templates.putIfAbsent(node.getName(), node);
+        }
+        for (Category child : category.getChildren())
+        {
+            collectTemplates(child, templates);
+        }
+    }
+
+    @Override
+    public void beginCategory(String name, long offset)
+    {
+        CategoryEntry entry = new CategoryEntry();
+        entry.parent = currentCategory();
+        entry.name = name == null ? "" : name;
+        entry.offset = offset;
+        openCategories.add(categoryEntries.size());
+        categoryEntries.add(entry);
+    }
+
+    @Override
+    public void node(Node node, long offset, long length)
+    {
+        NodeEntry entry = new NodeEntry();
+        entry.category = currentCategory();
+        entry.name = node.getName();
+        if (templates != null)
+        {
+            entry.templateValue = templateValue(node);
+        }
+        entry.offset = offset;
+        entry.length = length;
+        nodeEntries.add(entry);
+    }
+
+    @Override
+    public void endCategory(long end)
+    {
+        int index = openCategories.remove(openCategories.size() - 1);
+        CategoryEntry entry = categoryEntries.get(index);
+        entry.length = end - entry.offset;
+    }
+
+    /**
+     * Returns the index of the category that is currently open, or -1 if
+     * no category is open
+     *
+     * @return The index
+     */
+    private int currentCategory()
+    {
+        if (openCategories.isEmpty())
+        {
+            return -1;
+        }
+        return openCategories.get(openCategories.size() - 1);
+    }
+
+    /**
+     * Returns the template value of the given instance, or the empty
+     * string if it is not an instance of a node with type templates
+     *
+     * @param instance The instance
+     * @return The template value
+     */
+    private String templateValue(Node instance)
+    {
+        Node template = templates.get(instance.getName());
+        if (template == null)
+        {
+            return "";
+        }
+        String value = templateValue(template.getInputValueSockets(),
+            instance.getInputValueSockets());
+        if (value == null)
+        {
+            value = templateValue(template.getOutputValueSockets(),
+                instance.getOutputValueSockets());
+        }
+        if (value == null || TypeTemplate.of(value).isTemplate())
+        {
+            return "";
+        }
+        return value;
+    }
+
+    /**
+     * Returns the type of the first socket of the instance for which the
+     * socket of the template has a type template, or <code>null</code>
+     * if there is no such socket
+     *
+     * @param templateSockets The sockets of the template
+     * @param instanceSockets The sockets of the instance
+     * @return The type
+     */
+    private static String templateValue(List<Socket> templateSockets,
+        List<Socket> instanceSockets)
+    {
+        int n = Math.min(templateSockets.size(), instanceSockets.size());
+        for (int i = 0; i < n; i++)
+        {
+            if (TypeTemplate.of(templateSockets.get(i).getType()).isTemplate())
+            {
+                return instanceSockets.get(i).getType();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Write the index into the given file
+     *
+     * @param file The file
+     * @param outputLength The length of the JSON output, in bytes
+     * @throws IOException If an IO error occurs
+     */
+    void write(File file, long outputLength) throws IOException
+    {
+        try (DataOutputStream out = new DataOutputStream(
+            new BufferedOutputStream(new FileOutputStream(file), 65536)))
+        {
+            out.writeInt(JsonOutputIndex.MAGIC);
+            out.writeInt(JsonOutputIndex.VERSION);
+            out.writeLong(outputLength);
+            out.writeInt(categoryEntries.size());
+            for (CategoryEntry entry : categoryEntries)
+            {
+                out.writeInt(entry.parent);
+                writeString(entry.name, out);
+                out.writeLong(entry.offset);
+                out.writeLong(entry.length);
+            }
+            out.writeInt(nodeEntries.size());
+            for (NodeEntry entry : nodeEntries)
+            {
+                out.writeInt(entry.category);
+                writeString(entry.name, out);
+                writeString(entry.templateValue, out);
+                out.writeLong(entry.offset);
+                out.writeLong(entry.length);
+            }
+        }
+    }
+
+    /**
+     * Write the given string as its length and UTF-8 bytes, or -1 if it
+     * is <code>null</code>
+     *
+     * @param s The string
+     * @param out The output
+     * @throws IOException If an IO error occurs
+     */
+    private static void writeString(String s, DataOutputStream out)
+        throws IOException
+    {
+        if (s == null)
+        {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+}
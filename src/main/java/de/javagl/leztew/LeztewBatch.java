@@ -0,0 +1,632 @@
+/*
+ * www.javagl.de - leztew
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.leztew;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * A class for converting many specification files in a single JVM.
+ *
+ * The conversion of each file is performed as a pipeline of stages
+ * (read, convert, spread, write), where each stage is executed by its own
+ * executor. The conversion itself (i.e. the parsing and extraction) uses the
+ * instances of a shared {@link AsciidoctorPool}. The number of files that are
+ * in the pipeline at the same time is bounded.
+ */
+public class LeztewBatch
+{
+    /**
+     * The logger used in this class
+     */
+    private static final Logger logger =
+        Logger.getLogger(LeztewBatch.class.getName());
+
+    /**
+     * The usage message, describing the options of {@link #main(String[])}
+     */
+    private static final String USAGE = String.join(System.lineSeparator(),
+        "Usage: LeztewBatch [options] <file or glob pattern>...",
+        "",
+        "Converts the given specification files, like ./data/**/*.adoc.",
+        "The outputs for example.adoc are written into a directory",
+        "'example' in the output directory, or next to the input file.",
+        "",
+        "Options:",
+        "  --threads <n>              The number of conversion threads",
+        "  --output <directory>       The output directory",
+        "  --cache <directory>        Use a conversion cache in the given",
+        "                             directory",
+        "  --incremental              Share a section cache between all",
+        "                             conversions (stored in the conversion",
+        "                             cache, if one is used)",
+        "  --async-logging <policy>   Log in a background thread, with the",
+        "                             policy block, drop or sample for a",
+        "                             full buffer",
+        "  --help                     Print this message");
+
+    /**
+     * Entry point of the batch conversion.
+     *
+     * The arguments are the input files, or glob patterns for input files,
+     * and the options that are described in the usage message that is
+     * printed with <code>--help</code>. Unknown options cause the usage
+     * message to be printed, and the process to exit with status 2. If any
+     * of the files cannot be converted, then the process exits with
+     * status 1.
+     *
+     * @param args The arguments
+     * @throws IOException If an IO error occurs
+     */
+    public static void main(String[] args) throws IOException
+    {
+        int threads = Math.min(4, Runtime.getRuntime().availableProcessors());
+        File outputDirectory = null;
+        ConversionCache conversionCache = null;
+        SectionCache sectionCache = null;
+        AsyncLogHandler.OverflowPolicy overflowPolicy = null;
+        List<String> patterns = new ArrayList<String>();
+        try
+        {
+            for (int i = 0; i < args.length; i++)
+            {
+                String arg = args[i];
+                if (arg.equals("--threads"))
+                {
+                    threads = LeztewMain.intValue(args, ++i);
+                }
+                else if (arg.equals("--output"))
+                {
+                    outputDirectory = new File(LeztewMain.value(args, ++i));
+                }
+                else if (arg.equals("--cache"))
+                {
+                    conversionCache = new ConversionCache(
+                        new File(LeztewMain.value(args, ++i)),
+                        LeztewMain.CACHE_MAX_BYTES,
+                        LeztewMain.CACHE_MAX_AGE_MS);
+                }
+                else if (arg.equals("--incremental"))
+                {
+                    sectionCache = new SectionCache();
+                }
+                else if (arg.equals("--async-logging"))
+                {
+                    overflowPolicy = LeztewMain.policyValue(args, ++i);
+                }
+                else if (arg.equals("--help"))
+                {
+                    System.out.println(USAGE);
+                    return;
+                }
+                else if (arg.startsWith("--"))
+                {
+                    throw new IllegalArgumentException(
+                        "Unknown option: " + arg);
+                }
+                else
+                {
+                    patterns.add(arg);
+                }
+            }
+        }
+        catch (IllegalArgumentException e)
+        {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+            return;
+        }
+        if (overflowPolicy != null)
+        {
+            LoggerUtil.initAsyncLogging(overflowPolicy);
+        }
+        else
+        {
+            LoggerUtil.initLogging();
+        }
+        if (sectionCache != null && conversionCache != null)
+        {
+            sectionCache = conversionCache.getSectionCache();
+        }
+        List<File> inputFiles = resolve(patterns);
+        if (inputFiles.isEmpty())
+        {
+            logger.warning("No input files found for " + patterns);
+            return;
+        }
+        LeztewBatch leztewBatch =
+            new LeztewBatch(threads, conversionCache, sectionCache);
+        if (!leztewBatch.convert(inputFiles, outputDirectory))
+        {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * The number of threads
+     */
+    private final int threads;
+
+    /**
+     * The optional {@link ConversionCache}
+     */
+    private final ConversionCache conversionCache;
+
+    /**
+     * The optional {@link SectionCache}
+     */
+    private final SectionCache sectionCache;
+
+    /**
+     * Creates a new instance
+     *
+     * @param threads The number of threads that are used for the
+     *        conversion, which is also the number of instances in the
+     *        {@link AsciidoctorPool}
+     * @param conversionCache The optional {@link ConversionCache}
+     * @param sectionCache The optional {@link SectionCache}
+     * @throws IllegalArgumentException If the number of threads is not
+     *         positive
+     */
+    public LeztewBatch(int threads, ConversionCache conversionCache,
+        SectionCache sectionCache)
+    {
+        if (threads <= 0)
+        {
+            throw new IllegalArgumentException(
+                "The number of threads must be positive, but is " + threads);
+        }
+        this.threads = threads;
+        this.conversionCache = conversionCache;
+        this.sectionCache = sectionCache;
+    }
+
+    /**
+     * Convert all the given input files, and write the outputs into the given
+     * directory (see {@link #main(String[])}).
+     *
+     * @param inputFiles The input files
+     * @param outputDirectory The output directory. May be <code>null</code>
+     * @return Whether all files have been converted successfully
+     * @throws IllegalArgumentException If two input files have the same
+     *         base name, and would therefore be written into the same output
+     *         directory
+     */
+    public boolean convert(List<File> inputFiles, File outputDirectory)
+    {
+        Map<File, File> outputDirectories = new HashMap<File, File>();
+        for (File inputFile : inputFiles)
+        {
+            File parent = outputDirectory != null ? outputDirectory
+                : inputFile.getAbsoluteFile().getParentFile();
+            File directory = new File(parent, baseName(inputFile));
+            if (outputDirectories.containsValue(directory))
+            {
+                throw new IllegalArgumentException(
+                    "Multiple inputs would be written to " + directory);
+            }
+            outputDirectories.put(inputFile, directory);
+        }
+
+        ExecutorService ioExecutor = Executors.newFixedThreadPool(threads);
+        ExecutorService convertExecutor =
+            Executors.newFixedThreadPool(threads);
+        ExecutorService spreadExecutor = Executors.newFixedThreadPool(threads);
+
+        // Limit the number of files that are in the pipeline, so that
+        // the reading does not run ahead of the conversion
+        Semaphore inFlight = new Semaphore(2 * threads);
+
+        List<CompletableFuture<Void>> futures =
+            new ArrayList<CompletableFuture<Void>>();
+        List<FileStatistics> statistics = new ArrayList<FileStatistics>();
+        long before = System.nanoTime();
+        try (AsciidoctorPool asciidoctorPool = new AsciidoctorPool(threads))
+        {
+            asciidoctorPool.warmUp();
+            long afterWarmUp = System.nanoTime();
+            for (File inputFile : inputFiles)
+            {
+                inFlight.acquireUninterruptibly();
+
+                FileStatistics s = new FileStatistics(inputFile);
+                statistics.add(s);
+                File directory = outputDirectories.get(inputFile);
+                CompletableFuture<Void> future = CompletableFuture
+                    .supplyAsync(() -> read(inputFile, s), ioExecutor)
+                    .thenApplyAsync(data -> convert(asciidoctorPool,
+                        conversionCache, sectionCache, data, s),
+                        convertExecutor)
+                    .thenApplyAsync(nodes -> spread(nodes, s), spreadExecutor)
+                    .thenAcceptAsync(outputs -> write(outputs, directory, s),
+                        ioExecutor)
+                    .whenComplete((result, t) ->
+                    {
+                        inFlight.release();
+                        if (t != null)
+                        {
+                            s.error = t.getCause() != null ? t.getCause() : t;
+                            logger.severe("Failed to convert " + inputFile
+                                + ": " + s.error);
+                        }
+                        else
+                        {
+                            logger.info(s.toString());
+                        }
+                    });
+                futures.add(future);
+            }
+            CompletableFuture.allOf(
+                futures.toArray(new CompletableFuture<?>[0]))
+                .exceptionally(t -> null).join();
+            long after = System.nanoTime();
+            logSummary(statistics, after - afterWarmUp, afterWarmUp - before);
+            if (sectionCache != null)
+            {
+                logger.info(sectionCache.toString());
+                if (conversionCache != null && sectionCache.getMisses() > 0)
+                {
+                    conversionCache.putSectionCache(sectionCache);
+                }
+            }
+        }
+        finally
+        {
+            ioExecutor.shutdown();
+            convertExecutor.shutdown();
+            spreadExecutor.shutdown();
+        }
+        return statistics.stream().allMatch(s -> s.error == null);
+    }
+
+    /**
+     * Read the data of the given file. The file is memory-mapped (see
+     * {@link SpecificationInput}).
+     *
+     * @param inputFile The input file
+     * @param s The statistics
+     * @return The data
+     * @throws UncheckedIOException If an IO error occurs
+     */
+    private static ByteBuffer read(File inputFile, FileStatistics s)
+    {
+        long before = System.nanoTime();
+        try
+        {
+            ByteBuffer data = SpecificationInput.map(inputFile);
+            s.inputBytes = data.remaining();
+            return data;
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+        finally
+        {
+            s.readNs = System.nanoTime() - before;
+        }
+    }
+
+    /**
+     * Convert the given data into the {@link Category} of nodes
+     *
+     * @param asciidoctorPool The {@link AsciidoctorPool}
+     * @param conversionCache The optional {@link ConversionCache}
+     * @param sectionCache The optional {@link SectionCache}
+     * @param data The data
+     * @param s The statistics
+     * @return The {@link Category}
+     */
+    private static Category convert(AsciidoctorPool asciidoctorPool,
+        ConversionCache conversionCache, SectionCache sectionCache,
+        ByteBuffer data, FileStatistics s)
+    {
+        long before = System.nanoTime();
+        Category nodes = LeztewMain.convert(asciidoctorPool, conversionCache,
+            sectionCache, 1, data);
+        s.convertNs = System.nanoTime() - before;
+        s.nodes = Categories.countNodes(nodes);
+        return nodes;
+    }
+
+    /**
+     * Compute the spread versions of the given {@link Category}.
+     *
+     * @param nodes The {@link Category}
+     * @param s The statistics
+     * @return The plain, spread, and spread-with-sub-categories outputs
+     */
+    private static Category[] spread(Category nodes, FileStatistics s)
+    {
+        long before = System.nanoTime();
+        Category[] spread = Categories.spreadTypesSinglePass(nodes);
+        s.spreadNs = System.nanoTime() - before;
+        return new Category[]
+        { nodes, spread[0], spread[1] };
+    }
+
+    /**
+     * Write the given outputs into the given directory
+     *
+     * @param outputs The plain, spread, and spread-with-sub-categories outputs
+     * @param directory The output directory
+     * @param s The statistics
+     * @throws UncheckedIOException If an IO error occurs
+     */
+    private static void write(Category[] outputs, File directory,
+        FileStatistics s)
+    {
+        long before = System.nanoTime();
+        try
+        {
+            Files.createDirectories(directory.toPath());
+            LeztewMain.writeOutputs(outputs, directory);
+            for (String outputFileName : LeztewMain.OUTPUT_FILE_NAMES)
+            {
+                s.outputBytes += new File(directory, outputFileName).length();
+            }
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+        finally
+        {
+            s.writeNs = System.nanoTime() - before;
+        }
+    }
+
+    /**
+     * Print the aggregated statistics
+     *
+     * @param statistics The statistics of all files
+     * @param ns The wall-clock duration of the conversion, in nanoseconds
+     * @param warmUpNs The wall-clock duration of the warm-up, in nanoseconds
+     */
+    private static void logSummary(List<FileStatistics> statistics, long ns,
+        long warmUpNs)
+    {
+        long files = statistics.stream().filter(s -> s.error == null).count();
+        long failed = statistics.size() - files;
+        long inputBytes =
+            statistics.stream().mapToLong(s -> s.inputBytes).sum();
+        long nodes = statistics.stream().mapToLong(s -> s.nodes).sum();
+        double seconds = ns / 1e9;
+        logger.info(String.format(
+            "Converted %d files (%d failed), %d nodes, %.2f MB in %.2fs "
+                + "(warm-up %.2fs): %.2f files/s, %.2f nodes/s, %.2f MB/s",
+            files, failed, nodes, inputBytes / 1e6, seconds, warmUpNs / 1e9,
+            files / seconds, nodes / seconds, inputBytes / 1e6 / seconds));
+    }
+
+    /**
+     * Resolve the given list of file names or glob patterns into a list of
+     * files, in the order in which they have been given, and sorted by path
+     * for each pattern.
+     *
+     * @param patterns The patterns
+     * @return The files
+     * @throws IOException If an IO error occurs
+     */
+    static List<File> resolve(List<String> patterns) throws IOException
+    {
+        List<File> files = new ArrayList<File>();
+        for (String pattern : patterns)
+        {
+            if (!isGlob(pattern))
+            {
+                files.add(new File(pattern));
+                continue;
+            }
+            // Walk the file tree starting at the longest prefix of the
+            // pattern that does not contain any glob characters, and match
+            // the remaining part against the paths relative to that prefix.
+            // The pattern itself is not converted into a path, because the
+            // glob characters are not valid in paths on all platforms.
+            int separator = lastSeparator(pattern, firstGlob(pattern));
+            Path base = Paths.get(pattern.substring(0, separator + 1));
+            PathMatcher matcher = FileSystems.getDefault()
+                .getPathMatcher("glob:" + pattern.substring(separator + 1));
+            try (Stream<Path> stream = Files.walk(base))
+            {
+                Path start = base;
+                List<Path> matches = stream.filter(Files::isRegularFile)
+                    .filter(path -> matcher.matches(start.relativize(path)))
+                    .sorted()
+                    .collect(Collectors.toList());
+                for (Path match : matches)
+                {
+                    files.add(match.toFile());
+                }
+            }
+        }
+        return files;
+    }
+
+    /**
+     * Returns whether the given string contains any glob characters
+     *
+     * @param s The string
+     * @return Whether the string is a glob
+     */
+    private static boolean isGlob(String s)
+    {
+        return firstGlob(s) != -1;
+    }
+
+    /**
+     * Returns the index of the first glob character in the given string,
+     * or -1 if it does not contain any glob characters
+     *
+     * @param s The string
+     * @return The index
+     */
+    private static int firstGlob(String s)
+    {
+        for (int i = 0; i < s.length(); i++)
+        {
+            char c = s.charAt(i);
+            if (c == '*' || c == '?' || c == '{' || c == '[')
+            {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the index of the last name separator in the given string
+     * before the given index, or -1 if there is none. The separator is
+     * either a slash, or the name separator of the platform.
+     *
+     * @param s The string
+     * @param end The end index, exclusive
+     * @return The index
+     */
+    private static int lastSeparator(String s, int end)
+    {
+        for (int i = end - 1; i >= 0; i--)
+        {
+            char c = s.charAt(i);
+            if (c == '/' || c == File.separatorChar)
+            {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the name of the given file, without the extension
+     *
+     * @param file The file
+     * @return The base name
+     */
+    private static String baseName(File file)
+    {
+        String name = file.getName();
+        int index = name.lastIndexOf('.');
+        if (index > 0)
+        {
+            return name.substring(0, index);
+        }
+        return name;
+    }
+
+    /**
+     * Statistics about the conversion of a single file
+     */
+    private static class FileStatistics
+    {
+        /**
+         * The input file
+         */
+        private final File inputFile;
+
+        /**
+         * The size of the input, in bytes
+         */
+        private volatile long inputBytes;
+
+        /**
+         * The total size of the outputs, in bytes
+         */
+        private volatile long outputBytes;
+
+        /**
+         * The number of nodes that have been extracted
+         */
+        private volatile long nodes;
+
+        /**
+         * The duration of the read stage, in nanoseconds
+         */
+        private volatile long readNs;
+
+        /**
+         * The duration of the convert stage, in nanoseconds
+         */
+        private volatile long convertNs;
+
+        /**
+         * The duration of the spread stage, in nanoseconds
+         */
+        private volatile long spreadNs;
+
+        /**
+         * The duration of the write stage, in nanoseconds
+         */
+        private volatile long writeNs;
+
+        /**
+         * The error that occurred, if any
+         */
+        private volatile Throwable error;
+
+        /**
+         * Creates a new instance
+         *
+         * @param inputFile The input file
+         */
+        FileStatistics(File inputFile)
+        {
+            this.inputFile = inputFile;
+        }
+
+        @Override
+        public String toString()
+        {
+            long ns = readNs + convertNs + spreadNs + writeNs;
+            return String.format(
+                "%s: %d nodes, %.2f MB in, %.2f MB out, read %dms, "
+                    + "convert %dms, spread %dms, write %dms, "
+                    + "total %dms (%.2f MB/s)",
+                inputFile, nodes, inputBytes / 1e6, outputBytes / 1e6,
+                readNs / 1000000, convertNs / 1000000, spreadNs / 1000000,
+                writeNs / 1000000, ns / 1000000, inputBytes / 1e6 / (ns / 1e9));
+        }
+    }
+}
@@ -28,17 +28,22 @@ package de.javagl.leztew;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
-import java.util.StringTokenizer;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
-import org.asciidoctor.ast.Cell;
 import org.asciidoctor.ast.ContentNode;
 import org.asciidoctor.ast.Document;
-import org.asciidoctor.ast.Row;
 import org.asciidoctor.ast.Section;
 import org.asciidoctor.ast.StructuralNode;
 import org.asciidoctor.ast.Table;
@@ -48,9 +53,20 @@ import org.asciidoctor.converter.AbstractConverter;
  * Implementation of an Asciidoc Converter that receives the main content nodes,
  * and generates an instance of itself, containing the {@link Node} objects that
  * have been extracted from the content.
+ * 
+ * By default, the {@link Node} objects are collected in a {@link Category}
+ * tree. Alternatively, they may be passed to a {@link NodeSink} while they
+ * are extracted.
  */
 public class LeztewConverter extends AbstractConverter<Object>
 {
+    /**
+     * The version of the converter. This has to be changed whenever a change
+     * in the converter causes a different output for the same input, so that
+     * results from the {@link ConversionCache} are no longer used.
+     */
+    public static final String VERSION = "2";
+
     /**
      * The logger used in this class
      */
@@ -74,9 +90,63 @@ public class LeztewConverter extends AbstractConverter<Object>
     private final Level level = Level.FINE;
 
     /**
-     * The category of {@link Node} objects that have been found
+     * The {@link NodeSink} that receives the {@link Node} objects
+     */
+    private NodeSink nodeSink;
+
+    /**
+     * The {@link CategoryBuilder} that builds the category of {@link Node}
+     * objects, if no other {@link NodeSink} was set
+     */
+    private CategoryBuilder categoryBuilder;
+
+    /**
+     * The optional {@link SectionCache}
+     */
+    private SectionCache sectionCache;
+
+    /**
+     * The lines of the source of the document, if a {@link SectionCache} is
+     * used
+     */
+    private String[] sourceLines;
+
+    /**
+     * The (1-based) line numbers of all sections of the document, in
+     * ascending order, if a {@link SectionCache} is used
+     */
+    private int[] sectionLineNumbers;
+
+    /**
+     * The digest of the document header, if a {@link SectionCache} is used
      */
-    private final Category nodes;
+    private byte[] headerDigest;
+
+    /**
+     * The digests of the document header and all attribute entries that
+     * precede each section, for the sections whose line numbers are
+     * stored in {@link #sectionLineNumbers}, if a {@link SectionCache} is
+     * used
+     */
+    private byte[][] sectionPrefixDigests;
+
+    /**
+     * The number of threads that are used for extracting the nodes from the
+     * node definition sections
+     */
+    private int parallelism;
+
+    /**
+     * The nodes that have been extracted from all node definition sections,
+     * in document order, if the extraction is done in parallel
+     */
+    private List<List<Node>> extractedNodes;
+
+    /**
+     * The index of the next element of the {@link #extractedNodes} that will
+     * be passed to the {@link #nodeSink}
+     */
+    private int extractedNodesIndex;
 
     /**
      * Default constructor
@@ -87,36 +157,286 @@ public class LeztewConverter extends AbstractConverter<Object>
     public LeztewConverter(String backend, Map<String, Object> opts)
     {
         super(backend, opts);
-        this.nodes = new Category("Nodes");
+        this.categoryBuilder = new CategoryBuilder();
+        this.nodeSink = categoryBuilder;
+        this.parallelism = 1;
+    }
+
+    /**
+     * Set the number of threads that will be used for extracting the nodes
+     * from the node definition sections.
+     * 
+     * This has to be called before the conversion. When the parallelism is
+     * greater than 1, then the node definition sections will be processed in
+     * a fork-join pool with the given number of threads. The nodes will
+     * still be passed to the {@link NodeSink} in document order. The
+     * default parallelism is 1.
+     * 
+     * @param parallelism The parallelism
+     * @throws IllegalArgumentException If the parallelism is not positive
+     */
+    public void setParallelism(int parallelism)
+    {
+        if (parallelism <= 0)
+        {
+            throw new IllegalArgumentException(
+                "The parallelism must be positive, but is " + parallelism);
+        }
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Set the {@link NodeSink} that will receive the {@link Node} objects.
+     * 
+     * This has to be called before the conversion. When a {@link NodeSink}
+     * is set, then the {@link Node} objects will not be collected, and
+     * {@link #getNodes()} will return <code>null</code>.
+     * 
+     * @param nodeSink The {@link NodeSink}
+     */
+    public void setNodeSink(NodeSink nodeSink)
+    {
+        this.nodeSink = nodeSink;
+        this.categoryBuilder = null;
+    }
+
+    /**
+     * Set the {@link SectionCache} that will be used for looking up the nodes
+     * of node definition sections that did not change.
+     * 
+     * This has to be called before the conversion. It requires the document
+     * to be loaded with the <code>sourcemap</code> option, so that the source
+     * of each section can be determined from the given source.
+     * 
+     * @param sectionCache The {@link SectionCache}
+     * @param source The source of the document that will be converted
+     */
+    public void setSectionCache(SectionCache sectionCache, String source)
+    {
+        this.sectionCache = sectionCache;
+        this.sourceLines = source.split("\\r?\\n", -1);
     }
 
     /**
      * Returns a reference to the root {@link Category} of nodes
      * 
-     * @return The {@link Category} object
+     * @return The {@link Category} object, or <code>null</code> if a custom
+     *         {@link NodeSink} was set, or no conversion took place
      */
     public Category getNodes()
     {
-        return nodes;
+        if (categoryBuilder == null)
+        {
+            return null;
+        }
+        return categoryBuilder.getRoot();
     }
 
     @Override
     public LeztewConverter convert(ContentNode node, String transform,
         Map<Object, Object> opts)
     {
-        logger.log(level, "Convert " + node);
+        if (logger.isLoggable(level))
+        {
+            logger.log(level, "Convert " + node);
+        }
         if (node instanceof Document)
         {
-            Document document = (Document) node;
-            List<Section> sections = findSections(document);
-            Section functionalSpecificationSection =
-                sections.get(FUNCTIONAL_SPECIFICATION_SECTION_NUMBER);
-            processFunctionalSpecificationSection(
-                functionalSpecificationSection);
+            ConversionMetrics.Timer timer =
+                ConversionMetrics.time(ConversionMetrics.Phase.EXTRACT);
+            try
+            {
+                convertDocument((Document) node);
+            }
+            finally
+            {
+                timer.stop();
+            }
         }
         return this;
     }
 
+    /**
+     * Extract the nodes from the given document, and pass them to the
+     * {@link NodeSink}
+     * 
+     * @param document The document
+     */
+    private void convertDocument(Document document)
+    {
+        if (sectionCache != null)
+        {
+            prepareFingerprints(document);
+        }
+        List<Section> sections = findSections(document);
+        Section functionalSpecificationSection =
+            sections.get(FUNCTIONAL_SPECIFICATION_SECTION_NUMBER);
+        if (parallelism > 1)
+        {
+            extractNodesParallel(functionalSpecificationSection);
+        }
+        nodeSink.beginCategory("Nodes");
+        processFunctionalSpecificationSection(functionalSpecificationSection);
+        nodeSink.endCategory();
+        extractedNodes = null;
+    }
+
+    /**
+     * Extract the nodes from all node definition sections in the given
+     * "Functional Specification" section, in parallel, and store them in
+     * the {@link #extractedNodes}, in document order.
+     * 
+     * The document is backed by JRuby objects, which are not accessed by
+     * the worker threads: The data of all sections is copied into
+     * {@link SectionSnapshot} objects on the calling thread, and only the
+     * interpretation of these snapshots is done in parallel.
+     * 
+     * @param functionalSpecificationSection The section
+     */
+    private void extractNodesParallel(Section functionalSpecificationSection)
+    {
+        List<Section> definitionsSections = new ArrayList<Section>();
+        Section nodesSection = findSections(functionalSpecificationSection)
+            .get(NODES_SECTION_NUMBER);
+        for (Section nodesSubSection : findSections(nodesSection))
+        {
+            for (Section nodesGroupSection : findSections(nodesSubSection))
+            {
+                definitionsSections.addAll(findSections(nodesGroupSection));
+            }
+        }
+        if (definitionsSections.isEmpty())
+        {
+            return;
+        }
+        List<SectionSnapshot> snapshots =
+            new ArrayList<SectionSnapshot>(definitionsSections.size());
+        for (Section definitionsSection : definitionsSections)
+        {
+            snapshots.add(snapshot(definitionsSection));
+        }
+        List<List<Node>> results = new ArrayList<List<Node>>(
+            Collections.nCopies(snapshots.size(), null));
+        ForkJoinPool forkJoinPool = new ForkJoinPool(parallelism);
+        try
+        {
+            forkJoinPool.invoke(new ExtractionTask(snapshots, results, 0,
+                snapshots.size()));
+        }
+        finally
+        {
+            forkJoinPool.shutdown();
+        }
+        extractedNodes = results;
+        extractedNodesIndex = 0;
+    }
+
+    /**
+     * The data of a node definition section that is required for extracting
+     * its nodes, copied from the document
+     */
+    private static class SectionSnapshot
+    {
+        /**
+         * The title of the section
+         */
+        String title;
+
+        /**
+         * The level of the section
+         */
+        int level;
+
+        /**
+         * The fingerprint of the section, if a {@link SectionCache} is used
+         */
+        String fingerprint;
+
+        /**
+         * The nodes that have been found in the {@link SectionCache}, or
+         * <code>null</code>
+         */
+        List<Node> cachedNodes;
+
+        /**
+         * The snapshots of the tables of the section, or <code>null</code>
+         * if the nodes have been found in the {@link SectionCache}
+         */
+        List<TableSnapshot> tables;
+
+        /**
+         * The time that was required for creating each table snapshot, in
+         * nanoseconds
+         */
+        long[] tableSnapshotNs;
+    }
+
+    /**
+     * A task for extracting the nodes from a range of node definition
+     * sections
+     */
+    private class ExtractionTask extends RecursiveAction
+    {
+        /**
+         * Serial UID
+         */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The snapshots of the node definition sections
+         */
+        private final List<SectionSnapshot> sections;
+
+        /**
+         * The list that receives the nodes for each section
+         */
+        private final List<List<Node>> results;
+
+        /**
+         * The start index, inclusive
+         */
+        private final int min;
+
+        /**
+         * The end index, exclusive
+         */
+        private final int max;
+
+        /**
+         * Creates a new instance
+         * 
+         * @param sections The snapshots of the node definition sections
+         * @param results The list that receives the nodes for each section
+         * @param min The start index, inclusive
+         * @param max The end index, exclusive
+         */
+        ExtractionTask(List<SectionSnapshot> sections,
+            List<List<Node>> results, int min, int max)
+        {
+            this.sections = sections;
+            this.results = results;
+            this.min = min;
+            this.max = max;
+        }
+
+        @Override
+        protected void compute()
+        {
+            if (max <= min)
+            {
+                return;
+            }
+            if (max - min == 1)
+            {
+                results.set(min, extractNodes(sections.get(min)));
+                return;
+            }
+            int center = (min + max) >>> 1;
+            invokeAll(new ExtractionTask(sections, results, min, center),
+                new ExtractionTask(sections, results, center, max));
+        }
+    }
+
     /**
      * Process "Section 4, Functional Specification"
      * 
@@ -152,20 +472,25 @@ public class LeztewConverter extends AbstractConverter<Object>
      */
     private void processNodesSubSection(Section nodesSubSection)
     {
-        logger.log(level,
-            "Processing nodes sub-section " + nodesSubSection.getTitle()
-                + " at level " + nodesSubSection.getLevel());
+        if (logger.isLoggable(level))
+        {
+            logger.log(level,
+                "Processing nodes sub-section " + nodesSubSection.getTitle()
+                    + " at level " + nodesSubSection.getLevel());
+        }
 
+        SectionEvent event = ConversionEvents.newSectionEvent();
+        event.begin();
         String title = nodesSubSection.getTitle();
-
-        Category childCategory = new Category(title);
-        nodes.addChild(childCategory);
+        nodeSink.beginCategory(title);
 
         List<Section> sections = findSections(nodesSubSection);
         for (Section section : sections)
         {
-            processNodesGroupSection(section, childCategory);
+            processNodesGroupSection(section);
         }
+        nodeSink.endCategory();
+        commit(event, nodesSubSection);
     }
 
     /**
@@ -173,24 +498,60 @@ public class LeztewConverter extends AbstractConverter<Object>
      * Nodes"
      * 
      * @param nodesGroupSection The section
-     * @param category This will store the {@link Node} objects that have been
-     *        created
      */
-    private void processNodesGroupSection(Section nodesGroupSection,
-        Category category)
+    private void processNodesGroupSection(Section nodesGroupSection)
     {
-        logger.log(level,
-            "Processing nodes group section " + nodesGroupSection.getTitle()
-                + " at level " + nodesGroupSection.getLevel());
+        if (logger.isLoggable(level))
+        {
+            logger.log(level,
+                "Processing nodes group section " + nodesGroupSection.getTitle()
+                    + " at level " + nodesGroupSection.getLevel());
+        }
 
+        SectionEvent event = ConversionEvents.newSectionEvent();
+        event.begin();
         String title = nodesGroupSection.getTitle();
-        Category childCategory = new Category(title);
-        category.addChild(childCategory);
+        nodeSink.beginCategory(title);
 
         List<Section> sections = findSections(nodesGroupSection);
         for (Section section : sections)
         {
-            processNodesDefinitionsSection(section, childCategory);
+            processNodesDefinitionsSection(section);
+        }
+        nodeSink.endCategory();
+        commit(event, nodesGroupSection);
+    }
+
+    /**
+     * Commit the given {@link SectionEvent} for the given section, if it
+     * is enabled
+     * 
+     * @param event The event
+     * @param section The section
+     */
+    private static void commit(SectionEvent event, Section section)
+    {
+        if (event.shouldCommit())
+        {
+            commit(event, section.getTitle(), section.getLevel());
+        }
+    }
+
+    /**
+     * Commit the given {@link SectionEvent} for the section with the given
+     * title and level, if it is enabled
+     * 
+     * @param event The event
+     * @param title The title
+     * @param level The level
+     */
+    private static void commit(SectionEvent event, String title, int level)
+    {
+        if (event.shouldCommit())
+        {
+            event.setTitle(title);
+            event.setLevel(level);
+            event.commit();
         }
     }
 
@@ -199,220 +560,330 @@ public class LeztewConverter extends AbstractConverter<Object>
      * Subtraction".
      * 
      * This is expected to contain tables that can be processed with
-     * {@link #processOperationTable(Table, String)}.
+     * {@link #processOperationTable(TableSnapshot, long, String)}.
      * 
      * @param nodesDefinitionsSection The section
-     * @param category This will store the {@link Node} objects that have been
-     *        created
      */
-    private void processNodesDefinitionsSection(Section nodesDefinitionsSection,
-        Category category)
+    private void processNodesDefinitionsSection(Section nodesDefinitionsSection)
     {
-        logger.log(Level.INFO,
-            "Processing nodes definitions section "
-                + nodesDefinitionsSection.getTitle() + " at level "
-                + nodesDefinitionsSection.getLevel());
+        if (logger.isLoggable(Level.FINE))
+        {
+            logger.log(Level.FINE,
+                "Processing nodes definitions section "
+                    + nodesDefinitionsSection.getTitle() + " at level "
+                    + nodesDefinitionsSection.getLevel());
+        }
+
+        List<Node> nodes = null;
+        if (extractedNodes != null)
+        {
+            nodes = extractedNodes.get(extractedNodesIndex);
+            extractedNodesIndex++;
+        }
+        else
+        {
+            nodes = extractNodes(snapshot(nodesDefinitionsSection));
+        }
+        for (Node node : nodes)
+        {
+            nodeSink.node(node);
+        }
+    }
 
-        String title = nodesDefinitionsSection.getTitle();
+    /**
+     * Create the {@link SectionSnapshot} for the given node definition
+     * section. If a {@link SectionCache} is used, and it contains the nodes
+     * of the section, then no table snapshots are created.
+     * 
+     * This accesses the document, and may therefore not be called
+     * concurrently.
+     * 
+     * @param nodesDefinitionsSection The section
+     * @return The snapshot
+     */
+    private SectionSnapshot snapshot(Section nodesDefinitionsSection)
+    {
+        SectionSnapshot snapshot = new SectionSnapshot();
+        snapshot.title = nodesDefinitionsSection.getTitle();
+        snapshot.level = nodesDefinitionsSection.getLevel();
+        if (sectionCache != null)
+        {
+            snapshot.fingerprint = computeFingerprint(nodesDefinitionsSection);
+            snapshot.cachedNodes = sectionCache.get(snapshot.fingerprint);
+            if (snapshot.cachedNodes != null)
+            {
+                return snapshot;
+            }
+        }
         List<StructuralNode> blocks = nodesDefinitionsSection.getBlocks();
         List<Table> tables = findAll(blocks, Table.class);
-        for (Table table : tables)
+        snapshot.tables = new ArrayList<TableSnapshot>(tables.size());
+        snapshot.tableSnapshotNs = new long[tables.size()];
+        ConversionMetrics.Timer timer =
+            ConversionMetrics.time(ConversionMetrics.Phase.TABLES);
+        try
         {
-            Node node = processOperationTable(table, title);
-            if (node != null)
+            for (int i = 0; i < tables.size(); i++)
             {
-                category.addNode(node);
+                Table table = tables.get(i);
+                if (logger.isLoggable(level))
+                {
+                    logger.log(level, "Table " + table);
+                }
+                long before = System.nanoTime();
+                snapshot.tables.add(TableSnapshot.of(table));
+                long after = System.nanoTime();
+                snapshot.tableSnapshotNs[i] = after - before;
             }
         }
+        finally
+        {
+            timer.stop();
+        }
+        return snapshot;
     }
 
     /**
-     * Process a single table that was found for a node definition, like that in
-     * "4.1.1.2.10. Subtraction".
+     * Extract the nodes from the given node definition section snapshot. If
+     * a {@link SectionCache} is used, then the nodes that have been found in
+     * the cache will be returned, or the nodes will be stored in the cache.
      * 
-     * @param table The table
-     * @param title The title for the node
-     * @return The {@link Node}, or <code>null</code> if the table could not be
-     *         parsed.
+     * This method may be called concurrently for different sections.
+     * 
+     * @param snapshot The snapshot of the section
+     * @return The nodes
      */
-    private Node processOperationTable(Table table, String title)
+    private List<Node> extractNodes(SectionSnapshot snapshot)
     {
-        logger.log(level, "Table " + table);
-        List<Row> body = table.getBody();
-
-        if (!body.get(0).getCells().get(0).getSource().equals("Operation"))
+        SectionEvent event = ConversionEvents.newSectionEvent();
+        event.begin();
+        if (snapshot.cachedNodes != null)
         {
-            logger.severe("Expected an 'Operation' table. Ignoring.");
-            return null;
+            commit(event, snapshot.title, snapshot.level);
+            return snapshot.cachedNodes;
         }
-
-        Node node = new Node();
-        int i = 0;
-        while (i < body.size())
+        List<Node> sectionNodes = new ArrayList<Node>();
+        for (int i = 0; i < snapshot.tables.size(); i++)
         {
-            Row row = body.get(i);
-            List<Cell> cells = row.getCells();
-
-            // The first row should always have "Operation", "name",
-            // "description".
-            //
-            // Otherwise, when a row starts with "Configuration",
-            // "Input flow sockets", "Input value sockets",
-            // "Output flow sockets", or "Output value sockets", then it may
-            // be followed by several other rows that all define them,
-            // depending on the row span of the first column
-            if (cells.get(0).getSource().equals("Operation"))
-            {
-                String name = stripBackticks(cells.get(1).getSource());
-                node.setName(name);
-                node.setDescription(cells.get(2).getSource());
-                i++;
-            }
-            else if (cells.get(0).getSource().equals("Configuration"))
-            {
-                int n = Math.max(cells.get(0).getRowspan(), 1);
-                processConfiguration(body, i, node.getConfiguration());
-                i += n;
-            }
-            else if (cells.get(0).getSource().equals("Input flow sockets"))
-            {
-                int n = Math.max(cells.get(0).getRowspan(), 1);
-                processSockets(body, i, node.getInputFlowSockets());
-                i += n;
-            }
-            else if (cells.get(0).getSource().equals("Input value sockets"))
-            {
-                int n = Math.max(cells.get(0).getRowspan(), 1);
-                processSockets(body, i, node.getInputValueSockets());
-                i += n;
-            }
-            else if (cells.get(0).getSource().equals("Output flow sockets"))
-            {
-                int n = Math.max(cells.get(0).getRowspan(), 1);
-                processSockets(body, i, node.getOutputFlowSockets());
-                i += n;
-            }
-            else if (cells.get(0).getSource().equals("Output value sockets"))
-            {
-                int n = Math.max(cells.get(0).getRowspan(), 1);
-                processSockets(body, i, node.getOutputValueSockets());
-                i += n;
-            }
-            else
+            Node node = processOperationTable(snapshot.tables.get(i),
+                snapshot.tableSnapshotNs[i], snapshot.title);
+            if (node != null)
             {
-                logger.warning("Unexpected row in table: "
-                    + cells.get(0).getSource() + " - ignoring");
-                i++;
+                sectionNodes.add(node);
             }
-
         }
+        if (sectionCache != null)
+        {
+            sectionCache.put(snapshot.fingerprint, sectionNodes);
+        }
+        commit(event, snapshot.title, snapshot.level);
+        return sectionNodes;
+    }
 
-        logger.log(level, "Final node " + node);
-        node.setTitle(title);
-        return node;
+    /**
+     * Collect the line numbers of all sections in the given document, and
+     * compute the digest of the document header, for the computation of the
+     * fingerprints of sections.
+     * 
+     * @param document The document
+     * @throws IllegalStateException If the document was not loaded with the
+     *         <code>sourcemap</code> option
+     */
+    private void prepareFingerprints(Document document)
+    {
+        if (!document.isSourcemap())
+        {
+            throw new IllegalStateException(
+                "The document must be loaded with the sourcemap option "
+                    + "when a section cache is used");
+        }
+        List<Integer> lineNumbers = new ArrayList<Integer>();
+        collectSectionLineNumbers(document, lineNumbers);
+        sectionLineNumbers =
+            lineNumbers.stream().mapToInt(Integer::intValue).sorted().toArray();
+
+        // The document header (i.e. everything before the first section)
+        // may define attributes that affect the titles of all sections
+        int headerEnd = sectionLineNumbers.length == 0 ? sourceLines.length
+            : sectionLineNumbers[0] - 1;
+        headerDigest = digest(null, 0, headerEnd);
+
+        // Attribute entries in the body affect all following sections, so
+        // the prefix of each section covers all attribute entries before it.
+        // Include directives are not processed in the default safe mode,
+        // so all attribute entries are contained in the source.
+        sectionPrefixDigests = new byte[sectionLineNumbers.length][];
+        byte[] prefix = headerDigest;
+        int start = headerEnd;
+        for (int i = 0; i < sectionLineNumbers.length; i++)
+        {
+            int end = sectionLineNumbers[i] - 1;
+            prefix = attributeEntriesDigest(prefix, start, end);
+            sectionPrefixDigests[i] = prefix;
+            start = Math.max(start, end);
+        }
+    }
 
+    /**
+     * Collect the line numbers of all sections in the given node, recursively
+     * 
+     * @param node The node
+     * @param lineNumbers The list that will store the line numbers
+     */
+    private static void collectSectionLineNumbers(StructuralNode node,
+        List<Integer> lineNumbers)
+    {
+        for (Section section : findSections(node))
+        {
+            lineNumbers.add(section.getSourceLocation().getLineNumber());
+            collectSectionLineNumbers(section, lineNumbers);
+        }
     }
 
     /**
-     * Process the configuration from the given table body
+     * Compute the fingerprint of the given section. This is a digest of the
+     * document header, all attribute entries that precede the section, and
+     * all source lines from the title of the section up to the start of the
+     * next section.
      * 
-     * @param body The table body
-     * @param startRow The row where to start reading the configuration
-     * @param configuration The list that will store the resulting configuration
+     * @param section The section
+     * @return The fingerprint
      */
-    private void processConfiguration(List<Row> body, int startRow,
-        List<ConfigurationElement> configuration)
+    private String computeFingerprint(Section section)
     {
-        int r = startRow;
-        Row row = body.get(r);
-        List<Cell> cells = row.getCells();
-        int n = Math.max(cells.get(0).getRowspan(), 1);
-        for (int j = 0; j < n; j++)
-        {
-            int i0 = 0;
-            int i1 = 1;
-            // In the first row, the name/description cells are indented
-            // by one, because the first column contains "Configuration"
-            if (j == 0)
-            {
-                i0++;
-                i1++;
-            }
-            ConfigurationElement s = new ConfigurationElement();
-            String source = cells.get(i0).getSource();
-            String declaration = stripBackticks(source);
-            String type = parseType(declaration);
-            String name = parseName(declaration);
-            if (type != null && name != null)
-            {
-                s.setType(type);
-                s.setName(name);
-            }
-            else
-            {
-                logger.warning("Could not extract type and name from \""
-                    + declaration + "\"");
-            }
-            s.setDescription(cells.get(i1).getSource());
-            configuration.add(s);
-            if (j < n - 1)
+        int lineNumber = section.getSourceLocation().getLineNumber();
+        int index = Arrays.binarySearch(sectionLineNumbers, lineNumber);
+        int end = sourceLines.length;
+        byte[] prefix = headerDigest;
+        if (index >= 0)
+        {
+            prefix = sectionPrefixDigests[index];
+            if (index + 1 < sectionLineNumbers.length)
             {
-                r++;
-                row = body.get(r);
-                cells = row.getCells();
+                end = sectionLineNumbers[index + 1] - 1;
             }
         }
+        byte[] hash = digest(prefix, lineNumber - 1, end);
+        return Base64.getEncoder().encodeToString(hash);
     }
 
     /**
-     * Process the sockets from the given table body
+     * Compute the SHA-256 digest of the given prefix and the attribute
+     * entries in the source lines in the given range, including the
+     * continuation lines of multi-line attribute entries. If the range does
+     * not contain any attribute entries, then the given prefix is returned.
      * 
-     * @param body The table body
-     * @param startRow The row where to start reading the sockets
-     * @param sockets The list that will store the resulting sockets.
+     * @param prefix The prefix
+     * @param start The start line index, inclusive
+     * @param end The end line index, exclusive
+     * @return The digest
      */
-    private void processSockets(List<Row> body, int startRow,
-        List<Socket> sockets)
+    private byte[] attributeEntriesDigest(byte[] prefix, int start, int end)
     {
-        int r = startRow;
-        Row row = body.get(r);
-        List<Cell> cells = row.getCells();
-        int n = Math.max(cells.get(0).getRowspan(), 1);
-        for (int j = 0; j < n; j++)
-        {
-            int i0 = 0;
-            int i1 = 1;
-            // In the first row, the name/description cells are indented
-            // by one, because the first column contains the category
-            // name (like "Input value sockets")
-            if (j == 0)
-            {
-                i0++;
-                i1++;
-            }
-            Socket s = new Socket();
-            String source = cells.get(i0).getSource();
-            String declaration = stripBackticks(source);
-            String type = parseType(declaration);
-            String name = parseName(declaration);
-            if (type != null && name != null)
+        MessageDigest digest = null;
+        boolean continued = false;
+        for (int i = Math.max(0, start); i < end; i++)
+        {
+            String line = sourceLines[i];
+            if (!continued && !SpecificationScanner.ATTRIBUTE_ENTRY_PATTERN
+                .matcher(line).matches())
             {
-                s.setType(type);
-                s.setName(name);
+                continue;
             }
-            else
+            if (digest == null)
             {
-                // Flow sockets don't have a type
-                s.setName(declaration);
+                digest = createDigest();
+                digest.update(prefix);
             }
-            s.setDescription(cells.get(i1).getSource());
-            sockets.add(s);
-            if (j < n - 1)
+            digest.update(line.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) '\n');
+            continued = line.endsWith(" \\");
+        }
+        if (digest == null)
+        {
+            return prefix;
+        }
+        return digest.digest();
+    }
+
+    /**
+     * Compute the SHA-256 digest of the given prefix and the source lines in
+     * the given range
+     * 
+     * @param prefix An optional prefix
+     * @param start The start line index, inclusive
+     * @param end The end line index, exclusive
+     * @return The digest
+     */
+    private byte[] digest(byte[] prefix, int start, int end)
+    {
+        MessageDigest digest = createDigest();
+        if (prefix != null)
+        {
+            digest.update(prefix);
+        }
+        for (int i = Math.max(0, start); i < end; i++)
+        {
+            digest.update(sourceLines[i].getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) '\n');
+        }
+        return digest.digest();
+    }
+
+    /**
+     * Creates a new SHA-256 message digest
+     * 
+     * @return The message digest
+     */
+    private static MessageDigest createDigest()
+    {
+        try
+        {
+            return MessageDigest.getInstance("SHA-256");
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            // SHA-256 is required to be supported by every Java platform
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Process a single table that was found for a node definition, like that in
+     * "4.1.1.2.10. Subtraction".
+     * 
+     * The table has already been converted into a {@link TableSnapshot},
+     * which is interpreted with {@link OperationTables#parse}.
+     * 
+     * @param tableSnapshot The table snapshot
+     * @param snapshotNs The time that was required for creating the
+     *        snapshot, in nanoseconds
+     * @param title The title for the node
+     * @return The {@link Node}, or <code>null</code> if the table could not be
+     *         parsed.
+     */
+    private static Node processOperationTable(TableSnapshot tableSnapshot,
+        long snapshotNs, String title)
+    {
+        ConversionMetrics.Timer timer =
+            ConversionMetrics.time(ConversionMetrics.Phase.TABLES);
+        try
+        {
+            TableEvent event = ConversionEvents.newTableEvent();
+            event.begin();
+            Node node = OperationTables.parse(tableSnapshot, title);
+            if (event.shouldCommit())
             {
-                r++;
-                row = body.get(r);
-                cells = row.getCells();
+                event.setNodeName(node == null ? null : node.getName());
+                event.setRowCount(tableSnapshot.getRowCount());
+                event.setJrubyTime(snapshotNs);
+                event.commit();
             }
+            return node;
+        }
+        finally
+        {
+            timer.stop();
         }
     }
 
@@ -424,11 +895,14 @@ public class LeztewConverter extends AbstractConverter<Object>
      */
     void traverse(StructuralNode node)
     {
-        logger.log(level, "Traverse " + node);
-        if (node instanceof Table)
+        if (logger.isLoggable(level))
         {
-            Table table = (Table) node;
-            logger.log(level, "Table " + table);
+            logger.log(level, "Traverse " + node);
+            if (node instanceof Table)
+            {
+                Table table = (Table) node;
+                logger.log(level, "Table " + table);
+            }
         }
         List<StructuralNode> blocks = node.getBlocks();
         for (StructuralNode block : blocks)
@@ -481,59 +955,4 @@ public class LeztewConverter extends AbstractConverter<Object>
         return list;
     }
 
-    /**
-     * Try to parse what would likely be a type declaration in the given string:
-     * If it consists of two whitespace-separated tokens, then the first token
-     * is returned. Otherwise, <code>null</code> is returned.
-     * 
-     * @param s The string
-     * @return The type
-     */
-    private static String parseType(String s)
-    {
-        StringTokenizer st = new StringTokenizer(s);
-        if (st.countTokens() == 2)
-        {
-            return st.nextToken();
-        }
-        return null;
-    }
-
-    /**
-     * Try to parse what would likely be a name in the given string: If it
-     * consists of two whitespace-separated tokens, then the first token is
-     * returned. Otherwise, <code>null</code> is returned.
-     * 
-     * @param s The string
-     * @return The name
-     */
-    private static String parseName(String s)
-    {
-        StringTokenizer st = new StringTokenizer(s);
-        if (st.countTokens() == 2)
-        {
-            st.nextToken();
-            return st.nextToken();
-        }
-        return null;
-    }
-
-    /**
-     * If the given string starts and ends with backticks (omitting leading and
-     * trailing whitespace), then the part in the backticks will be returned
-     * (omitting leading and trailing whitespace)
-     * 
-     * @param input The input string
-     * @return The result
-     */
-    private static String stripBackticks(String input)
-    {
-        String s = input.trim();
-        if (s.startsWith("`") && s.endsWith("`"))
-        {
-            s = s.substring(1, s.length() - 1).trim();
-        }
-        return s;
-    }
-
-}
\ No newline at end of file
+}
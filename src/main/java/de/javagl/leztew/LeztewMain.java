@@ -26,15 +26,29 @@
  */
 package de.javagl.leztew;
 
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
-
-import org.asciidoctor.Asciidoctor;
-import org.asciidoctor.Options;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Logger;
 
 import com.fasterxml.jackson.annotation.JsonInclude.Include;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.databind.SerializationFeature;
 
 /**
@@ -42,64 +56,1095 @@ import com.fasterxml.jackson.databind.SerializationFeature;
  */
 public class LeztewMain
 {
+    /**
+     * The logger used in this class
+     */
+    private static final Logger logger =
+        Logger.getLogger(LeztewMain.class.getName());
+
+    /**
+     * The names of the output files, for the plain output, the output with
+     * spread types, and the output with spread types in sub-categories
+     */
+    static final String[] OUTPUT_FILE_NAMES =
+    { "nodes.json", "nodes-spread.json", "nodes-spread-sub.json" };
+
+    /**
+     * The name of the {@link NodeCatalog} file
+     */
+    static final String CATALOG_FILE_NAME = "nodes.lzc";
+
+    /**
+     * The shared writer for the outputs
+     */
+    private static final ObjectWriter OBJECT_WRITER =
+        OutputFormat.JSON.createWriter(false);
+
+    /**
+     * The string describing the conversion options, used as part of the key
+     * of the {@link ConversionCache}
+     */
+    private static final String CACHE_OPTIONS = "backend=ast-json";
+
+    /**
+     * The string describing the conversion options for the
+     * {@link SpecificationScanner}, used as part of the key of the
+     * {@link ConversionCache}
+     */
+    private static final String SCANNER_CACHE_OPTIONS = "engine=scanner";
+
+    /**
+     * The default maximum size of the {@link ConversionCache}, in bytes
+     */
+    static final long CACHE_MAX_BYTES = 256L * 1024L * 1024L;
+
+    /**
+     * The default maximum age of {@link ConversionCache} entries, in
+     * milliseconds
+     */
+    static final long CACHE_MAX_AGE_MS = 30L * 24L * 60L * 60L * 1000L;
+
+    /**
+     * The usage message, describing the options of {@link #main(String[])}
+     */
+    private static final String USAGE = String.join(System.lineSeparator(),
+        "Usage: LeztewMain [options]",
+        "",
+        "Reads ./data/Specification.adoc and writes the nodes into",
+        "./data/nodes.json, nodes-spread.json and nodes-spread-sub.json.",
+        "",
+        "Options:",
+        "  --cache <directory>        Use a conversion cache (and a section",
+        "                             cache) in the given directory",
+        "  --streaming                Write only nodes.json, while the nodes",
+        "                             are extracted",
+        "  --compare                  Also create the outputs sequentially,",
+        "                             and report the durations",
+        "  --extraction-threads <n>   Process the node definition sections",
+        "                             with n threads",
+        "  --engine <name>            asciidoctor (default) or scanner. The",
+        "                             scanner falls back to asciidoctor for",
+        "                             unsupported syntax",
+        "  --verify                   Extract the nodes with both engines,",
+        "                             and report whether they are identical",
+        "  --prune                    Remove all parts that are not required",
+        "                             for the nodes before parsing",
+        "  --lazy-spread              Write the spread outputs from views,",
+        "                             without creating them in memory",
+        "  --spread-threads <n>       Spread the categories with n threads",
+        "  --jfr <file>               Write a flight recording of the run",
+        "                             (requires Java 11 or later)",
+        "  --binary <formats>         Also write the outputs as smile and/or",
+        "                             cbor (comma-separated)",
+        "  --shared-strings           Use back-references for repeated",
+        "                             strings in the smile outputs",
+        "  --catalog                  Write a node catalog into nodes.lzc",
+        "  --index                    Write an index next to each JSON output",
+        "  --async-logging <policy>   Log in a background thread, with the",
+        "                             policy block, drop or sample for a",
+        "                             full buffer",
+        "  --help                     Print this message",
+        "",
+        "The metrics of the run are written into ./data/metrics.json and",
+        "./data/metrics.prom.");
 
     /**
-     * Entry point of the application
+     * Entry point of the application.
+     * 
+     * The options are described in the usage message that is printed with
+     * <code>--help</code>. Unknown options cause the usage message to be
+     * printed, and the process to exit with status 2.
      * 
-     * @param args Not used
+     * @param args The arguments
      * @throws IOException If an IO error occurs
      */
     public static void main(String[] args) throws IOException
     {
-        LoggerUtil.initLogging();
+        ConversionCache conversionCache = null;
+        boolean streaming = false;
+        boolean compare = false;
+        int extractionThreads = 1;
+        boolean scanner = false;
+        boolean verify = false;
+        boolean prune = false;
+        boolean lazySpread = false;
+        int spreadThreads = 1;
+        File jfrFile = null;
+        List<OutputFormat> binaryFormats = new ArrayList<OutputFormat>();
+        boolean sharedStrings = false;
+        boolean catalog = false;
+        boolean index = false;
+        AsyncLogHandler.OverflowPolicy overflowPolicy = null;
+        try
+        {
+            for (int i = 0; i < args.length; i++)
+            {
+                String arg = args[i];
+                if (arg.equals("--cache"))
+                {
+                    conversionCache = new ConversionCache(
+                        new File(value(args, ++i)), CACHE_MAX_BYTES,
+                        CACHE_MAX_AGE_MS);
+                }
+                else if (arg.equals("--streaming"))
+                {
+                    streaming = true;
+                }
+                else if (arg.equals("--compare"))
+                {
+                    compare = true;
+                }
+                else if (arg.equals("--extraction-threads"))
+                {
+                    extractionThreads = intValue(args, ++i);
+                }
+                else if (arg.equals("--engine"))
+                {
+                    String engine = value(args, ++i);
+                    if (engine.equals("scanner"))
+                    {
+                        scanner = true;
+                    }
+                    else if (!engine.equals("asciidoctor"))
+                    {
+                        throw new IllegalArgumentException(
+                            "Unknown engine: " + engine);
+                    }
+                }
+                else if (arg.equals("--verify"))
+                {
+                    verify = true;
+                }
+                else if (arg.equals("--prune"))
+                {
+                    prune = true;
+                }
+                else if (arg.equals("--lazy-spread"))
+                {
+                    lazySpread = true;
+                }
+                else if (arg.equals("--spread-threads"))
+                {
+                    spreadThreads = intValue(args, ++i);
+                }
+                else if (arg.equals("--jfr"))
+                {
+                    jfrFile = new File(value(args, ++i));
+                }
+                else if (arg.equals("--binary"))
+                {
+                    for (String name : value(args, ++i).split(","))
+                    {
+                        OutputFormat outputFormat =
+                            OutputFormat.fromName(name);
+                        if (outputFormat != OutputFormat.JSON)
+                        {
+                            binaryFormats.add(outputFormat);
+                        }
+                    }
+                }
+                else if (arg.equals("--shared-strings"))
+                {
+                    sharedStrings = true;
+                }
+                else if (arg.equals("--catalog"))
+                {
+                    catalog = true;
+                }
+                else if (arg.equals("--index"))
+                {
+                    index = true;
+                }
+                else if (arg.equals("--async-logging"))
+                {
+                    overflowPolicy = policyValue(args, ++i);
+                }
+                else if (arg.equals("--help"))
+                {
+                    System.out.println(USAGE);
+                    return;
+                }
+                else
+                {
+                    throw new IllegalArgumentException(
+                        "Unknown option: " + arg);
+                }
+            }
+        }
+        catch (IllegalArgumentException e)
+        {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+            return;
+        }
+        if (overflowPolicy != null)
+        {
+            LoggerUtil.initAsyncLogging(overflowPolicy);
+        }
+        else
+        {
+            LoggerUtil.initLogging();
+        }
 
+        Closeable recording = null;
+        if (jfrFile != null)
+        {
+            recording = ConversionEvents.startRecording(jfrFile);
+        }
         File inputFile = new File("./data/Specification.adoc");
-        Category nodes = read(inputFile);
+        Category nodes = null;
+        try
+        {
+            ConversionMetrics conversionMetrics = ConversionMetrics.start();
+            File outputDirectory = new File("./data");
+            if (streaming)
+            {
+                File outputFile = new File("./data/nodes.json");
+                boolean scanned = false;
+                if (scanner)
+                {
+                    scanned = tryScanStreaming(inputFile, outputFile, prune);
+                }
+                if (!scanned)
+                {
+                    try (AsciidoctorPool asciidoctorPool =
+                        new AsciidoctorPool(1))
+                    {
+                        readStreaming(asciidoctorPool, inputFile, outputFile,
+                            prune);
+                    }
+                }
+                logger.info("Wrote " + outputFile + " in streaming mode");
+                conversionMetrics.stop();
+                conversionMetrics.write(outputDirectory);
+                return;
+            }
 
-        File outputFile = new File("./data/nodes.json");
-        write(nodes, outputFile);
+            if (scanner)
+            {
+                nodes = tryScan(conversionCache, inputFile, prune);
+            }
+            if (nodes == null)
+            {
+                try (AsciidoctorPool asciidoctorPool = new AsciidoctorPool(1))
+                {
+                    nodes = read(asciidoctorPool, conversionCache,
+                        extractionThreads, inputFile, prune);
+                }
+            }
 
-        File outputFileSpread = new File("./data/nodes-spread.json");
-        Category nodesSpread = Categories.spreadTypes(nodes, false);
-        write(nodesSpread, outputFileSpread);
+            long before = System.nanoTime();
+            Category[] spread = null;
+            ConversionMetrics.Timer spreadTimer =
+                ConversionMetrics.time(ConversionMetrics.Phase.SPREAD);
+            try
+            {
+                if (lazySpread)
+                {
+                    spread = new Category[]
+                    { new SpreadCategory(nodes, false),
+                        new SpreadCategory(nodes, true) };
+                }
+                else if (spreadThreads > 1)
+                {
+                    spread = new Category[]
+                    { Categories.spreadTypes(nodes, false, spreadThreads),
+                        Categories.spreadTypes(nodes, true, spreadThreads) };
+                }
+                else
+                {
+                    spread = Categories.spreadTypesSinglePass(nodes);
+                }
+            }
+            finally
+            {
+                spreadTimer.stop();
+            }
+            writeOutputs(new Category[]
+            { nodes, spread[0], spread[1] }, outputDirectory, binaryFormats,
+                sharedStrings, index);
+            if (catalog)
+            {
+                ConversionMetrics.Timer catalogTimer =
+                    ConversionMetrics.time(ConversionMetrics.Phase.WRITE);
+                try
+                {
+                    NodeCatalogWriter.write(nodes,
+                        new File(outputDirectory, CATALOG_FILE_NAME));
+                }
+                finally
+                {
+                    catalogTimer.stop();
+                }
+            }
+            long after = System.nanoTime();
+            long ns = after - before;
+            logger.info("Spread and wrote outputs in " + ns / 1000000 + "ms");
+            conversionMetrics.stop();
+            conversionMetrics.write(outputDirectory);
+        }
+        finally
+        {
+            if (recording != null)
+            {
+                recording.close();
+            }
+        }
 
-        File outputFileSpreadSub = new File("./data/nodes-spread-sub.json");
-        Category nodesSpreadSub = Categories.spreadTypes(nodes, true);
-        write(nodesSpreadSub, outputFileSpreadSub);
+        if (compare)
+        {
+            compareSequential(nodes, 5);
+        }
+        if (verify)
+        {
+            verifyEngines(inputFile, prune);
+        }
     }
 
     /**
-     * Read the {@link Node} objects from the given file
+     * Returns the value of an option, which is the argument at the given
+     * index
      * 
-     * @param file The file
-     * @return The {@link Node} objects
+     * @param args The arguments
+     * @param index The index of the value
+     * @return The value
+     * @throws IllegalArgumentException If the index is not smaller than the
+     *         number of arguments
+     */
+    static String value(String[] args, int index)
+    {
+        if (index >= args.length)
+        {
+            throw new IllegalArgumentException(
+                "Missing value for option " + args[index - 1]);
+        }
+        return args[index];
+    }
+
+    /**
+     * Returns the value of an option as a positive integer
+     * 
+     * @param args The arguments
+     * @param index The index of the value
+     * @return The value
+     * @throws IllegalArgumentException If the index is not smaller than the
+     *         number of arguments, or the value is not a positive integer
+     */
+    static int intValue(String[] args, int index)
+    {
+        String value = value(args, index);
+        try
+        {
+            int result = Integer.parseInt(value);
+            if (result > 0)
+            {
+                return result;
+            }
+        }
+        catch (NumberFormatException e)
+        {
+            // Handled below
+        }
+        throw new IllegalArgumentException("Invalid value for option "
+            + args[index - 1] + ": " + value);
+    }
+
+    /**
+     * Returns the value of an option as an
+     * {@link AsyncLogHandler.OverflowPolicy}
+     * 
+     * @param args The arguments
+     * @param index The index of the value
+     * @return The value
+     * @throws IllegalArgumentException If the index is not smaller than the
+     *         number of arguments, or the value is not the name of a policy
+     */
+    static AsyncLogHandler.OverflowPolicy policyValue(String[] args,
+        int index)
+    {
+        String value = value(args, index);
+        for (AsyncLogHandler.OverflowPolicy overflowPolicy :
+            AsyncLogHandler.OverflowPolicy.values())
+        {
+            if (overflowPolicy.name().equalsIgnoreCase(value))
+            {
+                return overflowPolicy;
+            }
+        }
+        throw new IllegalArgumentException("Invalid value for option "
+            + args[index - 1] + ": " + value);
+    }
+
+    /**
+     * Extract the {@link Node} objects from the given file with Asciidoctor
+     * and with a {@link SpecificationScanner}, and report whether the
+     * serialized results are identical, or the first line where they
+     * differ.
+     * 
+     * @param inputFile The input file
+     * @param prune Whether the specification should be pruned
+     * @return Whether the results are identical
      * @throws IOException If an IO error occurs
      */
-    private static Category read(File file) throws IOException
+    static boolean verifyEngines(File inputFile, boolean prune)
+        throws IOException
     {
-        String content = new String(Files.readAllBytes(file.toPath()));
+        ByteBuffer data = readSpecification(inputFile, prune);
+        long before = System.nanoTime();
+        Category asciidoctorNodes = null;
+        try (AsciidoctorPool asciidoctorPool = new AsciidoctorPool(1))
+        {
+            asciidoctorNodes = convert(asciidoctorPool, null, null, 1, data);
+        }
+        long after = System.nanoTime();
+        long asciidoctorNs = after - before;
 
-        Asciidoctor asciidoctor = Asciidoctor.Factory.create();
-        asciidoctor.javaConverterRegistry().register(LeztewConverter.class);
-        Options options = Options.builder().backend("ast-json").build();
-        LeztewConverter leztewConverter =
-            asciidoctor.convert(content, options, LeztewConverter.class);
-        Category nodes = leztewConverter.getNodes();
-        return nodes;
+        before = System.nanoTime();
+        Category scannerNodes = null;
+        try
+        {
+            scannerNodes = new SpecificationScanner()
+                .scan(SpecificationInput.newReader(data));
+        }
+        catch (UnsupportedSyntaxException e)
+        {
+            logger.severe("The scanner does not support the specification: "
+                + e.getMessage());
+            return false;
+        }
+        after = System.nanoTime();
+        long scannerNs = after - before;
+
+        String[] asciidoctorLines =
+            OBJECT_WRITER.writeValueAsString(asciidoctorNodes).split("\n");
+        String[] scannerLines =
+            OBJECT_WRITER.writeValueAsString(scannerNodes).split("\n");
+        int n = Math.min(asciidoctorLines.length, scannerLines.length);
+        for (int i = 0; i <= n; i++)
+        {
+            String a = i < asciidoctorLines.length ? asciidoctorLines[i] : null;
+            String s = i < scannerLines.length ? scannerLines[i] : null;
+            if (a == null && s == null)
+            {
+                break;
+            }
+            if (a == null || !a.equals(s))
+            {
+                logger.severe("The results of the engines differ in line "
+                    + (i + 1) + ": asciidoctor: " + a + ", scanner: " + s);
+                return false;
+            }
+        }
+        logger.info("The results of the engines are identical "
+            + "(asciidoctor: " + asciidoctorNs / 1000000 + "ms, scanner: "
+            + scannerNs / 1000000 + "ms, "
+            + Categories.countNodes(scannerNodes) + " nodes)");
+        return true;
     }
 
     /**
-     * Write the given {@link Node} objects to the given file
+     * Create the outputs for the given nodes in a temporary directory, once
+     * with the single-pass spread and concurrent writes, and once by
+     * spreading and writing them sequentially, with a new object mapper for
+     * each output, and report the durations. Both paths are executed for
+     * the given number of rounds, alternatingly, and the shortest durations
+     * are reported.
+     * 
+     * @param nodes The {@link Node} objects
+     * @param rounds The number of rounds
+     * @throws IOException If an IO error occurs
+     */
+    private static void compareSequential(Category nodes, int rounds)
+        throws IOException
+    {
+        Path directory = Files.createTempDirectory("leztew");
+        File outputFile = directory.resolve(OUTPUT_FILE_NAMES[0]).toFile();
+        File outputFileSpread =
+            directory.resolve(OUTPUT_FILE_NAMES[1]).toFile();
+        File outputFileSpreadSub =
+            directory.resolve(OUTPUT_FILE_NAMES[2]).toFile();
+
+        long singlePassNs = Long.MAX_VALUE;
+        long sequentialNs = Long.MAX_VALUE;
+        for (int i = 0; i < rounds; i++)
+        {
+            long before = System.nanoTime();
+            Category[] spread = Categories.spreadTypesSinglePass(nodes);
+            writeOutputs(new Category[]
+            { nodes, spread[0], spread[1] }, directory.toFile());
+            long after = System.nanoTime();
+            singlePassNs = Math.min(singlePassNs, after - before);
+
+            before = System.nanoTime();
+            writeSequential(nodes, outputFile);
+            Category nodesSpread = Categories.spreadTypes(nodes, false);
+            writeSequential(nodesSpread, outputFileSpread);
+            Category nodesSpreadSub = Categories.spreadTypes(nodes, true);
+            writeSequential(nodesSpreadSub, outputFileSpreadSub);
+            after = System.nanoTime();
+            sequentialNs = Math.min(sequentialNs, after - before);
+        }
+
+        Files.delete(outputFile.toPath());
+        Files.delete(outputFileSpread.toPath());
+        Files.delete(outputFileSpreadSub.toPath());
+        Files.delete(directory);
+
+        long savedNs = sequentialNs - singlePassNs;
+        logger.info(String.format(
+            "Single pass: %dms, sequential: %dms, saved %dms (%.1f%%), "
+                + "best of %d rounds",
+            singlePassNs / 1000000, sequentialNs / 1000000, savedNs / 1000000,
+            100.0 * savedNs / sequentialNs, rounds));
+    }
+
+    /**
+     * Write the given {@link Node} objects to the given file, with a new
+     * object mapper
      * 
      * @param nodes The {@link Node} objects
      * @param file The file
      * @throws IOException If an IO error occurs
      */
-    private static void write(Category nodes, File file) throws IOException
+    private static void writeSequential(Category nodes, File file)
+        throws IOException
     {
         ObjectMapper objectMapper = new ObjectMapper();
         objectMapper.enable(SerializationFeature.INDENT_OUTPUT);
         objectMapper.setSerializationInclusion(Include.NON_EMPTY);
         objectMapper.writeValue(file, nodes);
     }
+
+    /**
+     * Read the specification data from the given file. The file is
+     * memory-mapped (see {@link SpecificationInput}).
+     * 
+     * If <code>prune</code> is <code>true</code>, then all parts of the
+     * specification that are not required for extracting the nodes are
+     * removed with the {@link SpecificationPruner}.
+     * 
+     * @param file The file
+     * @param prune Whether the specification should be pruned
+     * @return The specification data
+     * @throws IOException If an IO error occurs
+     */
+    static ByteBuffer readSpecification(File file, boolean prune)
+        throws IOException
+    {
+        ConversionMetrics.Timer timer =
+            ConversionMetrics.time(ConversionMetrics.Phase.READ);
+        try
+        {
+            ByteBuffer data = SpecificationInput.map(file);
+            if (!prune)
+            {
+                return data;
+            }
+            long before = System.nanoTime();
+            String prunedContent =
+                SpecificationPruner.prune(SpecificationInput.decode(data));
+            ByteBuffer prunedData = ByteBuffer
+                .wrap(prunedContent.getBytes(StandardCharsets.UTF_8));
+            long after = System.nanoTime();
+            logger.info("Pruned the specification from " + data.remaining()
+                + " to " + prunedData.remaining() + " bytes in "
+                + (after - before) / 1000000 + "ms");
+            return prunedData;
+        }
+        finally
+        {
+            timer.stop();
+        }
+    }
+
+    /**
+     * Read the {@link Node} objects from the given file
+     * 
+     * @param asciidoctorPool The {@link AsciidoctorPool} for the conversion
+     * @param conversionCache The optional {@link ConversionCache}
+     * @param parallelism The number of threads for processing the node
+     *        definition sections
+     * @param file The file
+     * @param prune Whether the specification should be pruned
+     * @return The {@link Node} objects
+     * @throws IOException If an IO error occurs
+     */
+    static Category read(AsciidoctorPool asciidoctorPool,
+        ConversionCache conversionCache, int parallelism, File file,
+        boolean prune) throws IOException
+    {
+        ByteBuffer data = readSpecification(file, prune);
+        return convert(asciidoctorPool, conversionCache, null, true,
+            parallelism, data);
+    }
+
+    /**
+     * Read the {@link Node} objects from the given file, and write them to
+     * the given output file while they are extracted.
+     * 
+     * @param asciidoctorPool The {@link AsciidoctorPool} for the conversion
+     * @param inputFile The input file
+     * @param outputFile The output file
+     * @param prune Whether the specification should be pruned
+     * @throws IOException If an IO error occurs
+     */
+    static void readStreaming(AsciidoctorPool asciidoctorPool, File inputFile,
+        File outputFile, boolean prune) throws IOException
+    {
+        String content =
+            SpecificationInput.decode(readSpecification(inputFile, prune));
+        ConversionMetrics.Timer timer =
+            ConversionMetrics.time(ConversionMetrics.Phase.CONVERT);
+        try (OutputStream outputStream = new BufferedOutputStream(
+            new FileOutputStream(outputFile));
+            JsonNodeSink jsonNodeSink = new JsonNodeSink(outputStream))
+        {
+            LeztewConverter leztewConverter = AsciidoctorPool.createConverter();
+            leztewConverter.setNodeSink(jsonNodeSink);
+            asciidoctorPool.convert(content, leztewConverter);
+        }
+        catch (UncheckedIOException e)
+        {
+            throw e.getCause();
+        }
+        finally
+        {
+            timer.stop();
+        }
+    }
+
+    /**
+     * Read the {@link Node} objects from the given file with a
+     * {@link SpecificationScanner}.
+     * 
+     * If the given cache is not <code>null</code> and contains an entry for
+     * the file contents, then the cached result is returned. Otherwise, the
+     * result of the scan is stored in the cache.
+     * 
+     * @param conversionCache The optional {@link ConversionCache}
+     * @param file The file
+     * @param prune Whether the specification should be pruned
+     * @return The {@link Node} objects
+     * @throws IOException If an IO error occurs
+     */
+    static Category scan(ConversionCache conversionCache, File file,
+        boolean prune) throws IOException
+    {
+        ByteBuffer data = readSpecification(file, prune);
+        ConversionMetrics.Timer timer =
+            ConversionMetrics.time(ConversionMetrics.Phase.CONVERT);
+        try
+        {
+            if (conversionCache != null)
+            {
+                Category cachedNodes =
+                    conversionCache.get(data, SCANNER_CACHE_OPTIONS);
+                if (cachedNodes != null)
+                {
+                    return cachedNodes;
+                }
+            }
+            Category nodes = new SpecificationScanner()
+                .scan(SpecificationInput.newReader(data));
+            if (conversionCache != null)
+            {
+                conversionCache.put(data, SCANNER_CACHE_OPTIONS, nodes);
+            }
+            return nodes;
+        }
+        finally
+        {
+            timer.stop();
+        }
+    }
+
+    /**
+     * Calls {@link #scan(ConversionCache, File, boolean)}, and returns
+     * <code>null</code> with a warning if the specification contains syntax
+     * that is not supported by the {@link SpecificationScanner}, so that
+     * the caller can fall back to Asciidoctor.
+     * 
+     * @param conversionCache The optional {@link ConversionCache}
+     * @param file The file
+     * @param prune Whether the specification should be pruned
+     * @return The {@link Node} objects, or <code>null</code>
+     * @throws IOException If an IO error occurs
+     */
+    static Category tryScan(ConversionCache conversionCache, File file,
+        boolean prune) throws IOException
+    {
+        try
+        {
+            return scan(conversionCache, file, prune);
+        }
+        catch (UnsupportedSyntaxException e)
+        {
+            logger.warning(e.getMessage() + " - falling back to asciidoctor");
+            return null;
+        }
+    }
+
+    /**
+     * Calls {@link #scanStreaming(File, File, boolean)}, and returns
+     * <code>false</code> with a warning if the specification contains
+     * syntax that is not supported by the {@link SpecificationScanner}, so
+     * that the caller can fall back to Asciidoctor.
+     * 
+     * @param inputFile The input file
+     * @param outputFile The output file
+     * @param prune Whether the specification should be pruned
+     * @return Whether the output file was written
+     * @throws IOException If an IO error occurs
+     */
+    static boolean tryScanStreaming(File inputFile, File outputFile,
+        boolean prune) throws IOException
+    {
+        try
+        {
+            scanStreaming(inputFile, outputFile, prune);
+            return true;
+        }
+        catch (UnsupportedSyntaxException e)
+        {
+            logger.warning(e.getMessage() + " - falling back to asciidoctor");
+            return false;
+        }
+    }
+
+    /**
+     * Read the {@link Node} objects from the given file with a
+     * {@link SpecificationScanner}, and write them to the given output file
+     * while they are extracted.
+     * 
+     * @param inputFile The input file
+     * @param outputFile The output file
+     * @param prune Whether the specification should be pruned
+     * @throws IOException If an IO error occurs
+     */
+    static void scanStreaming(File inputFile, File outputFile, boolean prune)
+        throws IOException
+    {
+        ByteBuffer data = readSpecification(inputFile, prune);
+        ConversionMetrics.Timer timer =
+            ConversionMetrics.time(ConversionMetrics.Phase.CONVERT);
+        try (OutputStream outputStream = new BufferedOutputStream(
+            new FileOutputStream(outputFile));
+            JsonNodeSink jsonNodeSink = new JsonNodeSink(outputStream))
+        {
+            new SpecificationScanner()
+                .scan(SpecificationInput.newReader(data), jsonNodeSink);
+        }
+        catch (UncheckedIOException e)
+        {
+            throw e.getCause();
+        }
+        finally
+        {
+            timer.stop();
+        }
+    }
+
+    /**
+     * Convert the given specification data into the {@link Node} objects.
+     * 
+     * If the given cache is not <code>null</code> and contains an entry for
+     * the given data, then the cached result is returned. Otherwise, the
+     * result of the conversion is stored in the cache.
+     * 
+     * If the given {@link SectionCache} is not <code>null</code>, then only
+     * the node definition sections that are not contained in this cache will
+     * be processed.
+     * 
+     * If the given parallelism is greater than 1, then the node definition
+     * sections will be processed by the given number of threads (see
+     * {@link LeztewConverter#setParallelism(int)}).
+     * 
+     * @param asciidoctorPool The {@link AsciidoctorPool} for the conversion
+     * @param conversionCache The optional {@link ConversionCache}
+     * @param sectionCache The optional {@link SectionCache}
+     * @param parallelism The number of threads for processing the node
+     *        definition sections
+     * @param data The specification data, as UTF-8, between the position
+     *        and the limit of the buffer
+     * @return The {@link Node} objects
+     */
+    static Category convert(AsciidoctorPool asciidoctorPool,
+        ConversionCache conversionCache, SectionCache sectionCache,
+        int parallelism, ByteBuffer data)
+    {
+        return convert(asciidoctorPool, conversionCache, sectionCache, false,
+            parallelism, data);
+    }
+
+    /**
+     * Convert the given specification data into the {@link Node} objects.
+     * 
+     * See {@link #convert(AsciidoctorPool, ConversionCache, SectionCache,
+     * int, ByteBuffer)}. If <code>persistSections</code> is
+     * <code>true</code>, the given {@link SectionCache} is
+     * <code>null</code>, and the {@link ConversionCache} does not contain
+     * an entry for the data, then the {@link SectionCache} is obtained from
+     * the {@link ConversionCache}, and stored in it after the conversion.
+     * This way, only the node definition sections that have changed since
+     * the previous run will be processed.
+     * 
+     * @param asciidoctorPool The {@link AsciidoctorPool} for the conversion
+     * @param conversionCache The optional {@link ConversionCache}
+     * @param sectionCache The optional {@link SectionCache}
+     * @param persistSections Whether the {@link SectionCache} should be
+     *        obtained from and stored in the {@link ConversionCache}
+     * @param parallelism The number of threads for processing the node
+     *        definition sections
+     * @param data The specification data, as UTF-8, between the position
+     *        and the limit of the buffer
+     * @return The {@link Node} objects
+     */
+    private static Category convert(AsciidoctorPool asciidoctorPool,
+        ConversionCache conversionCache, SectionCache sectionCache,
+        boolean persistSections, int parallelism, ByteBuffer data)
+    {
+        ConversionMetrics.Timer timer =
+            ConversionMetrics.time(ConversionMetrics.Phase.CONVERT);
+        try
+        {
+            if (conversionCache != null)
+            {
+                Category cachedNodes = conversionCache.get(data, CACHE_OPTIONS);
+                if (cachedNodes != null)
+                {
+                    return cachedNodes;
+                }
+            }
+            SectionCache usedSectionCache = sectionCache;
+            boolean storeSections = false;
+            if (persistSections && sectionCache == null
+                && conversionCache != null)
+            {
+                usedSectionCache = conversionCache.getSectionCache();
+                storeSections = true;
+            }
+            String content = SpecificationInput.decode(data);
+            LeztewConverter leztewConverter = null;
+            if (usedSectionCache != null || parallelism > 1)
+            {
+                leztewConverter = AsciidoctorPool.createConverter();
+                if (usedSectionCache != null)
+                {
+                    leztewConverter.setSectionCache(usedSectionCache,
+                        content);
+                }
+                leztewConverter.setParallelism(parallelism);
+                leztewConverter =
+                    asciidoctorPool.convert(content, leztewConverter);
+            }
+            else
+            {
+                leztewConverter = asciidoctorPool.convert(content);
+            }
+            Category nodes = leztewConverter.getNodes();
+            if (conversionCache != null)
+            {
+                conversionCache.put(data, CACHE_OPTIONS, nodes);
+            }
+            if (storeSections)
+            {
+                logger.info(usedSectionCache.toString());
+                if (usedSectionCache.getMisses() > 0)
+                {
+                    conversionCache.putSectionCache(usedSectionCache);
+                }
+            }
+            return nodes;
+        }
+        finally
+        {
+            timer.stop();
+        }
+    }
+
+    /**
+     * Write the given {@link Node} objects to the given file
+     * 
+     * @param nodes The {@link Node} objects
+     * @param file The file
+     * @throws IOException If an IO error occurs
+     */
+    static void write(Category nodes, File file) throws IOException
+    {
+        write(nodes, file, OBJECT_WRITER);
+    }
+
+    /**
+     * Write the given {@link Node} objects to the given file, using the
+     * given writer
+     * 
+     * @param nodes The {@link Node} objects
+     * @param file The file
+     * @param objectWriter The object writer
+     * @throws IOException If an IO error occurs
+     */
+    static void write(Category nodes, File file, ObjectWriter objectWriter)
+        throws IOException
+    {
+        ConversionMetrics.Timer timer =
+            ConversionMetrics.time(ConversionMetrics.Phase.WRITE);
+        try
+        {
+            WriteEvent event = ConversionEvents.newWriteEvent();
+            event.begin();
+            objectWriter.writeValue(file, nodes);
+            if (event.shouldCommit())
+            {
+                event.setPath(file.getPath());
+                event.setBytes(file.length());
+                event.commit();
+            }
+        }
+        finally
+        {
+            timer.stop();
+        }
+    }
+
+    /**
+     * Write the given {@link Node} objects to the given JSON file, and
+     * write the {@link JsonOutputIndex} for the file.
+     * 
+     * If the given nodes contain spread types, then the plain nodes must
+     * be given, to determine the template values of the instances.
+     * 
+     * @param nodes The {@link Node} objects
+     * @param plain The plain {@link Node} objects, or <code>null</code>
+     * @param file The file
+     * @throws IOException If an IO error occurs
+     */
+    static void writeIndexed(Category nodes, Category plain, File file)
+        throws IOException
+    {
+        ConversionMetrics.Timer timer =
+            ConversionMetrics.time(ConversionMetrics.Phase.WRITE);
+        try
+        {
+            WriteEvent event = ConversionEvents.newWriteEvent();
+            event.begin();
+            JsonOutputIndexWriter indexWriter =
+                new JsonOutputIndexWriter(plain);
+            try (OutputStream outputStream = new BufferedOutputStream(
+                new FileOutputStream(file));
+                JsonNodeSink jsonNodeSink = new JsonNodeSink(outputStream))
+            {
+                jsonNodeSink.setOffsetListener(indexWriter);
+                Categories.emit(nodes, jsonNodeSink);
+            }
+            catch (UncheckedIOException e)
+            {
+                throw e.getCause();
+            }
+            indexWriter.write(JsonOutputIndex.indexFile(file), file.length());
+            if (event.shouldCommit())
+            {
+                event.setPath(file.getPath());
+                event.setBytes(file.length());
+                event.commit();
+            }
+        }
+        finally
+        {
+            timer.stop();
+        }
+    }
+
+    /**
+     * Write the given outputs into the files with the
+     * {@link #OUTPUT_FILE_NAMES} in the given directory, concurrently.
+     * 
+     * @param outputs The plain, spread, and spread-with-sub-categories outputs
+     * @param directory The directory
+     * @throws IOException If an IO error occurs
+     */
+    static void writeOutputs(Category[] outputs, File directory)
+        throws IOException
+    {
+        writeOutputs(outputs, directory,
+            Collections.<OutputFormat> emptyList(), false, false);
+    }
+
+    /**
+     * Write the given outputs into the files with the
+     * {@link #OUTPUT_FILE_NAMES} in the given directory, and into the
+     * respective files for the given binary {@link OutputFormat}s,
+     * concurrently.
+     * 
+     * @param outputs The plain, spread, and spread-with-sub-categories outputs
+     * @param directory The directory
+     * @param binaryFormats The binary formats
+     * @param sharedStrings Whether the Smile outputs should use shared
+     *        string values
+     * @param index Whether a {@link JsonOutputIndex} should be written for
+     *        each JSON output
+     * @throws IOException If an IO error occurs
+     */
+    static void writeOutputs(Category[] outputs, File directory,
+        List<OutputFormat> binaryFormats, boolean sharedStrings,
+        boolean index) throws IOException
+    {
+        List<OutputFormat> outputFormats = new ArrayList<OutputFormat>();
+        outputFormats.add(OutputFormat.JSON);
+        outputFormats.addAll(binaryFormats);
+        ExecutorService executor = Executors
+            .newFixedThreadPool(outputs.length * outputFormats.size());
+        try
+        {
+            List<CompletableFuture<Void>> futures =
+                new ArrayList<CompletableFuture<Void>>();
+            for (OutputFormat outputFormat : outputFormats)
+            {
+                ObjectWriter objectWriter = outputFormat == OutputFormat.JSON
+                    ? OBJECT_WRITER : outputFormat.createWriter(sharedStrings);
+                for (int i = 0; i < outputs.length; i++)
+                {
+                    Category output = outputs[i];
+                    Category plain = i == 0 ? null : outputs[0];
+                    boolean indexed =
+                        index && outputFormat == OutputFormat.JSON;
+                    File file = new File(directory,
+                        outputFormat.fileName(OUTPUT_FILE_NAMES[i]));
+                    futures.add(CompletableFuture.runAsync(() ->
+                    {
+                        try
+                        {
+                            if (indexed)
+                            {
+                                writeIndexed(output, plain, file);
+                            }
+                            else
+                            {
+                                write(output, file, objectWriter);
+                            }
+                        }
+                        catch (IOException e)
+                        {
+                            throw new UncheckedIOException(e);
+                        }
+                    }, executor));
+                }
+            }
+            CompletableFuture.allOf(
+                futures.toArray(new CompletableFuture<?>[0]))
+                .join();
+        }
+        catch (CompletionException e)
+        {
+            if (e.getCause() instanceof UncheckedIOException)
+            {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            throw e;
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
 }
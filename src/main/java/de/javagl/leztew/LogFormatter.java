@@ -0,0 +1,121 @@
+/*
+ * www.javagl.de - leztew
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.leztew;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Formatter;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+/**
+ * A formatter that produces log messages of the form
+ * <pre><code>
+ * LEVEL  : SimpleClassName: message
+ * </code></pre>
+ *
+ * The class name is the source class name of the record. The simple names
+ * and the padded level names are cached, so that formatting a record does
+ * not require <code>String.format</code>.
+ */
+class LogFormatter extends Formatter
+{
+    /**
+     * The width to which the level names are padded
+     */
+    private static final int LEVEL_WIDTH = 7;
+
+    /**
+     * The cache for the simple class names
+     */
+    private final ConcurrentMap<String, String> simpleNames =
+        new ConcurrentHashMap<String, String>();
+
+    /**
+     * The cache for the padded level names
+     */
+    private final ConcurrentMap<Level, String> levelNames =
+        new ConcurrentHashMap<Level, String>();
+
+    @Override
+    public String format(LogRecord record)
+    {
+        StringBuilder sb = new StringBuilder();
+        format(record, sb);
+        return sb.toString();
+    }
+
+    /**
+     * Append the formatted representation of the given record to the given
+     * string builder
+     *
+     * @param record The record
+     * @param sb The string builder
+     */
+    void format(LogRecord record, StringBuilder sb)
+    {
+        String className = record.getSourceClassName();
+        sb.append(levelNames.computeIfAbsent(
+            record.getLevel(), LogFormatter::pad));
+        sb.append(": ");
+        if (className != null)
+        {
+            sb.append(simpleNames.computeIfAbsent(
+                className, LogFormatter::getUnqualifiedClassName));
+        }
+        sb.append(": ");
+        sb.append(record.getMessage());
+    }
+
+    /**
+     * Returns the name of the given level, padded with spaces to the
+     * {@link #LEVEL_WIDTH}
+     *
+     * @param level The level
+     * @return The padded name
+     */
+    private static String pad(Level level)
+    {
+        StringBuilder sb = new StringBuilder(level.toString());
+        while (sb.length() < LEVEL_WIDTH)
+        {
+            sb.append(' ');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Returns the part of the given class name after the last dot
+     *
+     * @param className The class name
+     * @return The unqualified class name
+     */
+    private static String getUnqualifiedClassName(String className)
+    {
+        return className.substring(className.lastIndexOf('.') + 1);
+    }
+}
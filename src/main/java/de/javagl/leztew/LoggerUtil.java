@@ -28,7 +28,6 @@ package de.javagl.leztew;
 
 import java.util.HashSet;
 import java.util.Set;
-import java.util.logging.Formatter;
 import java.util.logging.Handler;
 import java.util.logging.Level;
 import java.util.logging.LogRecord;
@@ -58,6 +57,27 @@ class LoggerUtil
         logger.setLevel(Level.CONFIG);
     }
 
+    /**
+     * Utility method to initialize the logging with an asynchronous handler.
+     *
+     * The log records are written by a background thread, so that logging
+     * does not block the threads that are performing a conversion.
+     *
+     * @param overflowPolicy The policy for records that are published while
+     *        the buffer of the handler is full
+     */
+    public static void initAsyncLogging(
+        AsyncLogHandler.OverflowPolicy overflowPolicy)
+    {
+        Logger logger = null;
+
+        logger = Logger.getLogger("");
+        Handler handler = new AsyncLogHandler(System.out,
+            AsyncLogHandler.DEFAULT_CAPACITY, overflowPolicy);
+        LoggerUtil.configure(logger, handler);
+        logger.setLevel(Level.CONFIG);
+    }
+
     /**
      * Configure the given logger to produce "nice" output
      * 
@@ -65,13 +85,6 @@ class LoggerUtil
      */
     public static void configureDefault(Logger logger)
     {
-        configuredLoggers.add(logger);
-
-        for (Handler handler : logger.getHandlers())
-        {
-            logger.removeHandler(handler);
-        }
-        logger.setUseParentHandlers(false);
         Handler handler = new Handler()
         {
             @Override
@@ -93,26 +106,27 @@ class LoggerUtil
                 // Nothing to do here
             }
         };
-        logger.addHandler(handler);
-
-        handler.setFormatter(new Formatter()
-        {
-            @Override
-            public String format(LogRecord record)
-            {
-                String className = record.getSourceClassName();
-                String simpleName = getUnqualifiedClassName(className);
-                String level =
-                    String.format("%-7s", record.getLevel().toString());
-                return level + ": " + simpleName + ": " + record.getMessage();
-            }
+        handler.setFormatter(new LogFormatter());
+        configure(logger, handler);
+    }
 
-            private String getUnqualifiedClassName(String className)
-            {
-                return className.substring(className.lastIndexOf('.') + 1);
-            }
+    /**
+     * Replace all handlers of the given logger with the given handler
+     *
+     * @param logger The logger to configure
+     * @param handler The handler
+     */
+    private static void configure(Logger logger, Handler handler)
+    {
+        configuredLoggers.add(logger);
 
-        });
+        for (Handler oldHandler : logger.getHandlers())
+        {
+            logger.removeHandler(oldHandler);
+            oldHandler.close();
+        }
+        logger.setUseParentHandlers(false);
+        logger.addHandler(handler);
     }
 
     /**
@@ -0,0 +1,823 @@
+/*
+ * www.javagl.de - leztew
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.leztew;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * A read-only catalog of {@link Node} objects that is backed by a
+ * memory-mapped file.
+ * 
+ * The nodes are not deserialized when the catalog is opened. The
+ * {@link Node}, {@link Socket} and {@link ConfigurationElement} objects
+ * that are returned by this class are lightweight views that read their
+ * values from the file when they are accessed. The nodes can be looked up
+ * by their name, and the instances of the nodes for their type templates
+ * (as they are created by {@link Categories#spreadTypes(Category, boolean)})
+ * can be looked up by the name and the template value, with hash indices
+ * that are stored in the file.
+ * 
+ * The file is written with the <code>NodeCatalogWriter</code>. All values
+ * are 32-bit big-endian integers, except for the string data. Strings are
+ * given as indices into the string table, or -1 for <code>null</code>. The
+ * file consists of
+ * <ul>
+ * <li>A header with the magic number, the version, and the count and
+ * offset of each of the following sections</li>
+ * <li>The string table: The offsets of the strings, followed by their
+ * UTF-8 encoded data</li>
+ * <li>The category records (name, first node, node count, first child
+ * index, child count), in pre-order, followed by the indices of the child
+ * categories</li>
+ * <li>The node records (title, name, description, and the first element
+ * and element count of the configuration and the four socket lists), in
+ * the order of the categories</li>
+ * <li>The element records for the configuration elements and sockets
+ * (type, name, description, flags)</li>
+ * <li>The instance records (node index, template value). Nodes without
+ * type templates have one instance, with the empty string as the template
+ * value</li>
+ * <li>The hash indices for the names and for the instances. Each slot
+ * contains the hash of the key, and the index of the node or instance, or
+ * -1 for empty slots. Collisions are resolved with linear probing.</li>
+ * </ul>
+ * 
+ * When the catalog is opened, all records and index slots are checked, so
+ * that a truncated or corrupt file causes an exception instead of reads
+ * at invalid positions. The views may be used by multiple threads
+ * concurrently. The mapping of the file is released when the catalog is
+ * garbage collected.
+ */
+public class NodeCatalog
+{
+    /**
+     * The magic header of the format
+     */
+    static final int MAGIC = 0x4C5A4E43; // "LZNC"
+
+    /**
+     * The version of the format
+     */
+    static final int VERSION = 1;
+
+    /**
+     * The size of the header, in bytes
+     */
+    static final int HEADER_SIZE = 72;
+
+    /**
+     * The number of integers in a category record
+     */
+    static final int CATEGORY_RECORD_INTS = 5;
+
+    /**
+     * The number of integers in a node record
+     */
+    static final int NODE_RECORD_INTS = 13;
+
+    /**
+     * The number of integers in a configuration element or socket record
+     */
+    static final int ELEMENT_RECORD_INTS = 4;
+
+    /**
+     * The number of integers in an instance record
+     */
+    static final int INSTANCE_RECORD_INTS = 2;
+
+    /**
+     * The flag in an element record indicating that the type is a
+     * type template
+     */
+    static final int FLAG_TEMPLATE = 1;
+
+    /**
+     * The buffer containing the catalog
+     */
+    private final ByteBuffer buffer;
+
+    /**
+     * The number of strings
+     */
+    private final int stringCount;
+
+    /**
+     * The offset of the string offsets
+     */
+    private final int stringOffsetsOffset;
+
+    /**
+     * The offset of the string data
+     */
+    private final int stringDataOffset;
+
+    /**
+     * The number of nodes
+     */
+    private final int nodeCount;
+
+    /**
+     * The offset of the node records
+     */
+    private final int nodesOffset;
+
+    /**
+     * The number of elements
+     */
+    private final int elementCount;
+
+    /**
+     * The offset of the element records
+     */
+    private final int elementsOffset;
+
+    /**
+     * The number of instances
+     */
+    private final int instanceCount;
+
+    /**
+     * The offset of the instance records
+     */
+    private final int instancesOffset;
+
+    /**
+     * The number of slots in the name index
+     */
+    private final int nameIndexCapacity;
+
+    /**
+     * The offset of the name index
+     */
+    private final int nameIndexOffset;
+
+    /**
+     * The number of slots in the instance index
+     */
+    private final int instanceIndexCapacity;
+
+    /**
+     * The offset of the instance index
+     */
+    private final int instanceIndexOffset;
+
+    /**
+     * Creates a new catalog from the given buffer
+     * 
+     * @param buffer The buffer
+     * @throws IOException If the buffer does not contain a valid catalog
+     */
+    private NodeCatalog(ByteBuffer buffer) throws IOException
+    {
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_SIZE)
+        {
+            throw new IOException("Invalid catalog size: " + buffer.capacity());
+        }
+        int magic = buffer.getInt(0);
+        if (magic != MAGIC)
+        {
+            throw new IOException("Invalid magic header: " + magic);
+        }
+        int version = buffer.getInt(4);
+        if (version != VERSION)
+        {
+            throw new IOException("Unsupported version: " + version);
+        }
+        this.stringCount = buffer.getInt(8);
+        this.stringOffsetsOffset = buffer.getInt(12);
+        this.stringDataOffset = buffer.getInt(16);
+        this.nodeCount = buffer.getInt(32);
+        this.nodesOffset = buffer.getInt(36);
+        this.elementCount = buffer.getInt(40);
+        this.elementsOffset = buffer.getInt(44);
+        this.instanceCount = buffer.getInt(48);
+        this.instancesOffset = buffer.getInt(52);
+        this.nameIndexCapacity = buffer.getInt(56);
+        this.nameIndexOffset = buffer.getInt(60);
+        this.instanceIndexCapacity = buffer.getInt(64);
+        this.instanceIndexOffset = buffer.getInt(68);
+
+        int categoryCount = buffer.getInt(20);
+        int categoriesOffset = buffer.getInt(24);
+        int childIndicesOffset = buffer.getInt(28);
+        int childIndexCount = Math.max(0, categoryCount - 1);
+
+        checkSection(stringOffsetsOffset, stringCount + 1, 1);
+        checkSection(categoriesOffset, categoryCount, CATEGORY_RECORD_INTS);
+        checkSection(childIndicesOffset, childIndexCount, 1);
+        checkSection(nodesOffset, nodeCount, NODE_RECORD_INTS);
+        checkSection(elementsOffset, elementCount, ELEMENT_RECORD_INTS);
+        checkSection(instancesOffset, instanceCount, INSTANCE_RECORD_INTS);
+        checkSection(nameIndexOffset, nameIndexCapacity, 2);
+        checkSection(instanceIndexOffset, instanceIndexCapacity, 2);
+        if (Integer.bitCount(nameIndexCapacity) != 1
+            || Integer.bitCount(instanceIndexCapacity) != 1)
+        {
+            throw new IOException("Invalid index capacity");
+        }
+        checkStrings();
+        checkCategories(categoryCount, categoriesOffset, childIndicesOffset,
+            childIndexCount);
+        checkNodes();
+        checkElements();
+        checkInstances();
+        checkIndex(nameIndexOffset, nameIndexCapacity, nodeCount);
+        checkIndex(instanceIndexOffset, instanceIndexCapacity, instanceCount);
+    }
+
+    /**
+     * Make sure that the string offsets are ascending, and that the string
+     * data is contained in the buffer
+     * 
+     * @throws IOException If the string table is not valid
+     */
+    private void checkStrings() throws IOException
+    {
+        if (stringDataOffset < stringOffsetsOffset + 4L * (stringCount + 1))
+        {
+            throw new IOException(
+                "Invalid string data offset: " + stringDataOffset);
+        }
+        int previous = 0;
+        for (int i = 0; i <= stringCount; i++)
+        {
+            int offset = buffer.getInt(stringOffsetsOffset + i * 4);
+            if (offset < previous
+                || (long) stringDataOffset + offset > buffer.capacity())
+            {
+                throw new IOException(
+                    "Invalid offset of string " + i + ": " + offset);
+            }
+            previous = offset;
+        }
+    }
+
+    /**
+     * Make sure that the category records refer to valid strings, nodes
+     * and child categories
+     * 
+     * @param categoryCount The number of categories
+     * @param categoriesOffset The offset of the category records
+     * @param childIndicesOffset The offset of the child indices
+     * @param childIndexCount The number of child indices
+     * @throws IOException If a record is not valid
+     */
+    private void checkCategories(int categoryCount, int categoriesOffset,
+        int childIndicesOffset, int childIndexCount) throws IOException
+    {
+        for (int i = 0; i < categoryCount; i++)
+        {
+            int recordOffset = categoriesOffset + i * CATEGORY_RECORD_INTS * 4;
+            checkString(buffer.getInt(recordOffset));
+            checkRange(buffer.getInt(recordOffset + 4),
+                buffer.getInt(recordOffset + 8), nodeCount, "nodes");
+            checkRange(buffer.getInt(recordOffset + 12),
+                buffer.getInt(recordOffset + 16), childIndexCount,
+                "child indices");
+        }
+        for (int i = 0; i < childIndexCount; i++)
+        {
+            int childIndex = buffer.getInt(childIndicesOffset + i * 4);
+            if (childIndex <= 0 || childIndex >= categoryCount)
+            {
+                throw new IOException("Invalid child index: " + childIndex);
+            }
+        }
+    }
+
+    /**
+     * Make sure that the node records refer to valid strings and elements
+     * 
+     * @throws IOException If a record is not valid
+     */
+    private void checkNodes() throws IOException
+    {
+        for (int i = 0; i < nodeCount; i++)
+        {
+            for (int position = 0; position < 3; position++)
+            {
+                checkString(nodeInt(i, position));
+            }
+            for (int position = 3; position < NODE_RECORD_INTS; position += 2)
+            {
+                checkRange(nodeInt(i, position), nodeInt(i, position + 1),
+                    elementCount, "elements");
+            }
+        }
+    }
+
+    /**
+     * Make sure that the element records refer to valid strings
+     * 
+     * @throws IOException If a record is not valid
+     */
+    private void checkElements() throws IOException
+    {
+        for (int i = 0; i < elementCount; i++)
+        {
+            for (int position = 0; position < 3; position++)
+            {
+                checkString(elementInt(i, position));
+            }
+        }
+    }
+
+    /**
+     * Make sure that the instance records refer to valid nodes and strings
+     * 
+     * @throws IOException If a record is not valid
+     */
+    private void checkInstances() throws IOException
+    {
+        for (int i = 0; i < instanceCount; i++)
+        {
+            int recordOffset = instancesOffset + i * INSTANCE_RECORD_INTS * 4;
+            int nodeIndex = buffer.getInt(recordOffset);
+            if (nodeIndex < 0 || nodeIndex >= nodeCount)
+            {
+                throw new IOException("Invalid node index: " + nodeIndex);
+            }
+            checkString(buffer.getInt(recordOffset + 4));
+        }
+    }
+
+    /**
+     * Make sure that all slots of the hash index at the given offset are
+     * empty or refer to a valid entry
+     * 
+     * @param offset The offset of the index
+     * @param capacity The number of slots
+     * @param entryCount The number of entries
+     * @throws IOException If a slot is not valid
+     */
+    private void checkIndex(int offset, int capacity, int entryCount)
+        throws IOException
+    {
+        for (int slot = 0; slot < capacity; slot++)
+        {
+            int index = buffer.getInt(offset + slot * 8 + 4);
+            if (index < -1 || index >= entryCount)
+            {
+                throw new IOException("Invalid index entry: " + index);
+            }
+        }
+    }
+
+    /**
+     * Make sure that the given value is a valid string index, or -1
+     * 
+     * @param index The string index
+     * @throws IOException If the index is not valid
+     */
+    private void checkString(int index) throws IOException
+    {
+        if (index < -1 || index >= stringCount)
+        {
+            throw new IOException("Invalid string index: " + index);
+        }
+    }
+
+    /**
+     * Make sure that the given range is contained in the given number of
+     * records
+     * 
+     * @param start The start of the range
+     * @param count The number of records in the range
+     * @param size The total number of records
+     * @param description A description of the records, for error messages
+     * @throws IOException If the range is not valid
+     */
+    private static void checkRange(int start, int count, int size,
+        String description) throws IOException
+    {
+        if (start < 0 || count < 0 || (long) start + count > size)
+        {
+            throw new IOException("Invalid range of " + description + ": "
+                + start + " with " + count + " records, for " + size
+                + " records");
+        }
+    }
+
+    /**
+     * Open the catalog from the given file, which is memory-mapped
+     * 
+     * @param file The file
+     * @return The catalog
+     * @throws IOException If an IO error occurs, or the file does not
+     *         contain a valid catalog
+     */
+    public static NodeCatalog open(File file) throws IOException
+    {
+        return new NodeCatalog(SpecificationInput.map(file));
+    }
+
+    /**
+     * Make sure that the section with the given offset and size is
+     * contained in the buffer
+     * 
+     * @param offset The offset
+     * @param count The number of records
+     * @param recordInts The number of integers per record
+     * @throws IOException If the section is not contained in the buffer
+     */
+    private void checkSection(int offset, int count, int recordInts)
+        throws IOException
+    {
+        long end = offset + 4L * count * recordInts;
+        if (offset < HEADER_SIZE || count < 0 || end > buffer.capacity())
+        {
+            throw new IOException("Invalid section at " + offset
+                + " with " + count + " records");
+        }
+    }
+
+    /**
+     * Returns the number of nodes
+     * 
+     * @return The number of nodes
+     */
+    public int getNodeCount()
+    {
+        return nodeCount;
+    }
+
+    /**
+     * Returns the number of instances of all nodes. Nodes without type
+     * templates count as one instance.
+     * 
+     * @return The number of instances
+     */
+    public int getInstanceCount()
+    {
+        return instanceCount;
+    }
+
+    /**
+     * Returns a view on the node with the given index. The nodes are in
+     * the order in which they appear in the category tree, in pre-order.
+     * 
+     * @param index The index
+     * @return The node
+     * @throws IndexOutOfBoundsException If the index is negative or not
+     *         smaller than the {@link #getNodeCount() node count}
+     */
+    public Node getNode(int index)
+    {
+        if (index < 0 || index >= nodeCount)
+        {
+            throw new IndexOutOfBoundsException(
+                "Index: " + index + ", size: " + nodeCount);
+        }
+        return new CatalogNode(this, index, null);
+    }
+
+    /**
+     * Returns a view on the node with the given name, or <code>null</code>
+     * if there is no such node. If there are multiple nodes with the same
+     * name, then the first one is returned.
+     * 
+     * @param name The name
+     * @return The node
+     */
+    public Node getNode(String name)
+    {
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        int mask = nameIndexCapacity - 1;
+        int hash = hash(name.hashCode());
+        int slot = hash & mask;
+        for (int probes = 0; probes < nameIndexCapacity; probes++)
+        {
+            int slotOffset = nameIndexOffset + slot * 8;
+            int index = buffer.getInt(slotOffset + 4);
+            if (index == -1)
+            {
+                return null;
+            }
+            if (buffer.getInt(slotOffset) == hash
+                && stringEquals(nodeInt(index, 1), nameBytes))
+            {
+                return new CatalogNode(this, index, null);
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    /**
+     * Returns a view on the instance of the node with the given name, for
+     * the given template value, or <code>null</code> if there is no such
+     * instance.
+     * 
+     * For nodes that do not contain a template, the template value must be
+     * the empty string. The returned node is equal to the one that is
+     * returned by {@link SpreadCategory#getInstance(String, String)}.
+     * 
+     * @param name The name of the node
+     * @param templateValue The template value
+     * @return The instance
+     */
+    public Node getInstance(String name, String templateValue)
+    {
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        byte[] templateValueBytes =
+            templateValue.getBytes(StandardCharsets.UTF_8);
+        int mask = instanceIndexCapacity - 1;
+        int hash = instanceHash(name, templateValue);
+        int slot = hash & mask;
+        for (int probes = 0; probes < instanceIndexCapacity; probes++)
+        {
+            int slotOffset = instanceIndexOffset + slot * 8;
+            int index = buffer.getInt(slotOffset + 4);
+            if (index == -1)
+            {
+                return null;
+            }
+            int recordOffset =
+                instancesOffset + index * INSTANCE_RECORD_INTS * 4;
+            int nodeIndex = buffer.getInt(recordOffset);
+            int templateValueIndex = buffer.getInt(recordOffset + 4);
+            if (buffer.getInt(slotOffset) == hash
+                && stringEquals(templateValueIndex, templateValueBytes)
+                && stringEquals(nodeInt(nodeIndex, 1), nameBytes))
+            {
+                if (templateValue.isEmpty())
+                {
+                    return new CatalogNode(this, nodeIndex, null);
+                }
+                return new CatalogNode(this, nodeIndex, templateValue);
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    /**
+     * Returns the value at the given position of the record of the node
+     * with the given index
+     * 
+     * @param nodeIndex The node index
+     * @param position The position in the record
+     * @return The value
+     */
+    int nodeInt(int nodeIndex, int position)
+    {
+        return buffer.getInt(
+            nodesOffset + (nodeIndex * NODE_RECORD_INTS + position) * 4);
+    }
+
+    /**
+     * Returns the value at the given position of the record of the
+     * configuration element or socket with the given index
+     * 
+     * @param elementIndex The element index
+     * @param position The position in the record
+     * @return The value
+     */
+    int elementInt(int elementIndex, int position)
+    {
+        return buffer.getInt(elementsOffset
+            + (elementIndex * ELEMENT_RECORD_INTS + position) * 4);
+    }
+
+    /**
+     * Returns the string with the given index, or <code>null</code> if the
+     * index is -1
+     * 
+     * @param index The index
+     * @return The string
+     * @throws IndexOutOfBoundsException If the index is not valid
+     */
+    String getString(int index)
+    {
+        if (index == -1)
+        {
+            return null;
+        }
+        int start = stringStart(index);
+        int length = stringStart(index + 1) - start;
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++)
+        {
+            bytes[i] = buffer.get(start + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns whether the string with the given index has the given UTF-8
+     * bytes
+     * 
+     * @param index The index
+     * @param bytes The bytes
+     * @return Whether the string has the given bytes
+     */
+    private boolean stringEquals(int index, byte[] bytes)
+    {
+        if (index == -1)
+        {
+            return false;
+        }
+        int start = stringStart(index);
+        int length = stringStart(index + 1) - start;
+        if (length != bytes.length)
+        {
+            return false;
+        }
+        for (int i = 0; i < length; i++)
+        {
+            if (buffer.get(start + i) != bytes[i])
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the position of the first byte of the string with the given
+     * index in the buffer
+     * 
+     * @param index The index
+     * @return The position
+     * @throws IndexOutOfBoundsException If the index is not valid
+     */
+    private int stringStart(int index)
+    {
+        if (index < 0 || index > stringCount)
+        {
+            throw new IndexOutOfBoundsException(
+                "String index: " + index + ", size: " + stringCount);
+        }
+        return stringDataOffset
+            + buffer.getInt(stringOffsetsOffset + index * 4);
+    }
+
+    /**
+     * Returns an unmodifiable list of views on the sockets with the given
+     * start index and count
+     * 
+     * @param start The index of the first socket
+     * @param count The number of sockets
+     * @param templateValue The template value for sockets that have a
+     *        type template, or <code>null</code>
+     * @return The sockets
+     */
+    List<Socket> getSockets(int start, int count, String templateValue)
+    {
+        return new ElementList<Socket>(start, count)
+        {
+            @Override
+            Socket create(int elementIndex)
+            {
+                return new CatalogSocket(
+                    NodeCatalog.this, elementIndex, templateValue);
+            }
+        };
+    }
+
+    /**
+     * Returns an unmodifiable list of views on the configuration elements
+     * with the given start index and count
+     * 
+     * @param start The index of the first configuration element
+     * @param count The number of configuration elements
+     * @return The configuration elements
+     */
+    List<ConfigurationElement> getConfiguration(int start, int count)
+    {
+        return new ElementList<ConfigurationElement>(start, count)
+        {
+            @Override
+            ConfigurationElement create(int elementIndex)
+            {
+                return new CatalogConfigurationElement(
+                    NodeCatalog.this, elementIndex);
+            }
+        };
+    }
+
+    /**
+     * An unmodifiable list of views on consecutive element records
+     * 
+     * @param <T> The type of the elements
+     */
+    private abstract static class ElementList<T> extends AbstractList<T>
+        implements RandomAccess
+    {
+        /**
+         * The index of the first element
+         */
+        private final int start;
+
+        /**
+         * The number of elements
+         */
+        private final int count;
+
+        /**
+         * Creates a new instance
+         * 
+         * @param start The index of the first element
+         * @param count The number of elements
+         */
+        ElementList(int start, int count)
+        {
+            this.start = start;
+            this.count = count;
+        }
+
+        @Override
+        public T get(int index)
+        {
+            if (index < 0 || index >= count)
+            {
+                throw new IndexOutOfBoundsException(
+                    "Index: " + index + ", size: " + count);
+            }
+            return create(start + index);
+        }
+
+        @Override
+        public int size()
+        {
+            return count;
+        }
+
+        /**
+         * Creates the view on the element with the given index
+         * 
+         * @param elementIndex The element index
+         * @return The view
+         */
+        abstract T create(int elementIndex);
+    }
+
+    /**
+     * Returns the hash that is stored in the name index, for a name with
+     * the given <code>String#hashCode</code>.
+     * 
+     * The hash code is multiplied with the golden ratio constant, because
+     * the hash codes of names that only differ in their last characters
+     * (like <code>"node1"</code> and <code>"node2"</code>) are consecutive,
+     * and would otherwise form long clusters with linear probing.
+     * 
+     * @param h The hash code
+     * @return The hash
+     */
+    static int hash(int h)
+    {
+        int m = h * 0x9E3779B9;
+        return m ^ (m >>> 16);
+    }
+
+    /**
+     * Returns the hash that is stored in the instance index, for the given
+     * name and template value
+     * 
+     * @param name The name
+     * @param templateValue The template value
+     * @return The hash
+     */
+    static int instanceHash(String name, String templateValue)
+    {
+        return hash(31 * name.hashCode() + templateValue.hashCode());
+    }
+
+    @Override
+    public String toString()
+    {
+        return "NodeCatalog [nodes=" + nodeCount + ", instances="
+            + instanceCount + "]";
+    }
+}
@@ -0,0 +1,495 @@
+/*
+ * www.javagl.de - leztew
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.leztew;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Logger;
+
+/**
+ * A class for writing a {@link Category} tree into the binary catalog
+ * format that is read by the {@link NodeCatalog}.
+ * 
+ * The format is described in {@link NodeCatalog}. The instances for the
+ * type templates are determined with
+ * {@link Nodes#collectSpreadTemplateValues(Node)}, as they are created by
+ * {@link Categories#spreadTypes(Category, boolean)}.
+ */
+class NodeCatalogWriter
+{
+    /**
+     * The logger used in this class
+     */
+    private static final Logger logger =
+        Logger.getLogger(NodeCatalogWriter.class.getName());
+
+    /**
+     * The mapping from strings to their indices in the string table
+     */
+    private final Map<String, Integer> stringIndices;
+
+    /**
+     * The UTF-8 bytes of the strings
+     */
+    private final List<byte[]> strings;
+
+    /**
+     * The category records
+     */
+    private final List<int[]> categoryRecords;
+
+    /**
+     * The indices of the child categories of all categories
+     */
+    private final List<Integer> childIndices;
+
+    /**
+     * The nodes, in the order of the node records
+     */
+    private final List<Node> nodes;
+
+    /**
+     * The node records
+     */
+    private final List<int[]> nodeRecords;
+
+    /**
+     * The records for the configuration elements and sockets
+     */
+    private final List<int[]> elementRecords;
+
+    /**
+     * The instance records
+     */
+    private final List<int[]> instanceRecords;
+
+    /**
+     * Creates a new instance
+     */
+    private NodeCatalogWriter()
+    {
+        this.stringIndices = new HashMap<String, Integer>();
+        this.strings = new ArrayList<byte[]>();
+        this.categoryRecords = new ArrayList<int[]>();
+        this.childIndices = new ArrayList<Integer>();
+        this.nodes = new ArrayList<Node>();
+        this.nodeRecords = new ArrayList<int[]>();
+        this.elementRecords = new ArrayList<int[]>();
+        this.instanceRecords = new ArrayList<int[]>();
+    }
+
+    /**
+     * Write the catalog for the given {@link Category} tree into the given
+     * file.
+     * 
+     * The given category should be the plain category tree, without
+     * spread types. The instances for the type templates are computed
+     * and stored in the catalog.
+     * 
+     * @param category The category
+     * @param file The file
+     * @throws IOException If an IO error occurs, or the catalog would be
+     *         larger than 2 GB
+     */
+    static void write(Category category, File file) throws IOException
+    {
+        NodeCatalogWriter writer = new NodeCatalogWriter();
+        writer.addCategory(category);
+        writer.addInstances();
+        try (DataOutputStream out = new DataOutputStream(
+            new BufferedOutputStream(new FileOutputStream(file), 65536)))
+        {
+            writer.write(out);
+        }
+        logger.info("Wrote catalog with " + writer.nodeRecords.size()
+            + " nodes and " + writer.instanceRecords.size()
+            + " instances to " + file + " (" + file.length() + " bytes)");
+    }
+
+    /**
+     * Add the given category and its children, in pre-order, and return
+     * the index of the category
+     * 
+     * @param category The category
+     * @return The index of the category
+     */
+    private int addCategory(Category category)
+    {
+        int index = categoryRecords.size();
+        int record[] = new int[NodeCatalog.CATEGORY_RECORD_INTS];
+        categoryRecords.add(record);
+        record[0] = addString(category.getName());
+        record[1] = nodeRecords.size();
+        record[2] = category.getNodes().size();
+        for (Node node : category.getNodes())
+        {
+            addNode(node);
+        }
+        List<Category> children = category.getChildren();
+        int indices[] = new int[children.size()];
+        for (int i = 0; i < children.size(); i++)
+        {
+            indices[i] = addCategory(children.get(i));
+        }
+        record[3] = childIndices.size();
+        record[4] = indices.length;
+        for (int childIndex : indices)
+        {
+            childIndices.add(childIndex);
+        }
+        return index;
+    }
+
+    /**
+     * Add the record for the given node
+     * 
+     * @param node The node
+     */
+    private void addNode(Node node)
+    {
+        int record[] = new int[NodeCatalog.NODE_RECORD_INTS];
+        record[0] = addString(node.getTitle());
+        record[1] = addString(node.getName());
+        record[2] = addString(node.getDescription());
+        record[3] = elementRecords.size();
+        record[4] = node.getConfiguration().size();
+        for (ConfigurationElement e : node.getConfiguration())
+        {
+            addElement(e.getType(), e.getName(), e.getDescription());
+        }
+        addSockets(node.getInputFlowSockets(), record, 5);
+        addSockets(node.getInputValueSockets(), record, 7);
+        addSockets(node.getOutputFlowSockets(), record, 9);
+        addSockets(node.getOutputValueSockets(), record, 11);
+        nodes.add(node);
+        nodeRecords.add(record);
+    }
+
+    /**
+     * Add the records for the given sockets, and store their start index
+     * and count in the given node record
+     * 
+     * @param sockets The sockets
+     * @param record The node record
+     * @param offset The offset of the start index in the node record
+     */
+    private void addSockets(List<Socket> sockets, int record[], int offset)
+    {
+        record[offset] = elementRecords.size();
+        record[offset + 1] = sockets.size();
+        for (Socket s : sockets)
+        {
+            addElement(s.getType(), s.getName(), s.getDescription());
+        }
+    }
+
+    /**
+     * Add the record for a configuration element or socket
+     * 
+     * @param type The type
+     * @param name The name
+     * @param description The description
+     */
+    private void addElement(String type, String name, String description)
+    {
+        int record[] = new int[NodeCatalog.ELEMENT_RECORD_INTS];
+        record[0] = addString(type);
+        record[1] = addString(name);
+        record[2] = addString(description);
+        record[3] = TypeTemplate.of(type).isTemplate()
+            ? NodeCatalog.FLAG_TEMPLATE : 0;
+        elementRecords.add(record);
+    }
+
+    /**
+     * Add the instance records for all nodes
+     */
+    private void addInstances()
+    {
+        for (int i = 0; i < nodes.size(); i++)
+        {
+            List<String> templateValues =
+                Nodes.collectSpreadTemplateValues(nodes.get(i));
+            if (templateValues.isEmpty())
+            {
+                instanceRecords.add(new int[]
+                { i, addString("") });
+            }
+            for (String templateValue : templateValues)
+            {
+                instanceRecords.add(new int[]
+                { i, addString(templateValue) });
+            }
+        }
+    }
+
+    /**
+     * Add the given string to the string table, if it is not contained
+     * yet, and return its index, or -1 if it is <code>null</code>
+     * 
+     * @param s The string
+     * @return The index
+     */
+    private int addString(String s)
+    {
+        if (s == null)
+        {
+            return -1;
+        }
+        Integer index = stringIndices.get(s);
+        if (index == null)
+        {
+            index = strings.size();
+            stringIndices.put(s, index);
+            strings.add(s.getBytes(StandardCharsets.UTF_8));
+        }
+        return index;
+    }
+
+    /**
+     * Creates the hash index of the nodes, where the key is the name.
+     * 
+     * When there are multiple nodes with the same name, then the index
+     * refers to the first one.
+     * 
+     * @return The slots of the index
+     */
+    private int[] createNameIndex()
+    {
+        int slots[] = createSlots(nodeRecords.size());
+        Set<String> names = new HashSet<String>();
+        for (int i = 0; i < nodes.size(); i++)
+        {
+            String name = nodes.get(i).getName();
+            if (name != null && names.add(name))
+            {
+                insert(slots, NodeCatalog.hash(name.hashCode()), i);
+            }
+        }
+        return slots;
+    }
+
+    /**
+     * Creates the hash index of the instances, where the key is the name
+     * of the node and the template value.
+     * 
+     * When there are multiple instances with the same key, then the index
+     * refers to the first one.
+     * 
+     * @return The slots of the index
+     */
+    private int[] createInstanceIndex()
+    {
+        int slots[] = createSlots(instanceRecords.size());
+        Set<List<String>> keys = new HashSet<List<String>>();
+        for (int i = 0; i < instanceRecords.size(); i++)
+        {
+            int record[] = instanceRecords.get(i);
+            String name = nodes.get(record[0]).getName();
+            String templateValue =
+                new String(strings.get(record[1]), StandardCharsets.UTF_8);
+            if (name != null && keys.add(Arrays.asList(name, templateValue)))
+            {
+                int hash = NodeCatalog.instanceHash(name, templateValue);
+                insert(slots, hash, i);
+            }
+        }
+        return slots;
+    }
+
+    /**
+     * Creates the empty slots of a hash index for the given number of
+     * entries. The capacity is a power of two that is at least twice the
+     * number of entries.
+     * 
+     * @param entries The number of entries
+     * @return The slots, with two elements (hash and entry) per slot
+     */
+    private static int[] createSlots(int entries)
+    {
+        int capacity = Integer.highestOneBit(Math.max(1, entries * 2 - 1)) * 2;
+        int slots[] = new int[capacity * 2];
+        for (int i = 0; i < capacity; i++)
+        {
+            slots[i * 2 + 1] = -1;
+        }
+        return slots;
+    }
+
+    /**
+     * Insert the given entry into the given hash index, with linear
+     * probing
+     * 
+     * @param slots The slots
+     * @param hash The hash of the key
+     * @param entry The entry
+     */
+    private static void insert(int slots[], int hash, int entry)
+    {
+        int mask = slots.length / 2 - 1;
+        int slot = hash & mask;
+        while (slots[slot * 2 + 1] != -1)
+        {
+            slot = (slot + 1) & mask;
+        }
+        slots[slot * 2] = hash;
+        slots[slot * 2 + 1] = entry;
+    }
+
+    /**
+     * Write the catalog into the given output
+     * 
+     * @param out The output
+     * @throws IOException If an IO error occurs, or the catalog would be
+     *         larger than 2 GB
+     */
+    private void write(DataOutputStream out) throws IOException
+    {
+        int nameIndex[] = createNameIndex();
+        int instanceIndex[] = createInstanceIndex();
+
+        long stringDataSize = 0;
+        for (byte[] s : strings)
+        {
+            stringDataSize += s.length;
+        }
+        long stringOffsetsOffset = NodeCatalog.HEADER_SIZE;
+        long stringDataOffset =
+            stringOffsetsOffset + 4L * (strings.size() + 1);
+        long categoriesOffset = align(stringDataOffset + stringDataSize);
+        long childIndicesOffset = categoriesOffset
+            + 4L * NodeCatalog.CATEGORY_RECORD_INTS * categoryRecords.size();
+        long nodesOffset = childIndicesOffset + 4L * childIndices.size();
+        long elementsOffset = nodesOffset
+            + 4L * NodeCatalog.NODE_RECORD_INTS * nodeRecords.size();
+        long instancesOffset = elementsOffset
+            + 4L * NodeCatalog.ELEMENT_RECORD_INTS * elementRecords.size();
+        long nameIndexOffset = instancesOffset
+            + 4L * NodeCatalog.INSTANCE_RECORD_INTS * instanceRecords.size();
+        long instanceIndexOffset = nameIndexOffset + 4L * nameIndex.length;
+        long size = instanceIndexOffset + 4L * instanceIndex.length;
+        if (size > Integer.MAX_VALUE)
+        {
+            throw new IOException(
+                "The catalog is too large: " + size + " bytes");
+        }
+
+        out.writeInt(NodeCatalog.MAGIC);
+        out.writeInt(NodeCatalog.VERSION);
+        out.writeInt(strings.size());
+        out.writeInt((int) stringOffsetsOffset);
+        out.writeInt((int) stringDataOffset);
+        out.writeInt(categoryRecords.size());
+        out.writeInt((int) categoriesOffset);
+        out.writeInt((int) childIndicesOffset);
+        out.writeInt(nodeRecords.size());
+        out.writeInt((int) nodesOffset);
+        out.writeInt(elementRecords.size());
+        out.writeInt((int) elementsOffset);
+        out.writeInt(instanceRecords.size());
+        out.writeInt((int) instancesOffset);
+        out.writeInt(nameIndex.length / 2);
+        out.writeInt((int) nameIndexOffset);
+        out.writeInt(instanceIndex.length / 2);
+        out.writeInt((int) instanceIndexOffset);
+
+        int offset = 0;
+        for (byte[] s : strings)
+        {
+            out.writeInt(offset);
+            offset += s.length;
+        }
+        out.writeInt(offset);
+        for (byte[] s : strings)
+        {
+            out.write(s);
+        }
+        long padding = categoriesOffset - stringDataOffset - stringDataSize;
+        for (long i = 0; i < padding; i++)
+        {
+            out.writeByte(0);
+        }
+        writeRecords(categoryRecords, out);
+        for (int childIndex : childIndices)
+        {
+            out.writeInt(childIndex);
+        }
+        writeRecords(nodeRecords, out);
+        writeRecords(elementRecords, out);
+        writeRecords(instanceRecords, out);
+        for (int value : nameIndex)
+        {
+            out.writeInt(value);
+        }
+        for (int value : instanceIndex)
+        {
+            out.writeInt(value);
+        }
+    }
+
+    /**
+     * Write the given records
+     * 
+     * @param records The records
+     * @param out The output
+     * @throws IOException If an IO error occurs
+     */
+    private static void writeRecords(List<int[]> records,
+        DataOutputStream out) throws IOException
+    {
+        for (int record[] : records)
+        {
+            for (int value : record)
+            {
+                out.writeInt(value);
+            }
+        }
+    }
+
+    /**
+     * Returns the smallest multiple of 4 that is not smaller than the
+     * given value
+     * 
+     * @param value The value
+     * @return The aligned value
+     */
+    private static long align(long value)
+    {
+        return (value + 3) & ~3L;
+    }
+}
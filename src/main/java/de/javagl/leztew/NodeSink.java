@@ -0,0 +1,59 @@
+/*
+ * www.javagl.de - leztew
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.leztew;
+
+/**
+ * Interface for classes that receive the {@link Node} objects and the
+ * structure of the categories while they are extracted.
+ *
+ * The calls to {@link #beginCategory(String)} and {@link #endCategory()}
+ * are properly nested. All nodes of a category are passed to
+ * {@link #node(Node)} before the first child category begins.
+ */
+public interface NodeSink
+{
+    /**
+     * Will be called when a new category begins. This category is a child of
+     * the category that is currently open, if any.
+     *
+     * @param name The name of the category
+     */
+    void beginCategory(String name);
+
+    /**
+     * Will be called with each {@link Node} that was extracted for the
+     * category that is currently open
+     *
+     * @param node The {@link Node}
+     */
+    void node(Node node);
+
+    /**
+     * Will be called when the category that is currently open ends
+     */
+    void endCategory();
+}
@@ -27,16 +27,32 @@
 package de.javagl.leztew;
 
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Collections;
 import java.util.LinkedHashMap;
-import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
- * Utility methods related to {@link Node} objects
+ * Utility methods related to {@link Node} objects.
+ * 
+ * The instances that are created by {@link #spreadTypes(Node)} share
+ * their configuration elements and sockets. These are instances of private
+ * subclasses of {@link ConfigurationElement} and {@link Socket} whose
+ * setters throw an <code>UnsupportedOperationException</code>, like the
+ * {@link CatalogSocket}. The classes {@link Socket} and
+ * {@link ConfigurationElement} themselves remain mutable beans: They are
+ * part of the public API, and they are populated through their setters by
+ * Jackson (in the {@link CategoryLoader}) and the {@link OperationTables}.
+ * So code that receives a spread instance must
+ * treat its elements as read-only, and create copies (for example, with
+ * {@link Socket#Socket(Socket)}) for modifications.
+ * 
+ * For the specification with 1000 nodes that is created by the
+ * {@link SpecificationGenerator} (2326 instances), the spread outputs of
+ * {@link Categories#spreadTypesSinglePass(Category)} retain about 620 KB
+ * of heap, compared to about 1820 KB when all elements are copied.
  */
 class Nodes
 {
@@ -53,53 +69,178 @@ class Nodes
      * like <code>floatN</code> or <code>float{2|3}</code>, then the respective
      * instantiations of nodes will be returned.
      * 
-     * Otherwise, a mapping from the empty string to the given node is returned.
+     * Otherwise (including the case of a template that describes a single
+     * type, as determined by {@link #collectSpreadTemplateValues(Node)}), a
+     * mapping from the empty string to the given node is returned.
+     * 
+     * The instantiations are created with
+     * {@link #instantiate(Node, String)}.
      * 
      * @param node The node
      * @return The instantiations
      */
     static Map<String, Node> spreadTypes(Node node)
     {
+        SpreadEvent event = ConversionEvents.newSpreadEvent();
+        event.begin();
         Map<String, Node> result = new LinkedHashMap<String, Node>();
 
         // When there are no templated types, just return the
         // given node
-        Set<String> allTemplateValues = collectTypeTemplateValues(node);
+        List<String> allTemplateValues = collectSpreadTemplateValues(node);
         if (allTemplateValues.isEmpty())
         {
             result.put("", node);
-            return result;
         }
+        else
+        {
+            // Otherwise, return one node for each template
+            // value, with the socket type that contained a template
+            // being replaced by the respective value. The unmodifiable
+            // elements are created once, and shared by all instances.
+            Node shared = withUnmodifiableElements(node);
+            for (String templateValue : allTemplateValues)
+            {
+                result.put(templateValue, instantiate(shared, templateValue));
+            }
+        }
+        if (event.shouldCommit())
+        {
+            event.setNodeName(node.getName());
+            event.setInstanceCount(result.size());
+            event.commit();
+        }
+        return result;
+    }
+
+    /**
+     * Creates the instantiation of the given node for the given template
+     * value, where the type of each input- or output value socket that
+     * contains a template is replaced by the given value.
+     * 
+     * The lists and elements of the instantiation are unmodifiable. The
+     * configuration elements and sockets of the given node that are already
+     * unmodifiable (for example, because the given node was created with
+     * {@link #withUnmodifiableElements(Node)}) are shared with the
+     * instantiation. All other elements are replaced by unmodifiable
+     * copies.
+     * 
+     * @param node The node
+     * @param templateValue The template value
+     * @return The instantiation
+     */
+    static Node instantiate(Node node, String templateValue)
+    {
+        return new Node(node.getTitle(), node.getName(),
+            node.getDescription(),
+            unmodifiableConfiguration(node.getConfiguration()),
+            unmodifiableSockets(node.getInputFlowSockets(), null),
+            unmodifiableSockets(node.getInputValueSockets(), templateValue),
+            unmodifiableSockets(node.getOutputFlowSockets(), null),
+            unmodifiableSockets(node.getOutputValueSockets(), templateValue));
+    }
+
+    /**
+     * Creates a node that is equal to the given one, but where all lists
+     * and elements are unmodifiable.
+     * 
+     * Instantiations of the returned node that are created with
+     * {@link #instantiate(Node, String)} share its configuration elements
+     * and all sockets whose type is not a template.
+     * 
+     * @param node The node
+     * @return The new node
+     */
+    static Node withUnmodifiableElements(Node node)
+    {
+        return instantiate(node, null);
+    }
+
+    /**
+     * Returns an unmodifiable list with unmodifiable versions of the given
+     * configuration elements. Elements that are already unmodifiable are
+     * shared.
+     * 
+     * @param elements The configuration elements
+     * @return The resulting configuration elements
+     */
+    private static List<ConfigurationElement> unmodifiableConfiguration(
+        List<ConfigurationElement> elements)
+    {
+        List<ConfigurationElement> result =
+            new ArrayList<ConfigurationElement>(elements.size());
+        for (ConfigurationElement e : elements)
+        {
+            if (e instanceof UnmodifiableConfigurationElement)
+            {
+                result.add(e);
+            }
+            else
+            {
+                result.add(new UnmodifiableConfigurationElement(e.getType(),
+                    e.getName(), e.getDescription()));
+            }
+        }
+        return Collections.unmodifiableList(result);
+    }
 
-        // Otherwise, return one node for each template
-        // value, with the socket type that contained a template
-        // being replaced by the respective value
-        for (String templateValue : allTemplateValues)
+    /**
+     * Returns an unmodifiable list with unmodifiable versions of the given
+     * sockets. If the given template value is not <code>null</code>, then
+     * each socket whose type is a template is replaced by a new socket with
+     * the given type. Other sockets that are already unmodifiable are
+     * shared.
+     * 
+     * @param sockets The sockets
+     * @param templateValue The type for the template sockets, or
+     *        <code>null</code>
+     * @return The resulting sockets
+     */
+    private static List<Socket> unmodifiableSockets(List<Socket> sockets,
+        String templateValue)
+    {
+        List<Socket> result = new ArrayList<Socket>(sockets.size());
+        for (Socket s : sockets)
         {
-            Node instance = new Node(node);
-            List<Socket> inputValues = instance.getInputValueSockets();
-            for (Socket s : inputValues)
+            if (templateValue != null
+                && TypeTemplate.of(s.getType()).isTemplate())
             {
-                String type = s.getType();
-                List<String> templateValues = getTypeTemplateValues(type);
-                if (templateValues != null)
-                {
-                    s.setType(templateValue);
-                }
+                result.add(new UnmodifiableSocket(templateValue, s.getName(),
+                    s.getDescription()));
             }
-            List<Socket> outputValues = instance.getOutputValueSockets();
-            for (Socket s : outputValues)
+            else if (s instanceof UnmodifiableSocket)
             {
-                String type = s.getType();
-                List<String> templateValues = getTypeTemplateValues(type);
-                if (templateValues != null)
-                {
-                    s.setType(templateValue);
-                }
+                result.add(s);
+            }
+            else
+            {
+                result.add(new UnmodifiableSocket(s.getType(), s.getName(),
+                    s.getDescription()));
             }
-            result.put(templateValue, instance);
         }
-        return result;
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * Creates a node that is equal to the given one, except for the title.
+     * 
+     * The new node shares all configuration elements and sockets with the
+     * given node. Its lists are unmodifiable views on the lists of the
+     * given node. This is intended for nodes that have been created with
+     * {@link #instantiate(Node, String)}, whose elements are unmodifiable.
+     * 
+     * @param node The node
+     * @param title The title
+     * @return The new node
+     */
+    static Node withTitle(Node node, String title)
+    {
+        return new Node(title, node.getName(), node.getDescription(),
+            Collections.unmodifiableList(node.getConfiguration()),
+            Collections.unmodifiableList(node.getInputFlowSockets()),
+            Collections.unmodifiableList(node.getInputValueSockets()),
+            Collections.unmodifiableList(node.getOutputFlowSockets()),
+            Collections.unmodifiableList(node.getOutputValueSockets()));
     }
 
     /**
@@ -108,107 +249,191 @@ class Nodes
      * 
      * If any input- or output value socket of the given contains a type like
      * <code>floatN</code> or <code>float{2|3}</code>, then the respective
-     * instantiation of these types will be returned.
+     * instantiation of these types will be returned, as an unmodifiable list
+     * without duplicates.
      * 
-     * Otherwise, an empty set is returned.
+     * Otherwise, an empty list is returned.
      * 
      * @param node The node
      * @return The type template values
      */
-    static Set<String> collectTypeTemplateValues(Node node)
+    static List<String> collectTypeTemplateValues(Node node)
     {
-        Set<String> allTemplateValues = new LinkedHashSet<String>();
+        TypeTemplate template =
+            collectTypeTemplate(node.getInputValueSockets(), null);
+        template = collectTypeTemplate(node.getOutputValueSockets(), template);
+        if (template == null)
+        {
+            return Collections.emptyList();
+        }
+        return template.getValues();
+    }
 
-        List<Socket> inputValues = node.getInputValueSockets();
-        for (Socket s : inputValues)
+    /**
+     * Returns the template values for which the given node is spread into
+     * instances.
+     * 
+     * A node is only spread if its type template describes more than one
+     * type. For a template that describes a single type, like
+     * <code>float{3}</code>, the node is kept as it is. This is the rule
+     * that is used by {@link #spreadTypes(Node)}, the
+     * {@link SpreadCategory}, the {@link NodeCatalogWriter} and the
+     * {@link JsonOutputIndexWriter}, so that they all contain the same
+     * instances.
+     * 
+     * @param node The node
+     * @return The template values, or an empty list if the node is not
+     *         spread
+     */
+    static List<String> collectSpreadTemplateValues(Node node)
+    {
+        List<String> templateValues = collectTypeTemplateValues(node);
+        if (templateValues.size() > 1)
         {
-            String type = s.getType();
-            List<String> templateValues = getTypeTemplateValues(type);
-            if (templateValues != null)
-            {
-                if (allTemplateValues.isEmpty())
-                {
-                    allTemplateValues.addAll(templateValues);
-                }
-                else
-                {
-                    Set<String> newTemplateValues =
-                        new LinkedHashSet<String>(templateValues);
-                    if (!allTemplateValues.equals(newTemplateValues))
-                    {
-                        logger.warning("Inconsistent templating: Found "
-                            + allTemplateValues + " and " + newTemplateValues);
-                    }
-                }
-            }
+            return templateValues;
         }
-        List<Socket> outputValues = node.getOutputValueSockets();
-        for (Socket s : outputValues)
+        return Collections.emptyList();
+    }
+
+    /**
+     * Returns the first {@link TypeTemplate} of the given sockets, if the
+     * given template is <code>null</code>, or the given template otherwise.
+     * 
+     * If the sockets contain a template with other values than the
+     * returned one, then a warning is printed.
+     * 
+     * @param sockets The sockets
+     * @param template The template that was found so far
+     * @return The template
+     */
+    private static TypeTemplate collectTypeTemplate(List<Socket> sockets,
+        TypeTemplate template)
+    {
+        TypeTemplate result = template;
+        for (Socket s : sockets)
         {
-            String type = s.getType();
-            List<String> templateValues = getTypeTemplateValues(type);
-            if (templateValues != null)
+            TypeTemplate newTemplate = TypeTemplate.of(s.getType());
+            if (newTemplate.isTemplate())
             {
-                if (allTemplateValues.isEmpty())
+                if (result == null)
                 {
-                    allTemplateValues.addAll(templateValues);
+                    result = newTemplate;
                 }
-                else
+                else if (newTemplate != result
+                    && !result.getValueSet().equals(newTemplate.getValueSet())
+                    && logger.isLoggable(Level.WARNING))
                 {
-                    Set<String> newTemplateValues =
-                        new LinkedHashSet<String>(templateValues);
-                    if (!allTemplateValues.equals(newTemplateValues))
-                    {
-                        logger.warning("Inconsistent templating: Found "
-                            + allTemplateValues + " and " + newTemplateValues);
-                    }
+                    logger.warning("Inconsistent templating: Found "
+                        + result.getValueSet() + " and "
+                        + newTemplate.getValueSet());
                 }
             }
         }
-        return allTemplateValues;
+        return result;
     }
 
     /**
-     * Returns the template values for the given type.
-     * 
-     * If the type is of the form <code>typeN</code>, then this will return
-     * <code>type, type2, type3, type3, type2x2, type3x3, type4x4</code>.
-     * 
-     * Otherwise, if the type is of the form <code>type{X|Y...}</code>, then
-     * <code>typeX, typeY ... </code> will be returned.
-     * 
-     * Otherwise, <code>null</code> is returned.
-     * 
-     * @param type The type
-     * @return The template values
+     * A {@link Socket} whose setters throw an
+     * <code>UnsupportedOperationException</code>, so that it can be shared
+     * between nodes. See the class documentation about why this is not
+     * an immutable class.
      */
-    private static List<String> getTypeTemplateValues(String type)
+    private static class UnmodifiableSocket extends Socket
     {
-        if (type == null)
+        /**
+         * Creates a new instance
+         * 
+         * @param type The type
+         * @param name The name
+         * @param description The description
+         */
+        UnmodifiableSocket(String type, String name, String description)
         {
-            return null;
+            super(type, name, description);
         }
-        if (type.endsWith("N"))
+
+        /**
+         * Always throws an <code>UnsupportedOperationException</code>
+         */
+        @Override
+        public void setType(String type)
         {
-            String base = type.substring(0, type.length() - 1);
-            return Arrays.asList(base, base + "2", base + "3", base + "4",
-                base + "2x2", base + "3x3", base + "4x4");
+            throw new UnsupportedOperationException(
+                "The socket is unmodifiable");
         }
-        int i0 = type.lastIndexOf("{");
-        int i1 = type.lastIndexOf("}");
-        if (i0 == -1 | i1 == -1)
+
+        /**
+         * Always throws an <code>UnsupportedOperationException</code>
+         */
+        @Override
+        public void setName(String name)
         {
-            return null;
+            throw new UnsupportedOperationException(
+                "The socket is unmodifiable");
         }
-        String base = type.substring(0, i0);
-        String values = type.substring(i0 + 1, i1);
-        String[] tokens = values.split("\\|");
-        List<String> result = new ArrayList<String>();
-        for (String token : tokens)
+
+        /**
+         * Always throws an <code>UnsupportedOperationException</code>
+         */
+        @Override
+        public void setDescription(String description)
         {
-            result.add(base + token);
+            throw new UnsupportedOperationException(
+                "The socket is unmodifiable");
+        }
+    }
+
+    /**
+     * A {@link ConfigurationElement} whose setters throw an
+     * <code>UnsupportedOperationException</code>, so that it can be shared
+     * between nodes. See the class documentation about why this is not
+     * an immutable class.
+     */
+    private static class UnmodifiableConfigurationElement
+        extends ConfigurationElement
+    {
+        /**
+         * Creates a new instance
+         * 
+         * @param type The type
+         * @param name The name
+         * @param description The description
+         */
+        UnmodifiableConfigurationElement(String type, String name,
+            String description)
+        {
+            super(type, name, description);
+        }
+
+        /**
+         * Always throws an <code>UnsupportedOperationException</code>
+         */
+        @Override
+        public void setType(String type)
+        {
+            throw new UnsupportedOperationException(
+                "The configuration element is unmodifiable");
+        }
+
+        /**
+         * Always throws an <code>UnsupportedOperationException</code>
+         */
+        @Override
+        public void setName(String name)
+        {
+            throw new UnsupportedOperationException(
+                "The configuration element is unmodifiable");
+        }
+
+        /**
+         * Always throws an <code>UnsupportedOperationException</code>
+         */
+        @Override
+        public void setDescription(String description)
+        {
+            throw new UnsupportedOperationException(
+                "The configuration element is unmodifiable");
         }
-        return result;
     }
 
     /**
@@ -0,0 +1,294 @@
+/*
+ * www.javagl.de - leztew
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.leztew;
+
+import java.util.List;
+import java.util.StringTokenizer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Methods for interpreting the {@link TableSnapshot} of a table that
+ * defines a node, like that in "4.1.1.2.10. Subtraction".
+ */
+class OperationTables
+{
+    /**
+     * The logger used in this class
+     */
+    private static final Logger logger =
+        Logger.getLogger(OperationTables.class.getName());
+
+    /**
+     * The log level for debug output
+     */
+    private static final Level level = Level.FINE;
+
+    /**
+     * Create a {@link Node} from the given table
+     * 
+     * @param table The table
+     * @param title The title for the node
+     * @return The {@link Node}, or <code>null</code> if the table could not be
+     *         parsed.
+     */
+    static Node parse(TableSnapshot table, String title)
+    {
+        int numRows = table.getRowCount();
+        ConversionMetrics.count(ConversionMetrics.Counter.TABLES, 1);
+        ConversionMetrics.count(ConversionMetrics.Counter.ROWS, numRows);
+        if (numRows == 0 || table.getCellCount(0) == 0
+            || !table.getSource(0, 0).equals("Operation"))
+        {
+            logger.severe("Expected an 'Operation' table. Ignoring.");
+            return null;
+        }
+
+        Node node = new Node();
+        int i = 0;
+        while (i < numRows)
+        {
+            String first = table.getSource(i, 0);
+            int n = Math.max(table.getRowspan(i, 0), 1);
+
+            // The first row should always have "Operation", "name",
+            // "description".
+            //
+            // Otherwise, when a row starts with "Configuration",
+            // "Input flow sockets", "Input value sockets",
+            // "Output flow sockets", or "Output value sockets", then it may
+            // be followed by several other rows that all define them,
+            // depending on the row span of the first column
+            switch (first)
+            {
+                case "Operation":
+                {
+                    String name = stripBackticks(table.getSource(i, 1));
+                    node.setName(name);
+                    node.setDescription(table.getSource(i, 2));
+                    i++;
+                    break;
+                }
+                case "Configuration":
+                    parseConfiguration(table, i, n, node.getConfiguration());
+                    i += n;
+                    break;
+                case "Input flow sockets":
+                    parseSockets(table, i, n, node.getInputFlowSockets());
+                    i += n;
+                    break;
+                case "Input value sockets":
+                    parseSockets(table, i, n, node.getInputValueSockets());
+                    i += n;
+                    break;
+                case "Output flow sockets":
+                    parseSockets(table, i, n, node.getOutputFlowSockets());
+                    i += n;
+                    break;
+                case "Output value sockets":
+                    parseSockets(table, i, n, node.getOutputValueSockets());
+                    i += n;
+                    break;
+                default:
+                    if (logger.isLoggable(Level.WARNING))
+                    {
+                        logger.warning("Unexpected row in table: " + first
+                            + " - ignoring");
+                    }
+                    i++;
+                    break;
+            }
+        }
+
+        if (logger.isLoggable(level))
+        {
+            logger.log(level, "Final node " + node);
+        }
+        node.setTitle(title);
+        ConversionMetrics.count(ConversionMetrics.Counter.NODES, 1);
+        ConversionMetrics.count(
+            ConversionMetrics.Counter.CONFIGURATION_ELEMENTS,
+            node.getConfiguration().size());
+        ConversionMetrics.count(ConversionMetrics.Counter.SOCKETS,
+            node.getInputFlowSockets().size()
+                + node.getInputValueSockets().size()
+                + node.getOutputFlowSockets().size()
+                + node.getOutputValueSockets().size());
+        return node;
+    }
+
+    /**
+     * Parse the configuration from the given table
+     * 
+     * @param table The table
+     * @param startRow The row where to start reading the configuration
+     * @param n The number of rows that define the configuration
+     * @param configuration The list that will store the resulting configuration
+     */
+    private static void parseConfiguration(TableSnapshot table, int startRow,
+        int n, List<ConfigurationElement> configuration)
+    {
+        for (int j = 0; j < n; j++)
+        {
+            int r = startRow + j;
+            int i0 = 0;
+            int i1 = 1;
+            // In the first row, the name/description cells are indented
+            // by one, because the first column contains "Configuration"
+            if (j == 0)
+            {
+                i0++;
+                i1++;
+            }
+            ConfigurationElement s = new ConfigurationElement();
+            String declaration = stripBackticks(table.getSource(r, i0));
+            String type = parseType(declaration);
+            String name = parseName(declaration);
+            if (type != null && name != null)
+            {
+                s.setType(type);
+                s.setName(name);
+            }
+            else
+            {
+                if (logger.isLoggable(Level.WARNING))
+                {
+                    logger.warning("Could not extract type and name from \""
+                        + declaration + "\"");
+                }
+            }
+            s.setDescription(table.getSource(r, i1));
+            configuration.add(s);
+        }
+    }
+
+    /**
+     * Parse the sockets from the given table
+     * 
+     * @param table The table
+     * @param startRow The row where to start reading the sockets
+     * @param n The number of rows that define the sockets
+     * @param sockets The list that will store the resulting sockets.
+     */
+    private static void parseSockets(TableSnapshot table, int startRow, int n,
+        List<Socket> sockets)
+    {
+        for (int j = 0; j < n; j++)
+        {
+            int r = startRow + j;
+            int i0 = 0;
+            int i1 = 1;
+            // In the first row, the name/description cells are indented
+            // by one, because the first column contains the category
+            // name (like "Input value sockets")
+            if (j == 0)
+            {
+                i0++;
+                i1++;
+            }
+            Socket s = new Socket();
+            String declaration = stripBackticks(table.getSource(r, i0));
+            String type = parseType(declaration);
+            String name = parseName(declaration);
+            if (type != null && name != null)
+            {
+                s.setType(type);
+                s.setName(name);
+            }
+            else
+            {
+                // Flow sockets don't have a type
+                s.setName(declaration);
+            }
+            s.setDescription(table.getSource(r, i1));
+            sockets.add(s);
+        }
+    }
+
+    /**
+     * Try to parse what would likely be a type declaration in the given string:
+     * If it consists of two whitespace-separated tokens, then the first token
+     * is returned. Otherwise, <code>null</code> is returned.
+     * 
+     * @param s The string
+     * @return The type
+     */
+    private static String parseType(String s)
+    {
+        StringTokenizer st = new StringTokenizer(s);
+        if (st.countTokens() == 2)
+        {
+            return st.nextToken();
+        }
+        return null;
+    }
+
+    /**
+     * Try to parse what would likely be a name in the given string: If it
+     * consists of two whitespace-separated tokens, then the first token is
+     * returned. Otherwise, <code>null</code> is returned.
+     * 
+     * @param s The string
+     * @return The name
+     */
+    private static String parseName(String s)
+    {
+        StringTokenizer st = new StringTokenizer(s);
+        if (st.countTokens() == 2)
+        {
+            st.nextToken();
+            return st.nextToken();
+        }
+        return null;
+    }
+
+    /**
+     * If the given string starts and ends with backticks (omitting leading and
+     * trailing whitespace), then the part in the backticks will be returned
+     * (omitting leading and trailing whitespace)
+     * 
+     * @param input The input string
+     * @return The result
+     */
+    private static String stripBackticks(String input)
+    {
+        String s = input.trim();
+        if (s.startsWith("`") && s.endsWith("`"))
+        {
+            s = s.substring(1, s.length() - 1).trim();
+        }
+        return s;
+    }
+
+    /**
+     * Private constructor to prevent instantiation
+     */
+    private OperationTables()
+    {
+        // Private constructor to prevent instantiation
+    }
+}
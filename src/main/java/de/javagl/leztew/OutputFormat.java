@@ -0,0 +1,206 @@
+/*
+ * www.javagl.de - leztew
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.leztew;
+
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+
+/**
+ * The formats in which {@link Category} objects may be written.
+ * 
+ * The binary formats contain the same structure as the JSON output, so
+ * they can be read with the same data binding (see {@link CategoryLoader}).
+ */
+public enum OutputFormat
+{
+    /**
+     * Indented JSON
+     */
+    JSON("json"),
+
+    /**
+     * Jackson Smile
+     */
+    SMILE("sml"),
+
+    /**
+     * CBOR (RFC 8949)
+     */
+    CBOR("cbor");
+
+    /**
+     * The file extension, without the dot
+     */
+    private final String extension;
+
+    /**
+     * Creates a new instance
+     * 
+     * @param extension The file extension, without the dot
+     */
+    private OutputFormat(String extension)
+    {
+        this.extension = extension;
+    }
+
+    /**
+     * Returns the file extension, without the dot
+     * 
+     * @return The file extension
+     */
+    public String getExtension()
+    {
+        return extension;
+    }
+
+    /**
+     * Returns the name of the file for this format, given the name of the
+     * JSON file. For example, for <code>"nodes.json"</code> and
+     * {@link #SMILE}, this returns <code>"nodes.sml"</code>.
+     * 
+     * @param jsonFileName The name of the JSON file
+     * @return The file name
+     */
+    public String fileName(String jsonFileName)
+    {
+        String baseName = jsonFileName;
+        if (baseName.endsWith(".json"))
+        {
+            baseName = baseName.substring(0, baseName.length() - 5);
+        }
+        return baseName + "." + extension;
+    }
+
+    /**
+     * Creates the object writer for this format.
+     * 
+     * If <code>sharedStrings</code> is <code>true</code> and this is the
+     * {@link #SMILE} format, then the generator will write back-references
+     * to short string values that have already been written. The names of
+     * properties are always written as back-references in Smile. For the
+     * other formats, the flag is ignored.
+     * 
+     * @param sharedStrings Whether shared string values should be used
+     * @return The object writer
+     */
+    ObjectWriter createWriter(boolean sharedStrings)
+    {
+        ObjectMapper objectMapper =
+            new ObjectMapper(createFactory(sharedStrings));
+        if (this == JSON)
+        {
+            objectMapper.enable(SerializationFeature.INDENT_OUTPUT);
+        }
+        objectMapper.setSerializationInclusion(Include.NON_EMPTY);
+        return objectMapper.writer();
+    }
+
+    /**
+     * Creates the object mapper for reading data in this format
+     * 
+     * @return The object mapper
+     */
+    ObjectMapper createReaderMapper()
+    {
+        return new ObjectMapper(createFactory(false));
+    }
+
+    /**
+     * Creates the factory for this format
+     * 
+     * @param sharedStrings Whether shared string values should be written
+     * @return The factory
+     */
+    private JsonFactory createFactory(boolean sharedStrings)
+    {
+        switch (this)
+        {
+            case SMILE:
+                return SmileFactory.builder()
+                    .configure(
+                        SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES,
+                        sharedStrings)
+                    .build();
+            case CBOR:
+                return new CBORFactory();
+            case JSON:
+            default:
+                return new JsonFactory();
+        }
+    }
+
+    /**
+     * Returns the format with the given name, case-insensitively
+     * 
+     * @param name The name
+     * @return The format
+     * @throws IllegalArgumentException If there is no format with the given
+     *         name
+     */
+    public static OutputFormat fromName(String name)
+    {
+        for (OutputFormat outputFormat : values())
+        {
+            if (outputFormat.name().equalsIgnoreCase(name))
+            {
+                return outputFormat;
+            }
+        }
+        throw new IllegalArgumentException("Unknown output format: " + name);
+    }
+
+    /**
+     * Returns the format of data that starts with the given bytes.
+     * 
+     * Smile data is identified by its <code>":)\n"</code> header, and CBOR
+     * data by the initial byte of a map (major type 5), which the outputs
+     * always start with. All other data is assumed to be JSON.
+     * 
+     * @param header The first bytes of the data
+     * @param length The number of valid bytes in the header
+     * @return The format
+     */
+    static OutputFormat detect(byte header[], int length)
+    {
+        if (length >= 3 && header[0] == ':' && header[1] == ')'
+            && header[2] == '\n')
+        {
+            return SMILE;
+        }
+        if (length >= 1 && (header[0] & 0xE0) == 0xA0)
+        {
+            return CBOR;
+        }
+        return JSON;
+    }
+}
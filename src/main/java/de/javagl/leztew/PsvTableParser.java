@@ -0,0 +1,843 @@
+/*
+ * www.javagl.de - leztew
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.leztew;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A parser for the body of AsciiDoc tables in the "prefix-separated values"
+ * (PSV) format, creating a {@link TableSnapshot} directly from the source
+ * lines of the table.
+ *
+ * This follows the table parser of Asciidoctor, so that the rows, the cell
+ * sources and the row spans are the same as the ones that are provided by
+ * the Asciidoctor API. This includes the cell specifiers (like
+ * <code>.2+|</code> for a cell that spans two rows), escaped separators,
+ * the column count from the <code>cols</code> attribute, and the
+ * implicit or explicit header row. Other table formats (like CSV) are not
+ * supported.
+ */
+class PsvTableParser
+{
+    /**
+     * The logger used in this class
+     */
+    private static final Logger logger =
+        Logger.getLogger(PsvTableParser.class.getName());
+
+    /**
+     * The pattern for a column specifier in the <code>cols</code> attribute
+     */
+    private static final Pattern COLUMN_SPEC_PATTERN = Pattern.compile(
+        "^(?:(\\d+)\\*)?([<^>](?:\\.[<^>]?)?|(?:[<^>]?\\.)?[<^>])?"
+            + "(\\d+%?|~)?([a-z])?$");
+
+    /**
+     * The pattern for a cell specifier at the start of a line
+     */
+    private static final Pattern CELL_SPEC_START_PATTERN = Pattern.compile(
+        "^[ \\t]*(?:(\\d+(?:\\.\\d*)?|(?:\\d*\\.)?\\d+)([*+]))?"
+            + "([<^>](?:\\.[<^>]?)?|(?:[<^>]?\\.)?[<^>])?([a-z])?$");
+
+    /**
+     * The pattern for a cell specifier at the end of the text of a cell
+     */
+    private static final Pattern CELL_SPEC_END_PATTERN = Pattern.compile(
+        "[ \\t]+(?:(\\d+(?:\\.\\d*)?|(?:\\d*\\.)?\\d+)([*+]))?"
+            + "([<^>](?:\\.[<^>]?)?|(?:[<^>]?\\.)?[<^>])?([a-z])?$");
+
+    /**
+     * The cell style that causes the cell text to be treated as AsciiDoc
+     */
+    private static final char STYLE_ASCIIDOC = 'a';
+
+    /**
+     * The cell style that causes the cell text to be treated as literal
+     */
+    private static final char STYLE_LITERAL = 'l';
+
+    /**
+     * The value for "no style"
+     */
+    private static final char STYLE_NONE = 0;
+
+    /**
+     * A cell specifier
+     */
+    private static class CellSpec
+    {
+        /**
+         * The number of columns that the cell spans, or 0
+         */
+        int colspan;
+
+        /**
+         * The number of rows that the cell spans, or 0
+         */
+        int rowspan;
+
+        /**
+         * How often the cell is repeated
+         */
+        int repeat = 1;
+
+        /**
+         * The style of the cell, or {@link PsvTableParser#STYLE_NONE}
+         */
+        char style = STYLE_NONE;
+
+        /**
+         * Whether any property was specified
+         */
+        boolean specified;
+    }
+
+    /**
+     * A cell, as it is collected during parsing
+     */
+    private static class ParsedCell
+    {
+        /**
+         * The text of the cell
+         */
+        final String text;
+
+        /**
+         * The number of rows that the cell spans, or 0
+         */
+        final int rowspan;
+
+        /**
+         * Creates a new instance
+         *
+         * @param text The text
+         * @param rowspan The row span
+         */
+        ParsedCell(String text, int rowspan)
+        {
+            this.text = text;
+            this.rowspan = rowspan;
+        }
+    }
+
+    /**
+     * The lines of the table
+     */
+    private final List<String> lines;
+
+    /**
+     * The index of the next line
+     */
+    private int lineIndex;
+
+    /**
+     * The cell separator
+     */
+    private final String separator;
+
+    /**
+     * The styles of the columns that have been defined
+     */
+    private final List<Character> columnStyles;
+
+    /**
+     * The number of columns, or -1 if it is determined by the first row
+     */
+    private int colcount;
+
+    /**
+     * The text of the current cell
+     */
+    private StringBuilder buffer;
+
+    /**
+     * The cell specifiers that have been found for the following cells
+     */
+    private final Deque<CellSpec> cellSpecs;
+
+    /**
+     * Whether the current cell is still open
+     */
+    private boolean cellOpen;
+
+    /**
+     * The numbers of columns that are occupied by cells from previous
+     * rows, for the current row and the following rows
+     */
+    private final List<Integer> activeRowspans;
+
+    /**
+     * The number of columns that have been filled in the current row
+     */
+    private int columnVisits;
+
+    /**
+     * The cells of the current row
+     */
+    private List<ParsedCell> currentRow;
+
+    /**
+     * The index of the current line, as counted by the table parser
+     */
+    private int linenum;
+
+    /**
+     * The rows of the table body
+     */
+    private final List<List<ParsedCell>> rows;
+
+    /**
+     * Creates a new parser
+     *
+     * @param lines The lines of the table
+     * @param separator The cell separator
+     * @param columnStyles The styles of the columns from the
+     *        <code>cols</code> attribute
+     */
+    private PsvTableParser(List<String> lines, String separator,
+        List<Character> columnStyles)
+    {
+        this.lines = lines;
+        this.separator = separator;
+        this.columnStyles = columnStyles;
+        this.colcount = columnStyles.isEmpty() ? -1 : columnStyles.size();
+        this.buffer = new StringBuilder();
+        this.cellSpecs = new ArrayDeque<CellSpec>();
+        this.activeRowspans = new ArrayList<Integer>();
+        this.activeRowspans.add(0);
+        this.currentRow = new ArrayList<ParsedCell>();
+        this.linenum = -1;
+        this.rows = new ArrayList<List<ParsedCell>>();
+    }
+
+    /**
+     * Parse the given lines of a table, and return the snapshot of the
+     * table body.
+     *
+     * The given attributes are the block attributes of the table, where
+     * options are given as <code>name-option</code> keys, like
+     * <code>header-option</code>.
+     *
+     * @param lines The lines between the table delimiters
+     * @param attributes The block attributes of the table
+     * @param defaultSeparator The default cell separator, which is
+     *        <code>"|"</code> for tables that are delimited with
+     *        <code>|===</code>
+     * @return The snapshot, or <code>null</code> if the table has a format
+     *         that is not supported
+     */
+    static TableSnapshot parse(List<String> lines,
+        Map<String, String> attributes, String defaultSeparator)
+    {
+        String format = attributes.get("format");
+        if (format != null && !format.equals("psv"))
+        {
+            if (logger.isLoggable(Level.WARNING))
+            {
+                logger.warning("Table format " + format
+                    + " is not supported - ignoring table");
+            }
+            return null;
+        }
+        String separator = attributes.get("separator");
+        if (separator == null || separator.isEmpty())
+        {
+            separator = defaultSeparator;
+        }
+        else if (separator.equals("\\t"))
+        {
+            separator = "\t";
+        }
+        List<Character> columnStyles =
+            parseColumnStyles(attributes.get("cols"));
+        List<String> tableLines = new ArrayList<String>(lines.size());
+        for (String line : lines)
+        {
+            // Skip line comments
+            if (!line.startsWith("//") || line.startsWith("///"))
+            {
+                tableLines.add(line);
+            }
+        }
+        PsvTableParser parser =
+            new PsvTableParser(tableLines, separator, columnStyles);
+        return parser.parse(attributes.containsKey("header-option"),
+            attributes.containsKey("noheader-option"),
+            attributes.containsKey("footer-option"));
+    }
+
+    /**
+     * Parse the column styles from the given <code>cols</code> attribute
+     * value. The size of the returned list is the number of columns.
+     *
+     * @param cols The <code>cols</code> attribute value. May be
+     *        <code>null</code>.
+     * @return The column styles
+     */
+    private static List<Character> parseColumnStyles(String cols)
+    {
+        List<Character> styles = new ArrayList<Character>();
+        if (cols == null)
+        {
+            return styles;
+        }
+        String records = cols.replace(" ", "");
+        if (records.matches("0|[1-9]\\d*"))
+        {
+            int n = Integer.parseInt(records);
+            for (int i = 0; i < n; i++)
+            {
+                styles.add(STYLE_NONE);
+            }
+            return styles;
+        }
+        String delimiter = records.contains(",") ? "," : ";";
+        for (String record : records.split(delimiter, -1))
+        {
+            if (record.isEmpty())
+            {
+                styles.add(STYLE_NONE);
+                continue;
+            }
+            Matcher m = COLUMN_SPEC_PATTERN.matcher(record);
+            if (!m.matches())
+            {
+                continue;
+            }
+            char style = STYLE_NONE;
+            if (m.group(4) != null && isCellStyle(m.group(4).charAt(0)))
+            {
+                style = m.group(4).charAt(0);
+            }
+            int n = m.group(1) != null ? Integer.parseInt(m.group(1)) : 1;
+            for (int i = 0; i < n; i++)
+            {
+                styles.add(style);
+            }
+        }
+        return styles;
+    }
+
+    /**
+     * Returns whether the given character denotes a cell style
+     *
+     * @param c The character
+     * @return Whether the character is a cell style
+     */
+    private static boolean isCellStyle(char c)
+    {
+        return "dsemhla".indexOf(c) != -1;
+    }
+
+    /**
+     * Parse the lines of this parser
+     *
+     * @param headerOption Whether the header option was given
+     * @param noheaderOption Whether the noheader option was given
+     * @param footerOption Whether the footer option was given
+     * @return The snapshot of the table body
+     */
+    private TableSnapshot parse(boolean headerOption, boolean noheaderOption,
+        boolean footerOption)
+    {
+        int skipped = skipBlankLines();
+        boolean header = headerOption;
+        boolean implicitHeader = false;
+        if (!headerOption && skipped == 0 && !noheaderOption)
+        {
+            implicitHeader = true;
+        }
+        int loopIndex = -1;
+        Integer implicitHeaderBoundary = null;
+        while (lineIndex < lines.size())
+        {
+            String line = lines.get(lineIndex++);
+            boolean beyondFirst = ++loopIndex > 0;
+            if (beyondFirst && line.isEmpty())
+            {
+                line = null;
+                if (implicitHeaderBoundary != null)
+                {
+                    implicitHeaderBoundary++;
+                }
+            }
+            else if (line.startsWith(separator))
+            {
+                line = line.substring(1);
+                closeOpenCell(new CellSpec());
+                implicitHeaderBoundary = null;
+            }
+            else
+            {
+                CellSpec nextCellSpec = null;
+                int index = line.indexOf(separator);
+                if (index != -1)
+                {
+                    nextCellSpec = parseCellSpecStart(line.substring(0, index));
+                }
+                if (nextCellSpec != null)
+                {
+                    line = line.substring(index + separator.length());
+                    closeOpenCell(nextCellSpec);
+                    implicitHeaderBoundary = null;
+                }
+                else if (implicitHeaderBoundary != null
+                    && implicitHeaderBoundary == loopIndex)
+                {
+                    implicitHeader = false;
+                    implicitHeaderBoundary = null;
+                }
+            }
+
+            if (!beyondFirst && implicitHeader)
+            {
+                // An implicit header is offset by at least one blank line
+                if (lineIndex < lines.size() && lines.get(lineIndex).isEmpty())
+                {
+                    implicitHeaderBoundary = 1;
+                }
+                else
+                {
+                    implicitHeader = false;
+                }
+            }
+
+            while (true)
+            {
+                int index = line == null ? -1 : line.indexOf(separator);
+                if (index == -1)
+                {
+                    if (line != null)
+                    {
+                        buffer.append(line);
+                    }
+                    buffer.append('\n');
+                    cellOpen = true;
+                    break;
+                }
+                String preMatch = line.substring(0, index);
+                String postMatch = line.substring(index + separator.length());
+                if (preMatch.endsWith("\\"))
+                {
+                    // Escaped separator
+                    buffer.append(preMatch, 0, preMatch.length() - 1);
+                    buffer.append(separator);
+                    if (postMatch.isEmpty())
+                    {
+                        buffer.append('\n');
+                        cellOpen = true;
+                        break;
+                    }
+                    line = postMatch;
+                    continue;
+                }
+                String[] cellText = new String[1];
+                CellSpec cellSpec = parseCellSpecEnd(preMatch, cellText);
+                cellSpecs.add(cellSpec);
+                buffer.append(cellText[0]);
+                line = postMatch.isEmpty() ? null : postMatch;
+                closeCell(false);
+            }
+
+            if (cellOpen)
+            {
+                if (lineIndex >= lines.size())
+                {
+                    closeCell(true);
+                }
+            }
+            else if (skipBlankLines() == -1)
+            {
+                break;
+            }
+        }
+        if (implicitHeader)
+        {
+            header = true;
+        }
+
+        List<List<ParsedCell>> body = rows;
+        if (!body.isEmpty())
+        {
+            int first = header ? 1 : 0;
+            int end = body.size();
+            if (end - first > 0 && footerOption)
+            {
+                end--;
+            }
+            body = body.subList(first, end);
+        }
+        String[][] sources = new String[body.size()][];
+        int[][] rowspans = new int[body.size()][];
+        for (int r = 0; r < body.size(); r++)
+        {
+            List<ParsedCell> row = body.get(r);
+            sources[r] = new String[row.size()];
+            rowspans[r] = new int[row.size()];
+            for (int c = 0; c < row.size(); c++)
+            {
+                sources[r][c] = row.get(c).text;
+                rowspans[r][c] = row.get(c).rowspan;
+            }
+        }
+        return new TableSnapshot(sources, rowspans);
+    }
+
+    /**
+     * Skip all blank lines at the current position.
+     *
+     * @return The number of skipped lines, or -1 if the end of the lines
+     *         was reached
+     */
+    private int skipBlankLines()
+    {
+        int skipped = 0;
+        while (lineIndex < lines.size())
+        {
+            if (!lines.get(lineIndex).isEmpty())
+            {
+                return skipped;
+            }
+            lineIndex++;
+            skipped++;
+        }
+        return -1;
+    }
+
+    /**
+     * Close the current cell if it is open, and store the given cell
+     * specifier for the next cell
+     *
+     * @param nextCellSpec The cell specifier for the next cell
+     */
+    private void closeOpenCell(CellSpec nextCellSpec)
+    {
+        cellSpecs.add(nextCellSpec);
+        if (cellOpen)
+        {
+            closeCell(true);
+        }
+        linenum++;
+    }
+
+    /**
+     * Close the current cell, add it to the current row, and close the row
+     * if it is complete
+     *
+     * @param eol Whether the end of a line was reached
+     */
+    private void closeCell(boolean eol)
+    {
+        String text = buffer.toString();
+        buffer = new StringBuilder();
+        CellSpec cellSpec = cellSpecs.poll();
+        if (cellSpec == null)
+        {
+            logger.warning("Table missing leading separator");
+            cellSpec = new CellSpec();
+        }
+        int repeat = cellSpec.repeat;
+        for (int i = 1; i <= repeat; i++)
+        {
+            char columnStyle = STYLE_NONE;
+            if (colcount == -1)
+            {
+                columnStyles.add(STYLE_NONE);
+                for (int j = 1; j < cellSpec.colspan; j++)
+                {
+                    columnStyles.add(STYLE_NONE);
+                }
+            }
+            else
+            {
+                if (currentRow.size() >= columnStyles.size())
+                {
+                    logger.warning("Dropping cell because it exceeds the "
+                        + "specified number of columns");
+                    return;
+                }
+                columnStyle = columnStyles.get(currentRow.size());
+            }
+            char style = columnStyle;
+            if (cellSpec.specified && cellSpec.style != STYLE_NONE)
+            {
+                style = cellSpec.style;
+            }
+            ParsedCell cell =
+                new ParsedCell(processText(text, style), cellSpec.rowspan);
+            if (cellSpec.rowspan > 1)
+            {
+                activateRowspan(cellSpec.rowspan,
+                    Math.max(cellSpec.colspan, 1));
+            }
+            columnVisits += Math.max(cellSpec.colspan, 1);
+            currentRow.add(cell);
+            if (isEndOfRow() && (colcount != -1 || linenum > 0
+                || (eol && i == repeat)))
+            {
+                closeRow();
+            }
+        }
+        cellOpen = false;
+    }
+
+    /**
+     * Process the given cell text, depending on the style of the cell
+     *
+     * @param text The text
+     * @param style The style
+     * @return The processed text
+     */
+    private static String processText(String text, char style)
+    {
+        if (style == STYLE_ASCIIDOC)
+        {
+            String s = rstrip(text);
+            if (s.startsWith("\n"))
+            {
+                int start = 0;
+                while (start < s.length() && s.charAt(start) == '\n')
+                {
+                    start++;
+                }
+                return s.substring(start);
+            }
+            return lstrip(s);
+        }
+        if (style == STYLE_LITERAL)
+        {
+            String s = rstrip(text);
+            int start = 0;
+            while (start < s.length() && s.charAt(start) == '\n')
+            {
+                start++;
+            }
+            return s.substring(start);
+        }
+        return lstrip(rstrip(text));
+    }
+
+    /**
+     * Mark the columns that are occupied by a cell with the given row span
+     * and column span in the following rows
+     *
+     * @param rowspan The row span
+     * @param colspan The column span
+     */
+    private void activateRowspan(int rowspan, int colspan)
+    {
+        for (int i = 1; i < rowspan; i++)
+        {
+            while (activeRowspans.size() <= i)
+            {
+                activeRowspans.add(0);
+            }
+            activeRowspans.set(i, activeRowspans.get(i) + colspan);
+        }
+    }
+
+    /**
+     * Returns whether the current row is complete
+     *
+     * @return Whether the current row is complete
+     */
+    private boolean isEndOfRow()
+    {
+        return colcount == -1
+            || columnVisits + activeRowspans.get(0) == colcount;
+    }
+
+    /**
+     * Add the current row to the rows, and start a new row
+     */
+    private void closeRow()
+    {
+        rows.add(currentRow);
+        if (colcount == -1)
+        {
+            colcount = columnVisits;
+        }
+        columnVisits = 0;
+        currentRow = new ArrayList<ParsedCell>();
+        activeRowspans.remove(0);
+        if (activeRowspans.isEmpty())
+        {
+            activeRowspans.add(0);
+        }
+    }
+
+    /**
+     * Parse the cell specifier at the start of a line, which is the given
+     * part of the line before the first separator.
+     *
+     * @param specPart The part of the line before the first separator
+     * @return The cell specifier, or <code>null</code> if the given part is
+     *         not a cell specifier
+     */
+    private static CellSpec parseCellSpecStart(String specPart)
+    {
+        Matcher m = CELL_SPEC_START_PATTERN.matcher(specPart);
+        if (!m.find())
+        {
+            return null;
+        }
+        return createCellSpec(m);
+    }
+
+    /**
+     * Parse the cell specifier at the end of the given text, which is the
+     * text before a separator. The text without the cell specifier will be
+     * stored in the given array.
+     *
+     * @param text The text
+     * @param rest The array that receives the text without the specifier
+     * @return The cell specifier
+     */
+    private static CellSpec parseCellSpecEnd(String text, String[] rest)
+    {
+        Matcher m = CELL_SPEC_END_PATTERN.matcher(text);
+        if (!m.find())
+        {
+            rest[0] = text;
+            return new CellSpec();
+        }
+        if (lstrip(m.group()).isEmpty())
+        {
+            rest[0] = rstrip(text);
+            return new CellSpec();
+        }
+        rest[0] = text.substring(0, m.start());
+        return createCellSpec(m);
+    }
+
+    /**
+     * Create a cell specifier from the given match of one of the cell
+     * specifier patterns
+     *
+     * @param m The matcher
+     * @return The cell specifier
+     */
+    private static CellSpec createCellSpec(Matcher m)
+    {
+        CellSpec cellSpec = new CellSpec();
+        if (m.group(1) != null)
+        {
+            String spans = m.group(1);
+            int dotIndex = spans.indexOf('.');
+            String colspec =
+                dotIndex == -1 ? spans : spans.substring(0, dotIndex);
+            String rowspec =
+                dotIndex == -1 ? "" : spans.substring(dotIndex + 1);
+            int colspan = colspec.isEmpty() ? 1 : Integer.parseInt(colspec);
+            int rowspan = rowspec.isEmpty() ? 1 : Integer.parseInt(rowspec);
+            if (m.group(2).equals("+"))
+            {
+                if (colspan != 1)
+                {
+                    cellSpec.colspan = colspan;
+                    cellSpec.specified = true;
+                }
+                if (rowspan != 1)
+                {
+                    cellSpec.rowspan = rowspan;
+                    cellSpec.specified = true;
+                }
+            }
+            else if (colspan != 1)
+            {
+                cellSpec.repeat = colspan;
+            }
+        }
+        if (m.group(3) != null)
+        {
+            // Alignments do not affect the extracted data, but count as
+            // a specified property
+            cellSpec.specified = true;
+        }
+        if (m.group(4) != null && isCellStyle(m.group(4).charAt(0)))
+        {
+            cellSpec.style = m.group(4).charAt(0);
+            cellSpec.specified = true;
+        }
+        return cellSpec;
+    }
+
+    /**
+     * Remove leading whitespace from the given string, like Ruby's
+     * <code>lstrip</code>
+     *
+     * @param s The string
+     * @return The result
+     */
+    static String lstrip(String s)
+    {
+        int start = 0;
+        while (start < s.length() && isWhitespace(s.charAt(start)))
+        {
+            start++;
+        }
+        return s.substring(start);
+    }
+
+    /**
+     * Remove trailing whitespace from the given string, like Ruby's
+     * <code>rstrip</code>
+     *
+     * @param s The string
+     * @return The result
+     */
+    static String rstrip(String s)
+    {
+        int end = s.length();
+        while (end > 0 && isWhitespace(s.charAt(end - 1)))
+        {
+            end--;
+        }
+        return s.substring(0, end);
+    }
+
+    /**
+     * Returns whether the given character is whitespace, as defined by
+     * Ruby's <code>strip</code>
+     *
+     * @param c The character
+     * @return Whether the character is whitespace
+     */
+    private static boolean isWhitespace(char c)
+    {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B'
+            || c == '\f' || c == '\r' || c == '\0';
+    }
+}
@@ -0,0 +1,223 @@
+/*
+ * www.javagl.de - leztew
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.leztew;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An in-memory cache for the {@link Node} objects that have been extracted
+ * from node definition sections, keyed by a fingerprint of the source of
+ * each section.
+ *
+ * When the same instance is passed to the {@link LeztewConverter} for
+ * multiple conversions (for example, for different revisions of a
+ * specification), then only the sections that have changed will be
+ * processed again, and the nodes of all other sections will be taken from
+ * this cache.
+ *
+ * The {@link Node} objects in this cache are shared between the results of
+ * the conversions, and must therefore not be modified.
+ *
+ * An instance only lives as long as the process that created it. To reuse
+ * the entries across runs, the cache can be stored in a
+ * {@link ConversionCache} with {@link ConversionCache#putSectionCache}, and
+ * loaded with {@link ConversionCache#getSectionCache()}.
+ *
+ * This class is thread-safe.
+ */
+public class SectionCache
+{
+    /**
+     * The default maximum number of entries
+     */
+    public static final int DEFAULT_MAX_ENTRIES = 100000;
+
+    /**
+     * The entries, in access order
+     */
+    private final Map<String, List<Node>> entries;
+
+    /**
+     * The number of cache hits
+     */
+    private final AtomicLong hits;
+
+    /**
+     * The number of cache misses
+     */
+    private final AtomicLong misses;
+
+    /**
+     * Creates a new instance with the {@link #DEFAULT_MAX_ENTRIES}
+     */
+    public SectionCache()
+    {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * Creates a new instance. When the given maximum number of entries is
+     * exceeded, then the least recently used entry will be removed.
+     *
+     * @param maxEntries The maximum number of entries
+     */
+    public SectionCache(int maxEntries)
+    {
+        this.entries = new LinkedHashMap<String, List<Node>>(16, 0.75f, true)
+        {
+            /**
+             * Serial UID
+             */
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(
+                Map.Entry<String, List<Node>> eldest)
+            {
+                return size() > maxEntries;
+            }
+        };
+        this.hits = new AtomicLong();
+        this.misses = new AtomicLong();
+    }
+
+    /**
+     * Returns the nodes that have been stored for the given fingerprint, or
+     * <code>null</code> if there are no nodes for this fingerprint.
+     *
+     * @param fingerprint The fingerprint
+     * @return The nodes
+     */
+    List<Node> get(String fingerprint)
+    {
+        List<Node> nodes = null;
+        synchronized (entries)
+        {
+            nodes = entries.get(fingerprint);
+        }
+        if (nodes == null)
+        {
+            misses.incrementAndGet();
+        }
+        else
+        {
+            hits.incrementAndGet();
+        }
+        return nodes;
+    }
+
+    /**
+     * Store the given nodes for the given fingerprint
+     *
+     * @param fingerprint The fingerprint
+     * @param nodes The nodes
+     */
+    void put(String fingerprint, List<Node> nodes)
+    {
+        synchronized (entries)
+        {
+            entries.put(fingerprint, Collections.unmodifiableList(nodes));
+        }
+    }
+
+    /**
+     * Returns a {@link Category} that contains one child for each entry of
+     * this cache, in the order from the least to the most recently used
+     * entry. The name of each child is the fingerprint, and its nodes are
+     * the nodes of the entry.
+     *
+     * @return The {@link Category}
+     */
+    Category toCategory()
+    {
+        Category category = new Category("sections");
+        synchronized (entries)
+        {
+            for (Map.Entry<String, List<Node>> entry : entries.entrySet())
+            {
+                category.addChild(new Category(entry.getKey(),
+                    new ArrayList<Node>(entry.getValue()),
+                    new ArrayList<Category>()));
+            }
+        }
+        return category;
+    }
+
+    /**
+     * Store the entries from the given {@link Category}, which has the
+     * structure that is described in {@link #toCategory()}.
+     *
+     * This does not affect the number of hits and misses.
+     *
+     * @param category The {@link Category}
+     */
+    void putAll(Category category)
+    {
+        for (Category child : category.getChildren())
+        {
+            put(child.getName(), child.getNodes());
+        }
+    }
+
+    /**
+     * Returns the number of times that nodes have been found in this cache
+     *
+     * @return The number of hits
+     */
+    public long getHits()
+    {
+        return hits.get();
+    }
+
+    /**
+     * Returns the number of times that nodes have not been found in this
+     * cache
+     *
+     * @return The number of misses
+     */
+    public long getMisses()
+    {
+        return misses.get();
+    }
+
+    @Override
+    public String toString()
+    {
+        int size = 0;
+        synchronized (entries)
+        {
+            size = entries.size();
+        }
+        return "SectionCache [entries=" + size + ", hits=" + getHits()
+            + ", misses=" + getMisses() + "]";
+    }
+}
@@ -0,0 +1,681 @@
+/*
+ * www.javagl.de - leztew
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.leztew;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.logging.Logger;
+
+/**
+ * A class for generating synthetic specifications for scale tests.
+ * 
+ * The generated AsciiDoc has the same section structure as the real
+ * specification: The "Functional Specification" is the fourth chapter, and
+ * its first section, "Nodes", contains sub-sections, which contain groups,
+ * which contain the node definition sections with the "Operation" tables.
+ * 
+ * The number of nodes, the number of configuration rows and sockets in
+ * each table, whether the tables use row spans, the share of nodes with
+ * templated socket types, and the amount of other content can be
+ * configured. The output only depends on the configuration and the seed.
+ */
+public class SpecificationGenerator
+{
+    /**
+     * The logger used in this class
+     */
+    private static final Logger logger =
+        Logger.getLogger(SpecificationGenerator.class.getName());
+
+    /**
+     * The titles of the chapters that precede the "Functional Specification"
+     */
+    private static final String[] LEADING_CHAPTER_TITLES =
+    { "Introduction", "Concepts", "Objects" };
+
+    /**
+     * The base types for sockets
+     */
+    private static final String[] BASE_TYPES =
+    { "float", "int", "bool" };
+
+    /**
+     * The sentence that is repeated for descriptions and paragraphs
+     */
+    private static final String SENTENCE =
+        "This is a generated sentence that describes the element. ";
+
+    /**
+     * Entry point of the generator.
+     * 
+     * The first argument that is not an option is the output file. The
+     * default is <code>./data/generated.adoc</code>, so that the real
+     * specification in <code>./data/Specification.adoc</code> is not
+     * overwritten.
+     * 
+     * With <code>--preset &lt;small|large|deep&gt;</code>, the settings
+     * are initialized for 100 nodes, for 100000 nodes, or for 1000 nodes
+     * with deeply nested content. The preset is always applied first,
+     * regardless of its position in the arguments. The remaining options
+     * override the settings: <code>--nodes &lt;n&gt;</code>,
+     * <code>--sub-sections &lt;n&gt;</code>, <code>--groups &lt;n&gt;</code>
+     * (per sub-section), <code>--configuration-rows &lt;n&gt;</code>,
+     * <code>--flow-sockets &lt;n&gt;</code>,
+     * <code>--value-sockets &lt;n&gt;</code> (for input and output each),
+     * <code>--template-ratio &lt;r&gt;</code> (between 0.0 and 1.0),
+     * <code>--no-row-spans</code>, <code>--paragraphs &lt;n&gt;</code>,
+     * <code>--depth &lt;n&gt;</code>, and <code>--seed &lt;n&gt;</code>. See
+     * the respective setters for details.
+     * 
+     * @param args The arguments
+     * @throws IOException If an IO error occurs
+     */
+    public static void main(String[] args) throws IOException
+    {
+        LoggerUtil.initLogging();
+
+        SpecificationGenerator generator = new SpecificationGenerator();
+        for (int i = 0; i < args.length - 1; i++)
+        {
+            if (args[i].equals("--preset"))
+            {
+                generator = createPreset(args[i + 1]);
+            }
+        }
+        File outputFile = new File("./data/generated.adoc");
+        for (int i = 0; i < args.length; i++)
+        {
+            boolean hasValue = i + 1 < args.length;
+            if (args[i].equals("--preset") && hasValue)
+            {
+                // Already applied
+                i++;
+            }
+            else if (args[i].equals("--nodes") && hasValue)
+            {
+                generator.setNodeCount(Integer.parseInt(args[++i]));
+            }
+            else if (args[i].equals("--sub-sections") && hasValue)
+            {
+                generator.setSubSectionCount(Integer.parseInt(args[++i]));
+            }
+            else if (args[i].equals("--groups") && hasValue)
+            {
+                generator.setGroupCount(Integer.parseInt(args[++i]));
+            }
+            else if (args[i].equals("--configuration-rows") && hasValue)
+            {
+                generator
+                    .setConfigurationRowCount(Integer.parseInt(args[++i]));
+            }
+            else if (args[i].equals("--flow-sockets") && hasValue)
+            {
+                generator.setFlowSocketCount(Integer.parseInt(args[++i]));
+            }
+            else if (args[i].equals("--value-sockets") && hasValue)
+            {
+                generator.setValueSocketCount(Integer.parseInt(args[++i]));
+            }
+            else if (args[i].equals("--template-ratio") && hasValue)
+            {
+                generator.setTemplateRatio(Double.parseDouble(args[++i]));
+            }
+            else if (args[i].equals("--no-row-spans"))
+            {
+                generator.setRowSpans(false);
+            }
+            else if (args[i].equals("--paragraphs") && hasValue)
+            {
+                generator.setParagraphCount(Integer.parseInt(args[++i]));
+            }
+            else if (args[i].equals("--depth") && hasValue)
+            {
+                generator.setDepth(Integer.parseInt(args[++i]));
+            }
+            else if (args[i].equals("--seed") && hasValue)
+            {
+                generator.setSeed(Long.parseLong(args[++i]));
+            }
+            else
+            {
+                outputFile = new File(args[i]);
+            }
+        }
+        long before = System.nanoTime();
+        generator.generate(outputFile);
+        long after = System.nanoTime();
+        logger.info("Generated " + outputFile + " with "
+            + generator.getNodeCount() + " nodes (" + outputFile.length()
+            + " bytes) in " + (after - before) / 1000000 + "ms");
+    }
+
+    /**
+     * Creates a generator with the settings for the given preset.
+     * 
+     * The preset may be <code>small</code> (100 nodes), <code>large</code>
+     * (100000 nodes in more sub-sections and groups), or <code>deep</code>
+     * (1000 nodes, with several paragraphs and nested content blocks in
+     * each section).
+     * 
+     * @param preset The preset
+     * @return The generator
+     * @throws IllegalArgumentException If the preset is not known
+     */
+    static SpecificationGenerator createPreset(String preset)
+    {
+        SpecificationGenerator generator = new SpecificationGenerator();
+        switch (preset)
+        {
+            case "small":
+                generator.setNodeCount(100);
+                break;
+            case "large":
+                generator.setNodeCount(100000);
+                generator.setSubSectionCount(20);
+                generator.setGroupCount(50);
+                break;
+            case "deep":
+                generator.setNodeCount(1000);
+                generator.setParagraphCount(4);
+                generator.setDepth(6);
+                break;
+            default:
+                throw new IllegalArgumentException(
+                    "Unknown preset: " + preset);
+        }
+        return generator;
+    }
+
+    /**
+     * The total number of node definitions
+     */
+    private int nodeCount = 1000;
+
+    /**
+     * The number of sub-sections of the "Nodes" section
+     */
+    private int subSectionCount = 5;
+
+    /**
+     * The number of groups in each sub-section
+     */
+    private int groupCount = 10;
+
+    /**
+     * The number of configuration rows in each table
+     */
+    private int configurationRowCount = 1;
+
+    /**
+     * The number of input- and output flow sockets in each table
+     */
+    private int flowSocketCount = 1;
+
+    /**
+     * The number of input- and output value sockets in each table
+     */
+    private int valueSocketCount = 2;
+
+    /**
+     * The share of nodes that have templated socket types
+     */
+    private double templateRatio = 0.5;
+
+    /**
+     * Whether the first column of the tables uses row spans
+     */
+    private boolean rowSpans = true;
+
+    /**
+     * The number of paragraphs in each section
+     */
+    private int paragraphCount = 1;
+
+    /**
+     * The nesting depth of the content blocks in each section
+     */
+    private int depth = 0;
+
+    /**
+     * The seed for the random number generator
+     */
+    private long seed = 0;
+
+    /**
+     * Creates a new instance with the default settings: 1000 nodes in
+     * 5 sub-sections with 10 groups each, 1 configuration row, 1 flow
+     * socket and 2 value sockets for input and output, half of the nodes
+     * with templated types, row spans, 1 paragraph in each section, and
+     * no nested content blocks.
+     */
+    public SpecificationGenerator()
+    {
+        // Default constructor
+    }
+
+    /**
+     * Set the total number of node definitions. They are distributed
+     * evenly over all groups.
+     * 
+     * @param nodeCount The number of nodes
+     */
+    public void setNodeCount(int nodeCount)
+    {
+        this.nodeCount = nodeCount;
+    }
+
+    /**
+     * Returns the total number of node definitions
+     * 
+     * @return The number of nodes
+     */
+    public int getNodeCount()
+    {
+        return nodeCount;
+    }
+
+    /**
+     * Set the number of sub-sections of the "Nodes" section
+     * 
+     * @param subSectionCount The number of sub-sections
+     */
+    public void setSubSectionCount(int subSectionCount)
+    {
+        this.subSectionCount = subSectionCount;
+    }
+
+    /**
+     * Set the number of groups in each sub-section
+     * 
+     * @param groupCount The number of groups
+     */
+    public void setGroupCount(int groupCount)
+    {
+        this.groupCount = groupCount;
+    }
+
+    /**
+     * Set the number of configuration rows in each table
+     * 
+     * @param configurationRowCount The number of configuration rows
+     */
+    public void setConfigurationRowCount(int configurationRowCount)
+    {
+        this.configurationRowCount = configurationRowCount;
+    }
+
+    /**
+     * Set the number of input- and output flow sockets in each table
+     * 
+     * @param flowSocketCount The number of flow sockets
+     */
+    public void setFlowSocketCount(int flowSocketCount)
+    {
+        this.flowSocketCount = flowSocketCount;
+    }
+
+    /**
+     * Set the number of input- and output value sockets in each table
+     * 
+     * @param valueSocketCount The number of value sockets
+     */
+    public void setValueSocketCount(int valueSocketCount)
+    {
+        this.valueSocketCount = valueSocketCount;
+    }
+
+    /**
+     * Set the share of nodes that have templated socket types, between
+     * 0.0 and 1.0.
+     * 
+     * In these nodes, the first input- and output value sockets have a type
+     * like <code>floatN</code> or <code>float{2|3|4}</code>, alternatingly.
+     * 
+     * @param templateRatio The template ratio
+     */
+    public void setTemplateRatio(double templateRatio)
+    {
+        this.templateRatio = templateRatio;
+    }
+
+    /**
+     * Set whether the first column of the tables uses row spans for
+     * multiple configuration rows or sockets. Otherwise, the first column
+     * is repeated in each row.
+     * 
+     * @param rowSpans Whether row spans are used
+     */
+    public void setRowSpans(boolean rowSpans)
+    {
+        this.rowSpans = rowSpans;
+    }
+
+    /**
+     * Set the number of paragraphs in each section
+     * 
+     * @param paragraphCount The number of paragraphs
+     */
+    public void setParagraphCount(int paragraphCount)
+    {
+        this.paragraphCount = paragraphCount;
+    }
+
+    /**
+     * Set the nesting depth of the content blocks in each section.
+     * 
+     * For a depth greater than 0, each section contains a list with the
+     * given number of nesting levels, and example blocks that are nested
+     * to the given depth.
+     * 
+     * @param depth The depth
+     */
+    public void setDepth(int depth)
+    {
+        this.depth = depth;
+    }
+
+    /**
+     * Set the seed for the random number generator
+     * 
+     * @param seed The seed
+     */
+    public void setSeed(long seed)
+    {
+        this.seed = seed;
+    }
+
+    /**
+     * Generate the specification and write it into the given file, as UTF-8
+     * 
+     * @param file The file
+     * @throws IOException If an IO error occurs
+     */
+    public void generate(File file) throws IOException
+    {
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null)
+        {
+            parent.mkdirs();
+        }
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+            new FileOutputStream(file), StandardCharsets.UTF_8)))
+        {
+            generate(writer);
+        }
+    }
+
+    /**
+     * Generate the specification and write it to the given writer. The
+     * caller is responsible for closing the writer.
+     * 
+     * @param writer The writer
+     * @throws IOException If an IO error occurs
+     */
+    public void generate(Writer writer) throws IOException
+    {
+        Random random = new Random(seed);
+        writer.write("= Generated Specification\n");
+        writer.write(":sectnums:\n");
+        writer.write("\n");
+        for (String title : LEADING_CHAPTER_TITLES)
+        {
+            writer.write("== " + title + "\n\n");
+            writeContent(writer, 0);
+        }
+        writer.write("== Functional Specification\n\n");
+        writeContent(writer, 0);
+        writer.write("=== Nodes\n\n");
+        writeContent(writer, 0);
+
+        int totalGroupCount = subSectionCount * groupCount;
+        int nodeIndex = 0;
+        for (int s = 0; s < subSectionCount; s++)
+        {
+            writer.write("==== Category " + s + "\n\n");
+            writeContent(writer, 0);
+            for (int g = 0; g < groupCount; g++)
+            {
+                writer.write("===== Group " + s + " " + g + "\n\n");
+                writeContent(writer, 0);
+
+                // The remainder of the nodes is distributed over the
+                // first groups
+                int groupIndex = s * groupCount + g;
+                int groupNodeCount = nodeCount / totalGroupCount;
+                if (groupIndex < nodeCount % totalGroupCount)
+                {
+                    groupNodeCount++;
+                }
+                for (int d = 0; d < groupNodeCount; d++)
+                {
+                    String name = "cat" + s + "/node" + g + "_" + d;
+                    writer.write("====== Node " + s + " " + g + " " + d
+                        + "\n\n");
+                    writeContent(writer, nodeIndex);
+                    boolean templated = random.nextDouble() < templateRatio;
+                    writeOperationTable(writer, name, nodeIndex, templated,
+                        random);
+                    nodeIndex++;
+                }
+            }
+        }
+        writer.write("== Appendix\n\n");
+        writeContent(writer, 0);
+    }
+
+    /**
+     * Write the paragraphs and nested content blocks of a section
+     * 
+     * @param writer The writer
+     * @param index The index that is used for varying the content
+     * @throws IOException If an IO error occurs
+     */
+    private void writeContent(Writer writer, int index) throws IOException
+    {
+        for (int p = 0; p < paragraphCount; p++)
+        {
+            writer.write(sentences(1 + (index + p) % 3) + "\n\n");
+        }
+        if (depth <= 0)
+        {
+            return;
+        }
+        for (int d = 1; d <= depth; d++)
+        {
+            writer.write(repeat('*', d) + " " + sentences(1) + "\n");
+        }
+        writer.write("\n");
+        for (int d = 0; d < depth; d++)
+        {
+            writer.write(repeat('=', depth + 4 - d) + "\n");
+            writer.write(sentences(1) + "\n\n");
+        }
+        for (int d = depth - 1; d >= 0; d--)
+        {
+            writer.write(repeat('=', depth + 4 - d) + "\n\n");
+        }
+    }
+
+    /**
+     * Write an "Operation" table
+     * 
+     * @param writer The writer
+     * @param name The name of the operation
+     * @param index The index of the node
+     * @param templated Whether the value sockets have templated types
+     * @param random The random number generator
+     * @throws IOException If an IO error occurs
+     */
+    private void writeOperationTable(Writer writer, String name, int index,
+        boolean templated, Random random) throws IOException
+    {
+        String templateType = null;
+        if (templated)
+        {
+            String base = BASE_TYPES[random.nextInt(2)];
+            if (index % 2 == 0)
+            {
+                templateType = base + "N";
+            }
+            else
+            {
+                templateType = base + "{2\\|3\\|4}";
+            }
+        }
+        writer.write("[cols=\"1h,1,2\"]\n");
+        writer.write("|===\n");
+        writer.write("| Operation\n");
+        writer.write("| `" + name + "`\n");
+        writer.write("| " + sentences(2) + "\n");
+
+        String[] declarations = new String[configurationRowCount];
+        for (int i = 0; i < configurationRowCount; i++)
+        {
+            declarations[i] = "int count" + i;
+        }
+        writeRows(writer, "Configuration", declarations);
+
+        declarations = new String[flowSocketCount];
+        for (int i = 0; i < flowSocketCount; i++)
+        {
+            declarations[i] = "in" + i;
+        }
+        writeRows(writer, "Input flow sockets", declarations);
+
+        writeRows(writer, "Input value sockets",
+            createValueSocketDeclarations("in", templateType, random));
+
+        declarations = new String[flowSocketCount];
+        for (int i = 0; i < flowSocketCount; i++)
+        {
+            declarations[i] = "out" + i;
+        }
+        writeRows(writer, "Output flow sockets", declarations);
+
+        writeRows(writer, "Output value sockets",
+            createValueSocketDeclarations("value", templateType, random));
+        writer.write("|===\n\n");
+    }
+
+    /**
+     * Creates the declarations of value sockets
+     * 
+     * @param prefix The prefix for the socket names
+     * @param templateType The type for the first socket, or
+     *        <code>null</code> if the sockets are not templated
+     * @param random The random number generator
+     * @return The declarations
+     */
+    private String[] createValueSocketDeclarations(String prefix,
+        String templateType, Random random)
+    {
+        String[] declarations = new String[valueSocketCount];
+        for (int i = 0; i < valueSocketCount; i++)
+        {
+            String type = BASE_TYPES[random.nextInt(BASE_TYPES.length)];
+            if (i == 0 && templateType != null)
+            {
+                type = templateType;
+            }
+            declarations[i] = type + " " + prefix + i;
+        }
+        return declarations;
+    }
+
+    /**
+     * Write the rows of an "Operation" table that start with the given
+     * heading, for the given declarations
+     * 
+     * @param writer The writer
+     * @param heading The heading, like "Input value sockets"
+     * @param declarations The declarations
+     * @throws IOException If an IO error occurs
+     */
+    private void writeRows(Writer writer, String heading,
+        String[] declarations) throws IOException
+    {
+        int n = declarations.length;
+        if (n == 0)
+        {
+            return;
+        }
+        writer.write("\n");
+        for (int i = 0; i < n; i++)
+        {
+            if (i == 0 && rowSpans && n > 1)
+            {
+                writer.write("." + n + "+| " + heading + "\n");
+            }
+            else if (i == 0 || !rowSpans)
+            {
+                writer.write("| " + heading + "\n");
+            }
+            writer.write("| `" + declarations[i] + "`\n");
+            writer.write("| " + sentences(1) + "\n");
+        }
+    }
+
+    /**
+     * Returns a string that contains the given number of sentences
+     * 
+     * @param n The number of sentences
+     * @return The string
+     */
+    private static String sentences(int n)
+    {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < n; i++)
+        {
+            sb.append(SENTENCE);
+        }
+        return sb.toString().trim();
+    }
+
+    /**
+     * Returns a string that consists of the given character, repeated the
+     * given number of times
+     * 
+     * @param c The character
+     * @param n The number of repetitions
+     * @return The string
+     */
+    private static String repeat(char c, int n)
+    {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < n; i++)
+        {
+            sb.append(c);
+        }
+        return sb.toString();
+    }
+}
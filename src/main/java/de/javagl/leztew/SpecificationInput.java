@@ -0,0 +1,222 @@
+/*
+ * www.javagl.de - leztew
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.leztew;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Methods for reading specification files.
+ *
+ * The files are memory-mapped, so that their contents are not copied into
+ * the heap. They are decoded as UTF-8 in chunks. Malformed input is
+ * replaced with the Unicode replacement character.
+ *
+ * Only the {@link SpecificationScanner} reads the data through the chunked
+ * {@link #newReader(ByteBuffer) reader}, without holding the decoded text.
+ * Asciidoctor only accepts the content as a string (or a file), so the
+ * Asciidoctor path still needs the whole text in memory: See
+ * {@link #decode(ByteBuffer)}.
+ */
+class SpecificationInput
+{
+    /**
+     * The number of characters that are decoded at once
+     */
+    private static final int CHUNK_SIZE = 65536;
+
+    /**
+     * Memory-map the given file
+     *
+     * @param file The file
+     * @return The read-only buffer with the file contents
+     * @throws IOException If an IO error occurs, or the file is larger than
+     *         2 GB
+     */
+    static ByteBuffer map(File file) throws IOException
+    {
+        try (FileChannel channel =
+            FileChannel.open(file.toPath(), StandardOpenOption.READ))
+        {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE)
+            {
+                throw new IOException("The file " + file
+                    + " is too large to be mapped: " + size + " bytes");
+            }
+            return channel.map(MapMode.READ_ONLY, 0, size);
+        }
+    }
+
+    /**
+     * Creates a reader that decodes the given UTF-8 data in chunks. The
+     * given buffer will not be modified.
+     *
+     * @param data The data, between the position and the limit of the
+     *        buffer
+     * @return The reader
+     */
+    static Reader newReader(ByteBuffer data)
+    {
+        return new DecodingReader(data.duplicate());
+    }
+
+    /**
+     * Decode the given UTF-8 data into a string. The given buffer will not
+     * be modified.
+     *
+     * This is used for passing the content to Asciidoctor. The data is
+     * decoded directly into the resulting string, without an intermediate
+     * character buffer. If the given buffer is not backed by an array (for
+     * example, because it is memory-mapped), then its bytes are copied
+     * into a temporary array first, which becomes garbage when this method
+     * returns. (Asciidoctor then creates its own copy of the string for the
+     * Ruby runtime.)
+     *
+     * @param data The data, between the position and the limit of the
+     *        buffer
+     * @return The string
+     */
+    static String decode(ByteBuffer data)
+    {
+        // The String constructor replaces malformed input with the Unicode
+        // replacement character, like the decoder of the reader
+        if (data.hasArray())
+        {
+            return new String(data.array(),
+                data.arrayOffset() + data.position(), data.remaining(),
+                StandardCharsets.UTF_8);
+        }
+        byte[] bytes = new byte[data.remaining()];
+        data.duplicate().get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * A reader that decodes UTF-8 data from a byte buffer in chunks
+     */
+    private static class DecodingReader extends Reader
+    {
+        /**
+         * The input data
+         */
+        private final ByteBuffer input;
+
+        /**
+         * The decoder
+         */
+        private final CharsetDecoder decoder;
+
+        /**
+         * The most recently decoded chunk, between its position and limit
+         */
+        private final CharBuffer chunk;
+
+        /**
+         * Whether all input was decoded and the decoder was flushed
+         */
+        private boolean flushed;
+
+        /**
+         * Creates a new instance
+         *
+         * @param input The input data
+         */
+        DecodingReader(ByteBuffer input)
+        {
+            this.input = input;
+            this.decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            this.chunk = CharBuffer.allocate(CHUNK_SIZE);
+            this.chunk.flip();
+        }
+
+        @Override
+        public int read(char[] cbuf, int off, int len)
+        {
+            if (len == 0)
+            {
+                return 0;
+            }
+            if (!chunk.hasRemaining() && !fill())
+            {
+                return -1;
+            }
+            int n = Math.min(len, chunk.remaining());
+            chunk.get(cbuf, off, n);
+            return n;
+        }
+
+        /**
+         * Decode the next chunk
+         *
+         * @return Whether any characters have been decoded
+         */
+        private boolean fill()
+        {
+            chunk.clear();
+            while (chunk.position() == 0 && !flushed)
+            {
+                if (input.hasRemaining())
+                {
+                    decoder.decode(input, chunk, true);
+                }
+                if (!input.hasRemaining())
+                {
+                    flushed = decoder.flush(chunk).isUnderflow();
+                }
+            }
+            chunk.flip();
+            return chunk.hasRemaining();
+        }
+
+        @Override
+        public void close()
+        {
+            // Nothing to do here: The buffer is released by the garbage
+            // collector
+        }
+    }
+
+    /**
+     * Private constructor to prevent instantiation
+     */
+    private SpecificationInput()
+    {
+        // Private constructor to prevent instantiation
+    }
+}
@@ -0,0 +1,590 @@
+/*
+ * www.javagl.de - leztew
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.leztew;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Methods for removing the parts of a specification source that are not
+ * required for extracting the nodes.
+ *
+ * Only the "Nodes" section of the "Functional Specification" section is
+ * kept completely. The titles of the preceding top-level sections and of
+ * the "Functional Specification" section itself are kept, so that the
+ * section structure and numbering remain the same. The document header is
+ * kept. All other content is removed, except for attribute entries and
+ * conditional preprocessor directives, which may affect the part that is
+ * kept.
+ *
+ * The source is processed line by line. The block structure is tracked
+ * only as far as it is necessary for identifying the section titles: Lines
+ * in delimited blocks and paragraphs are never section titles. If the
+ * source contains elements that would make the section structure
+ * ambiguous for this approach (setext section titles, the
+ * <code>leveloffset</code> attribute, or level-0 sections), then it is
+ * returned unmodified.
+ */
+class SpecificationPruner
+{
+    /**
+     * The logger used in this class
+     */
+    private static final Logger logger =
+        Logger.getLogger(SpecificationPruner.class.getName());
+
+    /**
+     * The pattern for a block attribute list that declares a discrete
+     * heading
+     */
+    private static final Pattern DISCRETE_STYLE_PATTERN =
+        Pattern.compile("^\\[(?:discrete|float)(?:[#.%,].*)?\\]$");
+
+    /**
+     * The regions of the source
+     */
+    private enum Region
+    {
+        /**
+         * The document header, which is kept
+         */
+        HEADER,
+
+        /**
+         * A region where only the section titles are kept
+         */
+        TITLES,
+
+        /**
+         * The "Nodes" section, which is kept
+         */
+        NODES,
+
+        /**
+         * A region where no section titles are kept
+         */
+        REMAINDER
+    }
+
+    /**
+     * The source lines
+     */
+    private final String[] lines;
+
+    /**
+     * The lines that are kept
+     */
+    private final List<String> output;
+
+    /**
+     * The block metadata lines that precede the next block, which are only
+     * kept if the next block is a section title that is kept
+     */
+    private final List<String> pendingMetadata;
+
+    /**
+     * For each entry in the {@link #pendingMetadata}, whether the line is
+     * an attribute entry or a preprocessor directive that has to be kept
+     */
+    private final List<Boolean> pendingRequired;
+
+    /**
+     * The terminators of the delimited blocks that are currently open
+     */
+    private final Deque<String> blockTerminators;
+
+    /**
+     * The current {@link Region}
+     */
+    private Region region;
+
+    /**
+     * Whether the next line starts a new block (and not continues a
+     * paragraph)
+     */
+    private boolean atBlockStart;
+
+    /**
+     * Whether a section title was encountered
+     */
+    private boolean anySectionTitle;
+
+    /**
+     * The number of top-level sections that have been started
+     */
+    private int topLevelSectionCount;
+
+    /**
+     * The level of the current top-level section
+     */
+    private int topLevel;
+
+    /**
+     * The number of child sections of the "Functional Specification"
+     * section that have been started
+     */
+    private int childSectionCount;
+
+    /**
+     * The level of the current child section of the "Functional
+     * Specification" section
+     */
+    private int childLevel;
+
+    /**
+     * Remove all parts of the given specification source that are not
+     * required for extracting the nodes, as described in the class
+     * documentation.
+     *
+     * @param content The specification source
+     * @return The pruned source, or the given source if it could not be
+     *         pruned
+     */
+    static String prune(String content)
+    {
+        String[] lines = content.split("\n", -1);
+        SpecificationPruner pruner = new SpecificationPruner(lines);
+        if (!pruner.prune())
+        {
+            return content;
+        }
+        List<String> output = pruner.output;
+        if (logger.isLoggable(Level.FINE))
+        {
+            logger.fine("Pruned the specification from " + lines.length
+                + " to " + output.size() + " lines");
+        }
+        return String.join("\n", output);
+    }
+
+    /**
+     * Creates a new instance
+     *
+     * @param lines The source lines
+     */
+    private SpecificationPruner(String[] lines)
+    {
+        this.lines = lines;
+        this.output = new ArrayList<String>();
+        this.pendingMetadata = new ArrayList<String>();
+        this.pendingRequired = new ArrayList<Boolean>();
+        this.blockTerminators = new ArrayDeque<String>();
+        this.region = Region.HEADER;
+        this.atBlockStart = true;
+        this.topLevel = -1;
+        this.childLevel = -1;
+    }
+
+    /**
+     * Process all lines, and collect the lines that are kept in the
+     * {@link #output}
+     *
+     * @return Whether the source could be pruned
+     */
+    private boolean prune()
+    {
+        int i = 0;
+        while (i < lines.length)
+        {
+            String rawLine = lines[i];
+            String line = PsvTableParser.rstrip(rawLine);
+            if (i == 0 && line.startsWith("\uFEFF"))
+            {
+                line = line.substring(1);
+            }
+
+            String terminator = blockTerminators.peek();
+            if (terminator != null)
+            {
+                if (line.equals(terminator))
+                {
+                    blockTerminators.pop();
+                    keepIfInKeptRegion(rawLine);
+                    atBlockStart = true;
+                    i++;
+                    continue;
+                }
+                if (!isCompoundBlock(terminator))
+                {
+                    if (keepsAll())
+                    {
+                        output.add(rawLine);
+                    }
+                    else if (!terminator.startsWith("////")
+                        && isConditionalDirective(line))
+                    {
+                        output.add(rawLine);
+                    }
+                    i++;
+                    continue;
+                }
+            }
+            boolean inBlock = terminator != null;
+
+            if (isConditionalDirective(line))
+            {
+                keepMetadata(rawLine, true);
+                i++;
+                continue;
+            }
+            if (line.isEmpty())
+            {
+                if (region == Region.HEADER && anySectionTitle)
+                {
+                    output.add(rawLine);
+                    region = Region.TITLES;
+                }
+                else
+                {
+                    keepIfInKeptRegion(rawLine);
+                }
+                atBlockStart = true;
+                i++;
+                continue;
+            }
+            String blockTerminator =
+                SpecificationScanner.delimitedBlockTerminator(line);
+            if (blockTerminator != null)
+            {
+                discardPendingMetadata();
+                keepIfInKeptRegion(rawLine);
+                blockTerminators.push(blockTerminator);
+                atBlockStart = true;
+                i++;
+                continue;
+            }
+            if (line.startsWith("[") && SpecificationScanner
+                .BLOCK_ATTRIBUTE_LINE_PATTERN.matcher(line).matches())
+            {
+                keepMetadata(rawLine, false);
+                atBlockStart = true;
+                i++;
+                continue;
+            }
+            if (!atBlockStart)
+            {
+                keepIfInKeptRegion(rawLine);
+                i++;
+                continue;
+            }
+            if (line.startsWith(":"))
+            {
+                Matcher m =
+                    SpecificationScanner.ATTRIBUTE_ENTRY_PATTERN.matcher(line);
+                if (m.matches())
+                {
+                    if (m.group(1).toLowerCase(Locale.ROOT)
+                        .contains("leveloffset"))
+                    {
+                        logger.fine("Not pruning: The leveloffset is used");
+                        return false;
+                    }
+                    i = keepAttributeEntry(i);
+                    continue;
+                }
+            }
+            if (line.startsWith("//") && !line.startsWith("///")
+                || line.startsWith(".") && SpecificationScanner
+                    .BLOCK_TITLE_PATTERN.matcher(line).matches())
+            {
+                keepMetadata(rawLine, false);
+                i++;
+                continue;
+            }
+            if (!inBlock && (line.startsWith("=") || line.startsWith("#")))
+            {
+                Matcher m = SpecificationScanner.ATX_SECTION_TITLE_PATTERN
+                    .matcher(line);
+                if (m.matches() && !isDiscrete())
+                {
+                    if (!processSectionTitle(rawLine, m.group(1).length() - 1))
+                    {
+                        return false;
+                    }
+                    atBlockStart = true;
+                    i++;
+                    continue;
+                }
+            }
+            if (!inBlock && i + 1 < lines.length && SpecificationScanner
+                .setextSectionLevel(line,
+                    PsvTableParser.rstrip(lines[i + 1])) != null)
+            {
+                logger.fine("Not pruning: Found a setext section title");
+                return false;
+            }
+            if (region == Region.HEADER)
+            {
+                // There is no document title, so the header ends here
+                region = Region.TITLES;
+            }
+            discardPendingMetadata();
+            keepIfInKeptRegion(rawLine);
+            atBlockStart = line.equals("+");
+            i++;
+        }
+        if (topLevelSectionCount <= SpecificationScanner
+            .FUNCTIONAL_SPECIFICATION_SECTION_NUMBER
+            || childSectionCount <= SpecificationScanner.NODES_SECTION_NUMBER)
+        {
+            logger.fine("Not pruning: The Nodes section was not found");
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Process the section title in the given line, with the given level
+     *
+     * @param rawLine The line
+     * @param level The level
+     * @return Whether the title could be processed, or <code>false</code>
+     *         if it was an unexpected level-0 section
+     */
+    private boolean processSectionTitle(String rawLine, int level)
+    {
+        if (level == 0)
+        {
+            if (region != Region.HEADER || anySectionTitle)
+            {
+                logger.fine("Not pruning: Found a level-0 section");
+                return false;
+            }
+            // The document title
+            anySectionTitle = true;
+            keepPendingMetadata();
+            output.add(rawLine);
+            return true;
+        }
+        anySectionTitle = true;
+        if (region == Region.HEADER)
+        {
+            region = Region.TITLES;
+        }
+        int functionalSpecificationSectionNumber =
+            SpecificationScanner.FUNCTIONAL_SPECIFICATION_SECTION_NUMBER;
+        if (topLevel == -1 || level <= topLevel)
+        {
+            topLevel = level;
+            childLevel = -1;
+            topLevelSectionCount++;
+            if (topLevelSectionCount - 1
+                <= functionalSpecificationSectionNumber)
+            {
+                region = Region.TITLES;
+                keepPendingMetadata();
+                output.add(rawLine);
+            }
+            else
+            {
+                region = Region.REMAINDER;
+                discardPendingMetadata();
+            }
+            return true;
+        }
+        if (topLevelSectionCount - 1 != functionalSpecificationSectionNumber)
+        {
+            // A sub-section of another top-level section
+            discardPendingMetadata();
+            return true;
+        }
+        if (childLevel == -1 || level <= childLevel)
+        {
+            childLevel = level;
+            childSectionCount++;
+            if (childSectionCount - 1
+                == SpecificationScanner.NODES_SECTION_NUMBER)
+            {
+                keepPendingMetadata();
+                output.add(rawLine);
+                region = Region.NODES;
+            }
+            else
+            {
+                region = Region.REMAINDER;
+                discardPendingMetadata();
+            }
+            return true;
+        }
+        keepIfInKeptRegion(rawLine);
+        return true;
+    }
+
+    /**
+     * Keep the attribute entry that starts at the given line, including
+     * the lines that continue its value
+     *
+     * @param start The index of the first line of the entry
+     * @return The index of the line after the entry
+     */
+    private int keepAttributeEntry(int start)
+    {
+        int i = start;
+        String line = PsvTableParser.rstrip(lines[i]);
+        keepMetadata(lines[i], true);
+        i++;
+        while ((line.endsWith(" \\") || line.endsWith(" +"))
+            && i < lines.length)
+        {
+            line = PsvTableParser.rstrip(lines[i]);
+            if (line.isEmpty())
+            {
+                break;
+            }
+            keepMetadata(lines[i], true);
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Returns whether the pending block metadata declares a discrete
+     * heading
+     *
+     * @return Whether the next section title is a discrete heading
+     */
+    private boolean isDiscrete()
+    {
+        for (String line : pendingMetadata)
+        {
+            if (DISCRETE_STYLE_PATTERN.matcher(line.trim()).matches())
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns whether all lines are kept in the current region
+     *
+     * @return Whether all lines are kept
+     */
+    private boolean keepsAll()
+    {
+        return region == Region.HEADER || region == Region.NODES;
+    }
+
+    /**
+     * Keep the given line if all lines are kept in the current region
+     *
+     * @param rawLine The line
+     */
+    private void keepIfInKeptRegion(String rawLine)
+    {
+        if (keepsAll())
+        {
+            output.add(rawLine);
+        }
+    }
+
+    /**
+     * Keep the given block metadata line. If all lines are kept in the
+     * current region, then it is kept immediately. Otherwise, it is kept
+     * until it is known whether the next block is a section title that is
+     * kept.
+     *
+     * @param rawLine The line
+     * @param required Whether the line has to be kept in any case
+     */
+    private void keepMetadata(String rawLine, boolean required)
+    {
+        if (keepsAll())
+        {
+            output.add(rawLine);
+        }
+        else
+        {
+            pendingMetadata.add(rawLine);
+            pendingRequired.add(required);
+        }
+    }
+
+    /**
+     * Keep all pending block metadata lines
+     */
+    private void keepPendingMetadata()
+    {
+        output.addAll(pendingMetadata);
+        pendingMetadata.clear();
+        pendingRequired.clear();
+    }
+
+    /**
+     * Discard the pending block metadata lines, except for the ones that
+     * have to be kept in any case
+     */
+    private void discardPendingMetadata()
+    {
+        for (int i = 0; i < pendingMetadata.size(); i++)
+        {
+            if (pendingRequired.get(i))
+            {
+                output.add(pendingMetadata.get(i));
+            }
+        }
+        pendingMetadata.clear();
+        pendingRequired.clear();
+    }
+
+    /**
+     * Returns whether the given line is a conditional preprocessor directive
+     *
+     * @param line The line
+     * @return Whether the line is a conditional preprocessor directive
+     */
+    private static boolean isConditionalDirective(String line)
+    {
+        return line.endsWith("]") && line.contains("::")
+            && SpecificationScanner.CONDITIONAL_DIRECTIVE_PATTERN.matcher(line)
+                .matches();
+    }
+
+    /**
+     * Returns whether the delimited block with the given terminator is a
+     * compound block, whose contents are parsed as blocks
+     *
+     * @param terminator The terminator
+     * @return Whether the block is a compound block
+     */
+    private static boolean isCompoundBlock(String terminator)
+    {
+        if (terminator.equals("--"))
+        {
+            return true;
+        }
+        char c = terminator.charAt(0);
+        return c == '=' || c == '*' || c == '_';
+    }
+}
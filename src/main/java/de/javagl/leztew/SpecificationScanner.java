@@ -0,0 +1,2458 @@
+/*
+ * www.javagl.de - leztew
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.leztew;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A scanner that extracts the {@link Node} objects from the source of a
+ * specification directly, without Asciidoctor.
+ *
+ * The scanner only recognizes the block structure of the document that is
+ * required for finding the node definition tables: The document header,
+ * attribute entries, block attribute lines, conditional preprocessor
+ * directives, section titles (including discrete headings, which are not
+ * sections), delimited blocks, paragraphs and lists. The rules for these
+ * elements follow the parser of Asciidoctor, so that the same sections and
+ * tables are found, and the section titles are substituted in the same
+ * way. The tables are parsed with a {@link PsvTableParser}.
+ *
+ * The result is the same {@link Category} tree that is created by the
+ * {@link LeztewConverter}. The following elements are not supported:
+ * <ul>
+ *   <li>
+ *     Inline formatting and macros in section titles. These are left as
+ *     they are (the {@link LeztewConverter} does not receive proper
+ *     converted text for them either).
+ *   </li>
+ *   <li>
+ *     Include directives, which are replaced by a link, as in the default
+ *     (secure) mode of Asciidoctor
+ *   </li>
+ *   <li>
+ *     Tables in CSV or DSV format, which are ignored with a warning
+ *   </li>
+ *   <li>
+ *     The <code>ifeval</code> directive, which causes an
+ *     {@link UnsupportedSyntaxException}. The {@link LeztewMain} falls back
+ *     to Asciidoctor for such a specification.
+ *   </li>
+ *   <li>
+ *     Attribute entries inside of delimited blocks, and the attributes
+ *     that are derived from the author and revision lines of the header
+ *   </li>
+ * </ul>
+ *
+ * The scanner is only intended for the subset of AsciiDoc that is used in
+ * the specification. Its results are compared to the results of
+ * Asciidoctor with <code>--verify</code> in the {@link LeztewMain}.
+ *
+ * Instances of this class are not thread-safe.
+ */
+public class SpecificationScanner
+{
+    /**
+     * The logger used in this class
+     */
+    private static final Logger logger =
+        Logger.getLogger(SpecificationScanner.class.getName());
+
+    /**
+     * The (0-based) section number of the "Functional Specification"
+     */
+    static final int FUNCTIONAL_SPECIFICATION_SECTION_NUMBER = 3;
+
+    /**
+     * The (0-based) section number of the "Nodes" section within the
+     * "Functional Specification" section.
+     */
+    static final int NODES_SECTION_NUMBER = 0;
+
+    /**
+     * The key under which the style (first positional attribute) is stored
+     * in the block attributes
+     */
+    private static final String STYLE = "1";
+
+    /**
+     * The list continuation line
+     */
+    private static final String LIST_CONTINUATION = "+";
+
+    /**
+     * The pattern for an atx section title, like <code>== Title</code>
+     */
+    static final Pattern ATX_SECTION_TITLE_PATTERN = Pattern.compile(
+        "^(=={0,5}|#\\#{0,5})[ \\t]+(.+?)(?:[ \\t]+\\1)?$",
+        Pattern.UNICODE_CHARACTER_CLASS);
+
+    /**
+     * The pattern for the first line of a setext section title
+     */
+    private static final Pattern SETEXT_SECTION_TITLE_PATTERN =
+        Pattern.compile("^((?!\\.).*?\\p{Alnum}.*)$",
+            Pattern.UNICODE_CHARACTER_CLASS);
+
+    /**
+     * The pattern for an anchor at the end of a section title
+     */
+    private static final Pattern INLINE_SECTION_ANCHOR_PATTERN =
+        Pattern.compile(" (\\\\)?\\[\\[([\\p{Alpha}_:][\\w\\-:.]*)"
+            + "(?:, *(.+))?\\]\\]$", Pattern.UNICODE_CHARACTER_CLASS);
+
+    /**
+     * The pattern for an attribute entry, like <code>:name: value</code>
+     */
+    static final Pattern ATTRIBUTE_ENTRY_PATTERN = Pattern.compile(
+        "^:(!?\\w[^:]*):(?:[ \\t]+(.*))?$", Pattern.UNICODE_CHARACTER_CLASS);
+
+    /**
+     * The pattern for an attribute reference, like <code>{name}</code>
+     */
+    private static final Pattern ATTRIBUTE_REFERENCE_PATTERN =
+        Pattern.compile("(\\\\)?\\{(\\w[\\w-]*|(set|counter2?):.+?)(\\\\)?\\}",
+            Pattern.UNICODE_CHARACTER_CLASS);
+
+    /**
+     * The pattern for characters that are not valid in attribute names
+     */
+    private static final Pattern INVALID_ATTRIBUTE_NAME_CHARS_PATTERN =
+        Pattern.compile("[^\\w-]", Pattern.UNICODE_CHARACTER_CLASS);
+
+    /**
+     * The pattern for a block attribute list, like <code>[cols="1,2"]</code>
+     */
+    private static final Pattern BLOCK_ATTRIBUTE_LIST_PATTERN =
+        Pattern.compile("^\\[(|[\\w.#%{,\"'].*)\\]$",
+            Pattern.UNICODE_CHARACTER_CLASS);
+
+    /**
+     * The pattern for a line that is a block attribute list or a block
+     * anchor, which ends a paragraph
+     */
+    static final Pattern BLOCK_ATTRIBUTE_LINE_PATTERN =
+        Pattern.compile("^\\[(?:|[\\w.#%{,\"'].*|\\[(?:|[\\p{Alpha}_:]"
+            + "[\\w\\-:.]*(?:, *.+)?)\\])\\]$",
+            Pattern.UNICODE_CHARACTER_CLASS);
+
+    /**
+     * The pattern for a block anchor, like <code>[[id]]</code>
+     */
+    private static final Pattern BLOCK_ANCHOR_PATTERN =
+        Pattern.compile("^\\[\\[(?:|([\\p{Alpha}_:][\\w\\-:.]*)"
+            + "(?:, *(.+))?)\\]\\]$", Pattern.UNICODE_CHARACTER_CLASS);
+
+    /**
+     * The pattern for a block title, like <code>.Title</code>
+     */
+    static final Pattern BLOCK_TITLE_PATTERN =
+        Pattern.compile("^\\.(\\.?[^ \\t.].*)$");
+
+    /**
+     * The pattern for a conditional preprocessor directive
+     */
+    static final Pattern CONDITIONAL_DIRECTIVE_PATTERN =
+        Pattern.compile("^(\\\\)?(ifdef|ifndef|ifeval|endif)::"
+            + "(\\S*?(?:([,+])\\S*?)?)\\[(.+)?\\]$");
+
+    /**
+     * The pattern for an include directive
+     */
+    private static final Pattern INCLUDE_DIRECTIVE_PATTERN =
+        Pattern.compile("^(\\\\)?include::([^\\[][^\\[]*)\\[(.+)?\\]$");
+
+    /**
+     * The pattern for a line that is a thematic break or a page break
+     */
+    private static final Pattern LAYOUT_BREAK_PATTERN =
+        Pattern.compile("^(?:'{3,}|<{3,}|([-*_])( *)\\1\\2\\1)$");
+
+    /**
+     * The pattern for an indented thematic break
+     */
+    private static final Pattern MARKDOWN_THEMATIC_BREAK_PATTERN =
+        Pattern.compile("^ {0,3}([-*_])( *)\\1\\2\\1$");
+
+    /**
+     * The pattern for a block media macro, like <code>image::x.png[]</code>
+     */
+    private static final Pattern BLOCK_MEDIA_MACRO_PATTERN =
+        Pattern.compile("^(image|video|audio)::(\\S|\\S.*?\\S)\\[(.+)?\\]$");
+
+    /**
+     * The pattern for a table of contents macro
+     */
+    private static final Pattern BLOCK_TOC_MACRO_PATTERN =
+        Pattern.compile("^toc::\\[(.+)?\\]$");
+
+    /**
+     * The pattern for the first line of any list item
+     */
+    private static final Pattern ANY_LIST_PATTERN = Pattern.compile(
+        "^(?:[ \\t]*(?:-|\\*\\**|\\.\\.*|\\u2022|\\d+\\.|[a-zA-Z]\\.|"
+            + "[IVXivx]+\\))[ \\t]|(?!//[^/])[ \\t]*[^ \\t].*?(?::::{0,2}|;;)"
+            + "(?:$|[ \\t])|<(?:\\d+|\\.)>[ \\t])",
+        Pattern.UNICODE_CHARACTER_CLASS);
+
+    /**
+     * The pattern for a line of a literal paragraph
+     */
+    private static final Pattern LITERAL_PARAGRAPH_PATTERN =
+        Pattern.compile("^[ \\t]+.*$");
+
+    /**
+     * The pattern for a style that defines the level of a section
+     */
+    private static final Pattern SECTION_LEVEL_STYLE_PATTERN =
+        Pattern.compile("^sect\\d$");
+
+    /**
+     * The levels of setext section titles, for the underline characters
+     */
+    private static final Map<Character, Integer> SETEXT_SECTION_LEVELS =
+        createSetextSectionLevels();
+
+    /**
+     * The attributes that are always defined
+     */
+    private static final Map<String, String> INTRINSIC_ATTRIBUTES =
+        createIntrinsicAttributes();
+
+    /**
+     * The styles of paragraphs that only end at a blank line
+     */
+    private static final List<String> VERBATIM_STYLES =
+        Arrays.asList("literal", "listing", "source", "verse");
+
+    /**
+     * The patterns of the replacements that are applied to section titles
+     */
+    private static final Pattern[] REPLACEMENT_PATTERNS =
+    {
+        Pattern.compile("\\\\?\\(C\\)"),
+        Pattern.compile("\\\\?\\(R\\)"),
+        Pattern.compile("\\\\?\\(TM\\)"),
+        Pattern.compile("(?: |\\n|^|\\\\)--(?: |\\n|$)", Pattern.MULTILINE),
+        Pattern.compile("(\\w)\\\\?--(?=\\w)",
+            Pattern.UNICODE_CHARACTER_CLASS),
+        Pattern.compile("\\\\?\\.\\.\\."),
+        Pattern.compile("\\\\?`'"),
+        Pattern.compile("(\\p{Alnum})\\\\?'(?=\\p{Alpha})",
+            Pattern.UNICODE_CHARACTER_CLASS),
+        Pattern.compile("\\\\?-&gt;"),
+        Pattern.compile("\\\\?=&gt;"),
+        Pattern.compile("\\\\?&lt;-"),
+        Pattern.compile("\\\\?&lt;="),
+        Pattern.compile("\\\\?(&)amp;((?:[a-zA-Z][a-zA-Z]+\\d{0,2}|"
+            + "#\\d\\d\\d{0,4}|#x[\\da-fA-F][\\da-fA-F][\\da-fA-F]{0,3});)")
+    };
+
+    /**
+     * The replacement strings for the {@link #REPLACEMENT_PATTERNS}
+     */
+    private static final String[] REPLACEMENTS =
+    {
+        "&#169;", "&#174;", "&#8482;", "&#8201;&#8212;&#8201;",
+        "&#8212;&#8203;", "&#8230;&#8203;", "&#8217;", "&#8217;",
+        "&#8594;", "&#8658;", "&#8592;", "&#8656;", ""
+    };
+
+    /**
+     * Indicates that a replacement replaces the whole match
+     */
+    private static final int RESTORE_NONE = 0;
+
+    /**
+     * Indicates that a replacement keeps the first group before the
+     * replacement
+     */
+    private static final int RESTORE_LEADING = 1;
+
+    /**
+     * Indicates that a replacement keeps the first and second group around
+     * the replacement
+     */
+    private static final int RESTORE_BOUNDING = 2;
+
+    /**
+     * The restore modes for the {@link #REPLACEMENT_PATTERNS}
+     */
+    private static final int[] REPLACEMENT_RESTORES =
+    {
+        RESTORE_NONE, RESTORE_NONE, RESTORE_NONE, RESTORE_NONE,
+        RESTORE_LEADING, RESTORE_NONE, RESTORE_NONE, RESTORE_LEADING,
+        RESTORE_NONE, RESTORE_NONE, RESTORE_NONE, RESTORE_NONE,
+        RESTORE_BOUNDING
+    };
+
+    /**
+     * A section of the scanned document
+     */
+    private static class ScannedSection
+    {
+        /**
+         * The level of the section
+         */
+        final int level;
+
+        /**
+         * The substituted title of the section
+         */
+        final String title;
+
+        /**
+         * Whether this is the document itself
+         */
+        final boolean document;
+
+        /**
+         * Whether this is the "Functional Specification" section
+         */
+        boolean functionalSpecification;
+
+        /**
+         * Whether this is the "Nodes" section or one of its descendants.
+         * Only for these sections, the child sections and tables are
+         * retained (in addition to the sections that lead to them).
+         */
+        boolean nodes;
+
+        /**
+         * The child sections
+         */
+        final List<ScannedSection> children;
+
+        /**
+         * The tables that are direct children of this section
+         */
+        final List<ScannedTable> tables;
+
+        /**
+         * Creates a new instance
+         *
+         * @param level The level
+         * @param title The title
+         * @param document Whether this is the document itself
+         */
+        ScannedSection(int level, String title, boolean document)
+        {
+            this.level = level;
+            this.title = title;
+            this.document = document;
+            this.children = new ArrayList<ScannedSection>();
+            this.tables = new ArrayList<ScannedTable>();
+        }
+    }
+
+    /**
+     * The source of a table of the scanned document
+     */
+    private static class ScannedTable
+    {
+        /**
+         * The lines between the table delimiters
+         */
+        final List<String> lines;
+
+        /**
+         * The block attributes of the table
+         */
+        final Map<String, String> attributes;
+
+        /**
+         * Creates a new instance
+         *
+         * @param lines The lines
+         * @param attributes The attributes
+         */
+        ScannedTable(List<String> lines, Map<String, String> attributes)
+        {
+            this.lines = lines;
+            this.attributes = attributes;
+        }
+    }
+
+    /**
+     * The lines of a document source that are read from a reader.
+     *
+     * As in Asciidoctor, the lines are split at <code>\n</code>, trailing
+     * whitespace is removed from each line, a byte order mark at the start
+     * is removed, and blank lines at the end of the source are omitted.
+     */
+    private static class SourceLines
+    {
+        /**
+         * The reader
+         */
+        private final Reader reader;
+
+        /**
+         * The buffer for the characters that are read
+         */
+        private final char[] buffer;
+
+        /**
+         * The number of valid characters in the buffer
+         */
+        private int length;
+
+        /**
+         * The index of the next character in the buffer
+         */
+        private int index;
+
+        /**
+         * The builder for the current line
+         */
+        private final StringBuilder line;
+
+        /**
+         * Whether no line was read yet
+         */
+        private boolean first;
+
+        /**
+         * The number of blank lines that are returned before the
+         * {@link #nextLine}
+         */
+        private int blankLines;
+
+        /**
+         * The non-blank line that follows the current blank lines
+         */
+        private String nextLine;
+
+        /**
+         * Creates a new instance
+         *
+         * @param reader The reader
+         */
+        SourceLines(Reader reader)
+        {
+            this.reader = reader;
+            this.buffer = new char[8192];
+            this.line = new StringBuilder();
+            this.first = true;
+        }
+
+        /**
+         * Returns the next line
+         *
+         * @return The line, or <code>null</code> if the end of the source
+         *         was reached
+         * @throws UncheckedIOException If an IO error occurs
+         */
+        String next()
+        {
+            if (blankLines > 0)
+            {
+                blankLines--;
+                return "";
+            }
+            if (nextLine != null)
+            {
+                String result = nextLine;
+                nextLine = null;
+                return result;
+            }
+            String result = read();
+            if (result == null || !result.isEmpty())
+            {
+                return result;
+            }
+            // Blank lines are only returned if they are followed by a
+            // non-blank line
+            int blanks = 1;
+            while (true)
+            {
+                String following = read();
+                if (following == null)
+                {
+                    return null;
+                }
+                if (!following.isEmpty())
+                {
+                    nextLine = following;
+                    blankLines = blanks - 1;
+                    return result;
+                }
+                blanks++;
+            }
+        }
+
+        /**
+         * Read the next line from the reader
+         *
+         * @return The line, or <code>null</code> if the end of the source
+         *         was reached
+         * @throws UncheckedIOException If an IO error occurs
+         */
+        private String read()
+        {
+            line.setLength(0);
+            boolean any = false;
+            while (true)
+            {
+                if (index == length)
+                {
+                    index = 0;
+                    length = fill();
+                    if (length == -1)
+                    {
+                        length = 0;
+                        if (!any)
+                        {
+                            return null;
+                        }
+                        break;
+                    }
+                }
+                any = true;
+                int start = index;
+                while (index < length && buffer[index] != '\n')
+                {
+                    index++;
+                }
+                line.append(buffer, start, index - start);
+                if (index < length)
+                {
+                    index++;
+                    break;
+                }
+            }
+            String result = PsvTableParser.rstrip(line.toString());
+            if (first)
+            {
+                first = false;
+                if (result.startsWith("\uFEFF"))
+                {
+                    result = result.substring(1);
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Fill the buffer from the reader
+         *
+         * @return The number of characters, or -1 if the end of the source
+         *         was reached
+         * @throws UncheckedIOException If an IO error occurs
+         */
+        private int fill()
+        {
+            try
+            {
+                return reader.read(buffer, 0, buffer.length);
+            }
+            catch (IOException e)
+            {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * An entry of the stack of conditional preprocessor directives
+     */
+    private static class Conditional
+    {
+        /**
+         * The target of the directive
+         */
+        final String target;
+
+        /**
+         * Whether lines are skipped inside of the directive
+         */
+        final boolean skipping;
+
+        /**
+         * Creates a new instance
+         *
+         * @param target The target
+         * @param skipping Whether lines are skipped
+         */
+        Conditional(String target, boolean skipping)
+        {
+            this.target = target;
+            this.skipping = skipping;
+        }
+    }
+
+    /**
+     * The source lines of the document
+     */
+    private SourceLines sourceLines;
+
+    /**
+     * The source line that will be preprocessed next, or <code>null</code>
+     * if it was not read yet
+     */
+    private String rawLine;
+
+    /**
+     * The preprocessed lines that have been peeked, but not consumed yet
+     */
+    private final List<String> lookahead;
+
+    /**
+     * The stack of open conditional preprocessor directives
+     */
+    private final Deque<Conditional> conditionals;
+
+    /**
+     * Whether lines are currently skipped due to a conditional
+     * preprocessor directive
+     */
+    private boolean skipping;
+
+    /**
+     * The document attributes
+     */
+    private Map<String, String> attributes;
+
+    /**
+     * The document attributes at the end of the header
+     */
+    private Map<String, String> headerAttributes;
+
+    /**
+     * Default constructor
+     */
+    public SpecificationScanner()
+    {
+        this.lookahead = new ArrayList<String>();
+        this.conditionals = new ArrayDeque<Conditional>();
+    }
+
+    /**
+     * Scan the given specification source, and return the root
+     * {@link Category} of the nodes
+     *
+     * @param content The specification source
+     * @return The {@link Category}
+     * @throws UnsupportedSyntaxException If the source contains an
+     *         <code>ifeval</code> directive
+     * @throws IndexOutOfBoundsException If the document does not contain
+     *         the expected sections
+     */
+    public Category scan(String content)
+    {
+        CategoryBuilder categoryBuilder = new CategoryBuilder();
+        scan(content, categoryBuilder);
+        return categoryBuilder.getRoot();
+    }
+
+    /**
+     * Scan the specification source from the given reader, and return the
+     * root {@link Category} of the nodes. The reader is not closed.
+     *
+     * @param reader The reader
+     * @return The {@link Category}
+     * @throws IOException If an IO error occurs
+     * @throws UnsupportedSyntaxException If the source contains an
+     *         <code>ifeval</code> directive
+     * @throws IndexOutOfBoundsException If the document does not contain
+     *         the expected sections
+     */
+    public Category scan(Reader reader) throws IOException
+    {
+        CategoryBuilder categoryBuilder = new CategoryBuilder();
+        scan(reader, categoryBuilder);
+        return categoryBuilder.getRoot();
+    }
+
+    /**
+     * Scan the given specification source, and pass the {@link Node}
+     * objects to the given {@link NodeSink}
+     *
+     * @param content The specification source
+     * @param nodeSink The {@link NodeSink}
+     * @throws UnsupportedSyntaxException If the source contains an
+     *         <code>ifeval</code> directive
+     * @throws IndexOutOfBoundsException If the document does not contain
+     *         the expected sections
+     */
+    public void scan(String content, NodeSink nodeSink)
+    {
+        try
+        {
+            scan(new StringReader(content), nodeSink);
+        }
+        catch (IOException e)
+        {
+            // A StringReader does not throw IOExceptions
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Scan the specification source from the given reader, and pass the
+     * {@link Node} objects to the given {@link NodeSink}. The reader is not
+     * closed.
+     *
+     * The source is read line by line while it is scanned. Only the tables
+     * of the "Nodes" section are retained until the end of the scan.
+     *
+     * @param reader The reader
+     * @param nodeSink The {@link NodeSink}
+     * @throws IOException If an IO error occurs
+     * @throws UnsupportedSyntaxException If the source contains an
+     *         <code>ifeval</code> directive
+     * @throws IndexOutOfBoundsException If the document does not contain
+     *         the expected sections
+     */
+    public void scan(Reader reader, NodeSink nodeSink) throws IOException
+    {
+        ScannedSection document = null;
+        try
+        {
+            document = parseDocument(reader);
+        }
+        catch (UncheckedIOException e)
+        {
+            throw e.getCause();
+        }
+
+        List<ScannedSection> sections = document.children;
+        ScannedSection functionalSpecificationSection =
+            sections.get(FUNCTIONAL_SPECIFICATION_SECTION_NUMBER);
+        ScannedSection nodesSection =
+            functionalSpecificationSection.children.get(NODES_SECTION_NUMBER);
+        nodeSink.beginCategory("Nodes");
+        for (ScannedSection nodesSubSection : nodesSection.children)
+        {
+            nodeSink.beginCategory(nodesSubSection.title);
+            for (ScannedSection nodesGroupSection : nodesSubSection.children)
+            {
+                nodeSink.beginCategory(nodesGroupSection.title);
+                for (ScannedSection nodesDefinitionsSection :
+                    nodesGroupSection.children)
+                {
+                    emitNodes(nodesDefinitionsSection, nodeSink);
+                }
+                nodeSink.endCategory();
+            }
+            nodeSink.endCategory();
+        }
+        nodeSink.endCategory();
+    }
+
+    /**
+     * Parse the tables of the given node definition section, and pass the
+     * resulting nodes to the given sink
+     *
+     * @param nodesDefinitionsSection The section
+     * @param nodeSink The {@link NodeSink}
+     */
+    private static void emitNodes(ScannedSection nodesDefinitionsSection,
+        NodeSink nodeSink)
+    {
+        if (logger.isLoggable(Level.FINE))
+        {
+            logger.fine("Processing nodes definitions section "
+                + nodesDefinitionsSection.title + " at level "
+                + nodesDefinitionsSection.level);
+        }
+        SectionEvent sectionEvent = ConversionEvents.newSectionEvent();
+        sectionEvent.begin();
+        for (ScannedTable table : nodesDefinitionsSection.tables)
+        {
+            Node node = null;
+            ConversionMetrics.Timer timer =
+                ConversionMetrics.time(ConversionMetrics.Phase.TABLES);
+            try
+            {
+                TableEvent tableEvent = ConversionEvents.newTableEvent();
+                tableEvent.begin();
+                TableSnapshot tableSnapshot =
+                    PsvTableParser.parse(table.lines, table.attributes, "|");
+                if (tableSnapshot == null)
+                {
+                    continue;
+                }
+                node = OperationTables.parse(
+                    tableSnapshot, nodesDefinitionsSection.title);
+                if (tableEvent.shouldCommit())
+                {
+                    tableEvent.setNodeName(
+                        node == null ? null : node.getName());
+                    tableEvent.setRowCount(tableSnapshot.getRowCount());
+                    tableEvent.commit();
+                }
+            }
+            finally
+            {
+                timer.stop();
+            }
+            if (node != null)
+            {
+                nodeSink.node(node);
+            }
+        }
+        if (sectionEvent.shouldCommit())
+        {
+            sectionEvent.setTitle(nodesDefinitionsSection.title);
+            sectionEvent.setLevel(nodesDefinitionsSection.level);
+            sectionEvent.commit();
+        }
+    }
+
+    /**
+     * Parse the section structure of the document from the given reader
+     *
+     * @param reader The reader for the document source
+     * @return The section for the document
+     * @throws UncheckedIOException If an IO error occurs
+     */
+    private ScannedSection parseDocument(Reader reader)
+    {
+        sourceLines = new SourceLines(reader);
+        rawLine = null;
+        lookahead.clear();
+        conditionals.clear();
+        skipping = false;
+        attributes = new HashMap<String, String>();
+        attributes.put("sectids", "");
+        attributes.put("doctype", "article");
+
+        ScannedSection document = new ScannedSection(0, null, true);
+        Map<String, String> blockAttributes = parseDocumentHeader();
+        headerAttributes = new HashMap<String, String>(attributes);
+        while (peekLine() != null)
+        {
+            blockAttributes = parseSection(document, blockAttributes);
+        }
+        return document;
+    }
+
+    /**
+     * Parse the document header, which consists of the document title and
+     * the attribute entries that follow it
+     *
+     * @return The block attributes for the first block of the body
+     */
+    private Map<String, String> parseDocumentHeader()
+    {
+        Map<String, String> blockAttributes =
+            new LinkedHashMap<String, String>();
+        if (skipBlankLines() >= 0)
+        {
+            parseBlockMetadataLines(blockAttributes);
+        }
+        Integer level = nextLineSectionLevel(blockAttributes);
+        if (level == null || level + getLevelOffset() != 0
+            || blockAttributes.containsKey("title"))
+        {
+            return blockAttributes;
+        }
+        String[] titleAndId = parseSectionTitle(true);
+        String doctitle = substituteSpecialCharacters(titleAndId[0]);
+        if (doctitle.indexOf('{') != -1)
+        {
+            doctitle = substituteAttributes(doctitle, attributes, "skip");
+        }
+        attributes.put("doctitle", doctitle);
+        blockAttributes.clear();
+
+        // The author and revision lines, if present, are skipped
+        processAttributeEntries();
+        for (int i = 0; i < 2; i++)
+        {
+            String line = peekLine();
+            if (line != null && !line.isEmpty())
+            {
+                readLine();
+                processAttributeEntries();
+            }
+        }
+        return blockAttributes;
+    }
+
+    /**
+     * Process consecutive attribute entry lines, skipping comment lines
+     */
+    private void processAttributeEntries()
+    {
+        while (true)
+        {
+            skipCommentLines();
+            String line = peekLine();
+            if (line == null || !line.startsWith(":"))
+            {
+                return;
+            }
+            Matcher m = ATTRIBUTE_ENTRY_PATTERN.matcher(line);
+            if (!m.matches())
+            {
+                return;
+            }
+            processAttributeEntry(m);
+            readLine();
+        }
+    }
+
+    /**
+     * Skip line comments and comment blocks
+     */
+    private void skipCommentLines()
+    {
+        while (true)
+        {
+            String line = peekLine();
+            if (line == null || !line.startsWith("//")
+                || line.startsWith("///") && !isUniform(line, '/'))
+            {
+                return;
+            }
+            if (line.length() > 3 && isUniform(line, '/'))
+            {
+                readLine();
+                readLinesUntil(line, false, null);
+            }
+            else
+            {
+                readLine();
+            }
+        }
+    }
+
+    /**
+     * Parse the content of the given section, until the end of the document
+     * or the start of a section that is not a child of the given section.
+     *
+     * @param section The section
+     * @param pendingAttributes The block attributes for the next block
+     * @return The block attributes for the next block after the section
+     */
+    private Map<String, String> parseSection(ScannedSection section,
+        Map<String, String> pendingAttributes)
+    {
+        Map<String, String> blockAttributes = pendingAttributes;
+        skipBlankLines();
+        while (peekLine() != null)
+        {
+            parseBlockMetadataLines(blockAttributes);
+            Integer nextLevel = nextLineSectionLevel(blockAttributes);
+            if (nextLevel != null)
+            {
+                nextLevel = Math.max(0, nextLevel + getLevelOffset());
+                if (nextLevel > section.level
+                    || nextLevel == 0 && section.document)
+                {
+                    ScannedSection child = initializeSection(blockAttributes);
+                    addChild(section, child);
+                    Map<String, String> childAttributes =
+                        new LinkedHashMap<String, String>();
+                    String title = blockAttributes.get("title");
+                    if (title != null)
+                    {
+                        childAttributes.put("title", title);
+                    }
+                    blockAttributes = parseSection(child, childAttributes);
+                }
+                else
+                {
+                    return blockAttributes;
+                }
+            }
+            else
+            {
+                if (peekLine() != null)
+                {
+                    parseBlock(section, blockAttributes);
+                }
+                blockAttributes = new LinkedHashMap<String, String>();
+            }
+            if (skipBlankLines() < 0)
+            {
+                break;
+            }
+        }
+        return blockAttributes;
+    }
+
+    /**
+     * Add the given child to the given section, if the child is required
+     * for finding the "Nodes" section or is part of it
+     *
+     * @param section The section
+     * @param child The child
+     */
+    private static void addChild(ScannedSection section,
+        ScannedSection child)
+    {
+        if (section.document)
+        {
+            child.functionalSpecification = section.children.size()
+                == FUNCTIONAL_SPECIFICATION_SECTION_NUMBER;
+            section.children.add(child);
+        }
+        else if (section.functionalSpecification)
+        {
+            child.nodes = section.children.size() == NODES_SECTION_NUMBER;
+            section.children.add(child);
+        }
+        else if (section.nodes)
+        {
+            child.nodes = true;
+            section.children.add(child);
+        }
+    }
+
+    /**
+     * Read the title of a section, and create the section
+     *
+     * @param blockAttributes The block attributes of the section
+     * @return The section
+     */
+    private ScannedSection initializeSection(
+        Map<String, String> blockAttributes)
+    {
+        String style = blockAttributes.get(STYLE);
+        String id = blockAttributes.get("id");
+        String[] titleAndId = parseSectionTitle(id == null);
+        String rawTitle = titleAndId[0];
+        int level = Integer.parseInt(titleAndId[2]);
+        if (style != null && !SECTION_LEVEL_STYLE_PATTERN.matcher(style)
+            .matches() && level == 0)
+        {
+            // Special sections (like appendices) are at least at level 1
+            level = 1;
+        }
+        if (id == null)
+        {
+            id = titleAndId[1];
+        }
+
+        // The title is converted immediately when an ID is generated from
+        // it, or when it contains attribute references and has an explicit
+        // ID. Otherwise, Asciidoctor converts it after the document was
+        // parsed, when the attributes have been reset to the header state.
+        String title = null;
+        if (id != null || attributes.containsKey("sectids"))
+        {
+            title = substituteTitle(rawTitle, attributes);
+        }
+        else
+        {
+            title = substituteTitle(rawTitle, headerAttributes);
+        }
+        return new ScannedSection(level, title, false);
+    }
+
+    /**
+     * Read the section title at the current position.
+     *
+     * @param parseAnchor Whether an anchor at the end of the title should
+     *        be removed from the title and returned as the ID
+     * @return An array containing the raw title, the ID from an anchor at
+     *         the end of the title (or <code>null</code>), and the level
+     *         (including the level offset), as a string
+     * @throws IllegalStateException If the current line is not a section
+     *         title
+     */
+    private String[] parseSectionTitle(boolean parseAnchor)
+    {
+        String line1 = readLine();
+        String title = null;
+        int level = 0;
+        Matcher atx = null;
+        if ((line1.startsWith("=") || line1.startsWith("#"))
+            && (atx = ATX_SECTION_TITLE_PATTERN.matcher(line1)).matches())
+        {
+            level = atx.group(1).length() - 1;
+            title = atx.group(2);
+        }
+        else
+        {
+            String line2 = peekLine();
+            Integer setextLevel = setextSectionLevel(line1, line2);
+            if (setextLevel == null)
+            {
+                throw new IllegalStateException(
+                    "Unrecognized section: " + line1);
+            }
+            level = setextLevel;
+            title = line1;
+            readLine();
+        }
+        String id = null;
+        if (parseAnchor && title.endsWith("]]"))
+        {
+            Matcher m = INLINE_SECTION_ANCHOR_PATTERN.matcher(title);
+            if (m.find() && m.group(1) == null)
+            {
+                id = m.group(2);
+                title = title.substring(0, m.start());
+            }
+        }
+        level = Math.max(0, level + getLevelOffset());
+        return new String[]
+        { title, id, String.valueOf(level) };
+    }
+
+    /**
+     * Returns the level offset from the <code>leveloffset</code> attribute
+     *
+     * @return The level offset
+     */
+    private int getLevelOffset()
+    {
+        String value = attributes.get("leveloffset");
+        if (value == null)
+        {
+            return 0;
+        }
+        try
+        {
+            return Integer.parseInt(value.trim());
+        }
+        catch (NumberFormatException e)
+        {
+            return 0;
+        }
+    }
+
+    /**
+     * Returns the level of the section title at the current position,
+     * without the level offset, or <code>null</code> if there is no section
+     * title at the current position
+     *
+     * @param blockAttributes The block attributes
+     * @return The level
+     */
+    private Integer nextLineSectionLevel(Map<String, String> blockAttributes)
+    {
+        String style = blockAttributes.get(STYLE);
+        if ("discrete".equals(style) || "float".equals(style))
+        {
+            return null;
+        }
+        String line1 = peekLine();
+        if (line1 == null)
+        {
+            return null;
+        }
+        return sectionTitleLevel(line1, peekLine(1));
+    }
+
+    /**
+     * Returns the level of the section title that consists of the given
+     * line, or of the given lines, or <code>null</code> if the lines are no
+     * section title
+     *
+     * @param line1 The first line
+     * @param line2 The second line. May be <code>null</code>.
+     * @return The level
+     */
+    private static Integer sectionTitleLevel(String line1, String line2)
+    {
+        if ((line1.startsWith("=") || line1.startsWith("#"))
+            && ATX_SECTION_TITLE_PATTERN.matcher(line1).matches())
+        {
+            Matcher m = ATX_SECTION_TITLE_PATTERN.matcher(line1);
+            m.matches();
+            return m.group(1).length() - 1;
+        }
+        if (line2 == null || line2.isEmpty())
+        {
+            return null;
+        }
+        return setextSectionLevel(line1, line2);
+    }
+
+    /**
+     * Returns the level of the setext section title that consists of the
+     * given lines, or <code>null</code> if the lines are no setext section
+     * title
+     *
+     * @param line1 The title line
+     * @param line2 The underline. May be <code>null</code>.
+     * @return The level
+     */
+    static Integer setextSectionLevel(String line1, String line2)
+    {
+        if (line2 == null || line2.isEmpty())
+        {
+            return null;
+        }
+        Integer level = SETEXT_SECTION_LEVELS.get(line2.charAt(0));
+        if (level == null || !isUniform(line2, line2.charAt(0))
+            || Math.abs(line1.length() - line2.length()) >= 2
+            || !SETEXT_SECTION_TITLE_PATTERN.matcher(line1).matches())
+        {
+            return null;
+        }
+        return level;
+    }
+
+    /**
+     * Parse the block metadata lines at the current position. These are
+     * block anchors, block attribute lists, block titles, comments, and
+     * attribute entries. Blank lines between them are skipped.
+     *
+     * @param blockAttributes The map that receives the block attributes
+     */
+    private void parseBlockMetadataLines(Map<String, String> blockAttributes)
+    {
+        while (parseBlockMetadataLine(blockAttributes))
+        {
+            readLine();
+            if (skipBlankLines() < 0)
+            {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Parse the block metadata line at the current position, if there is
+     * one. The line itself is not consumed, except for comment blocks,
+     * where all lines up to the closing delimiter are consumed.
+     *
+     * @param blockAttributes The map that receives the block attributes
+     * @return Whether the current line was a block metadata line
+     */
+    private boolean parseBlockMetadataLine(
+        Map<String, String> blockAttributes)
+    {
+        String line = peekLine();
+        if (line == null || line.isEmpty())
+        {
+            return false;
+        }
+        char c = line.charAt(0);
+        if (c == '[')
+        {
+            if (line.startsWith("[["))
+            {
+                Matcher m = BLOCK_ANCHOR_PATTERN.matcher(line);
+                if (line.endsWith("]]") && m.matches())
+                {
+                    if (m.group(1) != null)
+                    {
+                        blockAttributes.put("id", m.group(1));
+                    }
+                    return true;
+                }
+            }
+            else if (line.endsWith("]"))
+            {
+                Matcher m = BLOCK_ATTRIBUTE_LIST_PATTERN.matcher(line);
+                if (m.matches())
+                {
+                    String previousStyle = blockAttributes.get(STYLE);
+                    parseAttributeList(m.group(1), blockAttributes);
+                    if (blockAttributes.get(STYLE) == null
+                        && previousStyle != null)
+                    {
+                        blockAttributes.put(STYLE, previousStyle);
+                    }
+                    return true;
+                }
+            }
+        }
+        else if (c == '.')
+        {
+            Matcher m = BLOCK_TITLE_PATTERN.matcher(line);
+            if (m.matches())
+            {
+                blockAttributes.put("title", m.group(1));
+                return true;
+            }
+        }
+        else if (c == '/')
+        {
+            if (line.equals("//"))
+            {
+                return true;
+            }
+            if (line.startsWith("//"))
+            {
+                if (isUniform(line, '/'))
+                {
+                    if (line.length() != 3)
+                    {
+                        // Consume the comment block, except for the closing
+                        // delimiter, which is consumed by the caller
+                        readLine();
+                        readLinesUntil(line, false, null);
+                        lookahead.add(0, line);
+                        return true;
+                    }
+                }
+                else if (!line.startsWith("///"))
+                {
+                    return true;
+                }
+            }
+        }
+        else if (c == ':')
+        {
+            Matcher m = ATTRIBUTE_ENTRY_PATTERN.matcher(line);
+            if (m.matches())
+            {
+                processAttributeEntry(m);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Process the attribute entry at the current position, with the given
+     * match of the {@link #ATTRIBUTE_ENTRY_PATTERN}. If the value is
+     * continued on the following lines, then all but the last of them are
+     * consumed.
+     *
+     * @param m The matcher
+     */
+    private void processAttributeEntry(Matcher m)
+    {
+        String name = m.group(1);
+        String value = m.group(2);
+        if (value == null)
+        {
+            value = "";
+        }
+        else if (value.endsWith(" \\") || value.endsWith(" +"))
+        {
+            String continuation = value.substring(value.length() - 2);
+            value = PsvTableParser.rstrip(
+                value.substring(0, value.length() - 2));
+            while (true)
+            {
+                readLine();
+                String nextLine = peekLine();
+                if (nextLine == null || nextLine.isEmpty())
+                {
+                    lookahead.add(0, "");
+                    break;
+                }
+                nextLine = PsvTableParser.lstrip(nextLine);
+                boolean keepOpen = nextLine.endsWith(continuation);
+                if (keepOpen)
+                {
+                    nextLine = PsvTableParser.rstrip(
+                        nextLine.substring(0, nextLine.length() - 2));
+                }
+                value += (value.endsWith(" +") ? "\n" : " ") + nextLine;
+                if (!keepOpen)
+                {
+                    break;
+                }
+            }
+        }
+        storeAttribute(name, value);
+    }
+
+    /**
+     * Store the given attribute in the document attributes, or remove it
+     * if the name starts or ends with <code>!</code>
+     *
+     * @param name The name
+     * @param value The raw value
+     */
+    private void storeAttribute(String name, String value)
+    {
+        String attributeName = name;
+        String attributeValue = value;
+        if (attributeName.endsWith("!"))
+        {
+            attributeName =
+                attributeName.substring(0, attributeName.length() - 1);
+            attributeValue = null;
+        }
+        else if (attributeName.startsWith("!"))
+        {
+            attributeName = attributeName.substring(1);
+            attributeValue = null;
+        }
+        attributeName = INVALID_ATTRIBUTE_NAME_CHARS_PATTERN
+            .matcher(attributeName).replaceAll("").toLowerCase(Locale.ROOT);
+        if (attributeName.equals("numbered"))
+        {
+            attributeName = "sectnums";
+        }
+        if (attributeValue == null)
+        {
+            attributes.remove(attributeName);
+            return;
+        }
+        if (attributeName.equals("leveloffset"))
+        {
+            if (attributeValue.startsWith("+"))
+            {
+                attributeValue = String.valueOf(getLevelOffset()
+                    + parseLeadingInt(attributeValue.substring(1)));
+            }
+            else if (attributeValue.startsWith("-"))
+            {
+                attributeValue = String.valueOf(getLevelOffset()
+                    - parseLeadingInt(attributeValue.substring(1)));
+            }
+        }
+        if (!attributeValue.isEmpty())
+        {
+            attributeValue = substituteAttributes(
+                substituteSpecialCharacters(attributeValue), attributes,
+                null);
+        }
+        attributes.put(attributeName, attributeValue);
+    }
+
+    /**
+     * Parse the integer at the start of the given string, like Ruby's
+     * <code>to_i</code>
+     *
+     * @param s The string
+     * @return The integer, or 0 if the string does not start with digits
+     */
+    private static int parseLeadingInt(String s)
+    {
+        int end = 0;
+        while (end < s.length() && Character.isDigit(s.charAt(end)))
+        {
+            end++;
+        }
+        if (end == 0)
+        {
+            return 0;
+        }
+        return Integer.parseInt(s.substring(0, end));
+    }
+
+    /**
+     * Parse the given contents of a block attribute list, and put the
+     * attributes into the given map.
+     *
+     * The first positional attribute is stored as the {@link #STYLE},
+     * without the ID, role and option shorthands. Options (either from the
+     * shorthand or from an <code>options</code> attribute) are stored as
+     * <code>name-option</code> keys.
+     *
+     * @param text The text between the brackets
+     * @param blockAttributes The map that receives the attributes
+     */
+    private void parseAttributeList(String text,
+        Map<String, String> blockAttributes)
+    {
+        String input = text;
+        if (input.indexOf('{') != -1)
+        {
+            input = substituteAttributes(input, attributes, null);
+        }
+        int index = 0;
+        int i = 0;
+        int n = input.length();
+        while (i < n)
+        {
+            while (i < n && input.charAt(i) == ' ')
+            {
+                i++;
+            }
+            if (i >= n)
+            {
+                break;
+            }
+            index++;
+            String name = null;
+            String value = null;
+            char c = input.charAt(i);
+            if (c == '"' || c == '\'')
+            {
+                int end = findClosingQuote(input, i + 1, c);
+                value = input.substring(i + 1, end).replace("\\" + c, "" + c);
+                i = Math.min(n, end + 1);
+                while (i < n && input.charAt(i) != ',')
+                {
+                    i++;
+                }
+            }
+            else
+            {
+                int end = input.indexOf(',', i);
+                if (end == -1)
+                {
+                    end = n;
+                }
+                int equals = input.indexOf('=', i);
+                if (equals != -1 && equals < end)
+                {
+                    name = input.substring(i, equals).trim();
+                    int valueStart = equals + 1;
+                    while (valueStart < n && input.charAt(valueStart) == ' ')
+                    {
+                        valueStart++;
+                    }
+                    if (valueStart < n && (input.charAt(valueStart) == '"'
+                        || input.charAt(valueStart) == '\''))
+                    {
+                        char q = input.charAt(valueStart);
+                        int close = findClosingQuote(input, valueStart + 1, q);
+                        value = input.substring(valueStart + 1, close)
+                            .replace("\\" + q, "" + q);
+                        end = input.indexOf(',', Math.min(n, close + 1));
+                        if (end == -1)
+                        {
+                            end = n;
+                        }
+                    }
+                    else
+                    {
+                        value = input.substring(valueStart, end).trim();
+                    }
+                }
+                else
+                {
+                    value = input.substring(i, end).trim();
+                }
+                i = end;
+            }
+            i++;
+
+            if (name == null)
+            {
+                if (index == 1)
+                {
+                    parseStyleAttribute(value, blockAttributes);
+                }
+                else
+                {
+                    blockAttributes.put(String.valueOf(index), value);
+                }
+            }
+            else if (name.equals("options") || name.equals("opts"))
+            {
+                for (String option : value.split(","))
+                {
+                    String trimmed = option.trim();
+                    if (!trimmed.isEmpty())
+                    {
+                        blockAttributes.put(trimmed + "-option", "");
+                    }
+                }
+            }
+            else
+            {
+                blockAttributes.put(name, value);
+            }
+        }
+    }
+
+    /**
+     * Returns the index of the closing quote in the given input, starting
+     * at the given index, skipping escaped quotes
+     *
+     * @param input The input
+     * @param start The start index
+     * @param quote The quote character
+     * @return The index, or the length of the input if there is no closing
+     *         quote
+     */
+    private static int findClosingQuote(String input, int start, char quote)
+    {
+        int i = start;
+        while (i < input.length())
+        {
+            char c = input.charAt(i);
+            if (c == quote && input.charAt(i - 1) != '\\')
+            {
+                return i;
+            }
+            i++;
+        }
+        return input.length();
+    }
+
+    /**
+     * Parse the given first positional attribute, which may contain the
+     * style and ID, role and option shorthands, like
+     * <code>discrete#id.role%option</code>
+     *
+     * @param value The value
+     * @param blockAttributes The map that receives the attributes
+     */
+    private static void parseStyleAttribute(String value,
+        Map<String, String> blockAttributes)
+    {
+        int end = 0;
+        while (end < value.length() && "#.%".indexOf(value.charAt(end)) == -1)
+        {
+            end++;
+        }
+        if (end > 0)
+        {
+            blockAttributes.put(STYLE, value.substring(0, end));
+        }
+        int i = end;
+        while (i < value.length())
+        {
+            char type = value.charAt(i);
+            int next = i + 1;
+            while (next < value.length()
+                && "#.%".indexOf(value.charAt(next)) == -1)
+            {
+                next++;
+            }
+            String part = value.substring(i + 1, next);
+            if (type == '%' && !part.isEmpty())
+            {
+                blockAttributes.put(part + "-option", "");
+            }
+            else if (type == '#' && !part.isEmpty())
+            {
+                blockAttributes.put("id", part);
+            }
+            i = next;
+        }
+    }
+
+    /**
+     * Parse the block at the current position, which is not a section. If
+     * the block is a table, then it is added to the given section.
+     *
+     * @param section The section that contains the block
+     * @param blockAttributes The block attributes
+     */
+    private void parseBlock(ScannedSection section,
+        Map<String, String> blockAttributes)
+    {
+        String line = readLine();
+        String style = blockAttributes.get(STYLE);
+        String terminator = delimitedBlockTerminator(line);
+        if (terminator != null)
+        {
+            boolean comment = terminator.startsWith("////")
+                || terminator.equals("--") && "comment".equals(style);
+            boolean table = section.nodes && isTableDelimiter(terminator);
+            List<String> content = table ? new ArrayList<String>() : null;
+            readLinesUntil(terminator, !comment, content);
+            if (table)
+            {
+                Map<String, String> tableAttributes =
+                    new HashMap<String, String>(blockAttributes);
+                if (!terminator.startsWith("|") && !terminator.startsWith("!")
+                    && !tableAttributes.containsKey("format"))
+                {
+                    tableAttributes.put("format",
+                        terminator.startsWith(",") ? "csv" : "dsv");
+                }
+                section.tables.add(new ScannedTable(content, tableAttributes));
+            }
+            return;
+        }
+        if (LAYOUT_BREAK_PATTERN.matcher(line).matches()
+            || MARKDOWN_THEMATIC_BREAK_PATTERN.matcher(line).matches()
+            || line.endsWith("]") && line.contains("::")
+                && (BLOCK_MEDIA_MACRO_PATTERN.matcher(line).matches()
+                    || BLOCK_TOC_MACRO_PATTERN.matcher(line).matches()))
+        {
+            return;
+        }
+        if (ANY_LIST_PATTERN.matcher(line).find())
+        {
+            skipList();
+            return;
+        }
+        if (("discrete".equals(style) || "float".equals(style))
+            && sectionTitleLevel(line, peekLine()) != null)
+        {
+            if (!line.startsWith("=") && !line.startsWith("#")
+                || !ATX_SECTION_TITLE_PATTERN.matcher(line).matches())
+            {
+                // Consume the underline of a setext title
+                readLine();
+            }
+            return;
+        }
+        if (style != null && VERBATIM_STYLES.contains(style))
+        {
+            skipParagraph(false);
+        }
+        else
+        {
+            skipParagraph(true);
+        }
+    }
+
+    /**
+     * Skip the remaining lines of a paragraph, up to a blank line or a list
+     * continuation.
+     *
+     * @param breakAtBlock Whether the paragraph also ends at the start of a
+     *        delimited block or at a block attribute line
+     */
+    private void skipParagraph(boolean breakAtBlock)
+    {
+        while (true)
+        {
+            String line = peekLine();
+            if (line == null || line.isEmpty()
+                || line.equals(LIST_CONTINUATION))
+            {
+                return;
+            }
+            if (breakAtBlock && (delimitedBlockTerminator(line) != null
+                || line.startsWith("[")
+                    && BLOCK_ATTRIBUTE_LINE_PATTERN.matcher(line).matches()))
+            {
+                return;
+            }
+            readLine();
+        }
+    }
+
+    /**
+     * Skip the remaining lines of a list. The list continues after blank
+     * lines when the next line is a list item. Blocks that are attached to
+     * list items with a list continuation are part of the list.
+     */
+    private void skipList()
+    {
+        boolean continuation = false;
+        while (true)
+        {
+            String line = peekLine();
+            if (line == null)
+            {
+                return;
+            }
+            if (line.equals(LIST_CONTINUATION))
+            {
+                readLine();
+                continuation = true;
+                continue;
+            }
+            String terminator = delimitedBlockTerminator(line);
+            if (terminator != null)
+            {
+                if (!continuation)
+                {
+                    return;
+                }
+                readLine();
+                readLinesUntil(terminator, true, null);
+                continuation = false;
+                continue;
+            }
+            if (line.isEmpty())
+            {
+                skipBlankLines();
+                String next = peekLine();
+                if (next == null || !ANY_LIST_PATTERN.matcher(next).find()
+                    && !next.equals(LIST_CONTINUATION)
+                    && !LITERAL_PARAGRAPH_PATTERN.matcher(next).matches())
+                {
+                    return;
+                }
+                continue;
+            }
+            readLine();
+            continuation = false;
+        }
+    }
+
+    /**
+     * Returns the line that terminates a delimited block that is started
+     * with the given line, or <code>null</code> if the line does not start
+     * a delimited block
+     *
+     * @param line The line
+     * @return The terminator
+     */
+    static String delimitedBlockTerminator(String line)
+    {
+        int n = line.length();
+        if (n < 2)
+        {
+            return null;
+        }
+        if (n == 2)
+        {
+            return line.equals("--") ? line : null;
+        }
+        if (line.startsWith("```"))
+        {
+            return n == 3 || line.charAt(3) != '`' ? "```" : null;
+        }
+        if (n == 3)
+        {
+            return null;
+        }
+        String tip = line.substring(0, 4);
+        switch (tip)
+        {
+            case "----":
+            case "....":
+            case "====":
+            case "****":
+            case "____":
+            case "++++":
+            case "////":
+                return isUniform(line, tip.charAt(3)) ? line : null;
+            case "|===":
+            case ",===":
+            case ":===":
+            case "!===":
+                return isUniform(line.substring(1), '=') ? line : null;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Returns whether the given terminator belongs to a table
+     *
+     * @param terminator The terminator
+     * @return Whether the terminator belongs to a table
+     */
+    private static boolean isTableDelimiter(String terminator)
+    {
+        return terminator.length() >= 4 && terminator.charAt(1) == '='
+            && "|,:!".indexOf(terminator.charAt(0)) != -1;
+    }
+
+    /**
+     * Returns whether the given string only consists of the given character
+     *
+     * @param s The string
+     * @param c The character
+     * @return Whether the string is uniform
+     */
+    static boolean isUniform(String s, char c)
+    {
+        for (int i = 0; i < s.length(); i++)
+        {
+            if (s.charAt(i) != c)
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Read all lines up to the given terminator line. The terminator is
+     * consumed, but not included in the result.
+     *
+     * @param terminator The terminator line
+     * @param process Whether preprocessor directives should be processed
+     * @param result The list that receives the lines. If this is
+     *        <code>null</code>, the lines are skipped.
+     */
+    private void readLinesUntil(String terminator, boolean process,
+        List<String> result)
+    {
+        while (true)
+        {
+            String line = process ? readLine() : readRawLine();
+            if (line == null)
+            {
+                if (logger.isLoggable(Level.WARNING))
+                {
+                    logger.warning("Unterminated block: " + terminator);
+                }
+                return;
+            }
+            if (line.equals(terminator))
+            {
+                return;
+            }
+            if (result != null)
+            {
+                result.add(line);
+            }
+        }
+    }
+
+    /**
+     * Skip blank lines
+     *
+     * @return The number of skipped lines, or -1 if the end of the document
+     *         was reached
+     */
+    private int skipBlankLines()
+    {
+        int skipped = 0;
+        while (true)
+        {
+            String line = peekLine();
+            if (line == null)
+            {
+                return -1;
+            }
+            if (!line.isEmpty())
+            {
+                return skipped;
+            }
+            readLine();
+            skipped++;
+        }
+    }
+
+    /**
+     * Returns the next preprocessed line, without consuming it
+     *
+     * @return The line, or <code>null</code> if the end of the document was
+     *         reached
+     */
+    private String peekLine()
+    {
+        return peekLine(0);
+    }
+
+    /**
+     * Returns the preprocessed line at the given offset from the current
+     * position, without consuming it
+     *
+     * @param offset The offset
+     * @return The line, or <code>null</code> if the end of the document was
+     *         reached
+     */
+    private String peekLine(int offset)
+    {
+        while (lookahead.size() <= offset)
+        {
+            if (currentRawLine() == null)
+            {
+                return null;
+            }
+            String line = processLine();
+            if (line != null)
+            {
+                lookahead.add(line);
+            }
+        }
+        return lookahead.get(offset);
+    }
+
+    /**
+     * Consume and return the next preprocessed line
+     *
+     * @return The line, or <code>null</code> if the end of the document was
+     *         reached
+     */
+    private String readLine()
+    {
+        if (peekLine() == null)
+        {
+            return null;
+        }
+        return lookahead.remove(0);
+    }
+
+    /**
+     * Consume and return the next line, without processing preprocessor
+     * directives in lines that have not been peeked yet
+     *
+     * @return The line, or <code>null</code> if the end of the document was
+     *         reached
+     */
+    private String readRawLine()
+    {
+        if (!lookahead.isEmpty())
+        {
+            return lookahead.remove(0);
+        }
+        String line = currentRawLine();
+        rawLine = null;
+        return line;
+    }
+
+    /**
+     * Returns the source line that will be preprocessed next, reading it
+     * from the source if necessary
+     *
+     * @return The line, or <code>null</code> if the end of the document was
+     *         reached
+     */
+    private String currentRawLine()
+    {
+        if (rawLine == null)
+        {
+            rawLine = sourceLines.next();
+        }
+        return rawLine;
+    }
+
+    /**
+     * Process the current source line, and consume it unless it was
+     * replaced
+     *
+     * @return The processed line, or <code>null</code> if the line was
+     *         dropped or replaced
+     */
+    private String processLine()
+    {
+        String line = rawLine;
+        if (line.isEmpty())
+        {
+            rawLine = null;
+            return line;
+        }
+        if (line.endsWith("]") && !line.startsWith("[")
+            && line.contains("::"))
+        {
+            Matcher m = null;
+            if (line.contains("if")
+                && (m = CONDITIONAL_DIRECTIVE_PATTERN.matcher(line)).matches())
+            {
+                if (m.group(1) != null)
+                {
+                    rawLine = null;
+                    return line.substring(1);
+                }
+                String text = m.group(5);
+                if (preprocessConditional(m.group(2), m.group(3),
+                    m.group(4), text))
+                {
+                    // The directive is replaced by its text, which is
+                    // processed again
+                    rawLine = PsvTableParser.rstrip(text);
+                    return null;
+                }
+                rawLine = null;
+                return null;
+            }
+            if (skipping)
+            {
+                rawLine = null;
+                return null;
+            }
+            if ((line.startsWith("inc") || line.startsWith("\\inc"))
+                && (m = INCLUDE_DIRECTIVE_PATTERN.matcher(line)).matches())
+            {
+                rawLine = null;
+                if (m.group(1) != null)
+                {
+                    return line.substring(1);
+                }
+                String target =
+                    substituteAttributes(m.group(2), attributes, null);
+                return "link:" + target + "[role=include]";
+            }
+            rawLine = null;
+            return line;
+        }
+        rawLine = null;
+        return skipping ? null : line;
+    }
+
+    /**
+     * Process the given conditional preprocessor directive
+     *
+     * @param keyword The keyword
+     * @param target The target
+     * @param delimiter The delimiter of multiple attribute names
+     * @param text The text of a single-line directive
+     * @return Whether the directive is a single-line directive whose text
+     *         has to be included
+     * @throws UnsupportedSyntaxException If the keyword is
+     *         <code>ifeval</code>
+     */
+    private boolean preprocessConditional(String keyword, String target,
+        String delimiter, String text)
+    {
+        boolean noTarget = target.isEmpty();
+        String lowerTarget = target.toLowerCase(Locale.ROOT);
+        if (keyword.equals("endif"))
+        {
+            if (text != null)
+            {
+                logger.severe("Malformed preprocessor directive - text not "
+                    + "permitted: endif::" + target + "[" + text + "]");
+            }
+            else if (conditionals.isEmpty())
+            {
+                logger.severe("Unmatched preprocessor directive: endif::"
+                    + target + "[]");
+            }
+            else if (noTarget
+                || lowerTarget.equals(conditionals.peek().target))
+            {
+                conditionals.pop();
+                skipping = !conditionals.isEmpty()
+                    && conditionals.peek().skipping;
+            }
+            else
+            {
+                logger.severe("Mismatched preprocessor directive: endif::"
+                    + target + "[], expected endif::"
+                    + conditionals.peek().target + "[]");
+            }
+            return false;
+        }
+        boolean skip = false;
+        if (!skipping)
+        {
+            if (keyword.equals("ifeval"))
+            {
+                throw new UnsupportedSyntaxException(
+                    "The ifeval directive is not supported: ifeval::["
+                    + text + "]");
+            }
+            if (noTarget)
+            {
+                logger.severe("Malformed preprocessor directive - missing "
+                    + "target: " + keyword + "::[" + text + "]");
+                return false;
+            }
+            boolean ifdef = keyword.equals("ifdef");
+            if (",".equals(delimiter))
+            {
+                boolean any = false;
+                for (String name : lowerTarget.split(",", -1))
+                {
+                    any |= attributes.containsKey(name);
+                }
+                skip = ifdef ? !any : any;
+            }
+            else if ("+".equals(delimiter))
+            {
+                boolean all = true;
+                for (String name : lowerTarget.split("\\+", -1))
+                {
+                    all &= attributes.containsKey(name);
+                }
+                skip = ifdef ? !all : all;
+            }
+            else
+            {
+                boolean defined = attributes.containsKey(lowerTarget);
+                skip = ifdef ? !defined : defined;
+            }
+        }
+        if (text == null)
+        {
+            if (skip)
+            {
+                skipping = true;
+            }
+            conditionals.push(new Conditional(lowerTarget, skipping));
+            return false;
+        }
+        return !skipping && !skip;
+    }
+
+    /**
+     * Apply the substitutions for section titles to the given text: The
+     * special characters, the attribute references, and the replacements.
+     * Inline formatting and macros are not converted.
+     *
+     * @param text The text
+     * @param titleAttributes The attributes for the attribute references
+     * @return The substituted text
+     */
+    private static String substituteTitle(String text,
+        Map<String, String> titleAttributes)
+    {
+        String result = substituteSpecialCharacters(text);
+        if (result.indexOf('{') != -1)
+        {
+            result = substituteAttributes(result, titleAttributes, null);
+        }
+        result = substituteReplacements(result);
+        if (logger.isLoggable(Level.WARNING) && containsInlineMarkup(result))
+        {
+            logger.warning("Inline markup in section titles is not "
+                + "converted: " + result);
+        }
+        return result;
+    }
+
+    /**
+     * Returns whether the given text may contain inline formatting or
+     * macros
+     *
+     * @param text The text
+     * @return Whether the text may contain inline markup
+     */
+    private static boolean containsInlineMarkup(String text)
+    {
+        for (int i = 0; i < text.length(); i++)
+        {
+            if ("`*[+^~".indexOf(text.charAt(i)) != -1)
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Replace the characters <code>&amp;</code>, <code>&lt;</code> and
+     * <code>&gt;</code> with their entities
+     *
+     * @param text The text
+     * @return The result
+     */
+    private static String substituteSpecialCharacters(String text)
+    {
+        StringBuilder sb = null;
+        for (int i = 0; i < text.length(); i++)
+        {
+            char c = text.charAt(i);
+            String entity = null;
+            if (c == '&')
+            {
+                entity = "&amp;";
+            }
+            else if (c == '<')
+            {
+                entity = "&lt;";
+            }
+            else if (c == '>')
+            {
+                entity = "&gt;";
+            }
+            if (entity != null && sb == null)
+            {
+                sb = new StringBuilder(text.length() + 16);
+                sb.append(text, 0, i);
+            }
+            if (sb != null)
+            {
+                if (entity != null)
+                {
+                    sb.append(entity);
+                }
+                else
+                {
+                    sb.append(c);
+                }
+            }
+        }
+        return sb == null ? text : sb.toString();
+    }
+
+    /**
+     * Replace the attribute references in the given text
+     *
+     * @param text The text
+     * @param attributes The attributes
+     * @param attributeMissing The behavior for references to missing
+     *        attributes, or <code>null</code> to use the
+     *        <code>attribute-missing</code> attribute
+     * @return The result
+     */
+    private static String substituteAttributes(String text,
+        Map<String, String> attributes, String attributeMissing)
+    {
+        Matcher m = ATTRIBUTE_REFERENCE_PATTERN.matcher(text);
+        StringBuffer sb = null;
+        boolean dropLine = false;
+        while (m.find())
+        {
+            if (sb == null)
+            {
+                sb = new StringBuffer(text.length() + 16);
+            }
+            String replacement = null;
+            if (m.group(1) != null || m.group(4) != null)
+            {
+                replacement = "{" + m.group(2) + "}";
+            }
+            else if (m.group(3) != null)
+            {
+                // Counters and inline assignments are not supported
+                replacement = m.group();
+            }
+            else
+            {
+                String key = m.group(2).toLowerCase(Locale.ROOT);
+                replacement = attributes.get(key);
+                if (replacement == null)
+                {
+                    replacement = INTRINSIC_ATTRIBUTES.get(key);
+                }
+                if (replacement == null)
+                {
+                    String missing = attributeMissing;
+                    if (missing == null)
+                    {
+                        missing = attributes.get("attribute-missing");
+                    }
+                    if ("drop".equals(missing))
+                    {
+                        replacement = "";
+                    }
+                    else if ("drop-line".equals(missing))
+                    {
+                        dropLine = true;
+                        replacement = "";
+                    }
+                    else
+                    {
+                        if ("warn".equals(missing))
+                        {
+                            logger.warning("Skipping reference to missing "
+                                + "attribute: " + key);
+                        }
+                        replacement = m.group();
+                    }
+                }
+            }
+            m.appendReplacement(sb, Matcher.quoteReplacement(replacement));
+        }
+        if (sb == null)
+        {
+            return text;
+        }
+        if (dropLine)
+        {
+            return "";
+        }
+        m.appendTail(sb);
+        return sb.toString();
+    }
+
+    /**
+     * Apply the {@link #REPLACEMENTS} to the given text
+     *
+     * @param text The text
+     * @return The result
+     */
+    private static String substituteReplacements(String text)
+    {
+        String result = text;
+        for (int i = 0; i < REPLACEMENT_PATTERNS.length; i++)
+        {
+            Matcher m = REPLACEMENT_PATTERNS[i].matcher(result);
+            if (!m.find())
+            {
+                continue;
+            }
+            StringBuffer sb = new StringBuffer(result.length() + 16);
+            do
+            {
+                String captured = m.group();
+                String replacement = null;
+                int backslash = captured.indexOf('\\');
+                if (backslash != -1)
+                {
+                    replacement = captured.substring(0, backslash)
+                        + captured.substring(backslash + 1);
+                }
+                else if (REPLACEMENT_RESTORES[i] == RESTORE_LEADING)
+                {
+                    replacement = m.group(1) + REPLACEMENTS[i];
+                }
+                else if (REPLACEMENT_RESTORES[i] == RESTORE_BOUNDING)
+                {
+                    replacement = m.group(1) + REPLACEMENTS[i] + m.group(2);
+                }
+                else
+                {
+                    replacement = REPLACEMENTS[i];
+                }
+                m.appendReplacement(sb,
+                    Matcher.quoteReplacement(replacement));
+            }
+            while (m.find());
+            m.appendTail(sb);
+            result = sb.toString();
+        }
+        return result;
+    }
+
+    /**
+     * Creates the mapping from setext underline characters to section levels
+     *
+     * @return The mapping
+     */
+    private static Map<Character, Integer> createSetextSectionLevels()
+    {
+        Map<Character, Integer> levels = new HashMap<Character, Integer>();
+        levels.put('=', 0);
+        levels.put('-', 1);
+        levels.put('~', 2);
+        levels.put('^', 3);
+        levels.put('+', 4);
+        return Collections.unmodifiableMap(levels);
+    }
+
+    /**
+     * Creates the mapping from names of intrinsic attributes to their values
+     *
+     * @return The mapping
+     */
+    private static Map<String, String> createIntrinsicAttributes()
+    {
+        Map<String, String> a = new HashMap<String, String>();
+        a.put("startsb", "[");
+        a.put("endsb", "]");
+        a.put("vbar", "|");
+        a.put("caret", "^");
+        a.put("asterisk", "*");
+        a.put("tilde", "~");
+        a.put("plus", "&#43;");
+        a.put("backslash", "\\");
+        a.put("backtick", "`");
+        a.put("blank", "");
+        a.put("empty", "");
+        a.put("sp", " ");
+        a.put("two-colons", "::");
+        a.put("two-semicolons", ";;");
+        a.put("nbsp", "&#160;");
+        a.put("deg", "&#176;");
+        a.put("zwsp", "&#8203;");
+        a.put("quot", "&#34;");
+        a.put("apos", "&#39;");
+        a.put("lsquo", "&#8216;");
+        a.put("rsquo", "&#8217;");
+        a.put("ldquo", "&#8220;");
+        a.put("rdquo", "&#8221;");
+        a.put("wj", "&#8288;");
+        a.put("brvbar", "&#166;");
+        a.put("pp", "&#43;&#43;");
+        a.put("cpp", "C&#43;&#43;");
+        a.put("amp", "&");
+        a.put("lt", "<");
+        a.put("gt", ">");
+        return Collections.unmodifiableMap(a);
+    }
+}
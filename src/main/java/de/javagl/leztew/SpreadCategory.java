@@ -0,0 +1,424 @@
+/*
+ * www.javagl.de - leztew
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.leztew;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * A {@link Category} that is a view on another category, with the type
+ * instantiations of its nodes, as they are created by
+ * {@link Categories#spreadTypes(Category, boolean)}.
+ * 
+ * The number of instances of each node is computed when the view is
+ * created. The instances themselves are only created when they are
+ * obtained from the lists that are returned by {@link #getNodes()} or
+ * {@link #getChildren()}, or from {@link #getInstance(String, String)}.
+ * They are not stored, so the view can be serialized (for example, with
+ * {@link Categories#emit(Category, NodeSink)}) without holding the whole
+ * spread tree in memory.
+ * 
+ * The view is unmodifiable, and the given category must not be modified
+ * while the view is in use.
+ */
+public class SpreadCategory extends Category
+{
+    /**
+     * The category that this is a view on
+     */
+    private final Category category;
+
+    /**
+     * Whether the instances should be put into an own category
+     */
+    private final boolean createSubCategories;
+
+    /**
+     * The indices of the nodes that contain a template, in the nodes of
+     * the category
+     */
+    private final int[] templateNodeIndices;
+
+    /**
+     * The offsets of the instances of each node of the category, in the
+     * list of nodes of this view. If the instances are put into own
+     * categories, this contains the indices of the nodes that do not
+     * contain a template.
+     */
+    private final int[] nodeOffsets;
+
+    /**
+     * Creates a new view on the given category
+     * 
+     * @param category The category
+     * @param createSubCategories Whether the instances should be put into an
+     *        own category
+     */
+    public SpreadCategory(Category category, boolean createSubCategories)
+    {
+        super(category.getName());
+        this.category = category;
+        this.createSubCategories = createSubCategories;
+
+        List<Node> nodes = category.getNodes();
+        int[] indices = new int[nodes.size()];
+        int[] offsets = new int[nodes.size() + 1];
+        int numTemplateNodes = 0;
+        int numNodes = 0;
+        for (int i = 0; i < nodes.size(); i++)
+        {
+            Node node = nodes.get(i);
+            int count = Nodes.collectSpreadTemplateValues(node).size();
+            if (count > 0)
+            {
+                indices[numTemplateNodes] = i;
+                numTemplateNodes++;
+            }
+            if (createSubCategories)
+            {
+                if (count == 0)
+                {
+                    offsets[numNodes] = i;
+                    numNodes++;
+                }
+            }
+            else
+            {
+                offsets[i] = numNodes;
+                numNodes += Math.max(1, count);
+            }
+        }
+        if (!createSubCategories)
+        {
+            offsets[nodes.size()] = numNodes;
+            this.nodeOffsets = offsets;
+        }
+        else
+        {
+            this.nodeOffsets = Arrays.copyOf(offsets, numNodes);
+        }
+        this.templateNodeIndices = Arrays.copyOf(indices, numTemplateNodes);
+    }
+
+    /**
+     * Returns the instance of the node with the given name, for the given
+     * template value, or <code>null</code> if there is no such node in
+     * the category that this is a view on, or in one of its children.
+     * 
+     * For nodes that do not contain a template, the template value must be
+     * the empty string.
+     * 
+     * @param name The name of the node
+     * @param templateValue The template value
+     * @return The instance
+     */
+    public Node getInstance(String name, String templateValue)
+    {
+        return findInstance(category, name, templateValue);
+    }
+
+    /**
+     * Returns the instance of the node with the given name, for the given
+     * template value, from the given category or its children, or
+     * <code>null</code> if there is no such node
+     * 
+     * @param category The category
+     * @param name The name of the node
+     * @param templateValue The template value
+     * @return The instance
+     */
+    private Node findInstance(Category category, String name,
+        String templateValue)
+    {
+        for (Node node : category.getNodes())
+        {
+            if (!name.equals(node.getName()))
+            {
+                continue;
+            }
+            List<String> templateValues =
+                Nodes.collectSpreadTemplateValues(node);
+            if (templateValues.isEmpty())
+            {
+                if (templateValue.isEmpty())
+                {
+                    return node;
+                }
+            }
+            else if (templateValues.contains(templateValue))
+            {
+                if (createSubCategories)
+                {
+                    return createSubCategoryInstance(node, templateValue);
+                }
+                return Nodes.instantiate(node, templateValue);
+            }
+        }
+        for (Category child : category.getChildren())
+        {
+            Node instance = findInstance(child, name, templateValue);
+            if (instance != null)
+            {
+                return instance;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns an unmodifiable list with the instances of the nodes of this
+     * category. The instances are created when they are obtained from the
+     * list.
+     */
+    @Override
+    public List<Node> getNodes()
+    {
+        return new NodeList();
+    }
+
+    /**
+     * Returns an unmodifiable list with views on the children of the
+     * category, followed by the categories for the instances, if they are
+     * put into own categories. The views are created when they are
+     * obtained from the list.
+     */
+    @Override
+    public List<Category> getChildren()
+    {
+        return new ChildList();
+    }
+
+    /**
+     * Always throws an <code>UnsupportedOperationException</code>
+     */
+    @Override
+    public void setName(String name)
+    {
+        throw new UnsupportedOperationException("The view is unmodifiable");
+    }
+
+    /**
+     * Always throws an <code>UnsupportedOperationException</code>
+     */
+    @Override
+    public void setNodes(List<Node> nodes)
+    {
+        throw new UnsupportedOperationException("The view is unmodifiable");
+    }
+
+    /**
+     * Always throws an <code>UnsupportedOperationException</code>
+     */
+    @Override
+    public void addNode(Node node)
+    {
+        throw new UnsupportedOperationException("The view is unmodifiable");
+    }
+
+    /**
+     * Always throws an <code>UnsupportedOperationException</code>
+     */
+    @Override
+    public void setChildren(List<Category> children)
+    {
+        throw new UnsupportedOperationException("The view is unmodifiable");
+    }
+
+    /**
+     * Always throws an <code>UnsupportedOperationException</code>
+     */
+    @Override
+    public void addChild(Category child)
+    {
+        throw new UnsupportedOperationException("The view is unmodifiable");
+    }
+
+    @Override
+    public String toString()
+    {
+        return "SpreadCategory [name=" + getName() + ", nodes="
+            + nodeOffsets.length + ", children=" + getChildren().size() + "]";
+    }
+
+    /**
+     * Creates the instance of the given node for the given template value,
+     * as it is put into the category for the instances
+     * 
+     * @param node The node
+     * @param templateValue The template value
+     * @return The instance
+     */
+    private static Node createSubCategoryInstance(Node node,
+        String templateValue)
+    {
+        Node instance = Nodes.instantiate(node, templateValue);
+        return Nodes.withTitle(instance,
+            node.getTitle() + " (" + templateValue + ")");
+    }
+
+    /**
+     * Creates the category for the instances of the given node
+     * 
+     * @param node The node
+     * @return The category
+     */
+    private static Category createSubCategory(Node node)
+    {
+        List<String> templateValues = Nodes.collectSpreadTemplateValues(node);
+        List<Node> instances = new InstanceList(node, templateValues);
+        return new Category(node.getName(), instances,
+            new ArrayList<Category>());
+    }
+
+    /**
+     * The list that is returned by {@link SpreadCategory#getNodes()}
+     */
+    private class NodeList extends AbstractList<Node> implements RandomAccess
+    {
+        @Override
+        public Node get(int index)
+        {
+            if (index < 0 || index >= size())
+            {
+                throw new IndexOutOfBoundsException(
+                    "Index: " + index + ", size: " + size());
+            }
+            List<Node> nodes = category.getNodes();
+            if (createSubCategories)
+            {
+                return nodes.get(nodeOffsets[index]);
+            }
+            int n = nodes.size();
+            int nodeIndex = Arrays.binarySearch(nodeOffsets, 0, n, index);
+            if (nodeIndex < 0)
+            {
+                nodeIndex = -nodeIndex - 2;
+            }
+            Node node = nodes.get(nodeIndex);
+            int templateIndex = index - nodeOffsets[nodeIndex];
+            List<String> templateValues =
+                Nodes.collectSpreadTemplateValues(node);
+            if (templateValues.isEmpty())
+            {
+                return node;
+            }
+            return Nodes.instantiate(node, templateValues.get(templateIndex));
+        }
+
+        @Override
+        public int size()
+        {
+            if (createSubCategories)
+            {
+                return nodeOffsets.length;
+            }
+            return nodeOffsets[nodeOffsets.length - 1];
+        }
+    }
+
+    /**
+     * The list that is returned by {@link SpreadCategory#getChildren()}
+     */
+    private class ChildList extends AbstractList<Category>
+        implements RandomAccess
+    {
+        @Override
+        public Category get(int index)
+        {
+            List<Category> children = category.getChildren();
+            if (index < children.size())
+            {
+                return new SpreadCategory(children.get(index),
+                    createSubCategories);
+            }
+            if (createSubCategories && index < size())
+            {
+                int nodeIndex =
+                    templateNodeIndices[index - children.size()];
+                return createSubCategory(category.getNodes().get(nodeIndex));
+            }
+            throw new IndexOutOfBoundsException(
+                "Index: " + index + ", size: " + size());
+        }
+
+        @Override
+        public int size()
+        {
+            int size = category.getChildren().size();
+            if (createSubCategories)
+            {
+                size += templateNodeIndices.length;
+            }
+            return size;
+        }
+    }
+
+    /**
+     * The list of nodes of a category that is created for the instances
+     * of a node
+     */
+    private static class InstanceList extends AbstractList<Node>
+        implements RandomAccess
+    {
+        /**
+         * The node
+         */
+        private final Node node;
+
+        /**
+         * The template values
+         */
+        private final List<String> templateValues;
+
+        /**
+         * Creates a new instance
+         * 
+         * @param node The node
+         * @param templateValues The template values
+         */
+        InstanceList(Node node, List<String> templateValues)
+        {
+            this.node = node;
+            this.templateValues = templateValues;
+        }
+
+        @Override
+        public Node get(int index)
+        {
+            return createSubCategoryInstance(node, templateValues.get(index));
+        }
+
+        @Override
+        public int size()
+        {
+            return templateValues.size();
+        }
+    }
+}
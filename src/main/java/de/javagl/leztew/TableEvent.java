@@ -0,0 +1,55 @@
+/*
+ * www.javagl.de - leztew
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.leztew;
+
+/**
+ * A {@link ConversionEvent} for the processing of an "Operation" table
+ */
+interface TableEvent extends ConversionEvent
+{
+    /**
+     * Set the name of the node
+     * 
+     * @param nodeName The name of the node, or <code>null</code> if the
+     *        table did not define a node
+     */
+    void setNodeName(String nodeName);
+
+    /**
+     * Set the number of rows of the table
+     * 
+     * @param rowCount The number of rows
+     */
+    void setRowCount(int rowCount);
+
+    /**
+     * Set the time that was spent for accessing the table in JRuby
+     * 
+     * @param jrubyTime The time, in nanoseconds
+     */
+    void setJrubyTime(long jrubyTime);
+}
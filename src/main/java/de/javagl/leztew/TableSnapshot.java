@@ -0,0 +1,165 @@
+/*
+ * www.javagl.de - leztew
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.leztew;
+
+import java.util.List;
+
+import org.asciidoctor.ast.Cell;
+import org.asciidoctor.ast.Row;
+import org.asciidoctor.ast.Table;
+
+/**
+ * A plain Java snapshot of the body of a {@link Table}, consisting of
+ * rows of cells, where each cell has a source string and a row span.
+ *
+ * The {@link Table} objects that are provided by Asciidoctor are proxies
+ * for JRuby objects, and each access to a row, a cell, or a property of a
+ * cell crosses the boundary between Java and JRuby. A snapshot is created
+ * with a single pass over the table, so that each of these accesses happens
+ * exactly once, and the table can afterwards be interpreted on the Java
+ * side only.
+ */
+class TableSnapshot
+{
+    /**
+     * The source strings of the cells, for each row
+     */
+    private final String[][] sources;
+
+    /**
+     * The row spans of the cells, for each row
+     */
+    private final int[][] rowspans;
+
+    /**
+     * Creates a new snapshot with the given data. The arrays are not copied.
+     *
+     * @param sources The source strings of the cells, for each row
+     * @param rowspans The row spans of the cells, for each row. Each row
+     *        must have the same length as the respective row of the sources.
+     * @throws IllegalArgumentException If the arrays do not have matching
+     *         sizes
+     */
+    TableSnapshot(String[][] sources, int[][] rowspans)
+    {
+        if (sources.length != rowspans.length)
+        {
+            throw new IllegalArgumentException("Expected " + sources.length
+                + " rows of row spans, but found " + rowspans.length);
+        }
+        for (int r = 0; r < sources.length; r++)
+        {
+            if (sources[r].length != rowspans[r].length)
+            {
+                throw new IllegalArgumentException("Expected "
+                    + sources[r].length + " row spans in row " + r
+                    + ", but found " + rowspans[r].length);
+            }
+        }
+        this.sources = sources;
+        this.rowspans = rowspans;
+    }
+
+    /**
+     * Create a snapshot of the body of the given table
+     *
+     * @param table The table
+     * @return The snapshot
+     */
+    static TableSnapshot of(Table table)
+    {
+        List<Row> body = table.getBody();
+        int numRows = body.size();
+        String[][] sources = new String[numRows][];
+        int[][] rowspans = new int[numRows][];
+        for (int r = 0; r < numRows; r++)
+        {
+            List<Cell> cells = body.get(r).getCells();
+            int numCells = cells.size();
+            String[] rowSources = new String[numCells];
+            int[] rowRowspans = new int[numCells];
+            for (int c = 0; c < numCells; c++)
+            {
+                Cell cell = cells.get(c);
+                rowSources[c] = cell.getSource();
+                rowRowspans[c] = cell.getRowspan();
+            }
+            sources[r] = rowSources;
+            rowspans[r] = rowRowspans;
+        }
+        return new TableSnapshot(sources, rowspans);
+    }
+
+    /**
+     * Returns the number of rows
+     *
+     * @return The number of rows
+     */
+    int getRowCount()
+    {
+        return sources.length;
+    }
+
+    /**
+     * Returns the number of cells in the given row
+     *
+     * @param row The row index
+     * @return The number of cells
+     * @throws IndexOutOfBoundsException If the index is not valid
+     */
+    int getCellCount(int row)
+    {
+        return sources[row].length;
+    }
+
+    /**
+     * Returns the source of the specified cell
+     *
+     * @param row The row index
+     * @param cell The cell index
+     * @return The source
+     * @throws IndexOutOfBoundsException If an index is not valid
+     */
+    String getSource(int row, int cell)
+    {
+        return sources[row][cell];
+    }
+
+    /**
+     * Returns the row span of the specified cell. As in Asciidoctor, this is
+     * 0 for cells that do not span multiple rows.
+     *
+     * @param row The row index
+     * @param cell The cell index
+     * @return The row span
+     * @throws IndexOutOfBoundsException If an index is not valid
+     */
+    int getRowspan(int row, int cell)
+    {
+        return rowspans[row][cell];
+    }
+}
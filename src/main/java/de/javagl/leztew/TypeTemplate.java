@@ -0,0 +1,230 @@
+/*
+ * www.javagl.de - leztew
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.leztew;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The compiled form of a socket type that may be a "template", like
+ * <code>floatN</code> or <code>float{2|3}</code>.
+ * 
+ * Instances are obtained with {@link #of(String)}. Types that are not
+ * templates are recognized without allocations, and all share one
+ * instance. The compiled templates are stored in a table that is shared
+ * by all threads, so that each template type is only parsed once. The
+ * table is bounded: When it contains {@link #MAX_TEMPLATES} entries,
+ * further templates are compiled on each call, without being stored.
+ */
+final class TypeTemplate
+{
+    /**
+     * The instance for types that are not templates
+     */
+    private static final TypeTemplate NONE =
+        new TypeTemplate(Collections.<String> emptyList());
+
+    /**
+     * The maximum number of entries in the {@link #TEMPLATES} table. The
+     * specification only contains a few dozen distinct template types.
+     */
+    static final int MAX_TEMPLATES = 1024;
+
+    /**
+     * The mapping from template type strings to the compiled templates
+     */
+    private static final ConcurrentMap<String, TypeTemplate> TEMPLATES =
+        new ConcurrentHashMap<String, TypeTemplate>();
+
+    /**
+     * The template values, without duplicates
+     */
+    private final List<String> values;
+
+    /**
+     * The set of template values
+     */
+    private final Set<String> valueSet;
+
+    /**
+     * Creates a new instance
+     * 
+     * @param values The template values, without duplicates
+     */
+    private TypeTemplate(List<String> values)
+    {
+        this.values = Collections.unmodifiableList(values);
+        this.valueSet = Collections
+            .unmodifiableSet(new LinkedHashSet<String>(values));
+    }
+
+    /**
+     * Returns the template for the given type.
+     * 
+     * If the type is <code>null</code> or not a template, then the returned
+     * template will not have any values.
+     * 
+     * @param type The type
+     * @return The template
+     */
+    static TypeTemplate of(String type)
+    {
+        if (type == null || !isTemplateType(type))
+        {
+            return NONE;
+        }
+        TypeTemplate template = TEMPLATES.get(type);
+        if (template != null)
+        {
+            return template;
+        }
+        template = compile(type);
+        if (TEMPLATES.size() < MAX_TEMPLATES)
+        {
+            TypeTemplate previous = TEMPLATES.putIfAbsent(type, template);
+            if (previous != null)
+            {
+                return previous;
+            }
+        }
+        return template;
+    }
+
+    /**
+     * Returns whether the given type has the form of a template, as
+     * described in {@link #compile(String)}
+     * 
+     * @param type The type
+     * @return Whether the type is a template
+     */
+    private static boolean isTemplateType(String type)
+    {
+        return type.endsWith("N")
+            || (type.lastIndexOf('{') != -1 && type.lastIndexOf('}') != -1);
+    }
+
+    /**
+     * Returns the number of compiled templates that are currently stored.
+     * This is only intended for tests.
+     * 
+     * @return The number of stored templates
+     */
+    static int size()
+    {
+        return TEMPLATES.size();
+    }
+
+    /**
+     * Returns whether this template has any values
+     * 
+     * @return Whether this is a template
+     */
+    boolean isTemplate()
+    {
+        return !values.isEmpty();
+    }
+
+    /**
+     * Returns an unmodifiable list with the template values, without
+     * duplicates. This is empty if the type is not a template.
+     * 
+     * @return The template values
+     */
+    List<String> getValues()
+    {
+        return values;
+    }
+
+    /**
+     * Returns an unmodifiable set with the template values. This is empty
+     * if the type is not a template.
+     * 
+     * @return The template values
+     */
+    Set<String> getValueSet()
+    {
+        return valueSet;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "TypeTemplate " + values;
+    }
+
+    /**
+     * Compiles the given type into a template.
+     * 
+     * If the type is of the form <code>typeN</code>, then the template values
+     * will be <code>type, type2, type3, type4, type2x2, type3x3,
+     * type4x4</code>.
+     * 
+     * Otherwise, if the type is of the form <code>type{X|Y...}</code>, then
+     * the template values will be <code>typeX, typeY ... </code>.
+     * 
+     * Otherwise, {@link #NONE} is returned.
+     * 
+     * @param type The type
+     * @return The template
+     */
+    private static TypeTemplate compile(String type)
+    {
+        if (type.endsWith("N"))
+        {
+            String base = type.substring(0, type.length() - 1);
+            List<String> values = new ArrayList<String>();
+            values.add(base);
+            values.add(base + "2");
+            values.add(base + "3");
+            values.add(base + "4");
+            values.add(base + "2x2");
+            values.add(base + "3x3");
+            values.add(base + "4x4");
+            return new TypeTemplate(values);
+        }
+        int i0 = type.lastIndexOf("{");
+        int i1 = type.lastIndexOf("}");
+        if (i0 == -1 | i1 == -1)
+        {
+            return NONE;
+        }
+        String base = type.substring(0, i0);
+        String values = type.substring(i0 + 1, i1);
+        String[] tokens = values.split("\\|");
+        Set<String> result = new LinkedHashSet<String>();
+        for (String token : tokens)
+        {
+            result.add(base + token);
+        }
+        return new TypeTemplate(new ArrayList<String>(result));
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * www.javagl.de - leztew
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.leztew;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.text.ParseException;
+import java.util.logging.Logger;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+
+/**
+ * Implementation of the {@link ConversionEvents.Factory} that creates the
+ * events and recordings with the Java Flight Recorder.
+ * 
+ * The <code>jdk.jfr</code> API that is used here and by the events is only
+ * part of the platform since Java 11. Therefore, this class and the events
+ * are compiled separately, and this class is only instantiated via
+ * reflection, by the {@link ConversionEvents}.
+ */
+class FlightRecordings implements ConversionEvents.Factory
+{
+    /**
+     * The logger used in this class
+     */
+    private static final Logger logger =
+        Logger.getLogger(FlightRecordings.class.getName());
+
+    /**
+     * Default constructor, called via reflection
+     */
+    FlightRecordings()
+    {
+        // Default constructor
+    }
+
+    @Override
+    public SectionEvent newSectionEvent()
+    {
+        return new JfrSectionEvent();
+    }
+
+    @Override
+    public TableEvent newTableEvent()
+    {
+        return new JfrTableEvent();
+    }
+
+    @Override
+    public SpreadEvent newSpreadEvent()
+    {
+        return new JfrSpreadEvent();
+    }
+
+    @Override
+    public WriteEvent newWriteEvent()
+    {
+        return new JfrWriteEvent();
+    }
+
+    /**
+     * Start a recording with the "profile" configuration of the JDK, and
+     * the events of the conversion: {@link JfrSectionEvent},
+     * {@link JfrTableEvent}, {@link JfrSpreadEvent} and
+     * {@link JfrWriteEvent}. When the returned object is closed, then the
+     * recording is stopped and written into the given file.
+     * 
+     * @param file The file
+     * @return The recording
+     * @throws IOException If the configuration cannot be read
+     */
+    @Override
+    public Closeable startRecording(File file) throws IOException
+    {
+        Configuration configuration = null;
+        try
+        {
+            configuration = Configuration.getConfiguration("profile");
+        }
+        catch (ParseException e)
+        {
+            throw new IOException(e);
+        }
+        Recording recording = new Recording(configuration);
+        recording.setName("leztew");
+        recording.enable(JfrSectionEvent.class);
+        recording.enable(JfrTableEvent.class);
+        recording.enable(JfrSpreadEvent.class);
+        recording.enable(JfrWriteEvent.class);
+        recording.start();
+        return () -> stop(recording, file);
+    }
+
+    /**
+     * Stop the given recording, write it into the given file, and close it
+     * 
+     * @param recording The recording
+     * @param file The file
+     * @throws IOException If an IO error occurs
+     */
+    private static void stop(Recording recording, File file)
+        throws IOException
+    {
+        try
+        {
+            recording.stop();
+            recording.dump(file.toPath());
+        }
+        finally
+        {
+            recording.close();
+        }
+        logger.info("Wrote flight recording to " + file);
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * www.javagl.de - leztew
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.leztew;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * The Java Flight Recorder implementation of the {@link SpreadEvent}, for
+ * spreading the type templates of a node
+ */
+@Name("de.javagl.leztew.Spread")
+@Label("Spread")
+@Category("leztew")
+@Description("Creation of the type instantiations of a node")
+@StackTrace(false)
+class JfrSpreadEvent extends jdk.jfr.Event implements SpreadEvent
+{
+    /**
+     * The name of the node
+     */
+    @Label("Node Name")
+    String nodeName;
+
+    /**
+     * The number of instances that have been created
+     */
+    @Label("Instance Count")
+    int instanceCount;
+
+    @Override
+    public void setNodeName(String nodeName)
+    {
+        this.nodeName = nodeName;
+    }
+
+    @Override
+    public void setInstanceCount(int instanceCount)
+    {
+        this.instanceCount = instanceCount;
+    }
+}
@@ -0,0 +1,332 @@
+/*
+ * www.javagl.de - leztew
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.leztew;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.javagl.leztew.AsyncLogHandler.OverflowPolicy;
+
+/**
+ * Tests for the {@link OverflowPolicy} handling of the
+ * {@link AsyncLogHandler}.
+ * 
+ * The output stream of the handler blocks the writer thread while the
+ * first record is written, so that the buffer can be filled
+ * deterministically.
+ */
+public class AsyncLogHandlerTest
+{
+    /**
+     * The capacity of the buffer
+     */
+    private static final int CAPACITY = 4;
+
+    /**
+     * The maximum time to wait for other threads, in milliseconds
+     */
+    private static final long TIMEOUT_MS = 10000;
+
+    /**
+     * The stream that blocks the writer thread
+     */
+    private GatedOutputStream gatedOutputStream;
+
+    /**
+     * The handler
+     */
+    private AsyncLogHandler handler;
+
+    /**
+     * Create the gated output stream
+     */
+    @Before
+    public void setUp()
+    {
+        gatedOutputStream = new GatedOutputStream();
+    }
+
+    /**
+     * Release the writer thread and close the handler
+     */
+    @After
+    public void tearDown()
+    {
+        gatedOutputStream.release();
+        if (handler != null)
+        {
+            handler.close();
+        }
+    }
+
+    /**
+     * Test that with the {@link OverflowPolicy#BLOCK} policy, a thread
+     * that publishes into the full buffer waits, and that no record is
+     * dropped
+     * 
+     * @throws InterruptedException If the thread is interrupted
+     */
+    @Test
+    public void testBlock() throws InterruptedException
+    {
+        fillBuffer(OverflowPolicy.BLOCK);
+        Thread publisher = publishInThread(Level.INFO, "overflow");
+        awaitBlocked(publisher);
+
+        gatedOutputStream.release();
+        publisher.join(TIMEOUT_MS);
+        handler.close();
+        String output = gatedOutputStream.getOutput();
+        assertBuffered(output);
+        assertTrue(output.contains("overflow"));
+        assertFalse(output.contains("Dropped"));
+    }
+
+    /**
+     * Test that with the {@link OverflowPolicy#DROP} policy, records that
+     * are published into the full buffer are dropped and reported, but
+     * warnings are not dropped
+     * 
+     * @throws InterruptedException If the thread is interrupted
+     */
+    @Test
+    public void testDrop() throws InterruptedException
+    {
+        fillBuffer(OverflowPolicy.DROP);
+        for (int i = 0; i < 10; i++)
+        {
+            handler.publish(new LogRecord(Level.INFO, "dropped " + i));
+        }
+        Thread publisher = publishInThread(Level.WARNING, "warning");
+        awaitBlocked(publisher);
+
+        gatedOutputStream.release();
+        publisher.join(TIMEOUT_MS);
+        handler.close();
+        String output = gatedOutputStream.getOutput();
+        assertBuffered(output);
+        assertFalse(output.contains("dropped "));
+        assertTrue(output.contains("warning"));
+        assertTrue(output.contains("Dropped 10 log records"));
+    }
+
+    /**
+     * Test that with the {@link OverflowPolicy#SAMPLE} policy, one of
+     * {@link AsyncLogHandler#SAMPLE_RATE} records that are published into
+     * the full buffer is kept, and all others are dropped, except for
+     * warnings
+     * 
+     * @throws InterruptedException If the thread is interrupted
+     */
+    @Test
+    public void testSample() throws InterruptedException
+    {
+        fillBuffer(OverflowPolicy.SAMPLE);
+        Thread publisher = publishInThread(Level.INFO, "sampled");
+        awaitBlocked(publisher);
+        int n = AsyncLogHandler.SAMPLE_RATE - 1;
+        for (int i = 0; i < n; i++)
+        {
+            handler.publish(new LogRecord(Level.INFO, "dropped " + i));
+        }
+        Thread warningPublisher = publishInThread(Level.SEVERE, "severe");
+        awaitBlocked(warningPublisher);
+
+        gatedOutputStream.release();
+        publisher.join(TIMEOUT_MS);
+        warningPublisher.join(TIMEOUT_MS);
+        handler.close();
+        String output = gatedOutputStream.getOutput();
+        assertBuffered(output);
+        assertTrue(output.contains("sampled"));
+        assertTrue(output.contains("severe"));
+        assertFalse(output.contains("dropped "));
+        assertTrue(output.contains("Dropped " + n + " log records"));
+    }
+
+    /**
+     * Create the handler with the given policy, publish a first record
+     * that blocks the writer thread, and fill the buffer
+     * 
+     * @param overflowPolicy The {@link OverflowPolicy}
+     * @throws InterruptedException If the thread is interrupted
+     */
+    private void fillBuffer(OverflowPolicy overflowPolicy)
+        throws InterruptedException
+    {
+        handler = new AsyncLogHandler(
+            new PrintStream(gatedOutputStream, true), CAPACITY,
+            overflowPolicy);
+        handler.publish(new LogRecord(Level.INFO, "first"));
+        assertTrue(gatedOutputStream.awaitEntered());
+        for (int i = 0; i < CAPACITY; i++)
+        {
+            handler.publish(new LogRecord(Level.INFO, "buffered " + i));
+        }
+    }
+
+    /**
+     * Assert that the given output contains the first record and all
+     * records that have been put into the buffer
+     * 
+     * @param output The output
+     */
+    private static void assertBuffered(String output)
+    {
+        assertTrue(output.contains("first"));
+        for (int i = 0; i < CAPACITY; i++)
+        {
+            assertTrue(output.contains("buffered " + i));
+        }
+    }
+
+    /**
+     * Publish a record with the given level and message in a new thread
+     * 
+     * @param level The level
+     * @param message The message
+     * @return The thread
+     */
+    private Thread publishInThread(Level level, String message)
+    {
+        Thread thread = new Thread(
+            () -> handler.publish(new LogRecord(level, message)));
+        thread.start();
+        return thread;
+    }
+
+    /**
+     * Wait until the given thread is waiting for space in the buffer
+     * 
+     * @param thread The thread
+     * @throws InterruptedException If the thread is interrupted
+     */
+    private static void awaitBlocked(Thread thread)
+        throws InterruptedException
+    {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+        while (thread.getState() != Thread.State.TIMED_WAITING)
+        {
+            assertTrue("The thread did not block", thread.isAlive()
+                && System.currentTimeMillis() < deadline);
+            Thread.sleep(1);
+        }
+        Thread.sleep(50);
+        assertEquals(Thread.State.TIMED_WAITING, thread.getState());
+    }
+
+    /**
+     * An output stream that blocks the first write until it is released
+     */
+    private static class GatedOutputStream extends OutputStream
+    {
+        /**
+         * The latch that is counted down when the first write starts
+         */
+        private final CountDownLatch entered = new CountDownLatch(1);
+
+        /**
+         * The latch that releases the writes
+         */
+        private final CountDownLatch released = new CountDownLatch(1);
+
+        /**
+         * The output
+         */
+        private final ByteArrayOutputStream output =
+            new ByteArrayOutputStream();
+
+        @Override
+        public void write(int b)
+        {
+            write(new byte[] { (byte) b }, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len)
+        {
+            entered.countDown();
+            try
+            {
+                released.await();
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+            }
+            synchronized (output)
+            {
+                output.write(b, off, len);
+            }
+        }
+
+        /**
+         * Wait until the first write started
+         * 
+         * @return Whether the write started before the timeout
+         * @throws InterruptedException If the thread is interrupted
+         */
+        boolean awaitEntered() throws InterruptedException
+        {
+            return entered.await(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        }
+
+        /**
+         * Release all writes
+         */
+        void release()
+        {
+            released.countDown();
+        }
+
+        /**
+         * Returns the output that has been written so far
+         * 
+         * @return The output
+         */
+        String getOutput()
+        {
+            synchronized (output)
+            {
+                return output.toString();
+            }
+        }
+    }
+}
@@ -0,0 +1,267 @@
+/*
+ * www.javagl.de - leztew
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.leztew;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.attribute.FileTime;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for the {@link ConversionCache}
+ */
+public class ConversionCacheTest
+{
+    /**
+     * The options for the cache entries
+     */
+    private static final String OPTIONS = "test";
+
+    /**
+     * One hour, in milliseconds
+     */
+    private static final long HOUR_MS = 60L * 60L * 1000L;
+
+    /**
+     * The folder for the cache
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * The category that is stored in the cache
+     */
+    private Category category;
+
+    /**
+     * Create the category
+     */
+    @Before
+    public void setUp()
+    {
+        category = new SpecificationScanner().scan(
+            SpecificationInput.decode(TestSpecifications.read("Basic.adoc")));
+    }
+
+    /**
+     * Test that an entry can be read after it was stored, and only for the
+     * same input and options
+     * 
+     * @throws IOException If an IO error occurs
+     */
+    @Test
+    public void testPutAndGet() throws IOException
+    {
+        ConversionCache cache = createCache(Long.MAX_VALUE, HOUR_MS);
+        assertNull(cache.get(input("a"), OPTIONS));
+        cache.put(input("a"), OPTIONS, category);
+        assertEquals(TestSpecifications.toJson(category),
+            TestSpecifications.toJson(cache.get(input("a"), OPTIONS)));
+        assertNull(cache.get(input("b"), OPTIONS));
+        assertNull(cache.get(input("a"), "other"));
+    }
+
+    /**
+     * Test that the least recently used entries are evicted when the
+     * total size exceeds the maximum size, where reading an entry counts
+     * as using it
+     * 
+     * @throws IOException If an IO error occurs
+     */
+    @Test
+    public void testEvictionBySize() throws IOException
+    {
+        ConversionCache sizing = createCache(Long.MAX_VALUE, HOUR_MS);
+        sizing.put(input("a"), OPTIONS, category);
+        long entrySize = entries()[0].length();
+
+        ConversionCache cache = createCache(2 * entrySize + 1, HOUR_MS);
+        cache.put(input("b"), OPTIONS, category);
+        age(HOUR_MS / 2);
+        assertNotNull(cache.get(input("a"), OPTIONS));
+        cache.put(input("c"), OPTIONS, category);
+
+        assertEquals(2, entries().length);
+        assertNotNull(cache.get(input("a"), OPTIONS));
+        assertNull(cache.get(input("b"), OPTIONS));
+        assertNotNull(cache.get(input("c"), OPTIONS));
+    }
+
+    /**
+     * Test that entries that have not been used for longer than the
+     * maximum age are evicted
+     * 
+     * @throws IOException If an IO error occurs
+     */
+    @Test
+    public void testEvictionByAge() throws IOException
+    {
+        ConversionCache cache = createCache(Long.MAX_VALUE, HOUR_MS);
+        cache.put(input("a"), OPTIONS, category);
+        age(2 * HOUR_MS);
+        cache.put(input("b"), OPTIONS, category);
+
+        assertEquals(1, entries().length);
+        assertNull(cache.get(input("a"), OPTIONS));
+        assertNotNull(cache.get(input("b"), OPTIONS));
+    }
+
+    /**
+     * Test that a truncated entry is treated as a miss, and deleted
+     * 
+     * @throws IOException If an IO error occurs
+     */
+    @Test
+    public void testTruncatedEntryIsDeleted() throws IOException
+    {
+        ConversionCache cache = createCache(Long.MAX_VALUE, HOUR_MS);
+        cache.put(input("a"), OPTIONS, category);
+        File entry = entries()[0];
+        try (RandomAccessFile file = new RandomAccessFile(entry, "rw"))
+        {
+            file.setLength(file.length() / 2);
+        }
+        assertNull(cache.get(input("a"), OPTIONS));
+        assertFalse(entry.exists());
+
+        cache.put(input("a"), OPTIONS, category);
+        assertNotNull(cache.get(input("a"), OPTIONS));
+    }
+
+    /**
+     * Test that an entry whose stored key does not match its file name is
+     * treated as a miss, and deleted
+     * 
+     * @throws IOException If an IO error occurs
+     */
+    @Test
+    public void testEntryWithInvalidKeyIsDeleted() throws IOException
+    {
+        ConversionCache cache = createCache(Long.MAX_VALUE, HOUR_MS);
+        cache.put(input("a"), OPTIONS, category);
+        File entry = entries()[0];
+        try (RandomAccessFile file = new RandomAccessFile(entry, "rw"))
+        {
+            // The key is stored with writeUTF, after a 2-byte length
+            file.seek(2);
+            file.write('x');
+        }
+        assertNull(cache.get(input("a"), OPTIONS));
+        assertFalse(entry.exists());
+    }
+
+    /**
+     * Test that an entry with invalid contents is treated as a miss, and
+     * deleted
+     * 
+     * @throws IOException If an IO error occurs
+     */
+    @Test
+    public void testEntryWithInvalidContentsIsDeleted() throws IOException
+    {
+        ConversionCache cache = createCache(Long.MAX_VALUE, HOUR_MS);
+        cache.put(input("a"), OPTIONS, category);
+        File entry = entries()[0];
+        try (RandomAccessFile file = new RandomAccessFile(entry, "rw"))
+        {
+            file.seek(66);
+            for (int i = 0; i < 16; i++)
+            {
+                file.write(0xFF);
+            }
+        }
+        assertNull(cache.get(input("a"), OPTIONS));
+        assertFalse(entry.exists());
+    }
+
+    /**
+     * Creates a cache in the temporary folder
+     * 
+     * @param maxBytes The maximum size
+     * @param maxAgeMs The maximum age
+     * @return The cache
+     * @throws IOException If an IO error occurs
+     */
+    private ConversionCache createCache(long maxBytes, long maxAgeMs)
+        throws IOException
+    {
+        return new ConversionCache(folder.getRoot(), maxBytes, maxAgeMs);
+    }
+
+    /**
+     * Returns the entry files of the cache
+     * 
+     * @return The entry files
+     */
+    private File[] entries()
+    {
+        File[] files = folder.getRoot()
+            .listFiles((dir, name) -> name.endsWith(".bin"));
+        assertTrue(files != null);
+        return files;
+    }
+
+    /**
+     * Set the last modification time of all entries to the given duration
+     * before the current time
+     * 
+     * @param ms The duration, in milliseconds
+     * @throws IOException If an IO error occurs
+     */
+    private void age(long ms) throws IOException
+    {
+        FileTime time = FileTime.fromMillis(System.currentTimeMillis() - ms);
+        for (File entry : entries())
+        {
+            Files.setLastModifiedTime(entry.toPath(), time);
+        }
+    }
+
+    /**
+     * Returns the input bytes for the given string
+     * 
+     * @param s The string
+     * @return The input bytes
+     */
+    private static byte[] input(String s)
+    {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * www.javagl.de - leztew
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.leztew;
+
+import static org.junit.Assert.assertTrue;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for the {@link ConversionEvents}
+ */
+public class ConversionEventsTest
+{
+    /**
+     * The folder for the recordings
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Test that the Java Flight Recorder implementations of the events are
+     * loaded when running on Java 11 or later, and that a recording with
+     * all events can be written
+     * 
+     * @throws IOException If an IO error occurs
+     */
+    @Test
+    public void testRecording() throws IOException
+    {
+        assertTrue(ConversionEvents.isAvailable());
+        File file = new File(folder.getRoot(), "test.jfr");
+        Closeable recording = ConversionEvents.startRecording(file);
+        try
+        {
+            SectionEvent sectionEvent = ConversionEvents.newSectionEvent();
+            sectionEvent.begin();
+            assertTrue(sectionEvent.shouldCommit());
+            sectionEvent.setTitle("Title");
+            sectionEvent.setLevel(3);
+            sectionEvent.commit();
+
+            TableEvent tableEvent = ConversionEvents.newTableEvent();
+            tableEvent.begin();
+            tableEvent.setNodeName("math/add");
+            tableEvent.setRowCount(5);
+            tableEvent.setJrubyTime(1000);
+            tableEvent.commit();
+        }
+        finally
+        {
+            recording.close();
+        }
+        assertTrue(file.length() > 0);
+    }
+}
@@ -0,0 +1,223 @@
+/*
+ * www.javagl.de - leztew
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.leztew;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests that the {@link JsonOutputIndex} rejects invalid index files
+ */
+public class JsonOutputIndexTest
+{
+    /**
+     * The offset of the number of categories in the index file
+     */
+    private static final int CATEGORY_COUNT_OFFSET = 16;
+
+    /**
+     * The offset of the length of the name of the first category
+     */
+    private static final int NAME_LENGTH_OFFSET = 24;
+
+    /**
+     * The offset of the entry of the first category, whose name is
+     * <code>"Math"</code>
+     */
+    private static final int ENTRY_OFFSET = 32;
+
+    /**
+     * The folder for the output and index files
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Test that a valid index can be used for reading the nodes
+     * 
+     * @throws IOException If an IO error occurs
+     */
+    @Test
+    public void testValidIndex() throws IOException
+    {
+        File file = writeOutput();
+        try (JsonOutputIndex index = JsonOutputIndex.open(file))
+        {
+            Node node = index.readNode("math/add");
+            assertNotNull(node);
+            assertEquals("math/add", node.getName());
+            assertNotNull(index.readCategory(Arrays.asList("Math")));
+        }
+    }
+
+    /**
+     * Test that an invalid number of categories is rejected
+     * 
+     * @throws IOException If an IO error occurs
+     */
+    @Test
+    public void testInvalidCategoryCount() throws IOException
+    {
+        File file = writeOutput();
+        writeInt(file, CATEGORY_COUNT_OFFSET, Integer.MAX_VALUE);
+        assertInvalid(file);
+        writeInt(file, CATEGORY_COUNT_OFFSET, -2);
+        assertInvalid(file);
+    }
+
+    /**
+     * Test that an invalid string length is rejected
+     * 
+     * @throws IOException If an IO error occurs
+     */
+    @Test
+    public void testInvalidStringLength() throws IOException
+    {
+        File file = writeOutput();
+        writeInt(file, NAME_LENGTH_OFFSET, Integer.MAX_VALUE);
+        assertInvalid(file);
+        writeInt(file, NAME_LENGTH_OFFSET, -2);
+        assertInvalid(file);
+    }
+
+    /**
+     * Test that entries that are not contained in the output are rejected
+     * 
+     * @throws IOException If an IO error occurs
+     */
+    @Test
+    public void testInvalidEntry() throws IOException
+    {
+        File file = writeOutput();
+        writeLong(file, ENTRY_OFFSET, file.length());
+        assertInvalid(file);
+        writeLong(file, ENTRY_OFFSET, -1);
+        assertInvalid(file);
+        writeLong(file, ENTRY_OFFSET, 0);
+        writeLong(file, ENTRY_OFFSET + 8, Long.MAX_VALUE);
+        assertInvalid(file);
+    }
+
+    /**
+     * Write an output with a single category and its index, and return
+     * the output file
+     * 
+     * @return The output file
+     * @throws IOException If an IO error occurs
+     */
+    private File writeOutput() throws IOException
+    {
+        List<Node> nodes = new ArrayList<Node>();
+        nodes.add(new Node("Add", "math/add", "Adds two values",
+            new ArrayList<ConfigurationElement>(), new ArrayList<Socket>(),
+            new ArrayList<Socket>(Arrays.asList(
+                new Socket("float", "a", "The first value"),
+                new Socket("float", "b", "The second value"))),
+            new ArrayList<Socket>(), new ArrayList<Socket>(Arrays.asList(
+                new Socket("float", "value", "The sum")))));
+        Category category =
+            new Category("Math", nodes, new ArrayList<Category>());
+        File file = folder.newFile("nodes.json");
+        LeztewMain.writeIndexed(category, null, file);
+        return file;
+    }
+
+    /**
+     * Assert that opening the index of the given output fails with an
+     * IOException
+     * 
+     * @param file The output file
+     * @throws IOException If the index cannot be closed
+     */
+    private static void assertInvalid(File file) throws IOException
+    {
+        JsonOutputIndex index = null;
+        try
+        {
+            index = JsonOutputIndex.open(file);
+        }
+        catch (IOException e)
+        {
+            // Expected
+            return;
+        }
+        index.close();
+        fail("Expected an IOException for an invalid index");
+    }
+
+    /**
+     * Overwrite the int at the given offset of the index of the given
+     * output
+     * 
+     * @param file The output file
+     * @param offset The offset in the index file
+     * @param value The value
+     * @throws IOException If an IO error occurs
+     */
+    private static void writeInt(File file, long offset, int value)
+        throws IOException
+    {
+        try (RandomAccessFile raf = new RandomAccessFile(
+            JsonOutputIndex.indexFile(file), "rw"))
+        {
+            raf.seek(offset);
+            raf.writeInt(value);
+        }
+    }
+
+    /**
+     * Overwrite the long at the given offset of the index of the given
+     * output
+     * 
+     * @param file The output file
+     * @param offset The offset in the index file
+     * @param value The value
+     * @throws IOException If an IO error occurs
+     */
+    private static void writeLong(File file, long offset, long value)
+        throws IOException
+    {
+        try (RandomAccessFile raf = new RandomAccessFile(
+            JsonOutputIndex.indexFile(file), "rw"))
+        {
+            raf.seek(offset);
+            raf.writeLong(value);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * www.javagl.de - leztew
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.leztew;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for the resolution of the input files of the {@link LeztewBatch}
+ */
+public class LeztewBatchTest
+{
+    /**
+     * The folder for the input files
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Test that glob patterns are matched relative to the directory that
+     * precedes the first glob character, and that plain file names are
+     * passed through
+     * 
+     * @throws IOException If an IO error occurs
+     */
+    @Test
+    public void testResolve() throws IOException
+    {
+        File root = folder.getRoot();
+        File a = folder.newFile("a.adoc");
+        folder.newFile("a.txt");
+        folder.newFolder("sub", "deep");
+        File b = folder.newFile("sub/b.adoc");
+        File c = folder.newFile("sub/deep/c.adoc");
+        String base = root.getPath() + File.separator;
+
+        assertEquals(Arrays.asList(a), resolve(base + "*.adoc"));
+        assertEquals(Arrays.asList(b, c), resolve(base + "sub/**.adoc"));
+        assertEquals(Arrays.asList(c), resolve(base + "**/deep/*.adoc"));
+        assertEquals(Arrays.asList(a, b), resolve(base + "{a,sub/b}.adoc"));
+        assertEquals(Arrays.asList(new File("missing.adoc")),
+            resolve("missing.adoc"));
+    }
+
+    /**
+     * Resolve the given single pattern
+     * 
+     * @param pattern The pattern
+     * @return The files
+     * @throws IOException If an IO error occurs
+     */
+    private static List<File> resolve(String pattern) throws IOException
+    {
+        return LeztewBatch.resolve(Arrays.asList(pattern));
+    }
+}
@@ -0,0 +1,294 @@
+/*
+ * www.javagl.de - leztew
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.leztew;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for the lookups in a {@link NodeCatalog}, and for the rejection of
+ * invalid catalog files
+ */
+public class NodeCatalogTest
+{
+    /**
+     * The folder for the catalog files
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Test the lookup of nodes and instances
+     * 
+     * @throws IOException If an IO error occurs
+     */
+    @Test
+    public void testLookup() throws IOException
+    {
+        NodeCatalog catalog = NodeCatalog.open(writeCatalog());
+        assertEquals(2, catalog.getNodeCount());
+        assertEquals(3, catalog.getInstanceCount());
+
+        Node add = catalog.getNode("math/add");
+        assertNotNull(add);
+        assertEquals("Add", add.getTitle());
+        assertEquals("float{2|4}",
+            add.getInputValueSockets().get(0).getType());
+        assertEquals("math/sign", catalog.getNode(1).getName());
+        assertNull(catalog.getNode("math/missing"));
+
+        Node add2 = catalog.getInstance("math/add", "float2");
+        assertNotNull(add2);
+        assertEquals("float2",
+            add2.getInputValueSockets().get(0).getType());
+        assertEquals("bool", add2.getInputValueSockets().get(1).getType());
+        assertNotNull(catalog.getInstance("math/sign", ""));
+        assertNull(catalog.getInstance("math/add", ""));
+        assertNull(catalog.getInstance("math/add", "float3"));
+    }
+
+    /**
+     * Test that lookups in a hash index without empty slots terminate
+     * 
+     * @throws IOException If an IO error occurs
+     */
+    @Test
+    public void testFullIndexTerminates() throws IOException
+    {
+        File file = writeCatalog();
+        fillIndex(file, 56, 0);
+        fillIndex(file, 64, 0);
+        NodeCatalog catalog = NodeCatalog.open(file);
+        assertNull(catalog.getNode("math/missing"));
+        assertNull(catalog.getInstance("math/missing", ""));
+    }
+
+    /**
+     * Test that a truncated file is rejected
+     * 
+     * @throws IOException If an IO error occurs
+     */
+    @Test
+    public void testTruncated() throws IOException
+    {
+        File file = writeCatalog();
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw"))
+        {
+            raf.setLength(raf.length() - 4);
+        }
+        assertInvalid(file);
+    }
+
+    /**
+     * Test that a node record with an invalid string index is rejected
+     * 
+     * @throws IOException If an IO error occurs
+     */
+    @Test
+    public void testInvalidStringIndex() throws IOException
+    {
+        File file = writeCatalog();
+        int nodesOffset = readInt(file, 36);
+        writeInt(file, nodesOffset, 12345);
+        assertInvalid(file);
+    }
+
+    /**
+     * Test that a node record with an invalid range of elements is
+     * rejected
+     * 
+     * @throws IOException If an IO error occurs
+     */
+    @Test
+    public void testInvalidElementRange() throws IOException
+    {
+        File file = writeCatalog();
+        int nodesOffset = readInt(file, 36);
+        writeInt(file, nodesOffset + 7 * 4, Integer.MAX_VALUE);
+        assertInvalid(file);
+    }
+
+    /**
+     * Test that a child index that does not refer to a category is
+     * rejected
+     * 
+     * @throws IOException If an IO error occurs
+     */
+    @Test
+    public void testInvalidChildIndex() throws IOException
+    {
+        File file = writeCatalog();
+        int childIndicesOffset = readInt(file, 28);
+        writeInt(file, childIndicesOffset, 7);
+        assertInvalid(file);
+    }
+
+    /**
+     * Test that an instance record with an invalid node index is rejected
+     * 
+     * @throws IOException If an IO error occurs
+     */
+    @Test
+    public void testInvalidInstanceNodeIndex() throws IOException
+    {
+        File file = writeCatalog();
+        int instancesOffset = readInt(file, 52);
+        writeInt(file, instancesOffset, -5);
+        assertInvalid(file);
+    }
+
+    /**
+     * Test that a hash index slot that does not refer to a node is
+     * rejected
+     * 
+     * @throws IOException If an IO error occurs
+     */
+    @Test
+    public void testInvalidIndexEntry() throws IOException
+    {
+        File file = writeCatalog();
+        fillIndex(file, 56, 99);
+        assertInvalid(file);
+    }
+
+    /**
+     * Write a catalog with a category that contains a node with a type
+     * template, and a node without a type template, and return the file
+     * 
+     * @return The file
+     * @throws IOException If an IO error occurs
+     */
+    private File writeCatalog() throws IOException
+    {
+        List<Node> nodes = new ArrayList<Node>();
+        nodes.add(new Node("Add", "math/add", "Adds two values",
+            new ArrayList<ConfigurationElement>(), new ArrayList<Socket>(),
+            new ArrayList<Socket>(Arrays.asList(
+                new Socket("float{2|4}", "a", "The value"),
+                new Socket("bool", "b", "The flag"))),
+            new ArrayList<Socket>(), new ArrayList<Socket>(Arrays.asList(
+                new Socket("float{2|4}", "value", "The sum")))));
+        nodes.add(new Node("Sign", "math/sign", "The sign",
+            new ArrayList<ConfigurationElement>(), new ArrayList<Socket>(),
+            new ArrayList<Socket>(Arrays.asList(
+                new Socket("float", "a", "The value"))),
+            new ArrayList<Socket>(), new ArrayList<Socket>()));
+        Category math = new Category("Math", nodes, new ArrayList<Category>());
+        Category root = new Category("Nodes", new ArrayList<Node>(),
+            new ArrayList<Category>(Arrays.asList(math)));
+        File file = folder.newFile("nodes.lzc");
+        NodeCatalogWriter.write(root, file);
+        return file;
+    }
+
+    /**
+     * Assert that opening the given catalog fails with an IOException
+     * 
+     * @param file The file
+     */
+    private static void assertInvalid(File file)
+    {
+        try
+        {
+            NodeCatalog.open(file);
+        }
+        catch (IOException e)
+        {
+            // Expected
+            return;
+        }
+        fail("Expected an IOException for an invalid catalog");
+    }
+
+    /**
+     * Set the entries of all slots of the hash index whose capacity and
+     * offset are stored at the given header position to the given value
+     * 
+     * @param file The file
+     * @param headerPosition The position of the capacity in the header
+     * @param value The value
+     * @throws IOException If an IO error occurs
+     */
+    private static void fillIndex(File file, int headerPosition, int value)
+        throws IOException
+    {
+        int capacity = readInt(file, headerPosition);
+        int offset = readInt(file, headerPosition + 4);
+        for (int slot = 0; slot < capacity; slot++)
+        {
+            writeInt(file, offset + slot * 8 + 4, value);
+        }
+    }
+
+    /**
+     * Read the int at the given offset of the given file
+     * 
+     * @param file The file
+     * @param offset The offset
+     * @return The value
+     * @throws IOException If an IO error occurs
+     */
+    private static int readInt(File file, long offset) throws IOException
+    {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r"))
+        {
+            raf.seek(offset);
+            return raf.readInt();
+        }
+    }
+
+    /**
+     * Overwrite the int at the given offset of the given file
+     * 
+     * @param file The file
+     * @param offset The offset
+     * @param value The value
+     * @throws IOException If an IO error occurs
+     */
+    private static void writeInt(File file, long offset, int value)
+        throws IOException
+    {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw"))
+        {
+            raf.seek(offset);
+            raf.writeInt(value);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * www.javagl.de - leztew
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.leztew;
+
+import static org.junit.Assert.assertEquals;
+
+import java.nio.ByteBuffer;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Tests that the extraction with {@link LeztewConverter#setParallelism(int)}
+ * creates the same output as the sequential extraction
+ */
+public class ParallelExtractionTest
+{
+    /**
+     * The parallelism values that are compared to the sequential extraction
+     */
+    private static final int[] PARALLELISMS = { 2, 4 };
+
+    /**
+     * The {@link AsciidoctorPool} for all tests
+     */
+    private static AsciidoctorPool asciidoctorPool;
+
+    /**
+     * Create the {@link AsciidoctorPool}
+     */
+    @BeforeClass
+    public static void setUp()
+    {
+        asciidoctorPool = new AsciidoctorPool(1);
+    }
+
+    /**
+     * Close the {@link AsciidoctorPool}
+     */
+    @AfterClass
+    public static void tearDown()
+    {
+        asciidoctorPool.close();
+    }
+
+    /**
+     * Test the basic specification
+     */
+    @Test
+    public void testBasic()
+    {
+        assertParallelMatchesSequential(
+            TestSpecifications.read("Basic.adoc"));
+    }
+
+    /**
+     * Test a specification with row spans, a table that is not an
+     * "Operation" table, and rows that can not be interpreted
+     */
+    @Test
+    public void testRowSpansAndInvalidTables()
+    {
+        Category nodes = assertParallelMatchesSequential(
+            TestSpecifications.read("RowSpans.adoc"));
+        assertEquals(7, Categories.countNodes(nodes));
+    }
+
+    /**
+     * Test a specification that does not contain any node definition
+     * sections
+     */
+    @Test
+    public void testNoDefinitionSections()
+    {
+        Category nodes = assertParallelMatchesSequential(
+            TestSpecifications.read("NoDefinitions.adoc"));
+        assertEquals(0, Categories.countNodes(nodes));
+    }
+
+    /**
+     * Test a synthetic specification from the {@link SpecificationGenerator}
+     */
+    @Test
+    public void testSynthetic()
+    {
+        Category nodes = assertParallelMatchesSequential(
+            TestSpecifications.generate(500));
+        assertEquals(500, Categories.countNodes(nodes));
+    }
+
+    /**
+     * Extract the nodes from the given data sequentially and with each of
+     * the {@link #PARALLELISMS}, and assert that the JSON representations
+     * are equal
+     * 
+     * @param data The specification data
+     * @return The nodes from the sequential extraction
+     */
+    private static Category assertParallelMatchesSequential(ByteBuffer data)
+    {
+        Category expected =
+            LeztewMain.convert(asciidoctorPool, null, null, 1, data);
+        String expectedJson = TestSpecifications.toJson(expected);
+        for (int parallelism : PARALLELISMS)
+        {
+            Category actual = LeztewMain.convert(asciidoctorPool, null, null,
+                parallelism, data);
+            assertEquals("Parallelism " + parallelism, expectedJson,
+                TestSpecifications.toJson(actual));
+        }
+        return expected;
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * www.javagl.de - leztew
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.leztew;
+
+import static org.junit.Assert.assertEquals;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Tests that the {@link SectionCache} only returns the nodes of sections
+ * whose source and context did not change
+ */
+public class SectionCacheTest
+{
+    /**
+     * The {@link AsciidoctorPool} for all tests
+     */
+    private static AsciidoctorPool asciidoctorPool;
+
+    /**
+     * Create the {@link AsciidoctorPool}
+     */
+    @BeforeClass
+    public static void setUp()
+    {
+        asciidoctorPool = new AsciidoctorPool(1);
+    }
+
+    /**
+     * Close the {@link AsciidoctorPool}
+     */
+    @AfterClass
+    public static void tearDown()
+    {
+        asciidoctorPool.close();
+    }
+
+    /**
+     * Test that the sections are taken from the cache when the
+     * specification did not change
+     */
+    @Test
+    public void testUnchangedSections()
+    {
+        SectionCache sectionCache = new SectionCache();
+        ByteBuffer data = TestSpecifications.read("Basic.adoc");
+        String expected = TestSpecifications.toJson(convert(null, data));
+        assertEquals(expected,
+            TestSpecifications.toJson(convert(sectionCache, data)));
+        assertEquals(0, sectionCache.getHits());
+        assertEquals(expected,
+            TestSpecifications.toJson(convert(sectionCache, data)));
+        assertEquals(4, sectionCache.getHits());
+    }
+
+    /**
+     * Test that a change of an attribute entry in the body of the document,
+     * before the sections, causes all following sections to be processed
+     * again, even though their own source did not change
+     */
+    @Test
+    public void testChangedAttributeEntryBeforeSection()
+    {
+        SectionCache sectionCache = new SectionCache();
+        ByteBuffer before = withAttribute("Euler number");
+        ByteBuffer after = withAttribute("Euler constant");
+        convert(sectionCache, before);
+
+        Category nodes = convert(sectionCache, after);
+        assertEquals(TestSpecifications.toJson(convert(null, after)),
+            TestSpecifications.toJson(nodes));
+        Category constants =
+            nodes.getChildren().get(0).getChildren().get(0);
+        assertEquals("Euler constant",
+            constants.getNodes().get(0).getTitle());
+    }
+
+    /**
+     * Returns the basic specification, where the title of the first node
+     * is given by an attribute that is defined in the body of the
+     * document, with the given value
+     * 
+     * @param value The value of the attribute
+     * @return The specification data
+     */
+    private static ByteBuffer withAttribute(String value)
+    {
+        ByteBuffer data = TestSpecifications.read("Basic.adoc");
+        String source = new String(data.array(), StandardCharsets.UTF_8)
+            .replace("Concepts text.\n", ":e-title: " + value + "\n")
+            .replace("====== E\n", "====== {e-title}\n");
+        return ByteBuffer.wrap(source.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Convert the given data with the given {@link SectionCache}
+     * 
+     * @param sectionCache The {@link SectionCache}
+     * @param data The data
+     * @return The nodes
+     */
+    private static Category convert(SectionCache sectionCache,
+        ByteBuffer data)
+    {
+        return LeztewMain.convert(asciidoctorPool, null, sectionCache, 1,
+            data.duplicate());
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * www.javagl.de - leztew
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.leztew;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+/**
+ * Tests for the {@link SpecificationInput}
+ */
+public class SpecificationInputTest
+{
+    /**
+     * Test that the decoded string is the same as the text that is read
+     * with the chunked reader, for heap buffers and direct buffers, and
+     * for malformed input
+     * 
+     * @throws IOException If an IO error occurs
+     */
+    @Test
+    public void testDecodeMatchesReader() throws IOException
+    {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 20000; i++)
+        {
+            sb.append("Line ").append(i).append(" \u00E4\u20AC\uD83D\uDE00\n");
+        }
+        byte[] valid = sb.toString().getBytes(StandardCharsets.UTF_8);
+        byte[] malformed = valid.clone();
+        malformed[7] = (byte) 0xC3;
+        malformed[valid.length - 3] = (byte) 0xFF;
+
+        for (byte[] bytes : new byte[][] { valid, malformed })
+        {
+            ByteBuffer heap = ByteBuffer.wrap(bytes, 3, bytes.length - 3);
+            ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+            direct.put(bytes).flip().position(3);
+
+            String expected = read(heap);
+            assertEquals(expected, SpecificationInput.decode(heap));
+            assertEquals(expected, SpecificationInput.decode(direct));
+            assertEquals(3, heap.position());
+            assertEquals(3, direct.position());
+        }
+    }
+
+    /**
+     * Read the given data with the reader of the {@link SpecificationInput}
+     * 
+     * @param data The data
+     * @return The text
+     * @throws IOException If an IO error occurs
+     */
+    private static String read(ByteBuffer data) throws IOException
+    {
+        StringBuilder sb = new StringBuilder();
+        try (Reader reader = SpecificationInput.newReader(data))
+        {
+            char[] buffer = new char[1000];
+            int n = 0;
+            while ((n = reader.read(buffer, 0, buffer.length)) != -1)
+            {
+                sb.append(buffer, 0, n);
+            }
+        }
+        return sb.toString();
+    }
+}
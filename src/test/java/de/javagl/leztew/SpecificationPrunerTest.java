@@ -0,0 +1,196 @@
+/*
+ * www.javagl.de - leztew
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.leztew;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.asciidoctor.Asciidoctor;
+import org.asciidoctor.Options;
+import org.asciidoctor.ast.Document;
+import org.asciidoctor.ast.Section;
+import org.asciidoctor.ast.StructuralNode;
+import org.asciidoctor.log.LogRecord;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Tests that the {@link SpecificationPruner} creates documents with a
+ * valid section structure, that contain the same nodes as the original
+ * documents
+ */
+public class SpecificationPrunerTest
+{
+    /**
+     * The Asciidoctor instance for loading the pruned documents
+     */
+    private static Asciidoctor asciidoctor;
+
+    /**
+     * The messages that have been logged by Asciidoctor
+     */
+    private static final List<String> messages = new ArrayList<String>();
+
+    /**
+     * Create the Asciidoctor instance
+     */
+    @BeforeClass
+    public static void setUp()
+    {
+        asciidoctor = Asciidoctor.Factory.create();
+        asciidoctor.registerLogHandler((LogRecord logRecord) ->
+        {
+            synchronized (messages)
+            {
+                messages.add(logRecord.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Close the Asciidoctor instance
+     */
+    @AfterClass
+    public static void tearDown()
+    {
+        asciidoctor.shutdown();
+    }
+
+    /**
+     * Test the basic specification
+     */
+    @Test
+    public void testBasic()
+    {
+        assertValidPruning(TestSpecifications.read("Basic.adoc"));
+    }
+
+    /**
+     * Test a specification with elements that look like sections, but are
+     * not
+     */
+    @Test
+    public void testTricky()
+    {
+        assertValidPruning(TestSpecifications.read("Tricky.adoc"));
+    }
+
+    /**
+     * Test a specification with row spans and invalid tables
+     */
+    @Test
+    public void testRowSpans()
+    {
+        assertValidPruning(TestSpecifications.read("RowSpans.adoc"));
+    }
+
+    /**
+     * Test a synthetic specification from the {@link SpecificationGenerator}
+     */
+    @Test
+    public void testSynthetic()
+    {
+        assertValidPruning(TestSpecifications.generate(300));
+    }
+
+    /**
+     * Test the actual specification, if it is present at the default input
+     * location of the {@link LeztewMain}. The test is skipped otherwise.
+     * 
+     * @throws IOException If an IO error occurs
+     */
+    @Test
+    public void testSpecification() throws IOException
+    {
+        File file = new File("./data/Specification.adoc");
+        assumeTrue(file.isFile());
+        assertValidPruning(
+            ByteBuffer.wrap(Files.readAllBytes(file.toPath())));
+    }
+
+    /**
+     * Prune the given specification, and assert that the pruned document
+     * is smaller, that each section in it has a level that is one more
+     * than the level of its parent, that Asciidoctor does not report any
+     * problems for it, and that the {@link SpecificationScanner} finds the
+     * same nodes in it as in the original document
+     * 
+     * @param data The specification data
+     */
+    private static void assertValidPruning(ByteBuffer data)
+    {
+        String content = SpecificationInput.decode(data);
+        String pruned = SpecificationPruner.prune(content);
+        assertTrue(pruned.length() < content.length());
+
+        synchronized (messages)
+        {
+            messages.clear();
+        }
+        Document document =
+            asciidoctor.load(pruned, Options.builder().build());
+        assertSectionLevels(document, 0);
+        synchronized (messages)
+        {
+            assertEquals(new ArrayList<String>(), messages);
+        }
+
+        assertEquals(
+            TestSpecifications.toJson(new SpecificationScanner().scan(content)),
+            TestSpecifications.toJson(new SpecificationScanner().scan(pruned)));
+    }
+
+    /**
+     * Assert that all sections in the given node have the given level plus
+     * one, recursively
+     * 
+     * @param node The node
+     * @param level The level of the node
+     */
+    private static void assertSectionLevels(StructuralNode node, int level)
+    {
+        for (StructuralNode block : node.getBlocks())
+        {
+            if (block instanceof Section)
+            {
+                Section section = (Section) block;
+                assertEquals("Level of " + section.getTitle(), level + 1,
+                    section.getLevel());
+                assertSectionLevels(section, level + 1);
+            }
+        }
+    }
+}
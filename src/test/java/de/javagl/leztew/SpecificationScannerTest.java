@@ -0,0 +1,288 @@
+/*
+ * www.javagl.de - leztew
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.leztew;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Locale;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests that the {@link SpecificationScanner} creates the same
+ * {@link Category} tree as the Asciidoctor-based {@link LeztewConverter}
+ */
+public class SpecificationScannerTest
+{
+    /**
+     * The {@link AsciidoctorPool} for all tests
+     */
+    private static AsciidoctorPool asciidoctorPool;
+
+    /**
+     * The folder for the specification files
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Create the {@link AsciidoctorPool}
+     */
+    @BeforeClass
+    public static void setUp()
+    {
+        asciidoctorPool = new AsciidoctorPool(1);
+    }
+
+    /**
+     * Close the {@link AsciidoctorPool}
+     */
+    @AfterClass
+    public static void tearDown()
+    {
+        asciidoctorPool.close();
+    }
+
+    /**
+     * Test the basic specification
+     * 
+     * @throws IOException If an IO error occurs
+     */
+    @Test
+    public void testBasic() throws IOException
+    {
+        assertEnginesMatch(TestSpecifications.read("Basic.adoc"));
+    }
+
+    /**
+     * Test a specification with elements that look like sections or tables,
+     * but are not (comments, listings, discrete headings, nested blocks),
+     * as well as attribute references and replacements in titles
+     * 
+     * @throws IOException If an IO error occurs
+     */
+    @Test
+    public void testTricky() throws IOException
+    {
+        assertEnginesMatch(TestSpecifications.read("Tricky.adoc"));
+    }
+
+    /**
+     * Test a specification with a document header with author and revision
+     * lines, setext section titles, conditional directives, anchors and a
+     * level offset
+     * 
+     * @throws IOException If an IO error occurs
+     */
+    @Test
+    public void testEdge() throws IOException
+    {
+        assertEnginesMatch(TestSpecifications.read("Edge.adoc"));
+    }
+
+    /**
+     * Test a specification with row spans, a table that is not an
+     * "Operation" table, and rows that can not be interpreted
+     * 
+     * @throws IOException If an IO error occurs
+     */
+    @Test
+    public void testRowSpansAndInvalidTables() throws IOException
+    {
+        assertEnginesMatch(TestSpecifications.read("RowSpans.adoc"));
+    }
+
+    /**
+     * Test a synthetic specification from the {@link SpecificationGenerator}
+     * 
+     * @throws IOException If an IO error occurs
+     */
+    @Test
+    public void testSynthetic() throws IOException
+    {
+        assertEnginesMatch(TestSpecifications.generate(300));
+    }
+
+    /**
+     * Test the actual specification, if it is present at the default input
+     * location of the {@link LeztewMain}. The test is skipped otherwise.
+     * 
+     * @throws IOException If an IO error occurs
+     */
+    @Test
+    public void testSpecification() throws IOException
+    {
+        File file = new File("./data/Specification.adoc");
+        assumeTrue(file.isFile());
+        assertEnginesMatch(ByteBuffer.wrap(Files.readAllBytes(file.toPath())));
+        assertEnginesMatch(LeztewMain.readSpecification(file, true));
+    }
+
+    /**
+     * Test that attribute names and conditional directives are matched
+     * independent of the default locale
+     * 
+     * @throws IOException If an IO error occurs
+     */
+    @Test
+    public void testTurkishLocale() throws IOException
+    {
+        Locale locale = Locale.getDefault();
+        try
+        {
+            Locale.setDefault(new Locale("tr", "TR"));
+            assertEnginesMatch(TestSpecifications.read("Locale.adoc"));
+        }
+        finally
+        {
+            Locale.setDefault(locale);
+        }
+    }
+
+    /**
+     * Test that an <code>ifeval</code> directive causes an
+     * {@link UnsupportedSyntaxException} in the scanner, and that the
+     * {@link LeztewMain} falls back to Asciidoctor for it
+     * 
+     * @throws IOException If an IO error occurs
+     */
+    @Test
+    public void testIfEvalFallsBackToAsciidoctor() throws IOException
+    {
+        ByteBuffer data = TestSpecifications.read("IfEval.adoc");
+        try
+        {
+            new SpecificationScanner().scan(SpecificationInput.newReader(data));
+            throw new AssertionError("Expected UnsupportedSyntaxException");
+        }
+        catch (UnsupportedSyntaxException e)
+        {
+            assertTrue(e.getMessage().contains("ifeval"));
+        }
+
+        File file = folder.newFile("IfEval.adoc");
+        Files.write(file.toPath(), data.array());
+        assertNull(LeztewMain.tryScan(null, file, false));
+        assertFalse(LeztewMain.tryScanStreaming(file,
+            new File(folder.getRoot(), "nodes.json"), false));
+
+        Category nodes = LeztewMain.read(asciidoctorPool, null, 1, file, false);
+        assertEquals(4, Categories.countNodes(nodes));
+    }
+
+    /**
+     * Test the known difference between the engines: Inline formatting in
+     * section titles is not converted by the scanner, but left as it is.
+     * (The {@link LeztewConverter} does not receive proper text for it
+     * either). Apart from the affected titles, the results are the same.
+     * 
+     * @throws IOException If an IO error occurs
+     */
+    @Test
+    public void testInlineFormattingInTitlesDiffers() throws IOException
+    {
+        ByteBuffer data = TestSpecifications.read("InlineTitles.adoc");
+        Category asciidoctorNodes =
+            LeztewMain.convert(asciidoctorPool, null, null, 1, data);
+        Category scannerNodes = new SpecificationScanner()
+            .scan(SpecificationInput.newReader(data));
+        assertNotEquals(TestSpecifications.toJson(asciidoctorNodes),
+            TestSpecifications.toJson(scannerNodes));
+
+        Category group = scannerNodes.getChildren().get(0).getChildren().get(0);
+        assertEquals("The `math` *Constants*", group.getName());
+        assertEquals("_Euler&#8217;s_ number",
+            group.getNodes().get(0).getTitle());
+
+        assertEquals(TestSpecifications.toJson(withoutTitles(asciidoctorNodes)),
+            TestSpecifications.toJson(withoutTitles(scannerNodes)));
+    }
+
+    /**
+     * Extract the nodes from the given data with Asciidoctor and with the
+     * {@link SpecificationScanner}, and assert that the JSON representations
+     * are equal
+     * 
+     * @param data The specification data
+     * @throws IOException If an IO error occurs
+     */
+    private static void assertEnginesMatch(ByteBuffer data) throws IOException
+    {
+        Category asciidoctorNodes =
+            LeztewMain.convert(asciidoctorPool, null, null, 1, data);
+        Category scannerNodes = new SpecificationScanner()
+            .scan(SpecificationInput.newReader(data));
+        assertEquals(TestSpecifications.toJson(asciidoctorNodes),
+            TestSpecifications.toJson(scannerNodes));
+    }
+
+    /**
+     * Returns a copy of the given {@link Category}, where the names of all
+     * categories and the titles of all nodes are <code>null</code>
+     * 
+     * @param category The {@link Category}
+     * @return The copy
+     */
+    private static Category withoutTitles(Category category)
+    {
+        Category result = new Category(category);
+        clearTitles(result);
+        return result;
+    }
+
+    /**
+     * Set the names of the given category and all its descendants, and the
+     * titles of all their nodes, to <code>null</code>
+     * 
+     * @param category The {@link Category}
+     */
+    private static void clearTitles(Category category)
+    {
+        category.setName(null);
+        for (Node node : category.getNodes())
+        {
+            node.setTitle(null);
+        }
+        for (Category child : category.getChildren())
+        {
+            clearTitles(child);
+        }
+    }
+}
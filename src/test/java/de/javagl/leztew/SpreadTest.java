@@ -0,0 +1,211 @@
+/*
+ * www.javagl.de - leztew
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.leztew;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests that the eager and lazy spreading of type templates, the
+ * {@link NodeCatalog} and the {@link JsonOutputIndex} agree about which
+ * nodes are spread into instances
+ */
+public class SpreadTest
+{
+    /**
+     * The folder for the catalog and index files
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Test that a template with a single type, like <code>float{3}</code>,
+     * is not spread, and keeps its type, in all spreading paths
+     */
+    @Test
+    public void testSingleValueTemplateIsNotSpread()
+    {
+        Category category = createCategory();
+        for (boolean createSubCategories : new boolean[] { false, true })
+        {
+            Category eager =
+                Categories.spreadTypes(category, createSubCategories);
+            String expected = TestSpecifications.toJson(eager);
+            assertEquals(expected, TestSpecifications.toJson(
+                Categories.spreadTypes(category, createSubCategories, 4)));
+            assertEquals(expected, TestSpecifications.toJson(
+                new SpreadCategory(category, createSubCategories)));
+            Category[] singlePass =
+                Categories.spreadTypesSinglePass(category);
+            assertEquals(expected, TestSpecifications.toJson(
+                singlePass[createSubCategories ? 1 : 0]));
+        }
+
+        Category spread = Categories.spreadTypes(category, false);
+        List<Node> nodes = spread.getNodes();
+        assertEquals(4, nodes.size());
+        assertEquals("float{3}",
+            nodes.get(0).getInputValueSockets().get(0).getType());
+        assertEquals("float2",
+            nodes.get(1).getInputValueSockets().get(0).getType());
+        assertEquals("float3",
+            nodes.get(2).getInputValueSockets().get(0).getType());
+        assertEquals("bool",
+            nodes.get(3).getInputValueSockets().get(0).getType());
+    }
+
+    /**
+     * Test that the {@link NodeCatalog} stores a node with a single-type
+     * template with the empty template value, and keeps its type
+     * 
+     * @throws IOException If an IO error occurs
+     */
+    @Test
+    public void testCatalogKeysSingleValueTemplateByEmptyString()
+        throws IOException
+    {
+        File file = folder.newFile("nodes.catalog");
+        NodeCatalogWriter.write(createCategory(), file);
+        NodeCatalog catalog = NodeCatalog.open(file);
+
+        assertEquals(4, catalog.getInstanceCount());
+        Node single = catalog.getInstance("math/single", "");
+        assertNotNull(single);
+        assertEquals("float{3}",
+            single.getInputValueSockets().get(0).getType());
+        assertNull(catalog.getInstance("math/single", "float3"));
+
+        Node multi = catalog.getInstance("math/multi", "float3");
+        assertNotNull(multi);
+        assertEquals("float3",
+            multi.getInputValueSockets().get(0).getType());
+        assertNull(catalog.getInstance("math/multi", ""));
+    }
+
+    /**
+     * Test that the {@link JsonOutputIndex} stores a node with a
+     * single-type template with the empty template value, and keeps its
+     * type
+     * 
+     * @throws IOException If an IO error occurs
+     */
+    @Test
+    public void testIndexKeysSingleValueTemplateByEmptyString()
+        throws IOException
+    {
+        Category category = createCategory();
+        File file = folder.newFile("nodes-spread.json");
+        LeztewMain.writeIndexed(new SpreadCategory(category, false),
+            category, file);
+        try (JsonOutputIndex index = JsonOutputIndex.open(file))
+        {
+            Node single = index.readInstance("math/single", "");
+            assertNotNull(single);
+            assertEquals("float{3}",
+                single.getInputValueSockets().get(0).getType());
+            assertNull(index.readInstance("math/single", "float3"));
+
+            Node multi = index.readInstance("math/multi", "float2");
+            assertNotNull(multi);
+            assertEquals("float2",
+                multi.getInputValueSockets().get(0).getType());
+            assertNull(index.readInstance("math/multi", ""));
+        }
+    }
+
+    /**
+     * Test that the table of compiled {@link TypeTemplate} instances does
+     * not grow beyond its maximum size, that types which are not templates
+     * are not stored, and that templates are still compiled correctly when
+     * the table is full
+     */
+    @Test
+    public void testTypeTemplatesAreBounded()
+    {
+        TypeTemplate plain = TypeTemplate.of("bool");
+        assertSame(plain, TypeTemplate.of("int"));
+        assertEquals(0, plain.getValues().size());
+
+        for (int i = 0; i < 2 * TypeTemplate.MAX_TEMPLATES; i++)
+        {
+            TypeTemplate.of("type" + i + "N");
+            TypeTemplate.of("plain" + i);
+        }
+        assertTrue(TypeTemplate.size() <= TypeTemplate.MAX_TEMPLATES);
+        assertEquals(Arrays.asList("x2", "x3"),
+            TypeTemplate.of("x{2|3}").getValues());
+    }
+
+    /**
+     * Creates a category with a node that has a template with a single
+     * type, a node that has a template with two types, and a node
+     * without a template
+     * 
+     * @return The category
+     */
+    private static Category createCategory()
+    {
+        List<Node> nodes = new ArrayList<Node>();
+        nodes.add(createNode("math/single", "float{3}"));
+        nodes.add(createNode("math/multi", "float{2|3}"));
+        nodes.add(createNode("math/plain", "bool"));
+        return new Category("Math", nodes, new ArrayList<Category>());
+    }
+
+    /**
+     * Creates a node with the given name, and one input value socket and
+     * one output value socket with the given type
+     * 
+     * @param name The name
+     * @param type The type
+     * @return The node
+     */
+    private static Node createNode(String name, String type)
+    {
+        return new Node("Node " + name, name, "The " + name + " node",
+            new ArrayList<ConfigurationElement>(),
+            new ArrayList<Socket>(),
+            new ArrayList<Socket>(
+                Arrays.asList(new Socket(type, "a", "The input"))),
+            new ArrayList<Socket>(),
+            new ArrayList<Socket>(
+                Arrays.asList(new Socket(type, "value", "The result"))));
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * www.javagl.de - leztew
+ *
+ * Copyright 2025 Marco Hutter - http://www.javagl.de
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.leztew;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+
+/**
+ * Utility methods for the tests that operate on specifications
+ */
+class TestSpecifications
+{
+    /**
+     * Read the specification with the given name from the test resources
+     * 
+     * @param name The name, like <code>Basic.adoc</code>
+     * @return The specification data
+     * @throws UncheckedIOException If the resource cannot be read
+     */
+    static ByteBuffer read(String name)
+    {
+        try (InputStream inputStream =
+            TestSpecifications.class.getResourceAsStream(name))
+        {
+            if (inputStream == null)
+            {
+                throw new IOException("Resource not found: " + name);
+            }
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            while (true)
+            {
+                int read = inputStream.read(buffer);
+                if (read < 0)
+                {
+                    break;
+                }
+                baos.write(buffer, 0, read);
+            }
+            return ByteBuffer.wrap(baos.toByteArray());
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Generate a synthetic specification with the given number of nodes,
+     * using the default settings of the {@link SpecificationGenerator}
+     * 
+     * @param nodeCount The number of nodes
+     * @return The specification data
+     * @throws UncheckedIOException If an IO error occurs
+     */
+    static ByteBuffer generate(int nodeCount)
+    {
+        SpecificationGenerator generator = new SpecificationGenerator();
+        generator.setNodeCount(nodeCount);
+        StringWriter writer = new StringWriter();
+        try
+        {
+            generator.generate(writer);
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+        return ByteBuffer
+            .wrap(writer.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Returns the JSON representation of the given {@link Category}, as it
+     * is written into the output files
+     * 
+     * @param category The {@link Category}
+     * @return The JSON string
+     * @throws UncheckedIOException If the category cannot be serialized
+     */
+    static String toJson(Category category)
+    {
+        try
+        {
+            return OutputFormat.JSON.createWriter(false)
+                .writeValueAsString(category);
+        }
+        catch (JsonProcessingException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Private constructor to prevent instantiation
+     */
+    private TestSpecifications()
+    {
+        // Private constructor to prevent instantiation
+    }
+}